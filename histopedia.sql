@@ -28,7 +28,7 @@ SET time_zone = "+00:00";
 --
 
 CREATE TABLE `books` (
-  `id` varchar(6) NOT NULL,
+  `id` varchar(12) NOT NULL,
   `title` varchar(100) NOT NULL,
   `genre` varchar(25) NOT NULL,
   `description` varchar(500) NOT NULL,
@@ -57,10 +57,10 @@ INSERT INTO `books` (`id`, `title`, `genre`, `description`, `author`, `publisher
 --
 
 CREATE TABLE `borrowing_records` (
-  `id` varchar(6) NOT NULL,
-  `book_id` varchar(6) NOT NULL,
-  `patron_id` varchar(6) NOT NULL,
-  `librarian_id` varchar(6) DEFAULT NULL,
+  `id` varchar(12) NOT NULL,
+  `book_id` varchar(12) NOT NULL,
+  `patron_id` varchar(12) NOT NULL,
+  `librarian_id` varchar(12) DEFAULT NULL,
   `borrowing_date` date NOT NULL,
   `due_date` date NOT NULL,
   `return_date` date DEFAULT NULL,
@@ -70,12 +70,32 @@ CREATE TABLE `borrowing_records` (
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `id_sequences`
+--
+
+CREATE TABLE `id_sequences` (
+  `prefix` varchar(3) NOT NULL,
+  `next_value` bigint(20) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+--
+-- Dumping data for table `id_sequences`
+--
+
+INSERT INTO `id_sequences` (`prefix`, `next_value`) VALUES
+('BID', 6),
+('RID', 1),
+('UID', 2);
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `users`
 --
 
 CREATE TABLE `users` (
-  `id` varchar(6) NOT NULL,
+  `id` varchar(12) NOT NULL,
   `access_level` int(11) NOT NULL,
   `username` varchar(50) NOT NULL,
   `email_address` varchar(50) NOT NULL,
@@ -97,7 +117,11 @@ INSERT INTO `users` (`id`, `access_level`, `username`, `email_address`, `passwor
 -- Indexes for table `books`
 --
 ALTER TABLE `books`
-  ADD PRIMARY KEY (`id`);
+  ADD PRIMARY KEY (`id`),
+  ADD KEY `title` (`title`),
+  ADD KEY `author` (`author`),
+  ADD KEY `genre` (`genre`),
+  ADD KEY `isbn` (`isbn`);
 
 --
 -- Indexes for table `borrowing_records`
@@ -105,14 +129,24 @@ ALTER TABLE `books`
 ALTER TABLE `borrowing_records`
   ADD PRIMARY KEY (`id`),
   ADD KEY `book_id` (`book_id`),
-  ADD KEY `patron_id` (`patron_id`),
+  ADD KEY `patron_id` (`patron_id`,`borrowing_date`,`id`),
+  ADD KEY `patron_status` (`patron_id`,`record_status`,`book_id`),
+  ADD KEY `borrowing_date` (`borrowing_date`,`id`),
+  ADD KEY `record_status` (`record_status`,`due_date`),
   ADD KEY `librarian_id` (`librarian_id`);
 
+--
+-- Indexes for table `id_sequences`
+--
+ALTER TABLE `id_sequences`
+  ADD PRIMARY KEY (`prefix`);
+
 --
 -- Indexes for table `users`
 --
 ALTER TABLE `users`
-  ADD PRIMARY KEY (`id`);
+  ADD PRIMARY KEY (`id`),
+  ADD UNIQUE KEY `email_address` (`email_address`);
 
 --
 -- Constraints for dumped tables
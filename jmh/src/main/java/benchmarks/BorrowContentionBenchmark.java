@@ -0,0 +1,160 @@
+package benchmarks;
+
+import controllers.BookController;
+import controllers.BorrowResult;
+import controllers.BorrowingRecordController;
+import controllers.UserController;
+import factories.BiographyBookFactory;
+import factories.PatronFactory;
+import models.Book;
+import singleton.Database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The BorrowContentionBenchmark class has every simulated patron try to borrow
+ * the same handful of popular titles at the same moment, then checks that each
+ * title was lent exactly once and reports the latency and throughput of the
+ * borrow transaction under contention.
+ * <p>
+ * Usage: {@code BorrowContentionBenchmark [patrons] [titles]} against the database
+ * configured through the histopedia.db.* system properties. The rows it creates
+ * are removed again when it finishes.
+ */
+public class BorrowContentionBenchmark
+{
+
+    // Fields
+
+    private static final String BOOK_PREFIX = "BCB";
+    private static final String PATRON_PREFIX = "BCP";
+
+    // Program
+
+    public static void main(String[] args) throws Exception
+    {
+        int patronCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int titleCount = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Database database = Database.getInstance();
+        BookController bookController = new BookController();
+        BorrowingRecordController borrowingRecordController = new BorrowingRecordController();
+        UserController userController = new UserController();
+
+        cleanUp(database);
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < titleCount; i++)
+        {
+            books.add(new BiographyBookFactory().createBook(String.format("%s%03d", BOOK_PREFIX, i),
+                    "Contended Title " + i, "Biography", "Benchmark book.", "Benchmark", "Benchmark",
+                    2000, "000-" + i, "Available"));
+        }
+        bookController.addBooks(books);
+
+        for (int i = 0; i < patronCount; i++)
+        {
+            userController.addUser(new PatronFactory().createUser(String.format("%s%03d", PATRON_PREFIX, i),
+                    "patron" + i, "patron" + i + "@benchmark.local", "benchmark"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(patronCount);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        for (int i = 0; i < patronCount; i++)
+        {
+            String patronId = String.format("%s%03d", PATRON_PREFIX, i);
+            List<Book> order = new ArrayList<>(books);
+            Collections.shuffle(order);
+
+            futures.add(executor.submit(() ->
+            {
+                startGate.await();
+
+                long[] samples = new long[order.size() * 2];
+                for (int j = 0; j < order.size(); j++)
+                {
+                    long start = System.nanoTime();
+                    BorrowResult result = borrowingRecordController.borrow(order.get(j).getId(), patronId);
+                    samples[j * 2] = System.nanoTime() - start;
+                    samples[j * 2 + 1] = result.getStatus().ordinal();
+                }
+
+                return samples;
+            }));
+        }
+
+        long wallStart = System.nanoTime();
+        startGate.countDown();
+
+        Map<BorrowResult.Status, Integer> outcomes = new EnumMap<>(BorrowResult.Status.class);
+        long[] latencies = new long[patronCount * titleCount];
+        int sampleCount = 0;
+        for (Future<long[]> future : futures)
+        {
+            long[] samples = future.get();
+            for (int j = 0; j < samples.length; j += 2)
+            {
+                latencies[sampleCount++] = samples[j];
+                outcomes.merge(BorrowResult.Status.values()[(int) samples[j + 1]], 1, Integer::sum);
+            }
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        executor.shutdown();
+
+        Arrays.sort(latencies, 0, sampleCount);
+        int borrowed = outcomes.getOrDefault(BorrowResult.Status.BORROWED, 0);
+
+        System.out.println("Borrow attempts: " + sampleCount + " (" + patronCount + " patrons x " + titleCount + " titles)");
+        System.out.println("Outcomes: " + outcomes);
+        System.out.printf("Throughput: %.0f attempts/s%n", sampleCount * 1_000_000_000.0 / wallNanos);
+        System.out.printf("Latency: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(latencies, sampleCount, 0.50) / 1e6,
+                percentile(latencies, sampleCount, 0.99) / 1e6,
+                latencies[sampleCount - 1] / 1e6);
+        System.out.println(borrowed == titleCount
+                ? "OK: every title was lent exactly once."
+                : "FAILED: expected " + titleCount + " successful borrows but saw " + borrowed + ".");
+
+        cleanUp(database);
+        System.exit(borrowed == titleCount ? 0 : 1);
+    }
+
+    // Utilities
+
+    private static long percentile(long[] sorted, int count, double fraction)
+    {
+        return sorted[Math.min(count - 1, (int) Math.ceil(fraction * count) - 1)];
+    }
+
+    private static void cleanUp(Database database) throws SQLException
+    {
+        String[] queries = {
+                "DELETE FROM borrowing_records WHERE book_id LIKE ?",
+                "DELETE FROM books WHERE id LIKE ?",
+                "DELETE FROM users WHERE id LIKE ?"
+        };
+        String[] prefixes = { BOOK_PREFIX, BOOK_PREFIX, PATRON_PREFIX };
+
+        for (int i = 0; i < queries.length; i++)
+        {
+            try (PreparedStatement statement = database.prepareStatement(queries[i], prefixes[i] + "%"))
+            {
+                statement.executeUpdate();
+            }
+        }
+    }
+
+}
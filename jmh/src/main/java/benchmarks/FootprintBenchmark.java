@@ -0,0 +1,120 @@
+package benchmarks;
+
+import factories.BiographyBookFactory;
+import factories.BookFactory;
+import factories.FactoryRegistry;
+import factories.MilitaryHistoryBookFactory;
+import factories.RevolutionBookFactory;
+import models.Book;
+import models.BorrowingRecord;
+
+import java.time.LocalDate;
+import java.util.function.IntFunction;
+
+/**
+ * The FootprintBenchmark class measures how much heap each kind of cached entity
+ * retains: a BiographyBook, a MilitaryHistoryBook, a RevolutionBook and a
+ * BorrowingRecord. Every column is built as a fresh object, the way a JDBC driver
+ * returns it for each row, so the figures include the strings and dates an entity
+ * keeps for itself as well as the object itself.
+ * <p>
+ * The heap is measured after repeated garbage collections before and after the
+ * entities are created, so run it with a fixed heap, for example -Xms2g -Xmx2g,
+ * and a single thread of its own.
+ * <p>
+ * Usage: {@code FootprintBenchmark [count]}
+ */
+public class FootprintBenchmark
+{
+
+    // Fields
+
+    private static final int PUBLISHERS = 64;
+    private static final int LOAN_DAYS = 14;
+
+    // Program
+
+    public static void main(String[] args) throws Exception
+    {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("Measuring the retained heap of " + count + " objects of each kind.");
+        report("BiographyBook", count, i -> book(new BiographyBookFactory(), "Biography", i));
+        report("MilitaryHistoryBook", count, i -> book(new MilitaryHistoryBookFactory(), "Military History", i));
+        report("RevolutionBook", count, i -> book(new RevolutionBookFactory(), "Revolution", i));
+        report("BorrowingRecord", count, FootprintBenchmark::borrowingRecord);
+    }
+
+    // Utilities
+
+    private static void report(String name, int count, IntFunction<Object> creator) throws InterruptedException
+    {
+        creator.apply(0);
+
+        Object[] objects = new Object[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; i++)
+        {
+            objects[i] = creator.apply(i);
+        }
+        long after = usedHeap();
+
+        System.out.printf("%-20s %,8.1f bytes per object%n", name, (double) (after - before) / count);
+
+        if (objects[count - 1] == null)
+        {
+            throw new IllegalStateException("The objects were collected before they were measured.");
+        }
+    }
+
+    private static Book book(BookFactory factory, String genre, int i)
+    {
+        return factory.createBook(
+                fresh("BID" + i),
+                fresh("Title " + i),
+                fresh(genre),
+                fresh("A description of book " + i + " that is somewhat longer than the other columns."),
+                fresh(SyntheticCatalog.AUTHORS[i % SyntheticCatalog.AUTHORS.length]),
+                fresh("Publisher " + i % PUBLISHERS),
+                1800 + i % 200,
+                fresh("978-" + i),
+                fresh("Available"));
+    }
+
+    private static BorrowingRecord borrowingRecord(int i)
+    {
+        LocalDate borrowingDate = LocalDate.of(2025, 1, 1).plusDays(i % 365);
+
+        return FactoryRegistry.getBorrowingRecordFactory().createBorrowingRecord(
+                fresh("RID" + i),
+                fresh("BID" + i % 100_000),
+                fresh("UID" + i % 10_000),
+                fresh("UID0001"),
+                fresh("Returned"),
+                java.sql.Date.valueOf(borrowingDate),
+                java.sql.Date.valueOf(borrowingDate.plusDays(LOAN_DAYS)),
+                1,
+                java.sql.Date.valueOf(borrowingDate.plusDays(i % LOAN_DAYS)));
+    }
+
+    /**
+     * Copies a string, as a driver creates a new one for every value it reads.
+     */
+    private static String fresh(String value)
+    {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedHeap() throws InterruptedException
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++)
+        {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,218 @@
+package benchmarks;
+
+import controllers.BookController;
+import mapping.BookRowMapper;
+import mapping.RowMapper;
+import models.Book;
+import models.BookSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import rendering.ConsoleRenderer;
+import rendering.Tables;
+import search.BookIndex;
+import singleton.Database;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The HotPathBenchmarks class measures the throughput of the code paths every
+ * request goes through: mapping rows to books, looking books up, keyword search
+ * through the index and through SQL, allocating identifiers, creating books with
+ * the factories and rendering a page of a listing.
+ * <p>
+ * Unless the histopedia.db.url system property says otherwise, it runs against an
+ * in-memory H2 database in MySQL compatibility mode, which the jmh module has on
+ * its class path. The schema is created by the usual migrations and filled with
+ * generated books, which are removed again at the end of each trial.
+ * <p>
+ * Run it with {@code gradle :jmh:jmh -PjmhArgs=HotPathBenchmarks}; the scores are
+ * written to jmh/build/results/jmh/results.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotPathBenchmarks
+{
+
+    // Fields
+
+    private static final String EMBEDDED_URL =
+            "jdbc:h2:mem:histopedia-benchmarks;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+    private static final String BOOK_PREFIX = "HPB";
+    private static final int MAPPED_ROWS = 100;
+
+    @Param("10000")
+    private int bookCount;
+
+    private Database database;
+    private BookController bookController;
+    private String[] keywords;
+    private BookIndex index;
+    private List<BookSummary> page;
+    private ConsoleRenderer renderer;
+    private RowMapper<Book> mapper;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private int next;
+
+    // Methods
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException
+    {
+        if (System.getProperty("histopedia.db.url") == null)
+        {
+            System.setProperty("histopedia.db.url", EMBEDDED_URL);
+        }
+
+        database = Database.getInstance();
+        bookController = new BookController();
+
+        cleanUp();
+        bookController.importBooks(SyntheticCatalog.books(BOOK_PREFIX, bookCount).iterator());
+
+        // Mapping: the rows of one page of books, read again from the start each time.
+        connection = DriverManager.getConnection(System.getProperty("histopedia.db.url"),
+                System.getProperty("histopedia.db.username", "root"),
+                System.getProperty("histopedia.db.password", ""));
+        statement = connection.prepareStatement(
+                "SELECT * FROM books WHERE id LIKE ? ORDER BY id LIMIT " + MAPPED_ROWS,
+                ResultSet.TYPE_SCROLL_INSENSITIVE,
+                ResultSet.CONCUR_READ_ONLY);
+        statement.setString(1, BOOK_PREFIX + "%");
+        resultSet = statement.executeQuery();
+        mapper = new BookRowMapper();
+
+        // Search: the same queries through the index and through SQL.
+        keywords = SyntheticCatalog.keywords();
+        index = new BookIndex();
+        try (Stream<BookSummary> books = bookController.streamBookSummaries())
+        {
+            index.rebuild(books.iterator());
+        }
+
+        // Rendering: one page of a listing as a table, written to nowhere.
+        page = new ArrayList<>(bookController.getBooksPage(null, 20).getItems());
+        renderer = new ConsoleRenderer(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException
+    {
+        try
+        {
+            resultSet.close();
+            statement.close();
+            connection.close();
+        }
+        finally
+        {
+            cleanUp();
+        }
+    }
+
+    @Benchmark
+    public void mappingBookRowMapper(Blackhole blackhole) throws SQLException
+    {
+        resultSet.beforeFirst();
+        blackhole.consume(mapper.mapAll(resultSet));
+    }
+
+    @Benchmark
+    public void queryGetBookByIsbn(Blackhole blackhole)
+    {
+        blackhole.consume(bookController.getBookByIsbn(SyntheticCatalog.isbnOf(BOOK_PREFIX, next++ % bookCount)));
+    }
+
+    @Benchmark
+    public void queryGetBooksPage(Blackhole blackhole)
+    {
+        blackhole.consume(bookController.getBooksPage(SyntheticCatalog.idOf(BOOK_PREFIX, next++ % bookCount), 20));
+    }
+
+    @Benchmark
+    public void searchIndexTitle(Blackhole blackhole)
+    {
+        blackhole.consume(bookController.searchBooks(BookIndex.Field.TITLE, nextKeyword()));
+    }
+
+    @Benchmark
+    public void searchIndexAnyField(Blackhole blackhole)
+    {
+        blackhole.consume(index.search(nextKeyword()));
+    }
+
+    @Benchmark
+    public void searchSqlTitleLike(Blackhole blackhole)
+    {
+        blackhole.consume(bookController.getBooksByTitle("%" + nextKeyword().replace(' ', '%') + "%"));
+    }
+
+    /**
+     * Identifiers are leased in ranges, so most calls do not reach the database.
+     */
+    @Benchmark
+    public void idsGenerateBookId(Blackhole blackhole)
+    {
+        blackhole.consume(bookController.generateBookId());
+    }
+
+    /**
+     * Entity construction through the factory registered for each genre.
+     */
+    @Benchmark
+    public void factoriesCreateBook(Blackhole blackhole)
+    {
+        blackhole.consume(SyntheticCatalog.book(BOOK_PREFIX, next++));
+    }
+
+    @Benchmark
+    public void renderBookTable(Blackhole blackhole)
+    {
+        blackhole.consume(renderer.table(Tables.BOOK_SUMMARIES, page));
+        renderer.flush();
+    }
+
+    // Utilities
+
+    private String nextKeyword()
+    {
+        return keywords[next++ % keywords.length];
+    }
+
+    private void cleanUp() throws SQLException
+    {
+        try (PreparedStatement delete = database.prepareStatement("DELETE FROM books WHERE id LIKE ?",
+                BOOK_PREFIX + "%"))
+        {
+            delete.executeUpdate();
+        }
+    }
+
+}
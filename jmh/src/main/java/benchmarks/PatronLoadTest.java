@@ -0,0 +1,669 @@
+package benchmarks;
+
+import controllers.BookController;
+import controllers.BorrowResult;
+import controllers.BorrowingRecordController;
+import controllers.ReturnResult;
+import controllers.UserController;
+import factories.LibrarianFactory;
+import factories.PatronFactory;
+import metrics.LatencyHistogram;
+import search.BookIndex;
+import server.JsonWriter;
+import singleton.Database;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The PatronLoadTest class drives the controllers the way the menus and the HTTP
+ * API do, with many simulated patrons and librarians working at once against a
+ * generated catalog, and reports the throughput, the latency of every kind of
+ * action and how many borrow attempts lost the race for a book.
+ * <p>
+ * Patrons log in, search, browse, look at their loans, borrow and return books;
+ * librarians log in, search, look through patrons' records and check returned
+ * books in. Most borrow attempts go to a small set of popular titles, so patrons
+ * compete for the same copies. When the run is over, the database is checked for
+ * books lent twice or marked available while on loan.
+ * <p>
+ * Unless the histopedia.db.url system property says otherwise, it runs against an
+ * in-memory H2 database in MySQL compatibility mode; point it at a local MariaDB
+ * to measure the real thing. The rows it creates are removed again when it
+ * finishes.
+ * <p>
+ * Usage: {@code PatronLoadTest [--patrons n] [--librarians n] [--books n]
+ * [--warmup seconds] [--duration seconds] [--think millis] [--seed n]
+ * [--max-p99 millis] [--min-throughput ops] [--max-failure-rate fraction]
+ * [--output report.json]}. It exits with status 1 when a limit is exceeded or
+ * the data is inconsistent, so it can gate a release.
+ */
+public class PatronLoadTest
+{
+
+    // Constructor
+
+    private PatronLoadTest(int bookCount, long thinkMillis)
+    {
+        this.bookCount = bookCount;
+        this.thinkMillis = thinkMillis;
+
+        bookController = new BookController();
+        borrowingRecordController = new BorrowingRecordController();
+        userController = new UserController();
+
+        stats = new EnumMap<>(Action.class);
+        for (Action action : Action.values())
+        {
+            stats.put(action, new ActionStats());
+        }
+
+        borrowOutcomes = new EnumMap<>(BorrowResult.Status.class);
+        for (BorrowResult.Status status : BorrowResult.Status.values())
+        {
+            borrowOutcomes.put(status, new LongAdder());
+        }
+
+        openLoans = new ConcurrentLinkedQueue<>();
+        keywords = SyntheticCatalog.keywords();
+    }
+
+    // Fields
+
+    private static final String EMBEDDED_URL =
+            "jdbc:h2:mem:histopedia-load;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+    private static final String BOOK_PREFIX = "PLB";
+    private static final String PATRON_PREFIX = "PLP";
+    private static final String LIBRARIAN_PREFIX = "PLL";
+    private static final String PASSWORD = "load-test";
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * The share of borrow attempts going to the popular titles.
+     */
+    private static final double POPULAR_SHARE = 0.8;
+    /**
+     * The popular titles, as a share of the catalog.
+     */
+    private static final double POPULAR_TITLES = 0.02;
+
+    /**
+     * The relative frequency of each patron action.
+     */
+    private static final Map<Action, Integer> PATRON_MIX = new EnumMap<>(Map.of(
+            Action.LOGIN, 5,
+            Action.SEARCH, 40,
+            Action.BROWSE, 15,
+            Action.VIEW_BORROWED, 15,
+            Action.BORROW, 15,
+            Action.RETURN, 10));
+    /**
+     * The relative frequency of each librarian action.
+     */
+    private static final Map<Action, Integer> LIBRARIAN_MIX = new EnumMap<>(Map.of(
+            Action.LOGIN, 5,
+            Action.SEARCH, 25,
+            Action.VIEW_RECORDS, 30,
+            Action.CHECK_IN, 40));
+
+    // Properties
+
+    private final int bookCount;
+    private final long thinkMillis;
+    private final BookController bookController;
+    private final BorrowingRecordController borrowingRecordController;
+    private final UserController userController;
+    private final Map<Action, ActionStats> stats;
+    private final Map<BorrowResult.Status, LongAdder> borrowOutcomes;
+    /**
+     * The IDs of the borrowing records still open, oldest first.
+     */
+    private final Queue<String> openLoans;
+    private final String[] keywords;
+
+    // Program
+
+    public static void main(String[] args) throws Exception
+    {
+        int patronCount = 50;
+        int librarianCount = 5;
+        int bookCount = 2_000;
+        int warmupSeconds = 5;
+        int durationSeconds = 30;
+        long thinkMillis = 0;
+        long seed = 42;
+        double maxP99Millis = Double.MAX_VALUE;
+        double minThroughput = 0;
+        double maxFailureRate = 0.01;
+        String output = null;
+
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--patrons":
+                    patronCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--librarians":
+                    librarianCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--books":
+                    bookCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmupSeconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--duration":
+                    durationSeconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--think":
+                    thinkMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--max-p99":
+                    maxP99Millis = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--min-throughput":
+                    minThroughput = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--max-failure-rate":
+                    maxFailureRate = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--output":
+                    output = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
+
+        if (System.getProperty("histopedia.db.url") == null)
+        {
+            System.setProperty("histopedia.db.url", EMBEDDED_URL);
+        }
+
+        Database database = Database.getInstance();
+        cleanUp(database);
+
+        PatronLoadTest test = new PatronLoadTest(bookCount, thinkMillis);
+        test.seed(patronCount, librarianCount);
+
+        System.out.println("Running " + patronCount + " patrons and " + librarianCount + " librarians against "
+                + bookCount + " books for " + warmupSeconds + " s of warm-up and " + durationSeconds + " s measured.");
+
+        List<String> violations = new ArrayList<>();
+        try
+        {
+            test.run(patronCount, librarianCount, warmupSeconds, durationSeconds, seed);
+            test.printReport(durationSeconds);
+
+            violations.addAll(test.checkLimits(durationSeconds, maxP99Millis, minThroughput, maxFailureRate));
+            violations.addAll(test.checkConsistency(database));
+
+            if (output != null)
+            {
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        Files.newOutputStream(Paths.get(output)), StandardCharsets.UTF_8)))
+                {
+                    test.writeJson(writer, durationSeconds, violations);
+                }
+                System.out.println("Report written to " + output + ".");
+            }
+        }
+        finally
+        {
+            cleanUp(database);
+        }
+
+        if (violations.isEmpty())
+        {
+            System.out.println("PASSED");
+        }
+        else
+        {
+            violations.forEach(violation -> System.out.println("FAILED: " + violation));
+        }
+
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    // Methods
+
+    private void seed(int patronCount, int librarianCount)
+    {
+        bookController.importBooks(SyntheticCatalog.books(BOOK_PREFIX, bookCount).iterator());
+
+        for (int i = 0; i < patronCount; i++)
+        {
+            userController.addUser(new PatronFactory().createUser(
+                    SyntheticCatalog.idOf(PATRON_PREFIX, i), "patron" + i, emailOf(PATRON_PREFIX, i), PASSWORD));
+        }
+        for (int i = 0; i < librarianCount; i++)
+        {
+            userController.addUser(new LibrarianFactory().createUser(
+                    SyntheticCatalog.idOf(LIBRARIAN_PREFIX, i), "librarian" + i, emailOf(LIBRARIAN_PREFIX, i), PASSWORD));
+        }
+
+        bookController.rebuildSearchIndex();
+    }
+
+    private void run(int patronCount, int librarianCount, int warmupSeconds, int durationSeconds, long seed)
+            throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(patronCount + librarianCount);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long measureFromNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long endNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < patronCount + librarianCount; i++)
+        {
+            boolean isLibrarian = i >= patronCount;
+            Session session = isLibrarian
+                    ? new Session(LIBRARIAN_PREFIX, i - patronCount, LIBRARIAN_MIX, seeds.split())
+                    : new Session(PATRON_PREFIX, i, PATRON_MIX, seeds.split());
+
+            futures.add(executor.submit(() ->
+            {
+                startGate.await();
+                session.run(patronCount, measureFromNanos, endNanos);
+                return null;
+            }));
+        }
+
+        startGate.countDown();
+        for (Future<?> future : futures)
+        {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    private void printReport(int durationSeconds)
+    {
+        long total = 0;
+        long failures = 0;
+
+        System.out.printf("%-14s %10s %9s %9s %9s %9s %9s %9s%n",
+                "action", "count", "failed", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<Action, ActionStats> entry : stats.entrySet())
+        {
+            ActionStats actionStats = entry.getValue();
+            LatencyHistogram latency = actionStats.latency;
+            if (latency.getCount() == 0)
+            {
+                continue;
+            }
+
+            total += latency.getCount();
+            failures += actionStats.failures.sum();
+            System.out.printf("%-14s %10d %9d %9.1f %9.3f %9.3f %9.3f %9.3f%n",
+                    entry.getKey().name().toLowerCase(),
+                    latency.getCount(),
+                    actionStats.failures.sum(),
+                    latency.getCount() / (double) durationSeconds,
+                    latency.getPercentileNanos(50) / 1e6,
+                    latency.getPercentileNanos(95) / 1e6,
+                    latency.getPercentileNanos(99) / 1e6,
+                    latency.getMaxNanos() / 1e6);
+        }
+
+        System.out.printf("Throughput: %.1f actions/s, %d failed%n", total / (double) durationSeconds, failures);
+        System.out.println("Borrow attempts: " + borrowOutcomes.get(BorrowResult.Status.BORROWED).sum() + " borrowed, "
+                + borrowOutcomes.get(BorrowResult.Status.UNAVAILABLE).sum() + " lost the race or found the book lent out, "
+                + borrowOutcomes.get(BorrowResult.Status.NOT_FOUND).sum() + " not found, "
+                + borrowOutcomes.get(BorrowResult.Status.FAILED).sum() + " failed");
+    }
+
+    private List<String> checkLimits(int durationSeconds, double maxP99Millis, double minThroughput, double maxFailureRate)
+    {
+        List<String> violations = new ArrayList<>();
+
+        long total = 0;
+        long failures = 0;
+        for (Map.Entry<Action, ActionStats> entry : stats.entrySet())
+        {
+            LatencyHistogram latency = entry.getValue().latency;
+            total += latency.getCount();
+            failures += entry.getValue().failures.sum();
+
+            double p99Millis = latency.getPercentileNanos(99) / 1e6;
+            if (p99Millis > maxP99Millis)
+            {
+                violations.add(String.format("p99 of %s is %.3f ms, above the limit of %.3f ms.",
+                        entry.getKey().name().toLowerCase(), p99Millis, maxP99Millis));
+            }
+        }
+
+        double throughput = total / (double) durationSeconds;
+        if (throughput < minThroughput)
+        {
+            violations.add(String.format("Throughput is %.1f actions/s, below the limit of %.1f.", throughput, minThroughput));
+        }
+
+        double failureRate = total == 0 ? 1 : failures / (double) total;
+        if (failureRate > maxFailureRate)
+        {
+            violations.add(String.format("%.2f%% of actions failed, above the limit of %.2f%%.",
+                    failureRate * 100, maxFailureRate * 100));
+        }
+
+        return violations;
+    }
+
+    private List<String> checkConsistency(Database database) throws SQLException
+    {
+        List<String> violations = new ArrayList<>();
+
+        long doubleLent = count(database, "SELECT COUNT(*) FROM (SELECT book_id FROM borrowing_records " +
+                "WHERE book_id LIKE ? AND record_status = 'Active' GROUP BY book_id HAVING COUNT(*) > 1) lent");
+        if (doubleLent > 0)
+        {
+            violations.add(doubleLent + " books have more than one open loan.");
+        }
+
+        long availableOnLoan = count(database, "SELECT COUNT(*) FROM books WHERE id LIKE ? AND status = 'Available' " +
+                "AND EXISTS (SELECT 1 FROM borrowing_records WHERE book_id = books.id AND record_status = 'Active')");
+        if (availableOnLoan > 0)
+        {
+            violations.add(availableOnLoan + " books are marked available while on loan.");
+        }
+
+        long borrowedWithoutLoan = count(database, "SELECT COUNT(*) FROM books WHERE id LIKE ? AND status = 'Borrowed' " +
+                "AND NOT EXISTS (SELECT 1 FROM borrowing_records WHERE book_id = books.id AND record_status = 'Active')");
+        if (borrowedWithoutLoan > 0)
+        {
+            violations.add(borrowedWithoutLoan + " books are marked borrowed without an open loan.");
+        }
+
+        return violations;
+    }
+
+    private void writeJson(Writer writer, int durationSeconds, List<String> violations) throws IOException
+    {
+        JsonWriter json = new JsonWriter();
+        json.beginObject()
+                .member("durationSeconds", durationSeconds)
+                .name("actions").beginArray();
+        for (Map.Entry<Action, ActionStats> entry : stats.entrySet())
+        {
+            LatencyHistogram latency = entry.getValue().latency;
+            json.beginObject()
+                    .member("action", entry.getKey().name().toLowerCase())
+                    .member("count", latency.getCount())
+                    .member("failures", entry.getValue().failures.sum())
+                    .name("throughput").value(latency.getCount() / (double) durationSeconds)
+                    .name("p50Millis").value(latency.getPercentileNanos(50) / 1e6)
+                    .name("p95Millis").value(latency.getPercentileNanos(95) / 1e6)
+                    .name("p99Millis").value(latency.getPercentileNanos(99) / 1e6)
+                    .name("maxMillis").value(latency.getMaxNanos() / 1e6)
+                    .endObject();
+        }
+        json.endArray()
+                .name("borrowOutcomes").beginObject();
+        for (Map.Entry<BorrowResult.Status, LongAdder> entry : borrowOutcomes.entrySet())
+        {
+            json.member(entry.getKey().name().toLowerCase(), entry.getValue().sum());
+        }
+        json.endObject()
+                .name("violations").beginArray();
+        for (String violation : violations)
+        {
+            json.value(violation);
+        }
+        json.endArray()
+                .member("passed", violations.isEmpty())
+                .endObject();
+
+        json.writeTo(writer);
+        writer.write(System.lineSeparator());
+        writer.flush();
+    }
+
+    // Utilities
+
+    private static String emailOf(String prefix, int i)
+    {
+        return prefix.toLowerCase() + i + "@load.test";
+    }
+
+    private static long count(Database database, String query) throws SQLException
+    {
+        try (PreparedStatement statement = database.prepareStatement(query, BOOK_PREFIX + "%"))
+        {
+            ResultSet results = statement.executeQuery();
+            results.next();
+            return results.getLong(1);
+        }
+    }
+
+    private static void cleanUp(Database database) throws SQLException
+    {
+        String[] queries = {
+                "DELETE FROM borrowing_records WHERE book_id LIKE ?",
+                "DELETE FROM books WHERE id LIKE ?",
+                "DELETE FROM users WHERE id LIKE ?",
+                "DELETE FROM users WHERE id LIKE ?"
+        };
+        String[] prefixes = { BOOK_PREFIX, BOOK_PREFIX, PATRON_PREFIX, LIBRARIAN_PREFIX };
+
+        for (int i = 0; i < queries.length; i++)
+        {
+            try (PreparedStatement statement = database.prepareStatement(queries[i], prefixes[i] + "%"))
+            {
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    // Nested Classes
+
+    private enum Action
+    {
+        LOGIN,
+        SEARCH,
+        BROWSE,
+        VIEW_BORROWED,
+        BORROW,
+        RETURN,
+        VIEW_RECORDS,
+        CHECK_IN
+    }
+
+    private static final class ActionStats
+    {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+    }
+
+    /**
+     * One simulated user, picking actions at random in the proportions of its role.
+     */
+    private final class Session
+    {
+
+        private Session(String prefix, int number, Map<Action, Integer> mix, SplittableRandom random)
+        {
+            this.id = SyntheticCatalog.idOf(prefix, number);
+            this.emailAddress = emailOf(prefix, number);
+            this.random = random;
+
+            actions = mix.keySet().toArray(new Action[0]);
+            cumulativeWeights = new int[actions.length];
+            int total = 0;
+            for (int i = 0; i < actions.length; i++)
+            {
+                total += mix.get(actions[i]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        private final String id;
+        private final String emailAddress;
+        private final SplittableRandom random;
+        private final Action[] actions;
+        private final int[] cumulativeWeights;
+        private boolean isMeasuring;
+
+        private void run(int patronCount, long measureFromNanos, long endNanos) throws InterruptedException
+        {
+            while (true)
+            {
+                Action action = pick();
+
+                long start = System.nanoTime();
+                if (start >= endNanos)
+                {
+                    return;
+                }
+
+                isMeasuring = start >= measureFromNanos;
+                Boolean isSucceeded = perform(action, patronCount);
+                long elapsed = System.nanoTime() - start;
+
+                if (isSucceeded != null && isMeasuring)
+                {
+                    ActionStats actionStats = stats.get(action);
+                    actionStats.latency.record(elapsed);
+                    if (!isSucceeded)
+                    {
+                        actionStats.failures.increment();
+                    }
+                }
+
+                if (thinkMillis > 0)
+                {
+                    Thread.sleep(random.nextLong(thinkMillis * 2 + 1));
+                }
+            }
+        }
+
+        private Action pick()
+        {
+            int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < actions.length; i++)
+            {
+                if (draw < cumulativeWeights[i])
+                {
+                    return actions[i];
+                }
+            }
+
+            return actions[actions.length - 1];
+        }
+
+        /**
+         * Performs an action.
+         *
+         * @return whether the action succeeded, or null if there was nothing to do
+         */
+        private Boolean perform(Action action, int patronCount)
+        {
+            switch (action)
+            {
+                case LOGIN:
+                    return userController.getUserByLoginInfo(emailAddress, PASSWORD) != null;
+                case SEARCH:
+                    search();
+                    return true;
+                case BROWSE:
+                    bookController.getBooksPage(random.nextBoolean()
+                            ? null
+                            : SyntheticCatalog.idOf(BOOK_PREFIX, random.nextInt(bookCount)), PAGE_SIZE);
+                    return true;
+                case VIEW_BORROWED:
+                    bookController.getBorrowedBookSummariesByPatronId(id);
+                    borrowingRecordController.getBorrowingRecordsPage(id, null, PAGE_SIZE);
+                    return true;
+                case BORROW:
+                    return borrow();
+                case RETURN:
+                case CHECK_IN:
+                    return checkIn();
+                case VIEW_RECORDS:
+                    borrowingRecordController.getBorrowingRecordsPage(
+                            SyntheticCatalog.idOf(PATRON_PREFIX, random.nextInt(patronCount)), null, PAGE_SIZE);
+                    return true;
+                default:
+                    throw new IllegalStateException("Unknown action " + action + ".");
+            }
+        }
+
+        private void search()
+        {
+            switch (random.nextInt(3))
+            {
+                case 0:
+                    bookController.searchBooks(BookIndex.Field.TITLE, keywords[random.nextInt(keywords.length)]);
+                    break;
+                case 1:
+                    bookController.searchBooks(BookIndex.Field.AUTHOR,
+                            SyntheticCatalog.AUTHORS[random.nextInt(SyntheticCatalog.AUTHORS.length)]);
+                    break;
+                default:
+                    bookController.searchBooks(BookIndex.Field.GENRE,
+                            SyntheticCatalog.GENRES[random.nextInt(SyntheticCatalog.GENRES.length)]);
+                    break;
+            }
+        }
+
+        private boolean borrow()
+        {
+            int popularTitles = Math.max(1, (int) (bookCount * POPULAR_TITLES));
+            int book = random.nextDouble() < POPULAR_SHARE ? random.nextInt(popularTitles) : random.nextInt(bookCount);
+
+            BorrowResult result = borrowingRecordController.borrow(SyntheticCatalog.idOf(BOOK_PREFIX, book), id);
+            if (isMeasuring)
+            {
+                borrowOutcomes.get(result.getStatus()).increment();
+            }
+            if (result.getStatus() == BorrowResult.Status.BORROWED)
+            {
+                openLoans.add(result.getBorrowingRecord().getId());
+            }
+
+            return result.getStatus() == BorrowResult.Status.BORROWED
+                    || result.getStatus() == BorrowResult.Status.UNAVAILABLE;
+        }
+
+        private Boolean checkIn()
+        {
+            String recordId = openLoans.poll();
+            if (recordId == null)
+            {
+                return null;
+            }
+
+            return borrowingRecordController.returnBook(recordId).getStatus() == ReturnResult.Status.RETURNED;
+        }
+
+    }
+
+}
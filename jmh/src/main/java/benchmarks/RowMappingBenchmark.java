@@ -0,0 +1,219 @@
+package benchmarks;
+
+import factories.BiographyBookFactory;
+import factories.BookFactory;
+import factories.MilitaryHistoryBookFactory;
+import factories.RevolutionBookFactory;
+import mapping.BookRowMapper;
+import mapping.RowMapper;
+import models.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The RowMappingBenchmark class measures how fast rows of the books table are
+ * turned into Book objects, comparing the original per-row mapping, which looked
+ * every column up by name and created a new factory for every row, against
+ * BookRowMapper, which resolves column positions once and shares its factories.
+ * <p>
+ * Rows come from an in-memory result set, so the figures leave out the network
+ * and the driver's own decoding and only show the cost of the mapping itself.
+ * <p>
+ * Run it with {@code gradle :jmh:jmh -PjmhArgs=RowMappingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark
+{
+
+    // Fields
+
+    private static final String[] COLUMNS = {
+            "id", "title", "genre", "description", "author", "publisher", "publication_year", "isbn", "status"
+    };
+    private static final String[] GENRES = { "Biography", "Military History", "Revolution" };
+    private static final int DISTINCT_VALUES = 1024;
+
+    @Param("10000")
+    private int rowCount;
+
+    private ResultSet resultSet;
+    private RowMapper<Book> mapper;
+
+    // Methods
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        String[][] values = new String[COLUMNS.length][DISTINCT_VALUES];
+        for (int i = 0; i < DISTINCT_VALUES; i++)
+        {
+            values[0][i] = String.format("BID%04d", i);
+            values[1][i] = "Title " + i;
+            values[2][i] = GENRES[i % GENRES.length];
+            values[3][i] = "A description of book " + i + " that is somewhat longer than the other columns.";
+            values[4][i] = "Author " + i;
+            values[5][i] = "Publisher " + i;
+            values[6][i] = String.valueOf(1900 + i % 120);
+            values[7][i] = "978-" + i;
+            values[8][i] = "Available";
+        }
+
+        resultSet = createResultSet(rowCount, values);
+        mapper = new BookRowMapper();
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) throws SQLException
+    {
+        resultSet.beforeFirst();
+        blackhole.consume(mapLegacy(resultSet));
+    }
+
+    @Benchmark
+    public void rowMapper(Blackhole blackhole) throws SQLException
+    {
+        resultSet.beforeFirst();
+        blackhole.consume(mapper.mapAll(resultSet));
+    }
+
+    // Utilities
+
+    /**
+     * The mapping the controllers used before BookRowMapper, kept for comparison.
+     */
+    private static List<Book> mapLegacy(ResultSet resultSet) throws SQLException
+    {
+        BookFactory bookFactory = null;
+        ArrayList<Book> books = new ArrayList<Book>();
+
+        while (resultSet.next())
+        {
+            switch (resultSet.getString("genre"))
+            {
+                case "Biography":
+                    bookFactory = new BiographyBookFactory();
+                    break;
+                case "Military History":
+                    bookFactory = new MilitaryHistoryBookFactory();
+                    break;
+                case "Revolution":
+                    bookFactory = new RevolutionBookFactory();
+                    break;
+            }
+
+            Book book = bookFactory.createBook(
+                    resultSet.getString("id"),
+                    resultSet.getString("title"),
+                    resultSet.getString("genre"),
+                    resultSet.getString("description"),
+                    resultSet.getString("author"),
+                    resultSet.getString("publisher"),
+                    resultSet.getInt("publication_year"),
+                    resultSet.getString("isbn"),
+                    resultSet.getString("status")
+            );
+
+            books.add(book);
+        }
+
+        return books;
+    }
+
+    /**
+     * Creates a result set over generated rows that can only be read forwards or
+     * rewound to the start. Like JDBC drivers, it resolves column labels ignoring
+     * case on every lookup by name.
+     */
+    private static ResultSet createResultSet(int rowCount, String[][] values)
+    {
+        Map<String, Integer> labels = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < COLUMNS.length; i++)
+        {
+            labels.put(COLUMNS[i], i + 1);
+        }
+
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[] { ResultSetMetaData.class },
+                (proxy, method, args) ->
+                {
+                    switch (method.getName())
+                    {
+                        case "getColumnCount":
+                            return COLUMNS.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return COLUMNS[(Integer) args[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        int[] row = { -1 };
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                (proxy, method, args) ->
+                {
+                    switch (method.getName())
+                    {
+                        case "next":
+                            return ++row[0] < rowCount;
+                        case "beforeFirst":
+                            row[0] = -1;
+                            return null;
+                        case "getMetaData":
+                            return metaData;
+                        case "getString":
+                        case "getInt":
+                            int column = args[0] instanceof String
+                                    ? findColumn(labels, (String) args[0])
+                                    : (Integer) args[0];
+                            String value = values[column - 1][row[0] % DISTINCT_VALUES];
+                            return method.getName().equals("getInt") ? Integer.parseInt(value) : value;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static int findColumn(Map<String, Integer> labels, String label) throws SQLException
+    {
+        Integer column = labels.get(label);
+        if (column == null)
+        {
+            throw new SQLException("Column '" + label + "' not found.");
+        }
+
+        return column;
+    }
+
+}
@@ -0,0 +1,107 @@
+package benchmarks;
+
+import factories.FactoryRegistry;
+import models.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SyntheticCatalog class generates books for the benchmarks and load tests.
+ * Titles combine a subject and a place, so every keyword search finds a small,
+ * predictable number of books, and the generated rows are recognisable by the
+ * prefix of their IDs so they can be removed again.
+ */
+final class SyntheticCatalog
+{
+
+    // Constructor
+
+    private SyntheticCatalog()
+    {
+    }
+
+    // Fields
+
+    static final String[] GENRES = { "Biography", "Military History", "Revolution" };
+    static final String[] SUBJECTS = {
+            "Empire", "Republic", "Revolution", "Kingdom", "Dynasty", "Crusade", "Frontier", "Siege",
+            "Rebellion", "Alliance", "Reformation", "Colony", "Harbour", "Sultanate", "Treaty", "Campaign"
+    };
+    static final String[] PLACES = {
+            "Java", "Sumatra", "Malacca", "Aceh", "Batavia", "Makassar", "Majapahit", "Srivijaya",
+            "Mataram", "Banten", "Ternate", "Bali", "Borneo", "Lombok", "Timor", "Sunda"
+    };
+    static final String[] AUTHORS = {
+            "Ricklefs", "Reid", "Vlekke", "Lombard", "Anderson", "Kahin", "Legge", "Taylor"
+    };
+
+    // Methods
+
+    /**
+     * Generates books with IDs made of a prefix and a running number.
+     *
+     * @param prefix the prefix of the IDs, at most five characters
+     * @param count the number of books
+     * @return the books
+     */
+    static List<Book> books(String prefix, int count)
+    {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            books.add(book(prefix, i));
+        }
+
+        return books;
+    }
+
+    /**
+     * Generates the book with a given number.
+     *
+     * @param prefix the prefix of the ID
+     * @param i the number of the book
+     * @return the book
+     */
+    static Book book(String prefix, int i)
+    {
+        String genre = GENRES[i % GENRES.length];
+        return FactoryRegistry.getBookFactory(genre).createBook(idOf(prefix, i), titleOf(i), genre,
+                "Generated book " + i + ".", AUTHORS[i % AUTHORS.length], "Benchmark", 1800 + i % 200,
+                isbnOf(prefix, i), "Available");
+    }
+
+    /**
+     * Lists every subject and place pair the titles are made of, each one a keyword
+     * search matching part of the catalog.
+     *
+     * @return the keywords
+     */
+    static String[] keywords()
+    {
+        String[] keywords = new String[SUBJECTS.length * PLACES.length];
+        for (int i = 0; i < keywords.length; i++)
+        {
+            keywords[i] = SUBJECTS[i % SUBJECTS.length] + " " + PLACES[i / SUBJECTS.length];
+        }
+
+        return keywords;
+    }
+
+    static String idOf(String prefix, int i)
+    {
+        return String.format("%s%07d", prefix, i);
+    }
+
+    static String isbnOf(String prefix, int i)
+    {
+        return String.format("979-%s-%07d", prefix, i);
+    }
+
+    static String titleOf(int i)
+    {
+        return "The " + SUBJECTS[i % SUBJECTS.length] + " of " + PLACES[(i / SUBJECTS.length) % PLACES.length]
+                + ", Volume " + (i / (SUBJECTS.length * PLACES.length) + 1);
+    }
+
+}
@@ -0,0 +1,393 @@
+package analytics;
+
+import models.Book;
+import models.BookSummary;
+import models.BorrowingRecord;
+import repositories.Storage;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The LoanAnalytics class answers the librarians' loan reports, such as loans per
+ * genre per month, the overdue rate of each author and the busiest patrons, from
+ * an in-memory column store of the borrowing records joined with the genre and
+ * author of their books.
+ * <p>
+ * The store is loaded from the storage on the first report, streaming both tables
+ * once, and kept fresh afterwards by the controllers, which pass every record they
+ * add or change. Changes made while the store is loading are queued and applied
+ * once it is loaded. Bulk imports, which do not pass their records, make the next
+ * report load the store again. Changes made by other processes are not seen until
+ * the store is loaded again.
+ * <p>
+ * Reports are aggregated in parallel on the common fork-join pool. They hold a
+ * read lock while they run, and changes wait for them.
+ */
+public final class LoanAnalytics
+{
+
+    // Constructor
+
+    private LoanAnalytics()
+    {
+        lock = new ReentrantReadWriteLock();
+        loadLock = new Object();
+    }
+
+    // Fields
+
+    private static final LoanAnalytics INSTANCE = new LoanAnalytics();
+
+    // Properties
+
+    private final ReentrantReadWriteLock lock;
+    private final Object loadLock;
+    private LoanColumns columns;
+    private List<Consumer<LoanColumns>> pending;
+    private int generation;
+
+    // Getters
+
+    /**
+     * Gets the loan analytics of the application.
+     *
+     * @return the loan analytics
+     */
+    public static LoanAnalytics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    // Methods
+
+    /**
+     * Counts the loans of each genre in each month of a period.
+     *
+     * @param from the first month of the period
+     * @param to the last month of the period
+     * @return the genres and months with loans, by month and then by genre
+     */
+    public List<LoanStatistic> getLoansPerGenrePerMonth(YearMonth from, YearMonth to)
+    {
+        int firstMonth = toMonth(from);
+        int lastMonth = toMonth(to);
+        if (lastMonth < firstMonth)
+        {
+            return new ArrayList<>();
+        }
+
+        return report(columns ->
+        {
+            int monthCount = lastMonth - firstMonth + 1;
+            int genreCount = columns.genres.size() + 1;
+            long[] totals = columns.aggregate(row ->
+                    {
+                        int month = columns.borrowingMonthOf(row);
+                        if (month < firstMonth || month > lastMonth)
+                        {
+                            return -1;
+                        }
+
+                        return (month - firstMonth) * genreCount + columns.genreOf(row);
+                    },
+                    monthCount * genreCount,
+                    isOverdue(columns));
+
+            List<LoanStatistic> statistics = new ArrayList<>();
+            for (int group = 0; group < monthCount * genreCount; group++)
+            {
+                if (totals[group * 2] > 0)
+                {
+                    statistics.add(new LoanStatistic(nameOf(columns.genres.decode(group % genreCount)),
+                            toYearMonth(firstMonth + group / genreCount),
+                            totals[group * 2],
+                            totals[group * 2 + 1]));
+                }
+            }
+
+            statistics.sort(Comparator.comparing(LoanStatistic::getMonth).thenComparing(LoanStatistic::getGroup));
+            return statistics;
+        });
+    }
+
+    /**
+     * Computes the share of the loans of each author's books that are or were overdue.
+     *
+     * @param minimumLoans the number of loans an author needs to be included
+     * @return the authors, highest overdue rate first
+     */
+    public List<LoanStatistic> getOverdueRateByAuthor(int minimumLoans)
+    {
+        return report(columns ->
+        {
+            int authorCount = columns.authors.size() + 1;
+            long[] totals = columns.aggregate(columns::authorOf, authorCount, isOverdue(columns));
+
+            List<LoanStatistic> statistics = new ArrayList<>();
+            for (int author = 0; author < authorCount; author++)
+            {
+                if (totals[author * 2] > 0 && totals[author * 2] >= minimumLoans)
+                {
+                    statistics.add(new LoanStatistic(nameOf(columns.authors.decode(author)),
+                            null,
+                            totals[author * 2],
+                            totals[author * 2 + 1]));
+                }
+            }
+
+            statistics.sort(Comparator.comparingDouble(LoanStatistic::getOverdueRate).reversed()
+                    .thenComparing(Comparator.comparingLong(LoanStatistic::getLoanCount).reversed())
+                    .thenComparing(LoanStatistic::getGroup));
+            return statistics;
+        });
+    }
+
+    /**
+     * Finds the patrons with the most loans.
+     *
+     * @param limit the maximum number of patrons
+     * @return the patrons, most loans first, grouped by patron ID
+     */
+    public List<LoanStatistic> getBusiestPatrons(int limit)
+    {
+        return report(columns ->
+        {
+            int patronCount = columns.patronIds.size() + 1;
+            long[] totals = columns.aggregate(columns::patronOf, patronCount, isOverdue(columns));
+
+            List<LoanStatistic> statistics = new ArrayList<>();
+            for (int patron = 1; patron < patronCount; patron++)
+            {
+                if (totals[patron * 2] > 0)
+                {
+                    statistics.add(new LoanStatistic(columns.patronIds.decode(patron),
+                            null,
+                            totals[patron * 2],
+                            totals[patron * 2 + 1]));
+                }
+            }
+
+            statistics.sort(Comparator.comparingLong(LoanStatistic::getLoanCount).reversed()
+                    .thenComparing(LoanStatistic::getGroup));
+            return new ArrayList<>(statistics.subList(0, Math.min(Math.max(0, limit), statistics.size())));
+        });
+    }
+
+    /**
+     * Gets the number of loans held in memory.
+     *
+     * @return the number of loans, loading them first if they are not loaded yet
+     */
+    public int getLoanCount()
+    {
+        return report(LoanColumns::size);
+    }
+
+    /**
+     * Records a book that was added or changed, so that its loans are grouped by its
+     * current genre and author.
+     *
+     * @param book the book
+     */
+    public void recordBook(Book book)
+    {
+        String id = book.getId();
+        String genre = book.getGenre();
+        String author = book.getAuthor();
+        apply(columns -> columns.putBook(id, genre, author));
+    }
+
+    /**
+     * Records a borrowing record that was added or changed.
+     *
+     * @param borrowingRecord the borrowing record
+     */
+    public void recordBorrowingRecord(BorrowingRecord borrowingRecord)
+    {
+        apply(columns -> columns.put(borrowingRecord));
+    }
+
+    /**
+     * Records that active borrowing records were marked overdue.
+     *
+     * @param ids the IDs of the records
+     */
+    public void recordOverdue(List<String> ids)
+    {
+        List<String> marked = new ArrayList<>(ids);
+        apply(columns ->
+        {
+            for (String id : marked)
+            {
+                columns.replaceStatus(id, "Active", "Overdue");
+            }
+        });
+    }
+
+    /**
+     * Drops the loans held in memory, so that the next report loads them again, for
+     * example after records were imported in bulk.
+     */
+    public void invalidate()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            columns = null;
+            generation++;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Utilities
+
+    private <T> T report(Function<LoanColumns, T> query)
+    {
+        while (true)
+        {
+            lock.readLock().lock();
+            try
+            {
+                if (columns != null)
+                {
+                    return query.apply(columns);
+                }
+            }
+            finally
+            {
+                lock.readLock().unlock();
+            }
+
+            load();
+        }
+    }
+
+    private void apply(Consumer<LoanColumns> change)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (columns != null)
+            {
+                change.accept(columns);
+            }
+            else if (pending != null)
+            {
+                pending.add(change);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the column store from the storage, queueing the changes made meanwhile.
+     */
+    private void load()
+    {
+        synchronized (loadLock)
+        {
+            int loadedGeneration;
+            lock.writeLock().lock();
+            try
+            {
+                if (columns != null)
+                {
+                    return;
+                }
+
+                pending = new ArrayList<>();
+                loadedGeneration = generation;
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+
+            LoanColumns loaded = new LoanColumns();
+            Storage storage = Storage.getInstance();
+            try (Stream<BookSummary> books = storage.books().streamSummaries();
+                 Stream<BorrowingRecord> borrowingRecords = storage.borrowingRecords().streamAll())
+            {
+                books.forEach(book -> loaded.putBook(book.getId(), book.getGenre(), book.getAuthor()));
+                borrowingRecords.forEach(loaded::put);
+            }
+            catch (RuntimeException ex)
+            {
+                lock.writeLock().lock();
+                pending = null;
+                lock.writeLock().unlock();
+                throw ex;
+            }
+
+            lock.writeLock().lock();
+            try
+            {
+                for (Consumer<LoanColumns> change : pending)
+                {
+                    change.accept(loaded);
+                }
+                pending = null;
+
+                // An import during the load may have been read only in part, so it is loaded again.
+                if (generation == loadedGeneration)
+                {
+                    columns = loaded;
+                }
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static LoanColumns.Condition isOverdue(LoanColumns columns)
+    {
+        int active = columns.statuses.encode("Active");
+        int overdue = columns.statuses.encode("Overdue");
+        int returnedOverdue = columns.statuses.encode("Returned Overdue");
+        int today = (int) LocalDate.now().toEpochDay();
+
+        return row ->
+        {
+            int status = columns.statusOf(row);
+            if (status == overdue || status == returnedOverdue)
+            {
+                return true;
+            }
+
+            int dueDay = columns.dueDayOf(row);
+            return status == active && dueDay != BorrowingRecord.NO_DATE && dueDay < today;
+        };
+    }
+
+    private static int toMonth(YearMonth month)
+    {
+        return (month.getYear() - 1970) * 12 + month.getMonthValue() - 1;
+    }
+
+    private static YearMonth toYearMonth(int month)
+    {
+        return YearMonth.of(1970 + Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1);
+    }
+
+    private static String nameOf(String value)
+    {
+        return value == null ? "Unknown" : value;
+    }
+
+}
@@ -0,0 +1,347 @@
+package analytics;
+
+import models.BorrowingRecord;
+import models.StringDictionary;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The LoanColumns class holds the borrowing records as columns of primitives, one
+ * array per column, with the IDs of records, books and patrons and the repeated
+ * text replaced by dictionary codes. The columns take 29 bytes per loan, and an
+ * aggregation reads only the columns it needs, front to back. The dictionary of
+ * record IDs, kept so that later changes find their row, is the largest part.
+ * <p>
+ * Records are appended in the order their IDs are first seen, so the code of a
+ * record ID is its row number plus one and finding a row needs no index. The genre
+ * and author of every book are held by book code, so a loan is joined to its book
+ * through an array lookup.
+ * <p>
+ * The class is not thread-safe: LoanAnalytics guards it with a read-write lock, and
+ * aggregations only read.
+ */
+final class LoanColumns
+{
+
+    // Constructor
+
+    LoanColumns()
+    {
+        recordIds = new StringDictionary("record", Integer.MAX_VALUE - 8);
+        bookIds = new StringDictionary("book", Integer.MAX_VALUE - 8);
+        patronIds = new StringDictionary("patron", Integer.MAX_VALUE - 8);
+        genres = new StringDictionary("genre", Integer.MAX_VALUE - 8);
+        authors = new StringDictionary("author", Integer.MAX_VALUE - 8);
+        statuses = new StringDictionary("record status", Byte.MAX_VALUE,
+                "Active", "Returned", "Returned Overdue", "Overdue");
+
+        bookGenres = new int[INITIAL_CAPACITY];
+        bookAuthors = new int[INITIAL_CAPACITY];
+
+        loanBooks = new int[INITIAL_CAPACITY];
+        loanPatrons = new int[INITIAL_CAPACITY];
+        borrowingDays = new int[INITIAL_CAPACITY];
+        borrowingMonths = new int[INITIAL_CAPACITY];
+        dueDays = new int[INITIAL_CAPACITY];
+        returnDays = new int[INITIAL_CAPACITY];
+        loanStatuses = new byte[INITIAL_CAPACITY];
+    }
+
+    // Fields
+
+    /**
+     * The month standing for a borrowing date that is not set.
+     */
+    static final int NO_MONTH = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The number of rows below which an aggregation is not split any further.
+     */
+    private static final int MINIMUM_SLICE = 1 << 15;
+
+    // Properties
+
+    final StringDictionary recordIds;
+    final StringDictionary bookIds;
+    final StringDictionary patronIds;
+    final StringDictionary genres;
+    final StringDictionary authors;
+    final StringDictionary statuses;
+
+    private int[] bookGenres;
+    private int[] bookAuthors;
+
+    private int[] loanBooks;
+    private int[] loanPatrons;
+    private int[] borrowingDays;
+    private int[] borrowingMonths;
+    private int[] dueDays;
+    private int[] returnDays;
+    private byte[] loanStatuses;
+    private int size;
+
+    // Getters
+
+    int size()
+    {
+        return this.size;
+    }
+
+    int bookOf(int row)
+    {
+        return loanBooks[row];
+    }
+
+    int patronOf(int row)
+    {
+        return loanPatrons[row];
+    }
+
+    int genreOf(int row)
+    {
+        int book = loanBooks[row];
+        return book < bookGenres.length ? bookGenres[book] : 0;
+    }
+
+    int authorOf(int row)
+    {
+        int book = loanBooks[row];
+        return book < bookAuthors.length ? bookAuthors[book] : 0;
+    }
+
+    int borrowingDayOf(int row)
+    {
+        return borrowingDays[row];
+    }
+
+    int borrowingMonthOf(int row)
+    {
+        return borrowingMonths[row];
+    }
+
+    int dueDayOf(int row)
+    {
+        return dueDays[row];
+    }
+
+    int returnDayOf(int row)
+    {
+        return returnDays[row];
+    }
+
+    int statusOf(int row)
+    {
+        return loanStatuses[row];
+    }
+
+    // Methods
+
+    /**
+     * Records the genre and author of a book, which every loan of the book is
+     * grouped by.
+     */
+    void putBook(String bookId, String genre, String author)
+    {
+        int book = bookIds.encode(bookId);
+        ensureBookCapacity(book);
+
+        bookGenres[book] = genres.encode(genre);
+        bookAuthors[book] = authors.encode(author);
+    }
+
+    /**
+     * Appends a borrowing record, or overwrites its row if it is already held.
+     */
+    void put(BorrowingRecord borrowingRecord)
+    {
+        int row = recordIds.encode(borrowingRecord.getId()) - 1;
+        if (row == size)
+        {
+            ensureLoanCapacity(size + 1);
+            size++;
+        }
+
+        loanBooks[row] = bookIds.encode(borrowingRecord.getBookId());
+        loanPatrons[row] = patronIds.encode(borrowingRecord.getPatronId());
+        borrowingDays[row] = borrowingRecord.getBorrowingEpochDay();
+        borrowingMonths[row] = toMonth(borrowingRecord.getBorrowingEpochDay());
+        dueDays[row] = borrowingRecord.getDueEpochDay();
+        returnDays[row] = borrowingRecord.getReturnEpochDay();
+        loanStatuses[row] = (byte) statuses.encode(borrowingRecord.getRecordStatus());
+    }
+
+    /**
+     * Changes the status of a held record if it still has the expected status.
+     */
+    void replaceStatus(String recordId, String expectedStatus, String status)
+    {
+        int row = recordIds.find(recordId) - 1;
+        if (row < 0)
+        {
+            return;
+        }
+
+        if (loanStatuses[row] == statuses.encode(expectedStatus))
+        {
+            loanStatuses[row] = (byte) statuses.encode(status);
+        }
+    }
+
+    /**
+     * Counts the rows of every group in parallel on the common fork-join pool,
+     * together with the rows of every group matching each of a number of conditions.
+     *
+     * @param grouping the group of a row, from 0 to groupCount - 1, or -1 to leave the row out
+     * @param groupCount the number of groups
+     * @param conditions the conditions whose matching rows are also counted
+     * @return for each group in turn, its row count followed by the count of each condition
+     */
+    long[] aggregate(Grouping grouping, int groupCount, Condition... conditions)
+    {
+        // Every slice counts into an array of its own, so slices are never smaller than that array.
+        int slice = Math.max(MINIMUM_SLICE, size / (4 * Runtime.getRuntime().availableProcessors()));
+        slice = (int) Math.min(Integer.MAX_VALUE, Math.max(slice, (long) groupCount * (1 + conditions.length)));
+        return new AggregateTask(grouping, groupCount, conditions, 0, size, slice).invoke();
+    }
+
+    // Utilities
+
+    static int toMonth(int epochDay)
+    {
+        if (epochDay == BorrowingRecord.NO_DATE)
+        {
+            return NO_MONTH;
+        }
+
+        LocalDate day = LocalDate.ofEpochDay(epochDay);
+        return (day.getYear() - 1970) * 12 + day.getMonthValue() - 1;
+    }
+
+    private void ensureBookCapacity(int book)
+    {
+        if (book >= bookGenres.length)
+        {
+            int capacity = Math.max(book + 1, bookGenres.length * 2);
+            bookGenres = Arrays.copyOf(bookGenres, capacity);
+            bookAuthors = Arrays.copyOf(bookAuthors, capacity);
+        }
+    }
+
+    private void ensureLoanCapacity(int capacity)
+    {
+        if (capacity > loanBooks.length)
+        {
+            int grown = Math.max(capacity, loanBooks.length + (loanBooks.length >> 1));
+            loanBooks = Arrays.copyOf(loanBooks, grown);
+            loanPatrons = Arrays.copyOf(loanPatrons, grown);
+            borrowingDays = Arrays.copyOf(borrowingDays, grown);
+            borrowingMonths = Arrays.copyOf(borrowingMonths, grown);
+            dueDays = Arrays.copyOf(dueDays, grown);
+            returnDays = Arrays.copyOf(returnDays, grown);
+            loanStatuses = Arrays.copyOf(loanStatuses, grown);
+        }
+    }
+
+    // Nested Classes
+
+    /**
+     * Assigns a row to a group.
+     */
+    @FunctionalInterface
+    interface Grouping
+    {
+        int groupOf(int row);
+    }
+
+    /**
+     * Tests a row.
+     */
+    @FunctionalInterface
+    interface Condition
+    {
+        boolean test(int row);
+    }
+
+    /**
+     * Counts the rows of one slice, splitting it in two while it is larger than the
+     * slice size. Fork-join tasks are Serializable only by inheritance and are never
+     * serialized, so the serialization warnings are suppressed.
+     */
+    @SuppressWarnings("serial")
+    private static final class AggregateTask extends RecursiveTask<long[]>
+    {
+
+        private AggregateTask(Grouping grouping, int groupCount, Condition[] conditions, int from, int to, int slice)
+        {
+            this.grouping = grouping;
+            this.groupCount = groupCount;
+            this.conditions = conditions;
+            this.from = from;
+            this.to = to;
+            this.slice = slice;
+        }
+
+        private final Grouping grouping;
+        private final int groupCount;
+        private final Condition[] conditions;
+        private final int from;
+        private final int to;
+        private final int slice;
+
+        @Override
+        protected long[] compute()
+        {
+            if (to - from <= slice)
+            {
+                return computeDirectly();
+            }
+
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(grouping, groupCount, conditions, from, middle, slice);
+            AggregateTask right = new AggregateTask(grouping, groupCount, conditions, middle, to, slice);
+            left.fork();
+
+            long[] totals = right.compute();
+            long[] leftTotals = left.join();
+            for (int i = 0; i < totals.length; i++)
+            {
+                totals[i] += leftTotals[i];
+            }
+
+            return totals;
+        }
+
+        private long[] computeDirectly()
+        {
+            int width = 1 + conditions.length;
+            long[] totals = new long[groupCount * width];
+
+            for (int row = from; row < to; row++)
+            {
+                int group = grouping.groupOf(row);
+                if (group < 0)
+                {
+                    continue;
+                }
+
+                int base = group * width;
+                totals[base]++;
+                for (int i = 0; i < conditions.length; i++)
+                {
+                    if (conditions[i].test(row))
+                    {
+                        totals[base + 1 + i]++;
+                    }
+                }
+            }
+
+            return totals;
+        }
+
+    }
+
+}
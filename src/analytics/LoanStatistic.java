@@ -0,0 +1,90 @@
+package analytics;
+
+import java.time.YearMonth;
+
+/**
+ * The LoanStatistic class is one row of a loan report: the number of loans of a
+ * group, such as a genre, an author or a patron, optionally within one month, and
+ * how many of them were overdue.
+ */
+public class LoanStatistic
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new LoanStatistic.
+     *
+     * @param group the genre, author or patron ID the loans are grouped by
+     * @param month the month the loans were made in, or null if the report is not by month
+     * @param loanCount the number of loans
+     * @param overdueCount the number of loans that are or were overdue
+     */
+    LoanStatistic(String group, YearMonth month, long loanCount, long overdueCount)
+    {
+        this.group = group;
+        this.month = month;
+        this.loanCount = loanCount;
+        this.overdueCount = overdueCount;
+    }
+
+    // Properties
+
+    private final String group;
+    private final YearMonth month;
+    private final long loanCount;
+    private final long overdueCount;
+
+    // Getters
+
+    /**
+     * Gets the genre, author or patron ID the loans are grouped by.
+     *
+     * @return the group
+     */
+    public String getGroup()
+    {
+        return this.group;
+    }
+
+    /**
+     * Gets the month the loans were made in.
+     *
+     * @return the month, or null if the report is not by month
+     */
+    public YearMonth getMonth()
+    {
+        return this.month;
+    }
+
+    /**
+     * Gets the number of loans.
+     *
+     * @return the number of loans
+     */
+    public long getLoanCount()
+    {
+        return this.loanCount;
+    }
+
+    /**
+     * Gets the number of loans that are overdue or were returned overdue.
+     *
+     * @return the number of overdue loans
+     */
+    public long getOverdueCount()
+    {
+        return this.overdueCount;
+    }
+
+    /**
+     * Gets the share of the loans that are or were overdue.
+     *
+     * @return the overdue rate, from 0 to 1
+     */
+    public double getOverdueRate()
+    {
+        return this.loanCount == 0 ? 0 : (double) this.overdueCount / this.loanCount;
+    }
+
+}
@@ -0,0 +1,580 @@
+package caching;
+
+import factories.FactoryRegistry;
+import models.Book;
+import models.BookSummary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The CatalogSnapshot class is a read-only copy of the books table in a compact
+ * binary file, mapped into memory with FileChannel.map so that a freshly started
+ * application can serve lookups and listings before it has read anything from the
+ * database. Opening a snapshot reads only its header: the operating system pages
+ * in the parts that are used, and the file is shared with every other process
+ * mapping it.
+ * <p>
+ * The file holds a header, the books one after the other, and two indexes of
+ * record offsets, one sorted by ID and one by ISBN, which are binary searched in
+ * place. Strings are stored as their UTF-8 length and bytes, and the columns
+ * shown in listings come first in a record, so a summary is read without touching
+ * the rest.
+ * <p>
+ * A snapshot is written to a temporary file, forced to the disk and moved into
+ * place, so a reader never sees a partial file. Every refresh writes a new
+ * generation under a file name of its own, because a file cannot be replaced or
+ * deleted on Windows while it is mapped, and Java has no way to unmap a buffer
+ * before it is collected. Older generations are deleted once nothing maps them.
+ * Lookups are safe from any number of threads.
+ */
+public final class CatalogSnapshot
+{
+
+    // Constructor
+
+    private CatalogSnapshot(MappedByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.createdMillis = buffer.getLong(8);
+        this.bookCount = buffer.getInt(16);
+        this.idIndexOffset = buffer.getInt(20);
+        this.isbnIndexOffset = buffer.getInt(24);
+    }
+
+    // Fields
+
+    private static final int MAGIC = 0x48435331;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    // Properties
+
+    private final MappedByteBuffer buffer;
+    private final long createdMillis;
+    private final int bookCount;
+    private final int idIndexOffset;
+    private final int isbnIndexOffset;
+
+    // Getters
+
+    /**
+     * Gets the number of books in the snapshot.
+     *
+     * @return the number of books
+     */
+    public int size()
+    {
+        return this.bookCount;
+    }
+
+    /**
+     * Gets the time the snapshot was written.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getCreatedMillis()
+    {
+        return this.createdMillis;
+    }
+
+    // Methods
+
+    /**
+     * Maps a snapshot file read-only.
+     *
+     * @param path the file
+     * @return the snapshot
+     * @throws IOException if the file cannot be mapped, or is not a complete snapshot
+     */
+    public static CatalogSnapshot open(Path path) throws IOException
+    {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, READ))
+        {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+            {
+                throw new IOException("The catalog snapshot " + path + " is damaged.");
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(28) != buffer.capacity())
+        {
+            throw new IOException("The catalog snapshot " + path + " is damaged or of another version.");
+        }
+
+        return new CatalogSnapshot(buffer);
+    }
+
+    /**
+     * Finds the newest generation of a snapshot file.
+     *
+     * @param path the file the generations are named after
+     * @return the newest generation, or null if none was written
+     * @throws IOException if the directory cannot be listed
+     */
+    public static Path findLatestGeneration(Path path) throws IOException
+    {
+        List<Path> generations = listGenerations(path);
+        return generations.isEmpty() ? null : generations.get(generations.size() - 1);
+    }
+
+    /**
+     * Writes a snapshot of books as the next generation of a snapshot file, such as
+     * histopedia-catalog.snapshot.4, leaving the earlier generations as they are.
+     *
+     * @param path the file the generations are named after
+     * @param books the books, in any order
+     * @return the new generation
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static Path writeGeneration(Path path, Iterator<? extends Book> books) throws IOException
+    {
+        List<Path> generations = listGenerations(path);
+        long next = generations.isEmpty() ? 1 : generationOf(generations.get(generations.size() - 1)) + 1;
+
+        Path generation = path.toAbsolutePath().resolveSibling(path.getFileName() + "." + next);
+        write(generation, books);
+        return generation;
+    }
+
+    /**
+     * Deletes the generations of a snapshot file older than the given one, and the
+     * unnumbered file earlier releases wrote. A generation that cannot be deleted,
+     * such as one this process still maps on Windows, is left for a later call.
+     *
+     * @param path the file the generations are named after
+     * @param latest the generation to keep
+     * @throws IOException if the directory cannot be listed
+     */
+    public static void deleteOlderGenerations(Path path, Path latest) throws IOException
+    {
+        long kept = generationOf(latest);
+        for (Path generation : listGenerations(path))
+        {
+            if (generationOf(generation) < kept)
+            {
+                deleteIfUnmapped(generation);
+            }
+        }
+
+        deleteIfUnmapped(path);
+    }
+
+    /**
+     * Writes a snapshot of books, replacing the file atomically once it is complete.
+     *
+     * @param path the file
+     * @param books the books, in any order
+     * @return the number of books written
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static int write(Path path, Iterator<? extends Book> books) throws IOException
+    {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        List<IndexEntry> byId = new ArrayList<>();
+        List<IndexEntry> byIsbn = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING))
+        {
+            channel.position(HEADER_BYTES);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+
+            while (books.hasNext())
+            {
+                Book book = books.next();
+                int offset = HEADER_BYTES + out.size();
+                byId.add(new IndexEntry(book.getId(), offset));
+                if (book.getIsbn() != null)
+                {
+                    byIsbn.add(new IndexEntry(book.getIsbn(), offset));
+                }
+
+                writeString(out, book.getId());
+                writeString(out, book.getIsbn());
+                writeString(out, book.getTitle());
+                writeString(out, book.getAuthor());
+                writeString(out, book.getGenre());
+                writeString(out, book.getStatus());
+                writeString(out, book.getPublisher());
+                out.writeInt(book.getPublicationYear());
+                writeString(out, book.getDescription());
+            }
+
+            int idIndexOffset = HEADER_BYTES + out.size();
+            writeIndex(out, byId);
+            int isbnIndexOffset = HEADER_BYTES + out.size();
+            writeIndex(out, byIsbn);
+            out.flush();
+
+            long length = HEADER_BYTES + (long) out.size();
+            if (out.size() == Integer.MAX_VALUE || length > Integer.MAX_VALUE)
+            {
+                throw new IOException("The catalog is too large for a snapshot.");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(System.currentTimeMillis())
+                    .putInt(byId.size())
+                    .putInt(idIndexOffset)
+                    .putInt(isbnIndexOffset)
+                    .putInt((int) length)
+                    .flip();
+            while (header.hasRemaining())
+            {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return byId.size();
+    }
+
+    /**
+     * Finds a book by its ID.
+     *
+     * @param id the ID
+     * @return the book, or null if it is not in the snapshot
+     */
+    public Book findById(String id)
+    {
+        int position = find(idIndexOffset, bookCount, id, false);
+        return position < 0 ? null : readBook(recordAt(idIndexOffset, position));
+    }
+
+    /**
+     * Finds a book by its ISBN.
+     *
+     * @param isbn the ISBN
+     * @return the book, or null if it is not in the snapshot
+     */
+    public Book findByIsbn(String isbn)
+    {
+        int isbnCount = (buffer.getInt(28) - isbnIndexOffset) / Integer.BYTES;
+        int position = find(isbnIndexOffset, isbnCount, isbn, true);
+        return position < 0 ? null : readBook(recordAt(isbnIndexOffset, position));
+    }
+
+    /**
+     * Finds summaries in ID order, starting after a book.
+     *
+     * @param afterId the ID to start after, or null to start from the first book
+     * @param limit the maximum number of summaries
+     * @return the summaries
+     */
+    public ArrayList<BookSummary> findSummariesAfter(String afterId, int limit)
+    {
+        int from = afterId == null ? 0 : upperBound(afterId);
+
+        ArrayList<BookSummary> summaries = new ArrayList<>(Math.max(0, Math.min(limit, bookCount - from)));
+        for (int i = from; i < bookCount && summaries.size() < limit; i++)
+        {
+            summaries.add(readSummary(recordAt(idIndexOffset, i)));
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Finds summaries in descending ID order, starting before a book.
+     *
+     * @param beforeId the ID to start before
+     * @param limit the maximum number of summaries
+     * @return the summaries, nearest first
+     */
+    public ArrayList<BookSummary> findSummariesBefore(String beforeId, int limit)
+    {
+        ArrayList<BookSummary> summaries = new ArrayList<>();
+        for (int i = lowerBound(beforeId) - 1; i >= 0 && summaries.size() < limit; i--)
+        {
+            summaries.add(readSummary(recordAt(idIndexOffset, i)));
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Iterates over the summaries of every book in ID order.
+     *
+     * @return the iterator
+     */
+    public Iterator<BookSummary> summaries()
+    {
+        return new Iterator<BookSummary>()
+        {
+            private int next;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < bookCount;
+            }
+
+            @Override
+            public BookSummary next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                return readSummary(recordAt(idIndexOffset, next++));
+            }
+        };
+    }
+
+    // Utilities
+
+    /**
+     * Lists the generations of a snapshot file, oldest first.
+     */
+    private static List<Path> listGenerations(Path path) throws IOException
+    {
+        Path directory = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+
+        List<Path> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, path.getFileName() + ".*"))
+        {
+            for (Path file : files)
+            {
+                String suffix = file.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.length() < 19 && suffix.chars().allMatch(Character::isDigit))
+                {
+                    generations.add(file);
+                }
+            }
+        }
+
+        generations.sort(Comparator.comparingLong(CatalogSnapshot::generationOf));
+        return generations;
+    }
+
+    private static void deleteIfUnmapped(Path file)
+    {
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ex)
+        {
+            // Still mapped; the next refresh deletes it.
+        }
+    }
+
+    private static long generationOf(Path generation)
+    {
+        String name = generation.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeIndex(DataOutputStream out, List<IndexEntry> entries) throws IOException
+    {
+        entries.sort(Comparator.comparing(entry -> entry.key));
+        for (IndexEntry entry : entries)
+        {
+            out.writeInt(entry.offset);
+        }
+    }
+
+    private int recordAt(int indexOffset, int position)
+    {
+        return buffer.getInt(indexOffset + position * Integer.BYTES);
+    }
+
+    /**
+     * Binary searches an index for a key.
+     *
+     * @return the position in the index, or -1 if the key is not there
+     */
+    private int find(int indexOffset, int count, String key, boolean isIsbn)
+    {
+        if (key == null)
+        {
+            return -1;
+        }
+
+        int low = 0;
+        int high = count - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int record = recordAt(indexOffset, middle);
+            int comparison = readString(isIsbn ? skipString(record) : record).compareTo(key);
+            if (comparison < 0)
+            {
+                low = middle + 1;
+            }
+            else if (comparison > 0)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the position of the first ID in the index greater than a key.
+     */
+    private int upperBound(String key)
+    {
+        int low = 0;
+        int high = bookCount;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (readString(recordAt(idIndexOffset, middle)).compareTo(key) <= 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the position of the first ID in the index greater than or equal to a key.
+     */
+    private int lowerBound(String key)
+    {
+        int low = 0;
+        int high = bookCount;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (readString(recordAt(idIndexOffset, middle)).compareTo(key) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private String readString(int position)
+    {
+        int length = buffer.getInt(position);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int position)
+    {
+        return position + Integer.BYTES + Math.max(0, buffer.getInt(position));
+    }
+
+    private BookSummary readSummary(int position)
+    {
+        String id = readString(position);
+        position = skipString(skipString(position));
+        String title = readString(position);
+        position = skipString(position);
+        String author = readString(position);
+        position = skipString(position);
+        String genre = readString(position);
+        position = skipString(position);
+        String status = readString(position);
+        position = skipString(position);
+        String publisher = readString(position);
+
+        return new BookSummary(id, title, author, genre, status, publisher);
+    }
+
+    private Book readBook(int position)
+    {
+        String id = readString(position);
+        position = skipString(position);
+        String isbn = readString(position);
+        position = skipString(position);
+        String title = readString(position);
+        position = skipString(position);
+        String author = readString(position);
+        position = skipString(position);
+        String genre = readString(position);
+        position = skipString(position);
+        String status = readString(position);
+        position = skipString(position);
+        String publisher = readString(position);
+        position = skipString(position);
+        int publicationYear = buffer.getInt(position);
+        String description = readString(position + Integer.BYTES);
+
+        return FactoryRegistry.getBookFactory(genre)
+                .createBook(id, title, genre, description, author, publisher, publicationYear, isbn, status);
+    }
+
+    // Nested Classes
+
+    private static final class IndexEntry
+    {
+
+        private IndexEntry(String key, int offset)
+        {
+            this.key = key;
+            this.offset = offset;
+        }
+
+        private final String key;
+        private final int offset;
+
+    }
+
+}
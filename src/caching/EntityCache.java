@@ -0,0 +1,313 @@
+package caching;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * The EntityCache class keeps recently read entities in memory, bounded both by
+ * the number of entries and by their estimated size in bytes.
+ * <p>
+ * Entries are evicted in least recently used order, but a newly loaded entry is
+ * only admitted in place of the eviction victim when it has been requested more
+ * often than the victim recently. A burst of one-off lookups therefore cannot
+ * flush the entities that are read all the time.
+ * <p>
+ * Writers must invalidate the affected keys. A value loaded while an invalidation
+ * happened is returned to its caller but not cached, so a slow load can never put
+ * stale data back after a write.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached entities
+ */
+public class EntityCache<K, V>
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new EntityCache.
+     *
+     * @param name the name of the cache, used when reporting statistics
+     * @param maxEntries the maximum number of entries held
+     * @param maxBytes the maximum estimated size of all entries held, in bytes
+     * @param weigher the function estimating the size of an entity in bytes
+     */
+    public EntityCache(String name, int maxEntries, long maxBytes, ToLongFunction<V> weigher)
+    {
+        this.name = name;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.weigher = weigher;
+
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        sketch = new FrequencySketch(this.maxEntries);
+    }
+
+    // Properties
+
+    private final String name;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final FrequencySketch sketch;
+    private long weight;
+    private long invalidations;
+
+    private long hitCount;
+    private long missCount;
+    private long loadCount;
+    private long totalLoadNanos;
+    private long evictionCount;
+    private long rejectionCount;
+
+    // Getters
+
+    /**
+     * Gets the name of the cache.
+     *
+     * @return the name of the cache
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of entries currently held.
+     *
+     * @return the number of entries
+     */
+    public synchronized int getSize()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Gets the estimated size of all entries currently held.
+     *
+     * @return the estimated size in bytes
+     */
+    public synchronized long getWeight()
+    {
+        return this.weight;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount()
+    {
+        return this.hitCount;
+    }
+
+    /**
+     * Gets the number of lookups that had to load the entity.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount()
+    {
+        return this.missCount;
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     *
+     * @return the hit ratio between 0 and 1
+     */
+    public synchronized double getHitRatio()
+    {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Gets the average time taken to load an entity on a miss.
+     *
+     * @return the average load time in nanoseconds
+     */
+    public synchronized double getAverageLoadNanos()
+    {
+        return loadCount == 0 ? 0 : (double) totalLoadNanos / loadCount;
+    }
+
+    /**
+     * Gets the number of entries evicted to stay within the size limits.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictionCount()
+    {
+        return this.evictionCount;
+    }
+
+    /**
+     * Gets the number of loaded entities not admitted because they were requested
+     * less often than the entry they would have replaced.
+     *
+     * @return the number of rejected admissions
+     */
+    public synchronized long getRejectionCount()
+    {
+        return this.rejectionCount;
+    }
+
+    // Methods
+
+    /**
+     * Returns the cached entity for the key, loading and caching it on a miss.
+     * Null results are not cached.
+     *
+     * @param key the key to look up
+     * @param loader the function loading the entity when it is not cached
+     * @return the entity, or null if the loader found none
+     */
+    public V get(K key, Function<K, V> loader)
+    {
+        long invalidationsBeforeLoad;
+        synchronized (this)
+        {
+            sketch.increment(key);
+
+            Entry<V> entry = entries.get(key);
+            if (entry != null)
+            {
+                hitCount++;
+                return entry.value;
+            }
+
+            missCount++;
+            invalidationsBeforeLoad = invalidations;
+        }
+
+        long start = System.nanoTime();
+        V value = loader.apply(key);
+        long loadNanos = System.nanoTime() - start;
+
+        synchronized (this)
+        {
+            loadCount++;
+            totalLoadNanos += loadNanos;
+
+            if (value != null && invalidations == invalidationsBeforeLoad)
+            {
+                admit(key, value);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Removes the entity for the key so that the next lookup reads it again.
+     *
+     * @param key the key to invalidate
+     */
+    public synchronized void invalidate(K key)
+    {
+        invalidations++;
+
+        Entry<V> entry = entries.remove(key);
+        if (entry != null)
+        {
+            weight -= entry.weight;
+        }
+    }
+
+    /**
+     * Removes every entity from the cache.
+     */
+    public synchronized void invalidateAll()
+    {
+        invalidations++;
+
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Estimates the heap taken by a set of strings, for use in weighers.
+     *
+     * @param values the strings, which may be null
+     * @return the estimated size in bytes
+     */
+    public static long estimateBytes(String... values)
+    {
+        long bytes = 0;
+        for (String value : values)
+        {
+            if (value != null)
+            {
+                bytes += 40 + value.length();
+            }
+        }
+
+        return bytes;
+    }
+
+    // Utilities
+
+    private void admit(K key, V value)
+    {
+        long entryWeight = Math.max(1, weigher.applyAsLong(value));
+        if (entryWeight > maxBytes)
+        {
+            rejectionCount++;
+            return;
+        }
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        boolean isVictimChecked = false;
+
+        while ((entries.size() >= maxEntries || weight + entryWeight > maxBytes) && eldest.hasNext())
+        {
+            Map.Entry<K, Entry<V>> victim = eldest.next();
+            if (!isVictimChecked && sketch.frequency(victim.getKey()) > sketch.frequency(key))
+            {
+                rejectionCount++;
+                return;
+            }
+
+            isVictimChecked = true;
+            weight -= victim.getValue().weight;
+            eldest.remove();
+            evictionCount++;
+        }
+
+        entries.put(key, new Entry<>(value, entryWeight));
+        weight += entryWeight;
+    }
+
+    // Overrides
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("%s: %d entries, %d bytes, hit ratio %.3f, avg load %.2f ms, %d evictions, %d rejections",
+                name, entries.size(), weight, getHitRatio(), getAverageLoadNanos() / 1e6, evictionCount, rejectionCount);
+    }
+
+    // Nested Classes
+
+    private static final class Entry<V>
+    {
+
+        private Entry(V value, long weight)
+        {
+            this.value = value;
+            this.weight = weight;
+        }
+
+        private final V value;
+        private final long weight;
+
+    }
+
+}
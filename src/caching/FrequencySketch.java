@@ -0,0 +1,124 @@
+package caching;
+
+/**
+ * The FrequencySketch class estimates how often each key has been requested
+ * recently, using a count-min sketch of small saturating counters. All counters
+ * are halved periodically so that keys which were popular a long time ago do
+ * not keep their advantage forever.
+ * <p>
+ * This class is not thread-safe; EntityCache only calls it while holding its lock.
+ */
+class FrequencySketch
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new FrequencySketch sized for the given number of entries.
+     *
+     * @param expectedEntries the number of entries the owning cache can hold
+     */
+    FrequencySketch(int expectedEntries)
+    {
+        int width = Integer.highestOneBit(Math.max(16, expectedEntries) - 1) << 1;
+
+        counters = new byte[DEPTH * width];
+        mask = width - 1;
+        sampleSize = 10L * Math.max(16, expectedEntries);
+    }
+
+    // Fields
+
+    /**
+     * The number of independent counter rows; an estimate is the minimum over all rows.
+     */
+    private static final int DEPTH = 4;
+    /**
+     * The value at which a counter stops increasing.
+     */
+    private static final int MAX_COUNT = 15;
+    /**
+     * The odd multipliers used to derive one hash per row.
+     */
+    private static final int[] SEEDS = { 0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F };
+
+    // Properties
+
+    private final byte[] counters;
+    private final int mask;
+    private final long sampleSize;
+    private long additions;
+
+    // Methods
+
+    /**
+     * Records one request for the key.
+     *
+     * @param key the requested key
+     */
+    void increment(Object key)
+    {
+        int hash = spread(key.hashCode());
+        boolean isAdded = false;
+
+        for (int row = 0; row < DEPTH; row++)
+        {
+            int index = indexOf(hash, row);
+            if (counters[index] < MAX_COUNT)
+            {
+                counters[index]++;
+                isAdded = true;
+            }
+        }
+
+        if (isAdded && ++additions >= sampleSize)
+        {
+            age();
+        }
+    }
+
+    /**
+     * Estimates how often the key has been requested recently.
+     *
+     * @param key the key to look up
+     * @return the estimated number of recent requests, at most 15
+     */
+    int frequency(Object key)
+    {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+
+        for (int row = 0; row < DEPTH; row++)
+        {
+            frequency = Math.min(frequency, counters[indexOf(hash, row)]);
+        }
+
+        return frequency;
+    }
+
+    // Utilities
+
+    private int indexOf(int hash, int row)
+    {
+        int rowHash = (hash * SEEDS[row]) >>> 16 ^ hash * SEEDS[row];
+        return row * (mask + 1) + (rowHash & mask);
+    }
+
+    private void age()
+    {
+        for (int i = 0; i < counters.length; i++)
+        {
+            counters[i] = (byte) (counters[i] >>> 1);
+        }
+
+        additions /= 2;
+    }
+
+    private static int spread(int hash)
+    {
+        hash ^= hash >>> 16;
+        hash *= 0x45D9F3B;
+        return hash ^ hash >>> 16;
+    }
+
+}
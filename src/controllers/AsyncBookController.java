@@ -0,0 +1,257 @@
+package controllers;
+
+import models.Book;
+import models.BookSummary;
+import repositories.ImportReport;
+import search.BookIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The AsyncBookController class offers the operations of BookController as
+ * CompletableFutures running on virtual threads, so that callers can start
+ * independent lookups together and wait for all of them at once. At most as many
+ * calls as the connection pool has connections run against the database at a
+ * time.
+ */
+public class AsyncBookController
+{
+
+    // Constructor
+
+    public AsyncBookController()
+    {
+        bookController = new BookController();
+        dispatcher = AsyncDispatcher.getInstance();
+    }
+
+    // Properties
+
+    private final BookController bookController;
+    private final AsyncDispatcher dispatcher;
+
+    // Accessor Methods
+
+    /**
+     * Retrieves all books from the database.
+     * Runs {@link BookController#getBooksByAll} on a virtual thread.
+     *
+     * @return a future completed with an ArrayList of Book objects
+     */
+    public CompletableFuture<ArrayList<Book>> getBooksByAll()
+    {
+        return dispatcher.submit(() -> bookController.getBooksByAll());
+    }
+
+    /**
+     * Runs an action for every book in the database, in constant memory.
+     * Runs {@link BookController#forEachBook} on a virtual thread.
+     *
+     * @param action the action to run for each book, in ID order
+     * @return a future completed once every book has been visited
+     */
+    public CompletableFuture<Void> forEachBook(Consumer<Book> action)
+    {
+        return dispatcher.run(() -> bookController.forEachBook(action));
+    }
+
+    /**
+     * Retrieves one page of book summaries in ID order, starting after the given book.
+     * Runs {@link BookController#getBooksPage} on a virtual thread.
+     *
+     * @param afterId the ID of the last book of the previous page, or null for the first page
+     * @param limit the maximum number of books on the page
+     * @return a future completed with the page of BookSummary objects
+     */
+    public CompletableFuture<Page<BookSummary>> getBooksPage(String afterId, int limit)
+    {
+        return dispatcher.submit(() -> bookController.getBooksPage(afterId, limit));
+    }
+
+    /**
+     * Retrieves one page of book summaries in ID order, ending before the given book.
+     * Runs {@link BookController#getBooksPageBefore} on a virtual thread.
+     *
+     * @param beforeId the ID of the first book of the next page, or null for the first page
+     * @param limit the maximum number of books on the page
+     * @return a future completed with the page of BookSummary objects
+     */
+    public CompletableFuture<Page<BookSummary>> getBooksPageBefore(String beforeId, int limit)
+    {
+        return dispatcher.submit(() -> bookController.getBooksPageBefore(beforeId, limit));
+    }
+
+    /**
+     * Retrieves books from the database by their title.
+     * Runs {@link BookController#getBooksByTitle} on a virtual thread.
+     *
+     * @param title the title of the book
+     * @return a future completed with an ArrayList of Book objects
+     */
+    public CompletableFuture<ArrayList<Book>> getBooksByTitle(String title)
+    {
+        return dispatcher.submit(() -> bookController.getBooksByTitle(title));
+    }
+
+    /**
+     * Retrieves a list of books that match the specified genre.
+     * Runs {@link BookController#getBooksByGenre} on a virtual thread.
+     *
+     * @param genre the genre to search for
+     * @return a future completed with an ArrayList of Book objects
+     */
+    public CompletableFuture<ArrayList<Book>> getBooksByGenre(String genre)
+    {
+        return dispatcher.submit(() -> bookController.getBooksByGenre(genre));
+    }
+
+    /**
+     * Retrieves a list of books that match the specified author.
+     * Runs {@link BookController#getBooksByAuthor} on a virtual thread.
+     *
+     * @param author the author to search for
+     * @return a future completed with an ArrayList of Book objects
+     */
+    public CompletableFuture<ArrayList<Book>> getBooksByAuthor(String author)
+    {
+        return dispatcher.submit(() -> bookController.getBooksByAuthor(author));
+    }
+
+    /**
+     * Searches the in-memory index for books whose field contains every word of the keyword.
+     * Runs {@link BookController#searchBooks} on a virtual thread.
+     *
+     * @param field the field to search
+     * @param keyword the words to search for
+     * @return a future completed with an ArrayList of BookSummary objects
+     */
+    public CompletableFuture<ArrayList<BookSummary>> searchBooks(BookIndex.Field field, String keyword)
+    {
+        return dispatcher.submit(() -> bookController.searchBooks(field, keyword));
+    }
+
+    /**
+     * Retrieves a list of books borrowed by a specific patron.
+     * Runs {@link BookController#getBorrowedBooksByPatronId} on a virtual thread.
+     *
+     * @param patronId the ID of the patron
+     * @return a future completed with an ArrayList of Book objects
+     */
+    public CompletableFuture<ArrayList<Book>> getBorrowedBooksByPatronId(String patronId)
+    {
+        return dispatcher.submit(() -> bookController.getBorrowedBooksByPatronId(patronId));
+    }
+
+    /**
+     * Retrieves the summaries of the books currently borrowed by a specific patron.
+     * Runs {@link BookController#getBorrowedBookSummariesByPatronId} on a virtual thread.
+     *
+     * @param patronId the ID of the patron
+     * @return a future completed with an ArrayList of BookSummary objects
+     */
+    public CompletableFuture<ArrayList<BookSummary>> getBorrowedBookSummariesByPatronId(String patronId)
+    {
+        return dispatcher.submit(() -> bookController.getBorrowedBookSummariesByPatronId(patronId));
+    }
+
+    /**
+     * Retrieves a list of books borrowed by a specific patron.
+     * Runs {@link BookController#getBorrowedBooksByPatronEmail} on a virtual thread.
+     *
+     * @param emailAddress the email address of the patron
+     * @return a future completed with an ArrayList of Book objects
+     */
+    public CompletableFuture<ArrayList<Book>> getBorrowedBooksByPatronEmail(String emailAddress)
+    {
+        return dispatcher.submit(() -> bookController.getBorrowedBooksByPatronEmail(emailAddress));
+    }
+
+    /**
+     * Retrieves a book by its unique identifier.
+     * Runs {@link BookController#getBookById} on a virtual thread.
+     *
+     * @param id the unique identifier of the book
+     * @return a future completed with the Book object, or null if not found
+     */
+    public CompletableFuture<Book> getBookById(String id)
+    {
+        return dispatcher.submit(() -> bookController.getBookById(id));
+    }
+
+    /**
+     * Retrieves a book by its ISBN.
+     * Runs {@link BookController#getBookByIsbn} on a virtual thread.
+     *
+     * @param isbn the ISBN of the book
+     * @return a future completed with the Book object, or null if not found
+     */
+    public CompletableFuture<Book> getBookByIsbn(String isbn)
+    {
+        return dispatcher.submit(() -> bookController.getBookByIsbn(isbn));
+    }
+
+    /**
+     * Generates a new unique identifier for a book.
+     * Runs {@link BookController#generateBookId} on a virtual thread.
+     *
+     * @return a future completed with the new identifier, or null if one could not be allocated
+     */
+    public CompletableFuture<String> generateBookId()
+    {
+        return dispatcher.submit(() -> bookController.generateBookId());
+    }
+
+    // Mutator Methods
+
+    /**
+     * Adds a new book to the database.
+     * Runs {@link BookController#addBook} on a virtual thread.
+     *
+     * @param book the Book object to be added
+     * @return a future completed with true if the book was added
+     */
+    public CompletableFuture<Boolean> addBook(Book book)
+    {
+        return dispatcher.submit(() -> bookController.addBook(book));
+    }
+
+    /**
+     * Adds many books to the database in JDBC batches.
+     * Runs {@link BookController#addBooks} on a virtual thread.
+     *
+     * @param books the Book objects to be added
+     * @return a future completed with the report of the import
+     */
+    public CompletableFuture<ImportReport<Book>> addBooks(Collection<? extends Book> books)
+    {
+        return dispatcher.submit(() -> bookController.addBooks(books));
+    }
+
+    /**
+     * Updates an existing book in the database.
+     * Runs {@link BookController#updateBook} on a virtual thread.
+     *
+     * @param book the Book object with updated information
+     * @return a future completed with true if the book was updated
+     */
+    public CompletableFuture<Boolean> updateBook(Book book)
+    {
+        return dispatcher.submit(() -> bookController.updateBook(book));
+    }
+
+    /**
+     * Deletes a book from the database by its unique identifier.
+     * Runs {@link BookController#deleteBook} on a virtual thread.
+     *
+     * @param id the unique identifier of the book to be deleted
+     * @return a future completed with true if the book was deleted
+     */
+    public CompletableFuture<Boolean> deleteBook(String id)
+    {
+        return dispatcher.submit(() -> bookController.deleteBook(id));
+    }
+
+}
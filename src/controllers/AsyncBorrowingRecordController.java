@@ -0,0 +1,199 @@
+package controllers;
+
+import models.BorrowingRecord;
+import repositories.ImportReport;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The AsyncBorrowingRecordController class offers the operations of
+ * BorrowingRecordController as CompletableFutures running on virtual threads.
+ * At most as many calls as the connection pool has connections run against the
+ * database at a time.
+ */
+public class AsyncBorrowingRecordController
+{
+
+    // Constructor
+
+    public AsyncBorrowingRecordController()
+    {
+        borrowingRecordController = new BorrowingRecordController();
+        dispatcher = AsyncDispatcher.getInstance();
+    }
+
+    // Properties
+
+    private final BorrowingRecordController borrowingRecordController;
+    private final AsyncDispatcher dispatcher;
+
+    // Accessor Methods
+
+    /**
+     * Retrieves all borrowing records from the database.
+     * Runs {@link BorrowingRecordController#getBorrowingRecordsByAll} on a virtual thread.
+     *
+     * @return a future completed with an ArrayList of BorrowingRecord objects
+     */
+    public CompletableFuture<ArrayList<BorrowingRecord>> getBorrowingRecordsByAll()
+    {
+        return dispatcher.submit(() -> borrowingRecordController.getBorrowingRecordsByAll());
+    }
+
+    /**
+     * Runs an action for every borrowing record in the database, in constant memory.
+     * Runs {@link BorrowingRecordController#forEachBorrowingRecord} on a virtual thread.
+     *
+     * @param action the action to run for each record, in ID order
+     * @return a future completed once every record has been visited
+     */
+    public CompletableFuture<Void> forEachBorrowingRecord(Consumer<BorrowingRecord> action)
+    {
+        return dispatcher.run(() -> borrowingRecordController.forEachBorrowingRecord(action));
+    }
+
+    /**
+     * Retrieves one page of borrowing records ordered by borrowing date, starting after the given record.
+     * Runs {@link BorrowingRecordController#getBorrowingRecordsPage} on a virtual thread.
+     *
+     * @param patronId the ID of the patron whose records are listed, or null for all records
+     * @param after the last record of the previous page, or null for the first page
+     * @param limit the maximum number of records on the page
+     * @return a future completed with the page of BorrowingRecord objects
+     */
+    public CompletableFuture<Page<BorrowingRecord>> getBorrowingRecordsPage(String patronId, BorrowingRecord after, int limit)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.getBorrowingRecordsPage(patronId, after, limit));
+    }
+
+    /**
+     * Retrieves one page of borrowing records ordered by borrowing date, ending before the given record.
+     * Runs {@link BorrowingRecordController#getBorrowingRecordsPageBefore} on a virtual thread.
+     *
+     * @param patronId the ID of the patron whose records are listed, or null for all records
+     * @param before the first record of the next page, or null for the first page
+     * @param limit the maximum number of records on the page
+     * @return a future completed with the page of BorrowingRecord objects
+     */
+    public CompletableFuture<Page<BorrowingRecord>> getBorrowingRecordsPageBefore(String patronId, BorrowingRecord before, int limit)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.getBorrowingRecordsPageBefore(patronId, before, limit));
+    }
+
+    /**
+     * Retrieves the most recent borrowing records, newest first.
+     * Runs {@link BorrowingRecordController#getLatestBorrowingRecords} on a virtual thread.
+     *
+     * @param patronId the ID of the patron whose records are listed, or null for all records
+     * @param limit the maximum number of records
+     * @return a future completed with an ArrayList of the latest BorrowingRecord objects
+     */
+    public CompletableFuture<ArrayList<BorrowingRecord>> getLatestBorrowingRecords(String patronId, int limit)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.getLatestBorrowingRecords(patronId, limit));
+    }
+
+    /**
+     * Retrieves the borrowing records of a patron.
+     * Runs {@link BorrowingRecordController#getBorrowingRecordsByPatronId} on a virtual thread.
+     *
+     * @param patronId the ID of the patron
+     * @return a future completed with an ArrayList of BorrowingRecord objects
+     */
+    public CompletableFuture<ArrayList<BorrowingRecord>> getBorrowingRecordsByPatronId(String patronId)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.getBorrowingRecordsByPatronId(patronId));
+    }
+
+    /**
+     * Retrieves a borrowing record by its unique identifier.
+     * Runs {@link BorrowingRecordController#getBorrowingRecordById} on a virtual thread.
+     *
+     * @param id the ID of the borrowing record
+     * @return a future completed with the BorrowingRecord object, or null if not found
+     */
+    public CompletableFuture<BorrowingRecord> getBorrowingRecordById(String id)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.getBorrowingRecordById(id));
+    }
+
+    // Mutator Methods
+
+    /**
+     * Adds a new borrowing record to the database.
+     * Runs {@link BorrowingRecordController#addBorrowingRecord} on a virtual thread.
+     *
+     * @param borrowingRecord the BorrowingRecord object to add
+     * @return a future completed with true if the record was added
+     */
+    public CompletableFuture<Boolean> addBorrowingRecord(BorrowingRecord borrowingRecord)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.addBorrowingRecord(borrowingRecord));
+    }
+
+    /**
+     * Adds many borrowing records to the database in JDBC batches.
+     * Runs {@link BorrowingRecordController#addBorrowingRecords} on a virtual thread.
+     *
+     * @param borrowingRecords the BorrowingRecord objects to add
+     * @return a future completed with the report of the import
+     */
+    public CompletableFuture<ImportReport<BorrowingRecord>> addBorrowingRecords(Collection<? extends BorrowingRecord> borrowingRecords)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.addBorrowingRecords(borrowingRecords));
+    }
+
+    /**
+     * Lends a book to a patron in a single transaction.
+     * Runs {@link BorrowingRecordController#borrow} on a virtual thread.
+     *
+     * @param bookId the ID of the book to borrow
+     * @param patronId the ID of the patron borrowing the book
+     * @return a future completed with the outcome of the attempt
+     */
+    public CompletableFuture<BorrowResult> borrow(String bookId, String patronId)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.borrow(bookId, patronId));
+    }
+
+    /**
+     * Closes a loan in a single transaction and makes its book available again.
+     * Runs {@link BorrowingRecordController#returnBook} on a virtual thread.
+     *
+     * @param id the ID of the borrowing record
+     * @return a future completed with the outcome of the attempt
+     */
+    public CompletableFuture<ReturnResult> returnBook(String id)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.returnBook(id));
+    }
+
+    /**
+     * Updates an existing borrowing record in the database.
+     * Runs {@link BorrowingRecordController#updateBorrowingRecord} on a virtual thread.
+     *
+     * @param borrowingRecord the BorrowingRecord object to update
+     * @return a future completed with true if the record was updated
+     */
+    public CompletableFuture<Boolean> updateBorrowingRecord(BorrowingRecord borrowingRecord)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.updateBorrowingRecord(borrowingRecord));
+    }
+
+    /**
+     * Changes the status of a borrowing record, returning its book if the loan is closed.
+     * Runs {@link BorrowingRecordController#updateBorrowingRecordStatus} on a virtual thread.
+     *
+     * @param id the ID of the borrowing record
+     * @param recordStatus the new status
+     * @return a future completed with the updated record, or null if it could not be updated
+     */
+    public CompletableFuture<BorrowingRecord> updateBorrowingRecordStatus(String id, String recordStatus)
+    {
+        return dispatcher.submit(() -> borrowingRecordController.updateBorrowingRecordStatus(id, recordStatus));
+    }
+
+}
@@ -0,0 +1,90 @@
+package controllers;
+
+import repositories.Storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * The AsyncDispatcher class runs blocking controller calls on virtual threads for
+ * the asynchronous controllers. Each call gets a virtual thread of its own, so
+ * waiting on JDBC costs no platform thread, but only as many calls as the
+ * storage engine serves well at once, the size of the connection pool for the
+ * database, run at once; the others wait on a semaphore instead of piling up on
+ * the pool's lease timeout.
+ */
+final class AsyncDispatcher
+{
+
+    // Constructor
+
+    private AsyncDispatcher()
+    {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        permits = new Semaphore(Integer.getInteger("histopedia.async.maxConcurrency",
+                Storage.getInstance().getMaxConcurrency()), true);
+    }
+
+    // Fields
+
+    private static final AsyncDispatcher INSTANCE = new AsyncDispatcher();
+
+    // Properties
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    // Methods
+
+    /**
+     * Gets the dispatcher shared by all asynchronous controllers.
+     *
+     * @return the shared dispatcher
+     */
+    static AsyncDispatcher getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs a blocking call on a virtual thread once a permit is free.
+     *
+     * @param call the blocking call
+     * @param <T> the type of the call's result
+     * @return the future completed with the call's result, or exceptionally if it throws
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> call)
+    {
+        return CompletableFuture.supplyAsync(() ->
+        {
+            permits.acquireUninterruptibly();
+            try
+            {
+                return call.get();
+            }
+            finally
+            {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs a blocking action on a virtual thread once a permit is free.
+     *
+     * @param action the blocking action
+     * @return the future completed when the action returns
+     */
+    CompletableFuture<Void> run(Runnable action)
+    {
+        return submit(() ->
+        {
+            action.run();
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,105 @@
+package controllers;
+
+import models.User;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The AsyncUserController class offers the operations of UserController as
+ * CompletableFutures running on virtual threads. At most as many calls as the
+ * connection pool has connections run against the database at a time.
+ */
+public class AsyncUserController
+{
+
+    // Constructor
+
+    public AsyncUserController()
+    {
+        userController = new UserController();
+        dispatcher = AsyncDispatcher.getInstance();
+    }
+
+    // Properties
+
+    private final UserController userController;
+    private final AsyncDispatcher dispatcher;
+
+    // Accessor Methods
+
+    /**
+     * Retrieves all users from the database.
+     * Runs {@link UserController#getUsersByAll} on a virtual thread.
+     *
+     * @return a future completed with an ArrayList of User objects
+     */
+    public CompletableFuture<ArrayList<User>> getUsersByAll()
+    {
+        return dispatcher.submit(() -> userController.getUsersByAll());
+    }
+
+    /**
+     * Runs an action for every user in the database, in constant memory.
+     * Runs {@link UserController#forEachUser} on a virtual thread.
+     *
+     * @param action the action to run for each user, in ID order
+     * @return a future completed once every user has been visited
+     */
+    public CompletableFuture<Void> forEachUser(Consumer<User> action)
+    {
+        return dispatcher.run(() -> userController.forEachUser(action));
+    }
+
+    /**
+     * Retrieves a user from the database by their ID.
+     * Runs {@link UserController#getUserById} on a virtual thread.
+     *
+     * @param id the ID of the user
+     * @return a future completed with the User object, or null if not found
+     */
+    public CompletableFuture<User> getUserById(String id)
+    {
+        return dispatcher.submit(() -> userController.getUserById(id));
+    }
+
+    /**
+     * Retrieves a user by their login credentials.
+     * Runs {@link UserController#getUserByLoginInfo} on a virtual thread.
+     *
+     * @param emailAddress the email address of the user
+     * @param password the password of the user
+     * @return a future completed with the User object, or null if the credentials do not match
+     */
+    public CompletableFuture<User> getUserByLoginInfo(String emailAddress, String password)
+    {
+        return dispatcher.submit(() -> userController.getUserByLoginInfo(emailAddress, password));
+    }
+
+    /**
+     * Generates a new unique identifier for a user.
+     * Runs {@link UserController#generateUserId} on a virtual thread.
+     *
+     * @return a future completed with the new identifier, or null if one could not be allocated
+     */
+    public CompletableFuture<String> generateUserId()
+    {
+        return dispatcher.submit(() -> userController.generateUserId());
+    }
+
+    // Mutator Methods
+
+    /**
+     * Adds a new user to the database.
+     * Runs {@link UserController#addUser} on a virtual thread.
+     *
+     * @param user the User object to add
+     * @return a future completed with true if the user was added
+     */
+    public CompletableFuture<Boolean> addUser(User user)
+    {
+        return dispatcher.submit(() -> userController.addUser(user));
+    }
+
+}
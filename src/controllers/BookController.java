@@ -1,18 +1,28 @@
 package controllers;
 
+import analytics.LoanAnalytics;
+import caching.CatalogSnapshot;
+import caching.EntityCache;
 import factories.BiographyBookFactory;
-import factories.BookFactory;
-import factories.MilitaryHistoryBookFactory;
-import factories.RevolutionBookFactory;
-import models.BiographyBook;
 import models.Book;
-import models.User;
-import singleton.Database;
-
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import models.BookSummary;
+import repositories.BookRepository;
+import repositories.ImportReport;
+import repositories.Storage;
+import search.BookIndex;
+import singleton.IdAllocator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class BookController
 {
@@ -21,12 +31,37 @@ public class BookController
 
     public BookController()
     {
-        database = Database.getInstance();
+        storage = Storage.getInstance();
+        books = storage.books();
     }
 
+    // Fields
+
+    private static final EntityCache<String, Book> BOOK_CACHE = new EntityCache<>("books",
+            Integer.getInteger("histopedia.cache.books.maxEntries", 10000),
+            Long.getLong("histopedia.cache.books.maxBytes", 16L * 1024 * 1024),
+            book -> 64 + EntityCache.estimateBytes(
+                    book.getId(),
+                    book.getTitle(),
+                    book.getGenre(),
+                    book.getDescription(),
+                    book.getAuthor(),
+                    book.getPublisher(),
+                    book.getIsbn(),
+                    book.getStatus()));
+    private static final BookIndex SEARCH_INDEX = new BookIndex();
+    private static volatile boolean isSearchIndexBuilt;
+    private static final Path CATALOG_SNAPSHOT_FILE =
+            Paths.get(System.getProperty("histopedia.snapshot.file", "histopedia-catalog.snapshot"));
+    private static final Set<String> CHANGED_BOOK_IDS = ConcurrentHashMap.newKeySet();
+    private static volatile CatalogSnapshot catalogSnapshot;
+    private static volatile boolean isCatalogRefreshing;
+    private static volatile boolean isCatalogChanged;
+
     // Properties
 
-    private final Database database;
+    private final Storage storage;
+    private final BookRepository books;
 
     // Accessor Methods: Book
 
@@ -37,7 +72,89 @@ public class BookController
      */
     public ArrayList<Book> getBooksByAll()
     {
-        return queryBooks("SELECT * FROM books");
+        return attempt(books::findAll, new ArrayList<>());
+    }
+
+    /**
+     * Streams every book from the database, reading one row at a time as the stream
+     * is consumed instead of loading the catalog into memory. The stream holds a
+     * connection of its own until it is closed, so close it, preferably with
+     * try-with-resources.
+     *
+     * @return a Stream of Book objects in ID order
+     */
+    public Stream<Book> streamBooks()
+    {
+        return books.streamAll();
+    }
+
+    /**
+     * Runs an action for every book in the database, in constant memory.
+     *
+     * @param action the action to run for each book, in ID order
+     */
+    public void forEachBook(Consumer<Book> action)
+    {
+        try (Stream<Book> books = streamBooks())
+        {
+            books.forEach(action);
+        }
+    }
+
+    /**
+     * Retrieves one page of book summaries in ID order, starting after the given
+     * book. The page is found through the primary key, so it costs the same wherever
+     * it is in the catalog, and only the columns shown in listings are read.
+     *
+     * @param afterId the ID of the last book of the previous page, or null for the first page
+     * @param limit the maximum number of books on the page
+     * @return the page of BookSummary objects
+     */
+    public Page<BookSummary> getBooksPage(String afterId, int limit)
+    {
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null && !isCatalogChanged)
+        {
+            return Page.forward(patchSummaries(snapshot.findSummariesAfter(afterId, limit + 1)), limit, afterId != null);
+        }
+
+        return Page.forward(attempt(() -> books.findSummariesAfter(afterId, limit + 1), new ArrayList<>()),
+                limit,
+                afterId != null);
+    }
+
+    /**
+     * Retrieves one page of book summaries in ID order, ending before the given book.
+     *
+     * @param beforeId the ID of the first book of the next page, or null for the first page
+     * @param limit the maximum number of books on the page
+     * @return the page of BookSummary objects
+     */
+    public Page<BookSummary> getBooksPageBefore(String beforeId, int limit)
+    {
+        if (beforeId == null)
+        {
+            return getBooksPage(null, limit);
+        }
+
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null && !isCatalogChanged)
+        {
+            return Page.backward(patchSummaries(snapshot.findSummariesBefore(beforeId, limit + 1)), limit);
+        }
+
+        return Page.backward(attempt(() -> books.findSummariesBefore(beforeId, limit + 1), new ArrayList<>()), limit);
+    }
+
+    /**
+     * Streams the summary of every book from the database, in ID order. The stream
+     * holds a connection of its own until it is closed.
+     *
+     * @return a Stream of BookSummary objects
+     */
+    public Stream<BookSummary> streamBookSummaries()
+    {
+        return books.streamSummaries();
     }
 
     /**
@@ -48,7 +165,7 @@ public class BookController
      */
     public ArrayList<Book> getBooksByTitle(String title)
     {
-        return queryBooks("SELECT * FROM books WHERE title LIKE ?", title);
+        return attempt(() -> books.findByTitleLike(title), new ArrayList<>());
     }
 
     /**
@@ -59,7 +176,7 @@ public class BookController
      */
     public ArrayList<Book> getBooksByGenre(String genre)
     {
-        return queryBooks("SELECT * FROM books WHERE genre LIKE ?", genre);
+        return attempt(() -> books.findByGenreLike(genre), new ArrayList<>());
     }
 
     /**
@@ -70,7 +187,102 @@ public class BookController
      */
     public ArrayList<Book> getBooksByAuthor(String author)
     {
-        return queryBooks("SELECT * FROM books WHERE author LIKE ?", author);
+        return attempt(() -> books.findByAuthorLike(author), new ArrayList<>());
+    }
+
+    /**
+     * Searches the in-memory index for books whose field contains every word of the
+     * keyword, ignoring case and punctuation. The index is built from the database
+     * on first use and kept up to date by this controller's writes, so searching
+     * does not query the database.
+     *
+     * @param field The field to search.
+     * @param keyword The words to search for.
+     * @return An ArrayList of BookSummary objects that match every word.
+     */
+    public ArrayList<BookSummary> searchBooks(BookIndex.Field field, String keyword)
+    {
+        if (!isSearchIndexBuilt)
+        {
+            synchronized (SEARCH_INDEX)
+            {
+                if (!isSearchIndexBuilt)
+                {
+                    rebuildSearchIndex();
+                }
+            }
+        }
+
+        return new ArrayList<>(SEARCH_INDEX.search(field, keyword));
+    }
+
+    /**
+     * Rebuilds the search index from every book in the database, or from the
+     * catalog snapshot while one is being served.
+     */
+    public void rebuildSearchIndex()
+    {
+        synchronized (SEARCH_INDEX)
+        {
+            CatalogSnapshot snapshot = catalogSnapshot;
+            if (snapshot != null)
+            {
+                SEARCH_INDEX.rebuild(snapshot.summaries());
+            }
+            else
+            {
+                try (Stream<BookSummary> summaries = streamBookSummaries())
+                {
+                    SEARCH_INDEX.rebuild(summaries.iterator());
+                }
+            }
+
+            isSearchIndexBuilt = true;
+        }
+    }
+
+    /**
+     * Prepares the catalog at startup. If a snapshot was written by an earlier run,
+     * it is mapped and lookups, listings and searches are served from it while a
+     * background thread reads the books table into a new snapshot; once that is
+     * written, the controller switches back to the database. Without a snapshot,
+     * the search index is built from the database as before and the snapshot is
+     * written in the background for the next start.
+     * <p>
+     * Changes made by this process while the snapshot is served are read from the
+     * database. Changes made by other processes are not seen until the refresh
+     * completes.
+     */
+    public void openCatalogSnapshot()
+    {
+        if (!Boolean.parseBoolean(System.getProperty("histopedia.snapshot.enabled", "true")))
+        {
+            rebuildSearchIndex();
+            return;
+        }
+
+        isCatalogRefreshing = true;
+        try
+        {
+            Path latest = CatalogSnapshot.findLatestGeneration(CATALOG_SNAPSHOT_FILE);
+            if (latest != null)
+            {
+                catalogSnapshot = CatalogSnapshot.open(latest);
+            }
+        }
+        catch (IOException ex)
+        {
+            System.err.println("Snapshot error detected.\nDetails:\n" + ex.getMessage());
+        }
+
+        if (catalogSnapshot == null)
+        {
+            rebuildSearchIndex();
+        }
+
+        Thread refresher = new Thread(this::refreshCatalogSnapshot, "catalog-snapshot");
+        refresher.setDaemon(true);
+        refresher.start();
     }
 
     /**
@@ -81,11 +293,18 @@ public class BookController
      */
     public ArrayList<Book> getBorrowedBooksByPatronId(String patronId)
     {
-        return queryBooks("SELECT books.* FROM books " +
-                        "JOIN borrowing_records ON books.id = borrowing_records.book_id " +
-                        "WHERE borrowing_records.patron_id = ? AND borrowing_records.record_status = ?",
-                patronId,
-                "Active");
+        return attempt(() -> books.findBorrowedByPatronId(patronId), new ArrayList<>());
+    }
+
+    /**
+     * Retrieves the summaries of the books currently borrowed by a specific patron.
+     *
+     * @param patronId The ID of the patron.
+     * @return An ArrayList of BookSummary objects borrowed by the specified patron.
+     */
+    public ArrayList<BookSummary> getBorrowedBookSummariesByPatronId(String patronId)
+    {
+        return attempt(() -> books.findBorrowedSummariesByPatronId(patronId), new ArrayList<>());
     }
 
     /**
@@ -96,12 +315,7 @@ public class BookController
      */
     public ArrayList<Book> getBorrowedBooksByPatronEmail(String emailAddress)
     {
-        return queryBooks("SELECT books.* FROM books " +
-                "JOIN borrowing_records ON books.id = borrowing_records.book_id " +
-                "JOIN users ON borrowing_records.patron_id = users.id " +
-                "WHERE users.email_address = ? AND borrowing_records.record_status = ?",
-                emailAddress,
-                "Active");
+        return attempt(() -> books.findBorrowedByPatronEmail(emailAddress), new ArrayList<>());
     }
 
     /**
@@ -112,8 +326,17 @@ public class BookController
      */
     public Book getBookById(String id)
     {
-        ArrayList<Book> books = queryBooks("SELECT * FROM books WHERE id = ?", id);
-        return books.isEmpty() ? null : books.get(0);
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null && !CHANGED_BOOK_IDS.contains(id))
+        {
+            Book book = snapshot.findById(id);
+            if (book != null)
+            {
+                return book;
+            }
+        }
+
+        return BOOK_CACHE.get(id, key -> attempt(() -> books.findById(key), null));
     }
 
     /**
@@ -124,8 +347,17 @@ public class BookController
      */
     public Book getBookByIsbn(String isbn)
     {
-        ArrayList<Book> books = queryBooks("SELECT * FROM books WHERE isbn = ?", isbn);
-        return books.isEmpty() ? null : books.get(0);
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null)
+        {
+            Book book = snapshot.findByIsbn(isbn);
+            if (book != null && !CHANGED_BOOK_IDS.contains(book.getId()))
+            {
+                return book;
+            }
+        }
+
+        return attempt(() -> books.findByIsbn(isbn), null);
     }
 
     /**
@@ -136,8 +368,18 @@ public class BookController
     public Book getLatestBook()
     {
         BiographyBookFactory biographyBookFactory = new BiographyBookFactory();
-        ArrayList<Book> books = queryBooks("SELECT * FROM books ORDER BY id DESC LIMIT 1");
-        return books.isEmpty() ? biographyBookFactory.createBook() : books.get(0);
+        Book book = attempt(books::findLatest, null);
+        return book == null ? biographyBookFactory.createBook() : book;
+    }
+
+    /**
+     * Generates a new unique identifier for a book.
+     *
+     * @return The new identifier, or null if one could not be allocated.
+     */
+    public String generateBookId()
+    {
+        return attempt(() -> storage.nextId(IdAllocator.Sequence.BOOK), null);
     }
 
     /**
@@ -147,17 +389,80 @@ public class BookController
      */
     public boolean addBook(Book book)
     {
-        int rowsAffected = updateBooks("INSERT INTO books (id, title, genre, description, author, publisher, publication_year, isbn, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                book.getId(),
-                book.getTitle(),
-                book.getGenre(),
-                book.getDescription(),
-                book.getAuthor(),
-                book.getPublisher(),
-                book.getPublicationYear(),
-                book.getIsbn(),
-                book.getStatus());
-        return rowsAffected > 0;
+        boolean isAdded = attempt(() -> books.insert(book), false);
+        BOOK_CACHE.invalidate(book.getId());
+        markChanged(book.getId(), true);
+
+        if (isAdded)
+        {
+            SEARCH_INDEX.put(toSummary(book));
+            LoanAnalytics.getInstance().recordBook(book);
+        }
+
+        return isAdded;
+    }
+
+    /**
+     * Adds many books to the database, sending them in JDBC batches and committing
+     * them in chunks. Books that cannot be added are reported instead of aborting
+     * the rest of the load.
+     *
+     * @param books The Book objects to be added.
+     * @return The report of the import, including the books that could not be added.
+     */
+    public ImportReport<Book> addBooks(Collection<? extends Book> books)
+    {
+        return importBooks(books.iterator());
+    }
+
+    /**
+     * Streams books into the database with the default batch and chunk sizes.
+     *
+     * @param books The Book objects to be added, consumed one at a time.
+     * @return The report of the import, including the books that could not be added.
+     */
+    public ImportReport<Book> importBooks(Iterator<? extends Book> books)
+    {
+        return importBooks(books, ImportReport.DEFAULT_BATCH_SIZE, ImportReport.DEFAULT_CHUNK_SIZE, chunk -> { });
+    }
+
+    /**
+     * Streams books into the database. Only one chunk of books is held in memory at
+     * a time, so the iterator may produce far more books than fit on the heap.
+     *
+     * @param books The Book objects to be added, consumed one at a time.
+     * @param batchSize The number of books sent to the database per round trip.
+     * @param chunkSize The number of books committed per transaction.
+     * @param listener The listener notified with the throughput of each committed chunk.
+     * @return The report of the import, including the books that could not be added.
+     */
+    public ImportReport<Book> importBooks(Iterator<? extends Book> books,
+                                          int batchSize,
+                                          int chunkSize,
+                                          Consumer<ImportReport.Chunk> listener)
+    {
+        ImportReport<Book> report = this.books.importAll(books,
+                batchSize,
+                chunkSize,
+                book ->
+                {
+                    markChanged(book.getId(), true);
+                    SEARCH_INDEX.put(toSummary(book));
+                    LoanAnalytics.getInstance().recordBook(book);
+                },
+                listener);
+        BOOK_CACHE.invalidateAll();
+        return report;
+    }
+
+    /**
+     * Gets the cache sitting in front of book lookups by ID, for example to report its statistics.
+     *
+     * @return The book cache.
+     */
+    public static EntityCache<String, Book> getBookCache()
+    {
+        return BOOK_CACHE;
     }
 
     /**
@@ -167,17 +472,17 @@ public class BookController
      */
     public boolean updateBook(Book book)
     {
-        int rowsAffected = updateBooks("UPDATE books SET title = ?, genre = ?, description = ?, author = ?, publisher = ?, publication_year = ?, isbn = ?, status = ? WHERE id = ?",
-                book.getTitle(),
-                book.getGenre(),
-                book.getDescription(),
-                book.getAuthor(),
-                book.getPublisher(),
-                book.getPublicationYear(),
-                book.getIsbn(),
-                book.getStatus(),
-                book.getId());
-        return rowsAffected > 0;
+        boolean isUpdated = attempt(() -> books.update(book), false);
+        BOOK_CACHE.invalidate(book.getId());
+        markChanged(book.getId(), false);
+
+        if (isUpdated)
+        {
+            SEARCH_INDEX.put(toSummary(book));
+            LoanAnalytics.getInstance().recordBook(book);
+        }
+
+        return isUpdated;
     }
 
     /**
@@ -187,89 +492,154 @@ public class BookController
      */
     public boolean deleteBook(String id)
     {
-        int rowsAffected = updateBooks("DELETE FROM books WHERE id = ?", id);
-        return rowsAffected > 0;
+        boolean isDeleted = attempt(() -> books.delete(id), false);
+        BOOK_CACHE.invalidate(id);
+        markChanged(id, true);
+
+        if (isDeleted)
+        {
+            SEARCH_INDEX.remove(id);
+        }
+
+        return isDeleted;
     }
 
     // Utilities
 
-    private ArrayList<Book> queryBooks(String query, Object... values)
+    void refreshBook(String id)
     {
-        ArrayList<Book> books = new ArrayList<Book>();
+        BOOK_CACHE.invalidate(id);
+        markChanged(id, false);
 
-        try (PreparedStatement statement = database.prepareStatement(query, values))
+        Book book = getBookById(id);
+        if (book != null)
         {
-            ResultSet results = statement.executeQuery();
-
-            books.addAll(convertBooksByResultSet(results));
+            SEARCH_INDEX.put(toSummary(book));
         }
-        catch (SQLException ex)
+        else
         {
-            System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+            SEARCH_INDEX.remove(id);
         }
-
-        return books;
     }
 
-    private int updateBooks(String query, Object... values)
+    /**
+     * Records that a book was written while the catalog snapshot is being served or
+     * refreshed, so that it is read from the database and re-indexed afterwards.
+     */
+    private static void markChanged(String id, boolean isMembershipChanged)
     {
-        int rowsAffected = 0;
+        if (isCatalogRefreshing)
+        {
+            CHANGED_BOOK_IDS.add(id);
+            isCatalogChanged |= isMembershipChanged;
+        }
+    }
 
-        try (PreparedStatement statement = database.prepareStatement(query, values))
+    /**
+     * Replaces the summaries of books changed since the snapshot with their current
+     * state, dropping the ones that were deleted.
+     */
+    private ArrayList<BookSummary> patchSummaries(ArrayList<BookSummary> summaries)
+    {
+        if (CHANGED_BOOK_IDS.isEmpty())
         {
-            rowsAffected = statement.executeUpdate();
+            return summaries;
         }
-        catch (SQLException ex)
+
+        ArrayList<BookSummary> patched = new ArrayList<>(summaries.size());
+        for (BookSummary summary : summaries)
         {
-            System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+            if (!CHANGED_BOOK_IDS.contains(summary.getId()))
+            {
+                patched.add(summary);
+                continue;
+            }
+
+            Book book = getBookById(summary.getId());
+            if (book != null)
+            {
+                patched.add(toSummary(book));
+            }
         }
 
-        return rowsAffected;
+        return patched;
     }
 
-    private ArrayList<Book> convertBooksByResultSet(ResultSet resultSet)
+    /**
+     * Writes a new generation of the catalog snapshot from the database, re-indexes
+     * from the books just written and stops serving the old generation, which is
+     * then deleted unless it is still mapped.
+     */
+    private void refreshCatalogSnapshot()
     {
-        BookFactory bookFactory = null;
-        ArrayList<Book> books = new ArrayList<Book>();
+        if (!isSearchIndexBuilt)
+        {
+            rebuildSearchIndex();
+        }
 
+        Path written = null;
         try
         {
-            while (resultSet.next())
+            ArrayList<BookSummary> summaries = new ArrayList<>();
+            try (Stream<Book> live = streamBooks())
             {
-                switch (resultSet.getString("genre"))
-                {
-                    case "Biography":
-                        bookFactory = new BiographyBookFactory();
-                        break;
-                    case "Military History":
-                        bookFactory = new MilitaryHistoryBookFactory();
-                        break;
-                    case "Revolution":
-                        bookFactory = new RevolutionBookFactory();
-                        break;
-                }
+                written = CatalogSnapshot.writeGeneration(CATALOG_SNAPSHOT_FILE,
+                        live.peek(book -> summaries.add(toSummary(book))).iterator());
+            }
+
+            synchronized (SEARCH_INDEX)
+            {
+                SEARCH_INDEX.rebuild(summaries.iterator());
+            }
+        }
+        catch (IOException ex)
+        {
+            System.err.println("Snapshot error detected.\nDetails:\n" + ex.getMessage());
+        }
 
-                Book book = bookFactory.createBook(
-                        resultSet.getString("id"),
-                        resultSet.getString("title"),
-                        resultSet.getString("genre"),
-                        resultSet.getString("description"),
-                        resultSet.getString("author"),
-                        resultSet.getString("publisher"),
-                        resultSet.getInt("publication_year"),
-                        resultSet.getString("isbn"),
-                        resultSet.getString("status")
-                );
-
-                books.add(book);
+        catalogSnapshot = null;
+        if (written != null)
+        {
+            try
+            {
+                CatalogSnapshot.deleteOlderGenerations(CATALOG_SNAPSHOT_FILE, written);
+            }
+            catch (IOException ex)
+            {
+                System.err.println("Snapshot error detected.\nDetails:\n" + ex.getMessage());
             }
         }
+        BOOK_CACHE.invalidateAll();
+        for (String id : CHANGED_BOOK_IDS)
+        {
+            CHANGED_BOOK_IDS.remove(id);
+            refreshBook(id);
+        }
+        isCatalogRefreshing = false;
+        isCatalogChanged = false;
+        CHANGED_BOOK_IDS.clear();
+    }
+
+    /**
+     * Runs a call to the storage, reporting a failure instead of throwing it.
+     */
+    private static <T> T attempt(Storage.Work<T> call, T fallback)
+    {
+        try
+        {
+            return call.execute();
+        }
         catch (SQLException ex)
         {
             System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+            return fallback;
         }
+    }
 
-        return books;
+    private static BookSummary toSummary(Book book)
+    {
+        return new BookSummary(book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), book.getStatus(),
+                book.getPublisher());
     }
 
 }
@@ -0,0 +1,78 @@
+package controllers;
+
+import models.BorrowingRecord;
+
+/**
+ * The BorrowResult class describes the outcome of a borrow attempt and, when the
+ * attempt succeeded, the borrowing record that was created for it.
+ */
+public class BorrowResult
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new BorrowResult.
+     *
+     * @param status the outcome of the borrow attempt
+     * @param borrowingRecord the record created by the attempt, or null if nothing was borrowed
+     */
+    BorrowResult(Status status, BorrowingRecord borrowingRecord)
+    {
+        this.status = status;
+        this.borrowingRecord = borrowingRecord;
+    }
+
+    // Properties
+
+    private final Status status;
+    private final BorrowingRecord borrowingRecord;
+
+    // Getters
+
+    /**
+     * Gets the outcome of the borrow attempt.
+     *
+     * @return the outcome of the borrow attempt
+     */
+    public Status getStatus()
+    {
+        return this.status;
+    }
+
+    /**
+     * Gets the borrowing record created by the attempt.
+     *
+     * @return the borrowing record, or null if nothing was borrowed
+     */
+    public BorrowingRecord getBorrowingRecord()
+    {
+        return this.borrowingRecord;
+    }
+
+    // Nested Classes
+
+    /**
+     * The possible outcomes of a borrow attempt.
+     */
+    public enum Status
+    {
+        /**
+         * The book was available and is now borrowed by the patron.
+         */
+        BORROWED,
+        /**
+         * No book exists with the given ID.
+         */
+        NOT_FOUND,
+        /**
+         * The book exists but is not available, for example because another patron borrowed it first.
+         */
+        UNAVAILABLE,
+        /**
+         * The attempt failed because of a database error and nothing was changed.
+         */
+        FAILED
+    }
+
+}
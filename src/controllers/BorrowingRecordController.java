@@ -1,14 +1,23 @@
 package controllers;
 
+import analytics.LoanAnalytics;
+import caching.EntityCache;
 import factories.*;
 import models.BorrowingRecord;
-import singleton.Database;
+import repositories.BookRepository;
+import repositories.BorrowingRecordRepository;
+import repositories.ImportReport;
+import repositories.Storage;
+import singleton.IdAllocator;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class BorrowingRecordController
 {
@@ -17,12 +26,31 @@ public class BorrowingRecordController
 
     public BorrowingRecordController()
     {
-        database = Database.getInstance();
+        storage = Storage.getInstance();
+        books = storage.books();
+        borrowingRecords = storage.borrowingRecords();
+        bookController = new BookController();
     }
 
+    // Fields
+
+    private static final long LOAN_PERIOD_MILLIS = 604800000L;
+    private static final EntityCache<String, BorrowingRecord> BORROWING_RECORD_CACHE = new EntityCache<>("borrowing_records",
+            Integer.getInteger("histopedia.cache.borrowingRecords.maxEntries", 10000),
+            Long.getLong("histopedia.cache.borrowingRecords.maxBytes", 4L * 1024 * 1024),
+            borrowingRecord -> 200 + EntityCache.estimateBytes(
+                    borrowingRecord.getId(),
+                    borrowingRecord.getBookId(),
+                    borrowingRecord.getPatronId(),
+                    borrowingRecord.getLibrarianId(),
+                    borrowingRecord.getRecordStatus()));
+
     // Properties
 
-    private final Database database;
+    private final Storage storage;
+    private final BookRepository books;
+    private final BorrowingRecordRepository borrowingRecords;
+    private final BookController bookController;
 
     // Accessor Methods: Borrowing Record
 
@@ -33,7 +61,93 @@ public class BorrowingRecordController
      */
     public ArrayList<BorrowingRecord> getBorrowingRecordsByAll()
     {
-        return queryBorrowingRecords("SELECT * FROM borrowing_records");
+        return attempt(borrowingRecords::findAll, new ArrayList<>());
+    }
+
+    /**
+     * Streams every borrowing record from the database, reading one row at a time
+     * as the stream is consumed, so reports over millions of loans run in constant
+     * memory. The stream holds a connection of its own until it is closed, so close
+     * it, preferably with try-with-resources.
+     *
+     * @return a Stream of BorrowingRecord objects in ID order
+     */
+    public Stream<BorrowingRecord> streamBorrowingRecords()
+    {
+        return borrowingRecords.streamAll();
+    }
+
+    /**
+     * Streams the borrowing records of one patron, oldest first.
+     *
+     * @param patronId the ID of the patron
+     * @return a Stream of BorrowingRecord objects ordered by borrowing date
+     */
+    public Stream<BorrowingRecord> streamBorrowingRecordsByPatronId(String patronId)
+    {
+        return borrowingRecords.streamByPatronId(patronId);
+    }
+
+    /**
+     * Runs an action for every borrowing record in the database, in constant memory.
+     *
+     * @param action the action to run for each record, in ID order
+     */
+    public void forEachBorrowingRecord(Consumer<BorrowingRecord> action)
+    {
+        try (Stream<BorrowingRecord> records = streamBorrowingRecords())
+        {
+            records.forEach(action);
+        }
+    }
+
+    /**
+     * Retrieves one page of borrowing records ordered by borrowing date, oldest
+     * first, starting after the given record. Records borrowed on the same day are
+     * ordered by ID, so every record has a unique position to continue from.
+     *
+     * @param patronId the ID of the patron whose records are listed, or null for all records
+     * @param after the last record of the previous page, or null for the first page
+     * @param limit the maximum number of records on the page
+     * @return the page of BorrowingRecord objects
+     */
+    public Page<BorrowingRecord> getBorrowingRecordsPage(String patronId, BorrowingRecord after, int limit)
+    {
+        return Page.forward(attempt(() -> borrowingRecords.findPage(patronId, after, true, limit + 1), new ArrayList<>()),
+                limit,
+                after != null);
+    }
+
+    /**
+     * Retrieves one page of borrowing records ordered by borrowing date, oldest
+     * first, ending before the given record.
+     *
+     * @param patronId the ID of the patron whose records are listed, or null for all records
+     * @param before the first record of the next page, or null for the first page
+     * @param limit the maximum number of records on the page
+     * @return the page of BorrowingRecord objects
+     */
+    public Page<BorrowingRecord> getBorrowingRecordsPageBefore(String patronId, BorrowingRecord before, int limit)
+    {
+        if (before == null)
+        {
+            return getBorrowingRecordsPage(patronId, null, limit);
+        }
+
+        return Page.backward(attempt(() -> borrowingRecords.findPage(patronId, before, false, limit + 1), new ArrayList<>()),
+                limit);
+    }
+
+    /**
+     * Retrieves the most recent borrowing records, newest first.
+     *
+     * @param patronId the ID of the patron whose records are listed, or null for all records
+     * @param limit the maximum number of records
+     * @return an ArrayList of the latest BorrowingRecord objects
+     */
+    public ArrayList<BorrowingRecord> getLatestBorrowingRecords(String patronId, int limit)
+    {
+        return attempt(() -> borrowingRecords.findPage(patronId, null, false, limit), new ArrayList<>());
     }
 
     /**
@@ -44,7 +158,7 @@ public class BorrowingRecordController
      */
     public ArrayList<BorrowingRecord> getBorrowingRecordsByPatronId(String patronId)
     {
-        return queryBorrowingRecords("SELECT * FROM borrowing_records WHERE patron_id = ?", patronId);
+        return attempt(() -> borrowingRecords.findByPatronId(patronId), new ArrayList<>());
     }
 
     /**
@@ -55,8 +169,7 @@ public class BorrowingRecordController
      */
     public BorrowingRecord getBorrowingRecordById(String id)
     {
-        ArrayList<BorrowingRecord> borrowingRecords = queryBorrowingRecords("SELECT * FROM borrowing_records WHERE id = ?", id);
-        return borrowingRecords.isEmpty() ? null : borrowingRecords.get(0);
+        return BORROWING_RECORD_CACHE.get(id, key -> attempt(() -> borrowingRecords.findById(key), null));
     }
 
     /**
@@ -67,8 +180,8 @@ public class BorrowingRecordController
     public BorrowingRecord getLatestBorrowingRecord()
     {
         BorrowingRecordFactory borrowingRecordFactory = new BorrowingRecordFactory();
-        ArrayList<BorrowingRecord> borrowingRecords = queryBorrowingRecords("SELECT * FROM borrowing_records ORDER BY id DESC LIMIT 1");
-        return borrowingRecords.isEmpty() ? borrowingRecordFactory.createBorrowingRecord() : borrowingRecords.get(0);
+        BorrowingRecord borrowingRecord = attempt(borrowingRecords::findLatest, null);
+        return borrowingRecord == null ? borrowingRecordFactory.createBorrowingRecord() : borrowingRecord;
     }
 
     /**
@@ -78,109 +191,319 @@ public class BorrowingRecordController
      */
     public boolean addBorrowingRecord(BorrowingRecord borrowingRecord)
     {
-        int rowsAffected = updateBorrowingRecords("INSERT INTO borrowing_records " +
-                        "(id, book_id, patron_id, librarian_id, borrowing_date, due_date, return_date, request_state, record_status) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                borrowingRecord.getId(),
-                borrowingRecord.getBookId(),
-                borrowingRecord.getPatronId(),
-                borrowingRecord.getLibrarianId(),
-                new java.sql.Date(borrowingRecord.getBorrowingDate().getTime()),
-                new java.sql.Date(borrowingRecord.getDueDate().getTime()),
-                new java.sql.Date(borrowingRecord.getReturnDate().getTime()),
-                borrowingRecord.getRequestState(),
-                borrowingRecord.getRecordStatus());
-        return rowsAffected > 0;
+        boolean isAdded = attempt(() -> borrowingRecords.insert(borrowingRecord), false);
+        BORROWING_RECORD_CACHE.invalidate(borrowingRecord.getId());
+
+        if (isAdded)
+        {
+            LoanAnalytics.getInstance().recordBorrowingRecord(borrowingRecord);
+        }
+
+        return isAdded;
     }
 
     /**
-     * Updates an existing borrowing record in the database.
+     * Adds many borrowing records to the database, sending them in JDBC batches and
+     * committing them in chunks. Records that cannot be added are reported instead
+     * of aborting the rest of the load.
      *
-     * @param borrowingRecord the BorrowingRecord object to update
+     * @param borrowingRecords the BorrowingRecord objects to add
+     * @return the report of the import, including the records that could not be added
      */
-    public boolean updateBorrowingRecord(BorrowingRecord borrowingRecord)
+    public ImportReport<BorrowingRecord> addBorrowingRecords(Collection<? extends BorrowingRecord> borrowingRecords)
     {
-        int rowsAffected = updateBorrowingRecords("UPDATE borrowing_records " +
-                        "SET book_id = ?, patron_id = ?, librarian_id = ?, borrowing_date = ?, due_date = ?, return_date = ?, request_state = ?, record_status = ? " +
-                        "WHERE id = ?",
-                borrowingRecord.getBookId(),
-                borrowingRecord.getPatronId(),
-                borrowingRecord.getLibrarianId(),
-                new java.sql.Date(borrowingRecord.getBorrowingDate().getTime()),
-                new java.sql.Date(borrowingRecord.getDueDate().getTime()),
-                new java.sql.Date(borrowingRecord.getReturnDate().getTime()),
-                borrowingRecord.getRequestState(),
-                borrowingRecord.getRecordStatus(),
-                borrowingRecord.getId());
-        return rowsAffected > 0;
+        return importBorrowingRecords(borrowingRecords.iterator());
     }
 
-    // Utilities
+    /**
+     * Streams borrowing records into the database with the default batch and chunk sizes.
+     *
+     * @param borrowingRecords the BorrowingRecord objects to add, consumed one at a time
+     * @return the report of the import, including the records that could not be added
+     */
+    public ImportReport<BorrowingRecord> importBorrowingRecords(Iterator<? extends BorrowingRecord> borrowingRecords)
+    {
+        return importBorrowingRecords(borrowingRecords,
+                ImportReport.DEFAULT_BATCH_SIZE,
+                ImportReport.DEFAULT_CHUNK_SIZE,
+                chunk -> { });
+    }
 
-    private ArrayList<BorrowingRecord> queryBorrowingRecords(String query, Object... values)
+    /**
+     * Streams borrowing records into the database, for example when migrating
+     * historical loan data. Only one chunk of records is held in memory at a time.
+     *
+     * @param borrowingRecords the BorrowingRecord objects to add, consumed one at a time
+     * @param batchSize the number of records sent to the database per round trip
+     * @param chunkSize the number of records committed per transaction
+     * @param listener the listener notified with the throughput of each committed chunk
+     * @return the report of the import, including the records that could not be added
+     */
+    public ImportReport<BorrowingRecord> importBorrowingRecords(Iterator<? extends BorrowingRecord> borrowingRecords,
+                                                                int batchSize,
+                                                                int chunkSize,
+                                                                Consumer<ImportReport.Chunk> listener)
     {
-        ArrayList<BorrowingRecord> borrowingRecords = new ArrayList<>();
+        ImportReport<BorrowingRecord> report = this.borrowingRecords.importAll(borrowingRecords,
+                batchSize,
+                chunkSize,
+                listener);
+        BORROWING_RECORD_CACHE.invalidateAll();
+        LoanAnalytics.getInstance().invalidate();
+        return report;
+    }
 
-        try (PreparedStatement statement = database.prepareStatement(query, values))
+    /**
+     * Lends a book to a patron in a single transaction. The book is claimed by
+     * replacing its status only while it is still available, which also keeps it
+     * claimed until the borrowing record is inserted and the transaction commits,
+     * so concurrent attempts on the same copy cannot both succeed.
+     * <p>
+     * The ID of the record is allocated before the transaction opens, because
+     * leasing a new block of IDs needs a connection of its own; an attempt that
+     * finds the book unavailable leaves that ID unused.
+     *
+     * @param bookId the ID of the book to borrow
+     * @param patronId the ID of the patron borrowing the book
+     * @return the outcome of the attempt, with the new record when the book was borrowed
+     */
+    public BorrowResult borrow(String bookId, String patronId)
+    {
+        BorrowResult result;
+        try
         {
-            ResultSet results = statement.executeQuery();
+            String borrowingRecordId = storage.nextId(IdAllocator.Sequence.BORROWING_RECORD);
+
+            result = storage.inTransaction(() ->
+            {
+                if (!books.replaceStatus(bookId, "Available", "Borrowed"))
+                {
+                    return new BorrowResult(books.exists(bookId) ? BorrowResult.Status.UNAVAILABLE : BorrowResult.Status.NOT_FOUND, null);
+                }
 
-            borrowingRecords.addAll(convertBorrowingRecordsByResultSet(results));
+                Date borrowingDate = new Date();
+                BorrowingRecord borrowingRecord = FactoryRegistry.getBorrowingRecordFactory().createBorrowingRecord(
+                        borrowingRecordId,
+                        bookId,
+                        patronId,
+                        null,
+                        "Active",
+                        borrowingDate,
+                        new Date(borrowingDate.getTime() + LOAN_PERIOD_MILLIS),
+                        -1,
+                        null
+                );
+
+                borrowingRecords.insert(borrowingRecord);
+
+                return new BorrowResult(BorrowResult.Status.BORROWED, borrowingRecord);
+            });
         }
         catch (SQLException ex)
         {
             System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+            return new BorrowResult(BorrowResult.Status.FAILED, null);
+        }
+
+        if (result.getStatus() == BorrowResult.Status.BORROWED)
+        {
+            bookController.refreshBook(bookId);
+            BORROWING_RECORD_CACHE.invalidate(result.getBorrowingRecord().getId());
+            LoanAnalytics.getInstance().recordBorrowingRecord(result.getBorrowingRecord());
         }
 
-        return borrowingRecords;
+        return result;
     }
 
-    private int updateBorrowingRecords(String query, Object... values)
+    /**
+     * Closes a loan in a single transaction: the record is locked, marked as
+     * returned, or as returned overdue when the due date has passed, and its book
+     * becomes available again.
+     *
+     * @param id the ID of the borrowing record
+     * @return the outcome of the attempt, with the closed record when the book was returned
+     */
+    public ReturnResult returnBook(String id)
     {
-        int rowsAffected = 0;
+        return returnBook(id, null);
+    }
 
-        try (PreparedStatement statement = database.prepareStatement(query, values))
+    /**
+     * Closes a loan in a single transaction with a given returned status, and its
+     * book becomes available again.
+     *
+     * @param id the ID of the borrowing record
+     * @param returnedStatus "Returned" or "Returned Overdue", or null to choose by the due date
+     * @return the outcome of the attempt, with the closed record when the book was returned
+     */
+    public ReturnResult returnBook(String id, String returnedStatus)
+    {
+        ReturnResult result;
+        try
         {
-            rowsAffected = statement.executeUpdate();
+            result = storage.inTransaction(() ->
+            {
+                BorrowingRecord borrowingRecord = borrowingRecords.findByIdForUpdate(id);
+                if (borrowingRecord == null)
+                {
+                    return new ReturnResult(ReturnResult.Status.NOT_FOUND, null);
+                }
+
+                String recordStatus = borrowingRecord.getRecordStatus();
+                if (!"Active".equals(recordStatus) && !"Overdue".equals(recordStatus))
+                {
+                    return new ReturnResult(ReturnResult.Status.NOT_ACTIVE, borrowingRecord);
+                }
+
+                // Days rather than instants, so a book returned on its due date is not overdue.
+                Date returnDate = new Date();
+                int dueDay = borrowingRecord.getDueEpochDay();
+                boolean isOverdue = dueDay != BorrowingRecord.NO_DATE && dueDay < LocalDate.now().toEpochDay();
+                borrowingRecord.setReturnDate(returnDate);
+                borrowingRecord.setRecordStatus(returnedStatus != null
+                        ? returnedStatus
+                        : isOverdue ? "Returned Overdue" : "Returned");
+
+                borrowingRecords.markReturned(id, returnDate, borrowingRecord.getRecordStatus());
+                books.setStatus(borrowingRecord.getBookId(), "Available");
+
+                return new ReturnResult(ReturnResult.Status.RETURNED, borrowingRecord);
+            });
         }
         catch (SQLException ex)
         {
             System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+            return new ReturnResult(ReturnResult.Status.FAILED, null);
+        }
+
+        if (result.getStatus() == ReturnResult.Status.RETURNED)
+        {
+            bookController.refreshBook(result.getBorrowingRecord().getBookId());
+            BORROWING_RECORD_CACHE.invalidate(id);
+            LoanAnalytics.getInstance().recordBorrowingRecord(result.getBorrowingRecord());
+        }
+
+        return result;
+    }
+
+    /**
+     * Updates an existing borrowing record in the database.
+     *
+     * @param borrowingRecord the BorrowingRecord object to update
+     */
+    public boolean updateBorrowingRecord(BorrowingRecord borrowingRecord)
+    {
+        boolean isUpdated = attempt(() -> borrowingRecords.update(borrowingRecord), false);
+        BORROWING_RECORD_CACHE.invalidate(borrowingRecord.getId());
+
+        if (isUpdated)
+        {
+            LoanAnalytics.getInstance().recordBorrowingRecord(borrowingRecord);
+        }
+
+        return isUpdated;
+    }
+
+    /**
+     * Changes the status of a borrowing record. Setting an active or overdue record
+     * to a returned status closes the loan through returnBook, so its book becomes
+     * available again. Other changes are written from a copy of the record, so the
+     * cached record is left as it is if the update fails.
+     *
+     * @param id the ID of the borrowing record
+     * @param recordStatus the new status
+     * @return the updated record, or null if it was not found or could not be updated
+     */
+    public BorrowingRecord updateBorrowingRecordStatus(String id, String recordStatus)
+    {
+        BorrowingRecord borrowingRecord = getBorrowingRecordById(id);
+        if (borrowingRecord == null)
+        {
+            return null;
+        }
+
+        boolean isOpen = "Active".equals(borrowingRecord.getRecordStatus())
+                || "Overdue".equals(borrowingRecord.getRecordStatus());
+        boolean isClosing = "Returned".equals(recordStatus) || "Returned Overdue".equals(recordStatus);
+        if (isOpen && isClosing)
+        {
+            ReturnResult result = returnBook(id, recordStatus);
+            return result.getStatus() == ReturnResult.Status.RETURNED ? result.getBorrowingRecord() : null;
+        }
+
+        BorrowingRecord updated = FactoryRegistry.getBorrowingRecordFactory().createBorrowingRecord(
+                borrowingRecord.getId(),
+                borrowingRecord.getBookId(),
+                borrowingRecord.getPatronId(),
+                borrowingRecord.getLibrarianId(),
+                recordStatus,
+                borrowingRecord.getBorrowingDate(),
+                borrowingRecord.getDueDate(),
+                borrowingRecord.getRequestState(),
+                borrowingRecord.getReturnDate());
+
+        return updateBorrowingRecord(updated) ? updated : null;
+    }
+
+    /**
+     * Marks one chunk of active borrowing records that were due before a date as
+     * overdue. The chunk is found through the (record_status, due_date) index and
+     * updated with one statement that commits on its own, so rows are only locked
+     * for the duration of a small update. Call it again until it returns 0.
+     *
+     * @param today the first date on which a record is not yet overdue
+     * @param limit the maximum number of records to mark
+     * @return the number of records marked overdue
+     */
+    public int markOverdueBorrowingRecords(Date today, int limit)
+    {
+        ArrayList<String> ids = attempt(() -> borrowingRecords.findOverdueIds(today, limit), new ArrayList<>());
+        if (ids.isEmpty())
+        {
+            return 0;
+        }
+
+        int rowsAffected = attempt(() -> borrowingRecords.markOverdue(ids), 0);
+
+        for (String id : ids)
+        {
+            BORROWING_RECORD_CACHE.invalidate(id);
+        }
+
+        if (rowsAffected > 0)
+        {
+            LoanAnalytics.getInstance().recordOverdue(ids);
         }
 
         return rowsAffected;
     }
 
-    private ArrayList<BorrowingRecord> convertBorrowingRecordsByResultSet(ResultSet resultSet)
+    /**
+     * Gets the cache sitting in front of borrowing record lookups by ID, for example to report its statistics.
+     *
+     * @return the borrowing record cache
+     */
+    public static EntityCache<String, BorrowingRecord> getBorrowingRecordCache()
     {
-        BorrowingRecordFactory borrowingRecordFactory = new BorrowingRecordFactory();
-        ArrayList<BorrowingRecord> borrowingRecords = new ArrayList<>();
+        return BORROWING_RECORD_CACHE;
+    }
+
+    // Utilities
 
+    /**
+     * Runs a call to the storage, reporting a failure instead of throwing it.
+     */
+    private static <T> T attempt(Storage.Work<T> call, T fallback)
+    {
         try
         {
-            while (resultSet.next())
-            {
-                BorrowingRecord borrowingRecord = borrowingRecordFactory.createBorrowingRecord(
-                        resultSet.getString("id"),
-                        resultSet.getString("book_id"),
-                        resultSet.getString("patron_id"),
-                        resultSet.getString("librarian_id"),
-                        resultSet.getString("record_status"),
-                        resultSet.getDate("borrowing_date"),
-                        resultSet.getDate("due_date"),
-                        resultSet.getInt("request_state"),
-                        resultSet.getDate("return_date")
-                );
-
-                borrowingRecords.add(borrowingRecord);
-            }
+            return call.execute();
         }
         catch (SQLException ex)
         {
             System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+            return fallback;
         }
-
-        return borrowingRecords;
     }
 
 }
@@ -0,0 +1,133 @@
+package controllers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * The Page class holds one page of a keyset-paginated listing. Pages are read
+ * relative to the first or last item of the page next to them instead of by
+ * offset, so reading a page deep into a large table costs the same as reading
+ * the first one.
+ *
+ * @param <T> the type of the listed entities
+ */
+public class Page<T>
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new Page.
+     *
+     * @param items the items on the page, in listing order
+     * @param hasPrevious whether there are items before this page
+     * @param hasNext whether there are items after this page
+     */
+    Page(ArrayList<T> items, boolean hasPrevious, boolean hasNext)
+    {
+        this.items = items;
+        this.hasPrevious = hasPrevious;
+        this.hasNext = hasNext;
+    }
+
+    // Properties
+
+    private final ArrayList<T> items;
+    private final boolean hasPrevious;
+    private final boolean hasNext;
+
+    // Getters
+
+    /**
+     * Gets the items on the page.
+     *
+     * @return the items, in listing order
+     */
+    public ArrayList<T> getItems()
+    {
+        return this.items;
+    }
+
+    /**
+     * Gets the first item on the page, used as the key when reading the previous page.
+     *
+     * @return the first item, or null if the page is empty
+     */
+    public T getFirst()
+    {
+        return items.isEmpty() ? null : items.get(0);
+    }
+
+    /**
+     * Gets the last item on the page, used as the key when reading the next page.
+     *
+     * @return the last item, or null if the page is empty
+     */
+    public T getLast()
+    {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+
+    /**
+     * Checks whether there are items before this page.
+     *
+     * @return true if a previous page can be read
+     */
+    public boolean hasPrevious()
+    {
+        return this.hasPrevious;
+    }
+
+    /**
+     * Checks whether there are items after this page.
+     *
+     * @return true if a next page can be read
+     */
+    public boolean hasNext()
+    {
+        return this.hasNext;
+    }
+
+    // Methods
+
+    /**
+     * Builds a page from rows read in listing order, one more than the page size
+     * so that the extra row tells whether a next page exists.
+     *
+     * @param rows the rows read, at most limit + 1
+     * @param limit the page size
+     * @param hasPrevious whether the page was read after a key
+     * @return the page
+     */
+    static <T> Page<T> forward(ArrayList<T> rows, int limit, boolean hasPrevious)
+    {
+        boolean hasNext = rows.size() > limit;
+        if (hasNext)
+        {
+            rows.remove(limit);
+        }
+
+        return new Page<>(rows, hasPrevious, hasNext);
+    }
+
+    /**
+     * Builds a page from rows read in reverse listing order, one more than the
+     * page size so that the extra row tells whether a previous page exists.
+     *
+     * @param rows the rows read, at most limit + 1, last item first
+     * @param limit the page size
+     * @return the page
+     */
+    static <T> Page<T> backward(ArrayList<T> rows, int limit)
+    {
+        boolean hasPrevious = rows.size() > limit;
+        if (hasPrevious)
+        {
+            rows.remove(limit);
+        }
+
+        Collections.reverse(rows);
+        return new Page<>(rows, hasPrevious, true);
+    }
+
+}
@@ -0,0 +1,78 @@
+package controllers;
+
+import models.BorrowingRecord;
+
+/**
+ * The ReturnResult class describes the outcome of a return attempt and, when the
+ * attempt succeeded, the borrowing record as it was closed.
+ */
+public class ReturnResult
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new ReturnResult.
+     *
+     * @param status the outcome of the return attempt
+     * @param borrowingRecord the closed record, or null if nothing was returned
+     */
+    ReturnResult(Status status, BorrowingRecord borrowingRecord)
+    {
+        this.status = status;
+        this.borrowingRecord = borrowingRecord;
+    }
+
+    // Properties
+
+    private final Status status;
+    private final BorrowingRecord borrowingRecord;
+
+    // Getters
+
+    /**
+     * Gets the outcome of the return attempt.
+     *
+     * @return the outcome of the return attempt
+     */
+    public Status getStatus()
+    {
+        return this.status;
+    }
+
+    /**
+     * Gets the borrowing record closed by the attempt.
+     *
+     * @return the borrowing record, or null if nothing was returned
+     */
+    public BorrowingRecord getBorrowingRecord()
+    {
+        return this.borrowingRecord;
+    }
+
+    // Nested Classes
+
+    /**
+     * The possible outcomes of a return attempt.
+     */
+    public enum Status
+    {
+        /**
+         * The loan was open and the book is available again.
+         */
+        RETURNED,
+        /**
+         * No borrowing record exists with the given ID.
+         */
+        NOT_FOUND,
+        /**
+         * The borrowing record exists but its book has already been returned.
+         */
+        NOT_ACTIVE,
+        /**
+         * The attempt failed because of a database error and nothing was changed.
+         */
+        FAILED
+    }
+
+}
@@ -1,14 +1,19 @@
 package controllers;
 
+import caching.EntityCache;
 import factories.*;
-import models.Book;
 import models.User;
-import singleton.Database;
+import repositories.Storage;
+import repositories.UserRepository;
+import singleton.IdAllocator;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class UserController
 {
@@ -17,12 +22,37 @@ public class UserController
 
     public UserController()
     {
-        database = Database.getInstance();
+        storage = Storage.getInstance();
+        users = storage.users();
     }
 
+    // Fields
+
+    private static final EntityCache<String, User> USER_CACHE = new EntityCache<>("users",
+            Integer.getInteger("histopedia.cache.users.maxEntries", 10000),
+            Long.getLong("histopedia.cache.users.maxBytes", 4L * 1024 * 1024),
+            user -> 48 + EntityCache.estimateBytes(
+                    user.getId(),
+                    user.getUsername(),
+                    user.getEmailAddress(),
+                    user.getPassword()));
+    /**
+     * The users who recently logged in, keyed by lowercase email address. Only users
+     * whose password was verified are cached, so a repeated login is checked in memory.
+     */
+    private static final EntityCache<String, User> LOGIN_CACHE = new EntityCache<>("logins",
+            Integer.getInteger("histopedia.cache.logins.maxEntries", 2048),
+            Long.getLong("histopedia.cache.logins.maxBytes", 1024L * 1024),
+            user -> 48 + EntityCache.estimateBytes(
+                    user.getId(),
+                    user.getUsername(),
+                    user.getEmailAddress(),
+                    user.getPassword()));
+
     // Properties
 
-    private final Database database;
+    private final Storage storage;
+    private final UserRepository users;
 
     // Accessor Methods: User
 
@@ -33,7 +63,32 @@ public class UserController
      */
     public ArrayList<User> getUsersByAll()
     {
-        return queryUsers("SELECT * FROM users");
+        return attempt(users::findAll, new ArrayList<>());
+    }
+
+    /**
+     * Streams every user from the database, reading one row at a time as the stream
+     * is consumed. The stream holds a connection of its own until it is closed, so
+     * close it, preferably with try-with-resources.
+     *
+     * @return a Stream of User objects in ID order
+     */
+    public Stream<User> streamUsers()
+    {
+        return users.streamAll();
+    }
+
+    /**
+     * Runs an action for every user in the database, in constant memory.
+     *
+     * @param action the action to run for each user, in ID order
+     */
+    public void forEachUser(Consumer<User> action)
+    {
+        try (Stream<User> allUsers = streamUsers())
+        {
+            allUsers.forEach(action);
+        }
     }
 
     /**
@@ -44,21 +99,57 @@ public class UserController
      */
     public User getUserById(String id)
     {
-        ArrayList<User> users = queryUsers("SELECT * FROM users WHERE id = ?", id);
-        return users.isEmpty() ? null : users.get(0);
+        return USER_CACHE.get(id, key -> attempt(() -> users.findById(key), null));
     }
 
     /**
-     * Retrieves a user from the database by their login information.
+     * Retrieves a user by their login information. The user is looked up by the
+     * unique email address index and the password is checked in memory, and users
+     * who logged in recently are answered from a cache without a query. Email
+     * addresses are compared without regard to case.
      *
      * @param emailAddress the email address of the user
      * @param password the password of the user
-     * @return the User object, or null if not found
+     * @return the User object, or null if the email address or the password is wrong
      */
     public User getUserByLoginInfo(String emailAddress, String password)
     {
-        ArrayList<User> users = queryUsers("SELECT * FROM users WHERE email_address = ? AND password = ?", emailAddress, password);
-        return users.isEmpty() ? null : users.get(0);
+        if (emailAddress == null || password == null)
+        {
+            return null;
+        }
+
+        User user = LOGIN_CACHE.get(normalizeEmailAddress(emailAddress), key ->
+        {
+            User candidate = getUserByEmailAddress(key);
+            return candidate != null && isPasswordMatching(candidate, password) ? candidate : null;
+        });
+
+        return user != null && isPasswordMatching(user, password) ? user : null;
+    }
+
+    /**
+     * Retrieves a user from the database by their email address.
+     *
+     * @param emailAddress the email address of the user
+     * @return the User object, or null if not found
+     */
+    public User getUserByEmailAddress(String emailAddress)
+    {
+        return emailAddress == null
+                ? null
+                : attempt(() -> users.findByEmailAddress(normalizeEmailAddress(emailAddress)), null);
+    }
+
+    /**
+     * Checks whether an email address is already registered.
+     *
+     * @param emailAddress the email address
+     * @return true if a user has the email address
+     */
+    public boolean isEmailAddressRegistered(String emailAddress)
+    {
+        return getUserByEmailAddress(emailAddress) != null;
     }
 
     /**
@@ -69,100 +160,85 @@ public class UserController
     public User getLatestUser()
     {
         PatronFactory patronFactory = new PatronFactory();
-        ArrayList<User> users = queryUsers("SELECT * FROM users ORDER BY id DESC LIMIT 1");
-        return users.isEmpty() ? patronFactory.createUser() : users.get(0);
+        User user = attempt(users::findLatest, null);
+        return user == null ? patronFactory.createUser() : user;
     }
 
     /**
-     * Adds a new user to the database.
+     * Generates a new unique identifier for a user.
      *
-     * @param user the User object to add
+     * @return the new identifier, or null if one could not be allocated
      */
-    public boolean addUser(User user)
+    public String generateUserId()
     {
-        int rowsAffected = updateUsers("INSERT INTO users " +
-                        "(id, access_level, username, email_address, password) " +
-                        "VALUES (?, ?, ?, ?, ?)",
-                user.getId(),
-                user.getAccessLevel(),
-                user.getUsername(),
-                user.getEmailAddress(),
-                user.getPassword()
-        );
-        return rowsAffected > 0;
+        return attempt(() -> storage.nextId(IdAllocator.Sequence.USER), null);
     }
 
-    // Utilities
-
-    private ArrayList<User> queryUsers(String query, Object... values)
+    /**
+     * Adds a new user to the database, with their email address in lowercase.
+     *
+     * @param user the User object to add
+     */
+    public boolean addUser(User user)
     {
-        ArrayList<User> users = new ArrayList<>();
-
-        try (PreparedStatement statement = database.prepareStatement(query, values))
+        if (user.getEmailAddress() != null)
         {
-            ResultSet results = statement.executeQuery();
-
-            users.addAll(convertUsersByResultSet(results));
-        }
-        catch (SQLException ex)
-        {
-            System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+            user.setEmailAddress(normalizeEmailAddress(user.getEmailAddress()));
         }
 
-        return users;
+        boolean isAdded = attempt(() -> users.insert(user), false);
+        USER_CACHE.invalidate(user.getId());
+        LOGIN_CACHE.invalidate(user.getEmailAddress());
+        return isAdded;
+    }
+
+    /**
+     * Gets the cache sitting in front of user lookups by ID, for example to report its statistics.
+     *
+     * @return the user cache
+     */
+    public static EntityCache<String, User> getUserCache()
+    {
+        return USER_CACHE;
     }
 
-    private int updateUsers(String query, Object... values)
+    /**
+     * Gets the cache of recently logged in users, for example to report its statistics.
+     *
+     * @return the login cache
+     */
+    public static EntityCache<String, User> getLoginCache()
     {
-        int rowsAffected = 0;
+        return LOGIN_CACHE;
+    }
 
-        try (PreparedStatement statement = database.prepareStatement(query, values))
-        {
-            rowsAffected = statement.executeUpdate();
-        }
-        catch (SQLException ex)
-        {
-            System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
-        }
+    // Utilities
 
-        return rowsAffected;
+    private static String normalizeEmailAddress(String emailAddress)
+    {
+        return emailAddress.toLowerCase(Locale.ROOT);
     }
 
-    private ArrayList<User> convertUsersByResultSet(ResultSet resultSet)
+    private static boolean isPasswordMatching(User user, String password)
     {
-        UserFactory userFactory = null;
-        ArrayList<User> users = new ArrayList<>();
+        return MessageDigest.isEqual(user.getPassword().getBytes(StandardCharsets.UTF_8),
+                password.getBytes(StandardCharsets.UTF_8));
+    }
 
+    /**
+     * Runs a call to the storage, reporting a failure instead of throwing it.
+     */
+    private static <T> T attempt(Storage.Work<T> call, T fallback)
+    {
         try
         {
-            while (resultSet.next())
-            {
-                switch (resultSet.getInt("access_level"))
-                {
-                    case 0:
-                        userFactory = new LibrarianFactory();
-                        break;
-                    case 1:
-                        userFactory = new PatronFactory();
-                        break;
-                }
-
-                User user = userFactory.createUser(
-                        resultSet.getString("id"),
-                        resultSet.getString("username"),
-                        resultSet.getString("email_address"),
-                        resultSet.getString("password")
-                );
-
-                users.add(user);
-            }
+            return call.execute();
         }
         catch (SQLException ex)
         {
             System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+            return fallback;
         }
-
-        return users;
     }
 
 }
@@ -0,0 +1,99 @@
+package export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * The CsvRowWriter class writes entities as RFC 4180 CSV with a header line.
+ * Values holding a comma, a quote or a line break are quoted.
+ *
+ * @param <T> the type of the exported entities
+ */
+class CsvRowWriter<T> implements RowWriter<T>
+{
+
+    // Constructor
+
+    CsvRowWriter(Writer out, List<ExportColumn<T>> columns)
+    {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    // Properties
+
+    private final Writer out;
+    private final List<ExportColumn<T>> columns;
+
+    // Methods
+
+    @Override
+    public void begin() throws IOException
+    {
+        for (int i = 0; i < columns.size(); i++)
+        {
+            if (i > 0)
+            {
+                out.write(',');
+            }
+            writeField(columns.get(i).getName());
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void write(T entity) throws IOException
+    {
+        for (int i = 0; i < columns.size(); i++)
+        {
+            if (i > 0)
+            {
+                out.write(',');
+            }
+
+            Object value = columns.get(i).valueOf(entity);
+            if (value != null)
+            {
+                writeField(value.toString());
+            }
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void end()
+    {
+    }
+
+    // Utilities
+
+    private void writeField(String value) throws IOException
+    {
+        boolean isQuoted = false;
+        for (int i = 0; i < value.length() && !isQuoted; i++)
+        {
+            char character = value.charAt(i);
+            isQuoted = character == ',' || character == '"' || character == '\n' || character == '\r';
+        }
+
+        if (!isQuoted)
+        {
+            out.write(value);
+            return;
+        }
+
+        out.write('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char character = value.charAt(i);
+            if (character == '"')
+            {
+                out.write('"');
+            }
+            out.write(character);
+        }
+        out.write('"');
+    }
+
+}
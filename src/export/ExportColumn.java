@@ -0,0 +1,58 @@
+package export;
+
+import java.util.function.Function;
+
+/**
+ * The ExportColumn class names one exported field of an entity and reads its
+ * value. Numbers are exported as numbers, and every other value as text.
+ *
+ * @param <T> the type of the exported entities
+ */
+public class ExportColumn<T>
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new ExportColumn.
+     *
+     * @param name the name of the field, used as the CSV header and the JSON member name
+     * @param value the function reading the field from an entity
+     */
+    public ExportColumn(String name, Function<? super T, ?> value)
+    {
+        this.name = name;
+        this.value = value;
+    }
+
+    // Properties
+
+    private final String name;
+    private final Function<? super T, ?> value;
+
+    // Getters
+
+    /**
+     * Gets the name of the field.
+     *
+     * @return the name
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    // Methods
+
+    /**
+     * Reads the field from an entity.
+     *
+     * @param entity the entity
+     * @return the value, which may be null
+     */
+    Object valueOf(T entity)
+    {
+        return value.apply(entity);
+    }
+
+}
@@ -0,0 +1,172 @@
+package export;
+
+import controllers.BookController;
+import controllers.BorrowingRecordController;
+import controllers.UserController;
+import models.Book;
+import models.BorrowingRecord;
+import models.User;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * The Exporter class writes a whole table as JSON or CSV for scripts to consume.
+ * Rows are read from a streaming query and written out one at a time through a
+ * buffered writer, so exports of any size run in constant memory.
+ * <p>
+ * Passwords are never exported.
+ */
+public class Exporter
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new Exporter.
+     *
+     * @param progress the stream progress and the final throughput are reported to
+     */
+    public Exporter(PrintStream progress)
+    {
+        this.progress = progress;
+
+        bookController = new BookController();
+        borrowingRecordController = new BorrowingRecordController();
+        userController = new UserController();
+    }
+
+    // Fields
+
+    /**
+     * The number of rows between two progress reports.
+     */
+    private static final long PROGRESS_INTERVAL = 1_000_000;
+
+    private static final List<ExportColumn<Book>> BOOK_COLUMNS = List.of(
+            new ExportColumn<>("id", Book::getId),
+            new ExportColumn<>("title", Book::getTitle),
+            new ExportColumn<>("genre", Book::getGenre),
+            new ExportColumn<>("description", Book::getDescription),
+            new ExportColumn<>("author", Book::getAuthor),
+            new ExportColumn<>("publisher", Book::getPublisher),
+            new ExportColumn<>("publicationYear", Book::getPublicationYear),
+            new ExportColumn<>("isbn", Book::getIsbn),
+            new ExportColumn<>("status", Book::getStatus)
+    );
+
+    private static final List<ExportColumn<BorrowingRecord>> BORROWING_RECORD_COLUMNS = List.of(
+            new ExportColumn<>("id", BorrowingRecord::getId),
+            new ExportColumn<>("bookId", BorrowingRecord::getBookId),
+            new ExportColumn<>("patronId", BorrowingRecord::getPatronId),
+            new ExportColumn<>("librarianId", BorrowingRecord::getLibrarianId),
+            new ExportColumn<>("borrowingDate", record -> Objects.toString(record.getBorrowingLocalDate(), null)),
+            new ExportColumn<>("dueDate", record -> Objects.toString(record.getDueLocalDate(), null)),
+            new ExportColumn<>("returnDate", record -> Objects.toString(record.getReturnLocalDate(), null)),
+            new ExportColumn<>("requestState", BorrowingRecord::getRequestState),
+            new ExportColumn<>("recordStatus", BorrowingRecord::getRecordStatus)
+    );
+
+    private static final List<ExportColumn<User>> USER_COLUMNS = List.of(
+            new ExportColumn<>("id", User::getId),
+            new ExportColumn<>("accessLevel", User::getAccessLevel),
+            new ExportColumn<>("username", User::getUsername),
+            new ExportColumn<>("emailAddress", User::getEmailAddress)
+    );
+
+    // Properties
+
+    private final PrintStream progress;
+    private final BookController bookController;
+    private final BorrowingRecordController borrowingRecordController;
+    private final UserController userController;
+
+    // Methods
+
+    /**
+     * Exports one table.
+     *
+     * @param table the table to export: books, records or users
+     * @param format the format to export in: json or csv
+     * @param out the writer to export to, which is flushed but not closed
+     * @return the number of exported rows
+     * @throws IllegalArgumentException if the table or the format is unknown
+     * @throws IOException if the output cannot be written
+     */
+    public long export(String table, String format, Writer out) throws IOException
+    {
+        switch (table.toLowerCase(Locale.ROOT))
+        {
+            case "books":
+                return export(bookController.streamBooks(), BOOK_COLUMNS, format, out);
+            case "records":
+                return export(borrowingRecordController.streamBorrowingRecords(), BORROWING_RECORD_COLUMNS, format, out);
+            case "users":
+                return export(userController.streamUsers(), USER_COLUMNS, format, out);
+            default:
+                throw new IllegalArgumentException("Unknown table '" + table + "'. Expected books, records or users.");
+        }
+    }
+
+    // Utilities
+
+    private <T> long export(Stream<T> rows, List<ExportColumn<T>> columns, String format, Writer out) throws IOException
+    {
+        try (rows)
+        {
+            RowWriter<T> rowWriter = createRowWriter(format, columns, out);
+
+            long start = System.nanoTime();
+            long count = 0;
+
+            rowWriter.begin();
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext())
+            {
+                rowWriter.write(iterator.next());
+
+                if (++count % PROGRESS_INTERVAL == 0)
+                {
+                    report(count, start, false);
+                }
+            }
+            rowWriter.end();
+            out.flush();
+
+            report(count, start, true);
+            return count;
+        }
+        catch (UncheckedIOException ex)
+        {
+            throw ex.getCause();
+        }
+    }
+
+    private static <T> RowWriter<T> createRowWriter(String format, List<ExportColumn<T>> columns, Writer out)
+    {
+        switch (format.toLowerCase(Locale.ROOT))
+        {
+            case "json":
+                return new JsonRowWriter<>(out, columns);
+            case "csv":
+                return new CsvRowWriter<>(out, columns);
+            default:
+                throw new IllegalArgumentException("Unknown format '" + format + "'. Expected json or csv.");
+        }
+    }
+
+    private void report(long count, long start, boolean isDone)
+    {
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        progress.printf("%s %,d rows in %.1f s (%,.0f rows/s).%n",
+                isDone ? "Exported" : "Exporting...", count, seconds, count / seconds);
+    }
+
+}
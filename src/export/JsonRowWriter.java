@@ -0,0 +1,68 @@
+package export;
+
+import server.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * The JsonRowWriter class writes entities as one JSON array of objects. Each
+ * object is written out as soon as it is built, so the document is never held in
+ * memory.
+ *
+ * @param <T> the type of the exported entities
+ */
+class JsonRowWriter<T> implements RowWriter<T>
+{
+
+    // Constructor
+
+    JsonRowWriter(Writer out, List<ExportColumn<T>> columns)
+    {
+        this.out = out;
+        this.columns = columns;
+        json = new JsonWriter();
+    }
+
+    // Properties
+
+    private final Writer out;
+    private final List<ExportColumn<T>> columns;
+    private final JsonWriter json;
+
+    // Methods
+
+    @Override
+    public void begin() throws IOException
+    {
+        json.beginArray().writeTo(out);
+    }
+
+    @Override
+    public void write(T entity) throws IOException
+    {
+        json.beginObject();
+        for (ExportColumn<T> column : columns)
+        {
+            Object value = column.valueOf(entity);
+            if (value instanceof Number)
+            {
+                json.member(column.getName(), ((Number) value).longValue());
+            }
+            else
+            {
+                json.member(column.getName(), value == null ? null : value.toString());
+            }
+        }
+        json.endObject().writeTo(out);
+    }
+
+    @Override
+    public void end() throws IOException
+    {
+        json.endArray().writeTo(out);
+        out.write('\n');
+    }
+
+}
@@ -0,0 +1,35 @@
+package export;
+
+import java.io.IOException;
+
+/**
+ * The RowWriter interface writes exported entities one at a time in a file format.
+ *
+ * @param <T> the type of the exported entities
+ */
+interface RowWriter<T>
+{
+
+    /**
+     * Writes what comes before the first row, such as a header.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    void begin() throws IOException;
+
+    /**
+     * Writes one row.
+     *
+     * @param entity the entity of the row
+     * @throws IOException if the output cannot be written
+     */
+    void write(T entity) throws IOException;
+
+    /**
+     * Writes what comes after the last row.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    void end() throws IOException;
+
+}
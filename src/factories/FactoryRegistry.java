@@ -0,0 +1,110 @@
+package factories;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The FactoryRegistry class maps the genre of a book and the access level of a
+ * user to the factory creating the matching type. Factories are stateless, so a
+ * single instance of each is shared instead of creating one for every row read.
+ * <p>
+ * Genres without a registered factory fall back to GeneralBookFactory, and
+ * unknown access levels fall back to PatronFactory, the least privileged type.
+ */
+public final class FactoryRegistry
+{
+
+    // Constructor
+
+    private FactoryRegistry()
+    {
+    }
+
+    // Fields
+
+    private static final BookFactory GENERAL_BOOK_FACTORY = new GeneralBookFactory();
+    private static final UserFactory PATRON_FACTORY = new PatronFactory();
+    private static final BorrowingRecordFactory BORROWING_RECORD_FACTORY = new BorrowingRecordFactory();
+    private static final ConcurrentMap<String, BookFactory> BOOK_FACTORIES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Integer, UserFactory> USER_FACTORIES = new ConcurrentHashMap<>();
+
+    static
+    {
+        registerBookFactory("Biography", new BiographyBookFactory());
+        registerBookFactory("Military History", new MilitaryHistoryBookFactory());
+        registerBookFactory("Revolution", new RevolutionBookFactory());
+
+        registerUserFactory(0, new LibrarianFactory());
+        registerUserFactory(1, PATRON_FACTORY);
+    }
+
+    // Methods
+
+    /**
+     * Registers the factory creating books of a genre. Genres are matched ignoring case.
+     *
+     * @param genre the genre, such as Biography
+     * @param factory the factory creating books of that genre
+     */
+    public static void registerBookFactory(String genre, BookFactory factory)
+    {
+        BOOK_FACTORIES.put(genre, factory);
+        BOOK_FACTORIES.put(genre.toLowerCase(Locale.ROOT), factory);
+    }
+
+    /**
+     * Registers the factory creating users of an access level.
+     *
+     * @param accessLevel the access level, such as 0 for librarians
+     * @param factory the factory creating users of that access level
+     */
+    public static void registerUserFactory(int accessLevel, UserFactory factory)
+    {
+        USER_FACTORIES.put(accessLevel, factory);
+    }
+
+    /**
+     * Gets the factory creating books of a genre.
+     *
+     * @param genre the genre, which may be null
+     * @return the registered factory, or the general book factory if there is none
+     */
+    public static BookFactory getBookFactory(String genre)
+    {
+        if (genre == null)
+        {
+            return GENERAL_BOOK_FACTORY;
+        }
+
+        BookFactory factory = BOOK_FACTORIES.get(genre);
+        if (factory == null)
+        {
+            factory = BOOK_FACTORIES.getOrDefault(genre.toLowerCase(Locale.ROOT), GENERAL_BOOK_FACTORY);
+        }
+
+        return factory;
+    }
+
+    /**
+     * Gets the factory creating users of an access level.
+     *
+     * @param accessLevel the access level
+     * @return the registered factory, or the patron factory if there is none
+     */
+    public static UserFactory getUserFactory(int accessLevel)
+    {
+        return USER_FACTORIES.getOrDefault(accessLevel, PATRON_FACTORY);
+    }
+
+    /**
+     * Gets the factory creating borrowing records.
+     *
+     * @return the shared borrowing record factory
+     */
+    public static BorrowingRecordFactory getBorrowingRecordFactory()
+    {
+        return BORROWING_RECORD_FACTORY;
+    }
+
+}
@@ -0,0 +1,74 @@
+package factories;
+
+import models.*;
+
+/**
+ * The GeneralBookFactory class extends the BookFactory class to create books of
+ * genres that have no dedicated factory.
+ */
+public class GeneralBookFactory extends BookFactory
+{
+
+    // Methods
+
+    /**
+     * Creates a new GeneralBook instance with default values.
+     *
+     * @return A new GeneralBook instance.
+     */
+    @Override
+    public Book createBook()
+    {
+        return new GeneralBook(
+                "BID000",
+                "Untitled Book",
+                "General",
+                "No description available.",
+                "Unknown Author",
+                "Unknown Publisher",
+                0,
+                "0000000000000",
+                "Available"
+        );
+    }
+
+    /**
+     * Creates a new GeneralBook instance.
+     *
+     * @param id The unique identifier for the book.
+     * @param title The title of the book.
+     * @param genre The genre of the book.
+     * @param description A brief description of the book.
+     * @param author The author of the book.
+     * @param publisher The publisher of the book.
+     * @param publicationYear The year the book was published.
+     * @param isbn The International Standard Book Number of the book.
+     * @param status The current status of the book (e.g., Available, Borrowed, Unavailable).
+     * @return A new GeneralBook instance.
+     */
+    @Override
+    public Book createBook(
+            String id,
+            String title,
+            String genre,
+            String description,
+            String author,
+            String publisher,
+            int publicationYear,
+            String isbn,
+            String status)
+    {
+        return new GeneralBook(
+                id,
+                title,
+                genre,
+                description,
+                author,
+                publisher,
+                publicationYear,
+                isbn,
+                status
+        );
+    }
+
+}
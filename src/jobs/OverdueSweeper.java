@@ -0,0 +1,258 @@
+package jobs;
+
+import controllers.BorrowingRecordController;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The OverdueSweeper class marks active borrowing records past their due date as
+ * overdue on a schedule, so the status no longer depends on a librarian updating
+ * records one at a time.
+ * <p>
+ * A sweep updates records in chunks, each one a short statement of its own, and
+ * pauses between chunks so other writers to borrowing_records are never kept
+ * waiting for long. The cadence and the chunk size are read from the
+ * {@code histopedia.sweeper.*} system properties. Its counters can be published over
+ * JMX with {@link metrics.Metrics#publish}.
+ */
+public class OverdueSweeper implements OverdueSweeperMXBean
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new OverdueSweeper configured from system properties.
+     */
+    public OverdueSweeper()
+    {
+        this(Long.getLong("histopedia.sweeper.intervalSeconds", 3600),
+                Integer.getInteger("histopedia.sweeper.chunkSize", 500),
+                Long.getLong("histopedia.sweeper.pauseMillis", 50));
+    }
+
+    /**
+     * Constructs a new OverdueSweeper.
+     *
+     * @param intervalSeconds the number of seconds between the end of a sweep and the start of the next
+     * @param chunkSize the maximum number of records updated per statement
+     * @param pauseMillis the number of milliseconds to pause between chunks
+     */
+    public OverdueSweeper(long intervalSeconds, int chunkSize, long pauseMillis)
+    {
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+
+        borrowingRecordController = new BorrowingRecordController();
+    }
+
+    // Properties
+
+    private final long intervalSeconds;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final BorrowingRecordController borrowingRecordController;
+    private ScheduledExecutorService scheduler;
+
+    private long sweepCount;
+    private long chunkCount;
+    private long totalRows;
+    private long lastSweepRows;
+    private long lastSweepNanos;
+    private long totalChunkNanos;
+    private long maxChunkNanos;
+
+    // Getters
+
+    /**
+     * Gets the number of completed sweeps.
+     *
+     * @return the number of sweeps
+     */
+    @Override
+    public synchronized long getSweepCount()
+    {
+        return this.sweepCount;
+    }
+
+    /**
+     * Gets the number of chunks updated by all sweeps.
+     *
+     * @return the number of chunks
+     */
+    @Override
+    public synchronized long getChunkCount()
+    {
+        return this.chunkCount;
+    }
+
+    /**
+     * Gets the number of records marked overdue by all sweeps.
+     *
+     * @return the number of records
+     */
+    @Override
+    public synchronized long getTotalRows()
+    {
+        return this.totalRows;
+    }
+
+    /**
+     * Gets the number of records marked overdue by the last sweep.
+     *
+     * @return the number of records
+     */
+    @Override
+    public synchronized long getLastSweepRows()
+    {
+        return this.lastSweepRows;
+    }
+
+    /**
+     * Gets how long the last sweep took, pauses included.
+     *
+     * @return the duration in nanoseconds
+     */
+    @Override
+    public synchronized long getLastSweepNanos()
+    {
+        return this.lastSweepNanos;
+    }
+
+    /**
+     * Gets the average time spent updating one chunk.
+     *
+     * @return the average duration in nanoseconds, or 0 if no chunk was updated
+     */
+    @Override
+    public synchronized double getAverageChunkNanos()
+    {
+        return chunkCount == 0 ? 0 : (double) totalChunkNanos / chunkCount;
+    }
+
+    /**
+     * Gets the longest time spent updating one chunk.
+     *
+     * @return the duration in nanoseconds
+     */
+    @Override
+    public synchronized long getMaxChunkNanos()
+    {
+        return this.maxChunkNanos;
+    }
+
+    // Methods
+
+    /**
+     * Starts sweeping on a background thread, first right away and then every
+     * interval. Starting a sweeper that is already running does nothing.
+     */
+    public synchronized void start()
+    {
+        if (scheduler != null)
+        {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "overdue-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runScheduledSweep, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops sweeping. A sweep in progress finishes its current chunk.
+     */
+    public synchronized void stop()
+    {
+        if (scheduler != null)
+        {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Marks every active record due before today as overdue.
+     *
+     * @return the number of records marked overdue
+     */
+    public long sweep()
+    {
+        Date today = new Date();
+        long sweepStart = System.nanoTime();
+        long rows = 0;
+
+        while (!Thread.currentThread().isInterrupted())
+        {
+            long chunkStart = System.nanoTime();
+            int chunkRows = borrowingRecordController.markOverdueBorrowingRecords(today, chunkSize);
+            long chunkNanos = System.nanoTime() - chunkStart;
+
+            // A short chunk does not mean the sweep is done: rows of it may have been changed by
+            // another writer meanwhile, so only a chunk that marks nothing ends the sweep.
+            if (chunkRows == 0)
+            {
+                break;
+            }
+
+            rows += chunkRows;
+            synchronized (this)
+            {
+                chunkCount++;
+                totalRows += chunkRows;
+                totalChunkNanos += chunkNanos;
+                maxChunkNanos = Math.max(maxChunkNanos, chunkNanos);
+            }
+
+            try
+            {
+                Thread.sleep(pauseMillis);
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this)
+        {
+            sweepCount++;
+            lastSweepRows = rows;
+            lastSweepNanos = System.nanoTime() - sweepStart;
+        }
+
+        return rows;
+    }
+
+    // Utilities
+
+    private void runScheduledSweep()
+    {
+        try
+        {
+            sweep();
+        }
+        catch (RuntimeException ex)
+        {
+            // A failed sweep must not cancel the schedule; the next sweep retries.
+            System.out.println("Overdue sweep failed.\nDetails:\n" + ex);
+        }
+    }
+
+    // Overrides
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("overdue sweeper: %d sweeps, %d records in %d chunks, last sweep %d records in %.1f ms, avg chunk %.2f ms, max chunk %.2f ms",
+                sweepCount, totalRows, chunkCount, lastSweepRows, lastSweepNanos / 1e6, getAverageChunkNanos() / 1e6, maxChunkNanos / 1e6);
+    }
+
+}
@@ -0,0 +1,24 @@
+package jobs;
+
+/**
+ * The OverdueSweeperMXBean interface publishes the counters of the overdue
+ * sweeper over JMX.
+ */
+public interface OverdueSweeperMXBean
+{
+
+    long getSweepCount();
+
+    long getChunkCount();
+
+    long getTotalRows();
+
+    long getLastSweepRows();
+
+    long getLastSweepNanos();
+
+    double getAverageChunkNanos();
+
+    long getMaxChunkNanos();
+
+}
@@ -1,17 +1,131 @@
 package main;
 
+import controllers.BookController;
+import export.Exporter;
+import jobs.OverdueSweeper;
+import metrics.Metrics;
 import menus.*;
-import singleton.*;
+import repositories.Storage;
+import server.HistopediaServer;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 public class Main
 {
 
+    // Fields
+
+    private static final int EXPORT_BUFFER_SIZE = 1 << 16;
+
     // Program
 
-    public static void main(String[] args)
+    public static void main(String[] args) throws IOException
+    {
+        Storage.getInstance();
+
+        if (args.length > 0 && args[0].equals("--export"))
+        {
+            export(args);
+            return;
+        }
+
+        new BookController().openCatalogSnapshot();
+        OverdueSweeper overdueSweeper = new OverdueSweeper();
+        overdueSweeper.start();
+        Metrics.publish("Job", "overdue sweeper", overdueSweeper);
+        Metrics.startDumping();
+
+        if (args.length > 0 && args[0].equals("--server"))
+        {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : HistopediaServer.DEFAULT_PORT;
+
+            HistopediaServer server = new HistopediaServer(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            server.start();
+        }
+        else
+        {
+            new AuthenticationMenu();
+        }
+    }
+
+    // Utilities
+
+    /**
+     * Runs {@code --export books|records|users [--format json|csv] [--output file]}.
+     * The export goes to standard output unless a file is given, and progress is
+     * reported on standard error.
+     */
+    private static void export(String[] args) throws IOException
+    {
+        String table = null;
+        String format = "json";
+        String output = null;
+
+        for (int i = 1; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--format":
+                    format = valueOf(args, ++i);
+                    break;
+                case "--output":
+                    output = valueOf(args, ++i);
+                    break;
+                default:
+                    table = args[i];
+                    break;
+            }
+        }
+
+        if (table == null)
+        {
+            exitWithExportUsage();
+        }
+
+        try (Writer out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE)
+                : new BufferedWriter(Channels.newWriter(FileChannel.open(Paths.get(output), CREATE, TRUNCATE_EXISTING, WRITE), StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE))
+        {
+            new Exporter(System.err).export(table, format, out);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            System.err.println(ex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Gets the value of an export option, exiting with the usage if it is missing.
+     */
+    private static String valueOf(String[] args, int i)
+    {
+        if (i == args.length)
+        {
+            exitWithExportUsage();
+        }
+
+        return args[i];
+    }
+
+    private static void exitWithExportUsage()
     {
-        Database.getInstance();
-        new AuthenticationMenu();
+        System.err.println("Usage: --export books|records|users [--format json|csv] [--output file]");
+        System.exit(2);
     }
 
 }
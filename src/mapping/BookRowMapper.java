@@ -0,0 +1,49 @@
+package mapping;
+
+import factories.FactoryRegistry;
+import models.Book;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The BookRowMapper class reads full books from the columns of the books table,
+ * creating each through the factory registered for its genre.
+ */
+public class BookRowMapper implements RowMapper<Book>
+{
+
+    // Overrides
+
+    @Override
+    public RowReader<Book> bind(ResultSetMetaData metaData) throws SQLException
+    {
+        Columns columns = Columns.of(metaData);
+        int id = columns.indexOf("id");
+        int title = columns.indexOf("title");
+        int genre = columns.indexOf("genre");
+        int description = columns.indexOf("description");
+        int author = columns.indexOf("author");
+        int publisher = columns.indexOf("publisher");
+        int publicationYear = columns.indexOf("publication_year");
+        int isbn = columns.indexOf("isbn");
+        int status = columns.indexOf("status");
+
+        return resultSet ->
+        {
+            String bookGenre = resultSet.getString(genre);
+            return FactoryRegistry.getBookFactory(bookGenre).createBook(
+                    resultSet.getString(id),
+                    resultSet.getString(title),
+                    bookGenre,
+                    resultSet.getString(description),
+                    resultSet.getString(author),
+                    resultSet.getString(publisher),
+                    resultSet.getInt(publicationYear),
+                    resultSet.getString(isbn),
+                    resultSet.getString(status)
+            );
+        };
+    }
+
+}
@@ -0,0 +1,38 @@
+package mapping;
+
+import models.BookSummary;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The BookSummaryRowMapper class reads book summaries from the listing columns
+ * of the books table.
+ */
+public class BookSummaryRowMapper implements RowMapper<BookSummary>
+{
+
+    // Overrides
+
+    @Override
+    public RowReader<BookSummary> bind(ResultSetMetaData metaData) throws SQLException
+    {
+        Columns columns = Columns.of(metaData);
+        int id = columns.indexOf("id");
+        int title = columns.indexOf("title");
+        int author = columns.indexOf("author");
+        int genre = columns.indexOf("genre");
+        int status = columns.indexOf("status");
+        int publisher = columns.indexOf("publisher");
+
+        return resultSet -> new BookSummary(
+                resultSet.getString(id),
+                resultSet.getString(title),
+                resultSet.getString(author),
+                resultSet.getString(genre),
+                resultSet.getString(status),
+                resultSet.getString(publisher)
+        );
+    }
+
+}
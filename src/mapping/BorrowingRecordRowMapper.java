@@ -0,0 +1,47 @@
+package mapping;
+
+import factories.BorrowingRecordFactory;
+import factories.FactoryRegistry;
+import models.BorrowingRecord;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The BorrowingRecordRowMapper class reads borrowing records from the columns of
+ * the borrowing_records table.
+ */
+public class BorrowingRecordRowMapper implements RowMapper<BorrowingRecord>
+{
+
+    // Overrides
+
+    @Override
+    public RowReader<BorrowingRecord> bind(ResultSetMetaData metaData) throws SQLException
+    {
+        Columns columns = Columns.of(metaData);
+        int id = columns.indexOf("id");
+        int bookId = columns.indexOf("book_id");
+        int patronId = columns.indexOf("patron_id");
+        int librarianId = columns.indexOf("librarian_id");
+        int recordStatus = columns.indexOf("record_status");
+        int borrowingDate = columns.indexOf("borrowing_date");
+        int dueDate = columns.indexOf("due_date");
+        int requestState = columns.indexOf("request_state");
+        int returnDate = columns.indexOf("return_date");
+        BorrowingRecordFactory factory = FactoryRegistry.getBorrowingRecordFactory();
+
+        return resultSet -> factory.createBorrowingRecord(
+                resultSet.getString(id),
+                resultSet.getString(bookId),
+                resultSet.getString(patronId),
+                resultSet.getString(librarianId),
+                resultSet.getString(recordStatus),
+                resultSet.getDate(borrowingDate),
+                resultSet.getDate(dueDate),
+                resultSet.getInt(requestState),
+                resultSet.getDate(returnDate)
+        );
+    }
+
+}
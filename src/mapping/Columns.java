@@ -0,0 +1,67 @@
+package mapping;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * The Columns class maps the labels of a result set's columns to their positions,
+ * ignoring case. When a label appears more than once, as in a join, the first
+ * column wins.
+ */
+public final class Columns
+{
+
+    // Constructor
+
+    private Columns(HashMap<String, Integer> positions)
+    {
+        this.positions = positions;
+    }
+
+    // Properties
+
+    private final HashMap<String, Integer> positions;
+
+    // Methods
+
+    /**
+     * Reads the column labels of a result set.
+     *
+     * @param metaData the metadata of the result set
+     * @return the columns of the result set
+     * @throws SQLException if the metadata cannot be read
+     */
+    public static Columns of(ResultSetMetaData metaData) throws SQLException
+    {
+        int count = metaData.getColumnCount();
+        HashMap<String, Integer> positions = new HashMap<>(count * 2);
+
+        for (int i = 1; i <= count; i++)
+        {
+            positions.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        return new Columns(positions);
+    }
+
+    /**
+     * Gets the position of a column.
+     *
+     * @param label the label of the column
+     * @return the position of the column, starting at 1
+     * @throws SQLException if the result set has no such column
+     */
+    public int indexOf(String label) throws SQLException
+    {
+        Integer position = positions.get(label.toLowerCase(Locale.ROOT));
+        if (position == null)
+        {
+            throw new SQLException("The result set has no column '" + label + "'.");
+        }
+
+        return position;
+    }
+
+}
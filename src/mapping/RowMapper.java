@@ -0,0 +1,48 @@
+package mapping;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Turns the rows of a result set into entities. Column labels are resolved to
+ * positions once per result set, when the mapper is bound to its metadata, and
+ * every row is then read by position without looking any column up by name.
+ *
+ * @param <T> the type of the entities
+ */
+@FunctionalInterface
+public interface RowMapper<T>
+{
+
+    /**
+     * Resolves the columns the entity is read from.
+     *
+     * @param metaData the metadata of the result set to read
+     * @return the reader for rows shaped like the metadata
+     * @throws SQLException if a required column is missing
+     */
+    RowReader<T> bind(ResultSetMetaData metaData) throws SQLException;
+
+    /**
+     * Reads every remaining row of a result set.
+     *
+     * @param resultSet the result set to read
+     * @return the entities, in row order
+     * @throws SQLException if a row cannot be read
+     */
+    default ArrayList<T> mapAll(ResultSet resultSet) throws SQLException
+    {
+        RowReader<T> reader = bind(resultSet.getMetaData());
+        ArrayList<T> entities = new ArrayList<>();
+
+        while (resultSet.next())
+        {
+            entities.add(reader.read(resultSet));
+        }
+
+        return entities;
+    }
+
+}
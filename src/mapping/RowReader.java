@@ -0,0 +1,25 @@
+package mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads one entity from the current row of a result set, using column positions
+ * resolved beforehand by a RowMapper.
+ *
+ * @param <T> the type of the entity
+ */
+@FunctionalInterface
+public interface RowReader<T>
+{
+
+    /**
+     * Reads the entity.
+     *
+     * @param resultSet the result set, positioned on the row to read
+     * @return the entity
+     * @throws SQLException if a column cannot be read
+     */
+    T read(ResultSet resultSet) throws SQLException;
+
+}
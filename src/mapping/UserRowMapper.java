@@ -0,0 +1,36 @@
+package mapping;
+
+import factories.FactoryRegistry;
+import models.User;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The UserRowMapper class reads users from the columns of the users table,
+ * creating each through the factory registered for its access level.
+ */
+public class UserRowMapper implements RowMapper<User>
+{
+
+    // Overrides
+
+    @Override
+    public RowReader<User> bind(ResultSetMetaData metaData) throws SQLException
+    {
+        Columns columns = Columns.of(metaData);
+        int id = columns.indexOf("id");
+        int username = columns.indexOf("username");
+        int emailAddress = columns.indexOf("email_address");
+        int password = columns.indexOf("password");
+        int accessLevel = columns.indexOf("access_level");
+
+        return resultSet -> FactoryRegistry.getUserFactory(resultSet.getInt(accessLevel)).createUser(
+                resultSet.getString(id),
+                resultSet.getString(username),
+                resultSet.getString(emailAddress),
+                resultSet.getString(password)
+        );
+    }
+
+}
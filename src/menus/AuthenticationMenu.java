@@ -108,6 +108,12 @@ public class AuthenticationMenu extends Menu
         {
             System.out.print("Enter your email address (at least 5 characters): ");
             email = menuScanner.nextLine();
+
+            if (email.length() >= 5 && userController.isEmailAddressRegistered(email))
+            {
+                System.out.println("That email address is already registered. Please use another one.");
+                email = "";
+            }
         }
 
         String password = "";
@@ -117,29 +123,34 @@ public class AuthenticationMenu extends Menu
             password = menuScanner.nextLine();
         }
 
+        String id = userController.generateUserId();
+        if (id == null)
+        {
+            System.out.println("Registration failed. Please try again.");
+            System.out.println("Press enter to continue...");
+            menuScanner.nextLine();
+            return;
+        }
+
         User patronUser = new PatronFactory().createUser(
-                generateUserId(),
+                id,
                 username,
                 email,
                 password
         );
-        userController.addUser(patronUser);
+        if (!userController.addUser(patronUser))
+        {
+            System.out.println("Registration failed. Please try again.");
+            System.out.println("Press enter to continue...");
+            menuScanner.nextLine();
+            return;
+        }
 
         System.out.println("Registration successful!");
         System.out.println("Press enter to continue...");
         menuScanner.nextLine();
     }
 
-    // Utilities
-
-    private String generateUserId()
-    {
-        User user = userController.getLatestUser();
-        int latestNumber = Integer.parseInt(user.getId().substring(3));
-
-        return String.format("UID%04d", latestNumber + 1);
-    }
-
     // Overrides
 
     /**
@@ -1,14 +1,22 @@
 package menus;
 
 import java.time.Year;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import java.util.UUID;
 
+import analytics.LoanAnalytics;
+import analytics.LoanStatistic;
+import controllers.Page;
 import factories.BiographyBookFactory;
 import factories.MilitaryHistoryBookFactory;
 import factories.RevolutionBookFactory;
 import models.*;
+import rendering.TableLayout;
+import rendering.Tables;
+import search.BookIndex;
 import singleton.Database;
 
 /**
@@ -50,6 +58,7 @@ public class LibrarianMenu extends Menu
             "4. Edit book\n" +
             "5. Remove book\n" +
             "6. Update borrowing record status\n" +
+            "7. View loan reports\n" +
             "Enter your choice ('0' to log out) >> ";
     /**
      * Constant representing the menu option to log out.
@@ -79,6 +88,18 @@ public class LibrarianMenu extends Menu
      * Constant representing the menu option to update a borrowing record status.
      */
     private final int UPDATE_BORROWING_RECORD_STATUS = 6;
+    /**
+     * Constant representing the menu option to view loan reports.
+     */
+    private final int VIEW_LOAN_REPORTS = 7;
+    /**
+     * The number of months the loans per genre report covers, ending with the current month.
+     */
+    private final int REPORT_MONTHS = 12;
+    /**
+     * The number of loans an author needs to appear in the overdue rate report.
+     */
+    private final int REPORT_MINIMUM_LOANS = 5;
 
     // Methods
 
@@ -103,13 +124,7 @@ public class LibrarianMenu extends Menu
     private void viewBooks()
     {
         // TODO: Implement viewBooks method
-        ArrayList<Book> books = bookController.getBooksByAll();
-
-        displayBooks(books);
-
-        System.out.println();
-        System.out.println("Press enter to continue...");
-        menuScanner.nextLine();
+        displayBooks();
     }
 
     /**
@@ -132,17 +147,17 @@ public class LibrarianMenu extends Menu
             keyword = menuScanner.nextLine();
         }
 
-        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<BookSummary> books = new ArrayList<>();
         switch (type)
         {
             case 1:
-                books = bookController.getBooksByTitle(keyword);
+                books = bookController.searchBooks(BookIndex.Field.TITLE, keyword);
                 break;
             case 2:
-                books = bookController.getBooksByGenre(keyword);
+                books = bookController.searchBooks(BookIndex.Field.GENRE, keyword);
                 break;
             case 3:
-                books = bookController.getBooksByAuthor(keyword);
+                books = bookController.searchBooks(BookIndex.Field.AUTHOR, keyword);
                 break;
         }
 
@@ -217,7 +232,15 @@ public class LibrarianMenu extends Menu
         System.out.print("Enter book ISBN: ");
         String isbn = menuScanner.nextLine();
 
-        String id = generateBookId();
+        String id = bookController.generateBookId();
+        if (id == null)
+        {
+            System.out.println("Book could not be added. Please try again.");
+            System.out.println("Press enter to continue...");
+            menuScanner.nextLine();
+            return;
+        }
+
         String status = "Available";
 
         Book book = null;
@@ -251,7 +274,7 @@ public class LibrarianMenu extends Menu
     private void editBook()
     {
         // TODO: Implement editBook method
-        displayBooks(bookController.getBooksByAll());
+        displayBooks();
 
         String id = "";
         do {
@@ -379,7 +402,7 @@ public class LibrarianMenu extends Menu
      */
     private void removeBook()
     {
-        displayBooks(bookController.getBooksByAll());
+        displayBooks();
 
         String id = "";
         do {
@@ -408,23 +431,21 @@ public class LibrarianMenu extends Menu
         System.out.print("Enter patron ID: ");
         String patronId = menuScanner.nextLine();
 
-        ArrayList<BorrowingRecord> records = borrowingRecordController.getBorrowingRecordsByPatronId(patronId);
+        Page<BorrowingRecord> firstPage = borrowingRecordController.getBorrowingRecordsPage(patronId, null, PAGE_SIZE);
 
-        if(records.isEmpty())
+        if(firstPage.getItems().isEmpty())
         {
             System.out.println("No borrowing records found for patron with ID " + patronId + ".");
         }
         else
         {
             System.out.println("Borrowing records of patron with ID " + patronId + ":");
-            System.out.println("----------------------------------");
-
-            for (BorrowingRecord record : records)
-            {
-                record.displayPublicDetails();
-            }
-
-            System.out.println("----------------------------------");
+            showPages(record -> record == null
+                            ? firstPage
+                            : borrowingRecordController.getBorrowingRecordsPage(patronId, record, PAGE_SIZE),
+                    record -> borrowingRecordController.getBorrowingRecordsPageBefore(patronId, record, PAGE_SIZE),
+                    Tables.BORROWING_RECORDS,
+                    "No borrowing records found for patron with ID " + patronId + ".");
 
             System.out.print("Enter borrowing record ID to edit: ");
             String recordId = menuScanner.nextLine();
@@ -441,10 +462,14 @@ public class LibrarianMenu extends Menu
                         || status.equals("Returned Overdue")
                         || status.equals("Overdue")))
                 {
-                    record.setRecordStatus(status);
-                    borrowingRecordController.updateBorrowingRecord(record);
-
-                    System.out.println("Borrowing record status updated successfully.");
+                    if (borrowingRecordController.updateBorrowingRecordStatus(recordId, status) != null)
+                    {
+                        System.out.println("Borrowing record status updated successfully.");
+                    }
+                    else
+                    {
+                        System.out.println("Borrowing record status could not be updated. Please try again.");
+                    }
                 }
                 else
                 {
@@ -461,29 +486,69 @@ public class LibrarianMenu extends Menu
         menuScanner.nextLine();
     }
 
+    /**
+     * Displays one of the loan reports.
+     */
+    private void viewLoanReports()
+    {
+        int type = 0;
+        while (type < 1 || type > 3)
+        {
+            System.out.print("Enter the report (1 -> Loans per genre per month, 2 -> Overdue rate by author, 3 -> Busiest patrons): ");
+            type = Integer.parseInt(menuScanner.nextLine());
+        }
+
+        LoanAnalytics analytics = LoanAnalytics.getInstance();
+        switch (type)
+        {
+            case 1:
+                YearMonth now = YearMonth.now();
+                displayLoanReport("Loans per genre in the last " + REPORT_MONTHS + " months:",
+                        Tables.LOANS_PER_GENRE_PER_MONTH,
+                        analytics.getLoansPerGenrePerMonth(now.minusMonths(REPORT_MONTHS - 1), now));
+                break;
+            case 2:
+                displayLoanReport("Overdue rate of authors with at least " + REPORT_MINIMUM_LOANS + " loans:",
+                        Tables.OVERDUE_RATE_BY_AUTHOR,
+                        analytics.getOverdueRateByAuthor(REPORT_MINIMUM_LOANS));
+                break;
+            case 3:
+                displayLoanReport("The " + PAGE_SIZE + " busiest patrons:",
+                        Tables.BUSIEST_PATRONS,
+                        analytics.getBusiestPatrons(PAGE_SIZE));
+                break;
+        }
+
+        System.out.println();
+        System.out.println("Press enter to continue...");
+        menuScanner.nextLine();
+    }
+
     // Utilities
 
-    private void displayBooks(ArrayList<Book> books)
+    private void displayLoanReport(String title, TableLayout<LoanStatistic> layout, List<LoanStatistic> statistics)
     {
-        if (books.isEmpty())
+        if (statistics.isEmpty())
         {
-            System.out.println("No books found.");
+            System.out.println("No loans found.");
         }
         else
         {
-            System.out.println(books.size() + " book(s) found:");
-            System.out.println("----------------------------------");
-
-            for (Book book : books)
-            {
-                book.displayDetails();
-            }
-
-            System.out.println("----------------------------------");
+            renderer.line(title)
+                    .table(layout, statistics)
+                    .flush();
         }
     }
 
-    private void displayKeywordedBooks(ArrayList<Book> books, String keyword)
+    private void displayBooks()
+    {
+        showPages(book -> bookController.getBooksPage(book == null ? null : book.getId(), PAGE_SIZE),
+                book -> bookController.getBooksPageBefore(book.getId(), PAGE_SIZE),
+                Tables.BOOK_SUMMARIES,
+                "No books found.");
+    }
+
+    private void displayKeywordedBooks(ArrayList<BookSummary> books, String keyword)
     {
         if (books.isEmpty())
         {
@@ -491,28 +556,12 @@ public class LibrarianMenu extends Menu
         }
         else
         {
-            System.out.println(books.size() + " book(s) found with the keyword '" + keyword + "':");
-            System.out.println("----------------------------------");
-
-            for (Book book : books)
-            {
-                book.displayDetails();
-            }
-
-            System.out.println("----------------------------------");
+            renderer.line(books.size() + " book(s) found with the keyword '" + keyword + "':")
+                    .table(Tables.BOOK_SUMMARIES, books)
+                    .flush();
         }
     }
 
-    // Helpers
-
-    private String generateBookId()
-    {
-        Book book = bookController.getLatestBook();
-        int latestNumber = Integer.parseInt(book.getId().substring(3));
-
-        return String.format("BID%04d", latestNumber + 1);
-    }
-
     // Overrides
 
     /**
@@ -549,6 +598,9 @@ public class LibrarianMenu extends Menu
                 case UPDATE_BORROWING_RECORD_STATUS:
                     updateBorrowingRecordStatus();
                     break;
+                case VIEW_LOAN_REPORTS:
+                    viewLoanReports();
+                    break;
 
                 default:
                     System.out.println("Invalid choice. Please try again.");
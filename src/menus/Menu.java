@@ -2,9 +2,13 @@ package menus;
 
 import controllers.BookController;
 import controllers.BorrowingRecordController;
+import controllers.Page;
 import controllers.UserController;
+import rendering.ConsoleRenderer;
+import rendering.TableLayout;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * The Menu class is an abstract class that provides a template for creating
@@ -28,8 +32,17 @@ public abstract class Menu
         bookController = new BookController();
         borrowingRecordController = new BorrowingRecordController();
         userController = new UserController();
+
+        renderer = new ConsoleRenderer();
     }
 
+    // Fields
+
+    /**
+     * The number of items shown per page in listings.
+     */
+    protected static final int PAGE_SIZE = ConsoleRenderer.getPageSize();
+
     // Properties
 
     /**
@@ -57,6 +70,11 @@ public abstract class Menu
      */
     protected UserController userController;
 
+    /**
+     * The renderer buffering listings so each page is written out at once.
+     */
+    protected ConsoleRenderer renderer;
+
     // Menu Methods
 
     /**
@@ -70,6 +88,78 @@ public abstract class Menu
         System.exit(0);
     }
 
+    /**
+     * Shows a listing one page at a time as a table, letting the user move to the
+     * next or previous page until they press enter. Each page is written out at once.
+     *
+     * @param pageAfter the function reading the page after an item, or the first page for null
+     * @param pageBefore the function reading the page before an item
+     * @param layout the table layout of the items
+     * @param emptyMessage the message shown when the listing is empty
+     * @param <T> the type of the listed items
+     */
+    protected <T> void showPages(Function<T, Page<T>> pageAfter,
+                                 Function<T, Page<T>> pageBefore,
+                                 TableLayout<T> layout,
+                                 String emptyMessage)
+    {
+        Page<T> page = pageAfter.apply(null);
+        if (page.getItems().isEmpty())
+        {
+            System.out.println(emptyMessage);
+            System.out.println("Press enter to continue...");
+            menuScanner.nextLine();
+            return;
+        }
+
+        int pageNumber = 1;
+        while (true)
+        {
+            renderer.line("Page " + pageNumber + ":").table(layout, page.getItems());
+
+            if (page.hasNext())
+            {
+                renderer.text("'n' -> Next page, ");
+            }
+            if (page.hasPrevious())
+            {
+                renderer.text("'p' -> Previous page, ");
+            }
+            renderer.text("Press enter to continue... ").flush();
+
+            String input = menuScanner.nextLine().trim();
+            if (input.isEmpty())
+            {
+                return;
+            }
+
+            Page<T> nextPage = null;
+            int step = 0;
+            if (input.equalsIgnoreCase("n") && page.hasNext())
+            {
+                nextPage = pageAfter.apply(page.getLast());
+                step = 1;
+            }
+            else if (input.equalsIgnoreCase("p") && page.hasPrevious())
+            {
+                nextPage = pageBefore.apply(page.getFirst());
+                step = -1;
+            }
+
+            if (nextPage != null && !nextPage.getItems().isEmpty())
+            {
+                page = nextPage;
+                pageNumber += step;
+            }
+            else if (nextPage != null)
+            {
+                System.out.println("There are no more items in that direction.");
+            }
+
+            System.out.println();
+        }
+    }
+
     // Abstract Methods
 
     /**
@@ -1,7 +1,10 @@
 package menus;
 
-import factories.BorrowingRecordFactory;
+import controllers.BorrowResult;
+import controllers.Page;
 import models.*;
+import rendering.Tables;
+import search.BookIndex;
 import singleton.Database;
 
 import java.util.*;
@@ -44,6 +47,7 @@ public class PatronMenu extends Menu
             "3. See borrowing records with status\n" +
             "4. Browse books by title / genre / author\n" +
             "5. Borrow book\n" +
+            "6. View book details\n" +
             "Enter your choice ('0' to log out) >> ";
     /**
      * Constant representing the menu option to log out.
@@ -74,6 +78,11 @@ public class PatronMenu extends Menu
      */
     private final int BORROW_BOOK = 5;
 
+    /**
+     * Constant representing the menu option to view the details of a book.
+     */
+    private final int VIEW_BOOK_DETAILS = 6;
+
     // Methods
 
     /**
@@ -97,13 +106,10 @@ public class PatronMenu extends Menu
     private void viewBooks()
     {
         // TODO: Implement viewBooks method
-        ArrayList<Book> books = bookController.getBooksByAll();
-
-        displayBooks(books);
-
-        System.out.println();
-        System.out.println("Press enter to continue...");
-        menuScanner.nextLine();
+        showPages(book -> bookController.getBooksPage(book == null ? null : book.getId(), PAGE_SIZE),
+                book -> bookController.getBooksPageBefore(book.getId(), PAGE_SIZE),
+                Tables.BOOK_SUMMARIES,
+                "There are no books in the library yet.");
     }
 
     /**
@@ -111,7 +117,7 @@ public class PatronMenu extends Menu
      */
     private void viewCurrentlyBorrowedBooks()
     {
-        ArrayList<Book> books = bookController.getBorrowedBooksByPatronId(currentUser.getId());
+        ArrayList<BookSummary> books = bookController.getBorrowedBookSummariesByPatronId(currentUser.getId());
 
         if (books.isEmpty())
         {
@@ -119,15 +125,9 @@ public class PatronMenu extends Menu
         }
         else
         {
-            System.out.println(books.size() + " books currently borrowed by " + currentUser.getUsername() + ":");
-            System.out.println("----------------------------------");
-
-            for (Book book : books)
-            {
-                book.displayDetails();
-            }
-
-            System.out.println("----------------------------------");
+            renderer.line(books.size() + " books currently borrowed by " + currentUser.getUsername() + ":")
+                    .table(Tables.BOOK_SUMMARIES, books)
+                    .flush();
         }
 
         System.out.println();
@@ -140,28 +140,13 @@ public class PatronMenu extends Menu
      */
     private void seeBorrowingRecords()
     {
-        ArrayList<BorrowingRecord> records = borrowingRecordController.getBorrowingRecordsByPatronId(currentUser.getId());
+        String patronId = currentUser.getId();
 
-        if (records.isEmpty())
-        {
-            System.out.println("You have no borrowing records yet.");
-        }
-        else
-        {
-            System.out.println("Borrowing records of " + currentUser.getUsername() + ":");
-            System.out.println("----------------------------------");
-
-            for (BorrowingRecord record : records)
-            {
-                record.displayPublicDetails();
-            }
-
-            System.out.println("----------------------------------");
-        }
-
-        System.out.println();
-        System.out.println("Press enter to continue...");
-        menuScanner.nextLine();
+        System.out.println("Borrowing records of " + currentUser.getUsername() + ":");
+        showPages(record -> borrowingRecordController.getBorrowingRecordsPage(patronId, record, PAGE_SIZE),
+                record -> borrowingRecordController.getBorrowingRecordsPageBefore(patronId, record, PAGE_SIZE),
+                Tables.BORROWING_RECORDS,
+                "You have no borrowing records yet.");
     }
 
     /**
@@ -184,17 +169,17 @@ public class PatronMenu extends Menu
             keyword = menuScanner.nextLine();
         }
 
-        ArrayList<Book> books = new ArrayList<>();
+        ArrayList<BookSummary> books = new ArrayList<>();
         switch (type)
         {
             case 1:
-                books = bookController.getBooksByTitle(keyword);
+                books = bookController.searchBooks(BookIndex.Field.TITLE, keyword);
                 break;
             case 2:
-                books = bookController.getBooksByGenre(keyword);
+                books = bookController.searchBooks(BookIndex.Field.GENRE, keyword);
                 break;
             case 3:
-                books = bookController.getBooksByAuthor(keyword);
+                books = bookController.searchBooks(BookIndex.Field.AUTHOR, keyword);
                 break;
         }
 
@@ -218,67 +203,57 @@ public class PatronMenu extends Menu
             bookId = menuScanner.nextLine();
         }
 
-        Book book = bookController.getBookById(bookId);
-        if (book == null)
-        {
-            System.out.println("Book not found with ID '" + bookId + "'.");
-        }
-        else
+        BorrowResult result = borrowingRecordController.borrow(bookId, currentUser.getId());
+        switch (result.getStatus())
         {
-            if (book.getStatus().equals("Available"))
-            {
-                Date currentDate = new Date();
-
-                BorrowingRecordFactory borrowingRecordFactory = new BorrowingRecordFactory();
-                BorrowingRecord record = borrowingRecordFactory.createBorrowingRecord(
-                        generateBorrowingRecordId(),
-                        book.getId(),
-                        currentUser.getId(),
-                        null,
-                        "Active",
-                        currentDate,
-                        new Date(currentDate.getTime() + 604800000),
-                        -1,
-                        null
-                );
-
-                borrowingRecordController.addBorrowingRecord(record);
-
+            case BORROWED:
                 System.out.println("Book borrowed successfully.");
                 System.out.println("Press enter to continue...");
                 menuScanner.nextLine();
-            }
-            else
-            {
+                break;
+            case NOT_FOUND:
+                System.out.println("Book not found with ID '" + bookId + "'.");
+                break;
+            case UNAVAILABLE:
                 System.out.println("Book is not available for borrowing.");
-            }
+                break;
+            case FAILED:
+                System.out.println("Book could not be borrowed. Please try again.");
+                break;
         }
 
     }
 
-    // Utilities
-
-    private void displayBooks(ArrayList<Book> books)
+    /**
+     * Displays every detail of one book.
+     */
+    private void viewBookDetails()
     {
-        if (books.isEmpty())
+        String bookId = "";
+        while (bookId.isEmpty())
         {
-            System.out.println("There are no books in the library yet.");
+            System.out.print("Enter the ID of the book: ");
+            bookId = menuScanner.nextLine();
+        }
+
+        Book book = bookController.getBookById(bookId);
+        if (book == null)
+        {
+            System.out.println("Book not found with ID '" + bookId + "'.");
         }
         else
         {
-            System.out.println(books.size() + " books found in the library:");
-            System.out.println("----------------------------------");
-
-            for (Book book : books)
-            {
-                book.displayDetails();
-            }
-
-            System.out.println("----------------------------------");
+            book.displayDetails();
         }
+
+        System.out.println();
+        System.out.println("Press enter to continue...");
+        menuScanner.nextLine();
     }
 
-    private void displayKeywordedBooks(ArrayList<Book> books, String keyword)
+    // Utilities
+
+    private void displayKeywordedBooks(ArrayList<BookSummary> books, String keyword)
     {
         if (books.isEmpty())
         {
@@ -286,28 +261,12 @@ public class PatronMenu extends Menu
         }
         else
         {
-            System.out.println(books.size() + " book(s) found with the keyword '" + keyword + "':");
-            System.out.println("----------------------------------");
-
-            for (Book book : books)
-            {
-                book.displayDetails();
-            }
-
-            System.out.println("----------------------------------");
+            renderer.line(books.size() + " book(s) found with the keyword '" + keyword + "':")
+                    .table(Tables.BOOK_SUMMARIES, books)
+                    .flush();
         }
     }
 
-    // Helpers
-
-    private String generateBorrowingRecordId()
-    {
-        BorrowingRecord borrowingRecord = borrowingRecordController.getLatestBorrowingRecord();
-        int latestNumber = Integer.parseInt(borrowingRecord.getId().substring(3));
-
-        return String.format("RID%04d", latestNumber + 1);
-    }
-
     // Overrides
 
     /**
@@ -341,6 +300,9 @@ public class PatronMenu extends Menu
                 case BORROW_BOOK:
                     borrowBook();
                     break;
+                case VIEW_BOOK_DETAILS:
+                    viewBookDetails();
+                    break;
 
                 default:
                     System.out.println("Invalid choice. Please try again.");
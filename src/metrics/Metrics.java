@@ -0,0 +1,323 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The Metrics class holds the statistics of every instrumented operation: each
+ * SQL statement, each controller method running statements, and the wait for a
+ * pooled connection. Every set of statistics is published as an MXBean under the
+ * {@code histopedia} JMX domain when it is first recorded, and {@link #dump()}
+ * formats them all as a text table. Other components, such as background jobs,
+ * can publish counters of their own alongside.
+ * <p>
+ * Instrumentation is on unless the {@code histopedia.metrics.enabled} system
+ * property is false.
+ */
+public final class Metrics
+{
+
+    // Constructor
+
+    private Metrics()
+    {
+    }
+
+    // Fields
+
+    /**
+     * Whether operations are instrumented.
+     */
+    public static final boolean IS_ENABLED = Boolean.parseBoolean(System.getProperty("histopedia.metrics.enabled", "true"));
+
+    /**
+     * The most distinct statements tracked separately; later ones are counted together.
+     */
+    private static final int MAX_STATEMENTS = Integer.getInteger("histopedia.metrics.maxStatements", 500);
+    private static final String OTHER_STATEMENTS = "(other statements)";
+    /**
+     * Matches a parameter list such as {@code ?, ?, ?}, so IN lists of any length
+     * count as one statement. The list is matched with character classes rather than
+     * a repeated group, which would recurse once per parameter and overflow the stack
+     * on lists of thousands.
+     */
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?\\s*,[\\s,?]*\\?");
+    private static final int MAX_CALLER_DEPTH = 16;
+    /**
+     * The number of stack walks agreeing on a statement's caller before it is pinned.
+     */
+    private static final int PINNING_WALKS = 32;
+    /**
+     * One in this many executions of a pinned statement walks the stack again.
+     */
+    private static final int PINNED_CHECK_INTERVAL = 1024;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(Set.of(), MAX_CALLER_DEPTH);
+
+    private static final Map<String, OperationStats> STATEMENTS = new ConcurrentHashMap<>();
+    private static final Map<String, OperationStats> STATEMENTS_BY_SQL = new ConcurrentHashMap<>();
+    private static final Map<String, OperationStats> METHODS = new ConcurrentHashMap<>();
+    private static final Map<OperationStats, CallerSite> CALLER_SITES = new ConcurrentHashMap<>();
+    private static final Map<String, Object> COMPONENTS = new ConcurrentHashMap<>();
+    private static final OperationStats POOL_WAIT = register("Pool", new OperationStats("connection pool wait"));
+
+    private static ScheduledExecutorService dumper;
+
+    // Methods
+
+    /**
+     * Gets the statistics of a SQL statement.
+     *
+     * @param sql the statement
+     * @return the statistics
+     */
+    public static OperationStats statement(String sql)
+    {
+        OperationStats stats = STATEMENTS_BY_SQL.get(sql);
+        if (stats != null)
+        {
+            return stats;
+        }
+
+        String key = PARAMETER_LIST.matcher(sql).replaceAll("?...");
+        if (STATEMENTS.size() >= MAX_STATEMENTS && !STATEMENTS.containsKey(key))
+        {
+            key = OTHER_STATEMENTS;
+        }
+
+        stats = STATEMENTS.computeIfAbsent(key, name -> register("Statement", new OperationStats(name)));
+        if (STATEMENTS_BY_SQL.size() < MAX_STATEMENTS * 4)
+        {
+            STATEMENTS_BY_SQL.put(sql, stats);
+        }
+
+        return stats;
+    }
+
+    /**
+     * Gets the statistics of the controller method running a statement on the
+     * current thread: the outermost frame in the controllers package.
+     * <p>
+     * Walking the stack costs microseconds, so it is only done for the first
+     * executions of each statement. A statement that was always run by the same
+     * method is from then on attributed to it, checking again on a random sample of
+     * executions; a statement run by several methods keeps walking the stack.
+     *
+     * @param statement the statistics of the statement being run
+     * @return the statistics, or null if no controller method is running
+     */
+    public static OperationStats callingMethod(OperationStats statement)
+    {
+        CallerSite site = CALLER_SITES.computeIfAbsent(statement, key -> new CallerSite());
+        if (site.isPinned && ThreadLocalRandom.current().nextInt(PINNED_CHECK_INTERVAL) != 0)
+        {
+            return site.caller;
+        }
+
+        OperationStats caller = walkToCaller();
+        site.observe(caller);
+
+        return caller;
+    }
+
+    /**
+     * Gets the statistics of the wait for a pooled connection.
+     *
+     * @return the statistics
+     */
+    public static OperationStats poolWait()
+    {
+        return POOL_WAIT;
+    }
+
+    /**
+     * Publishes the counters of a component as an MXBean under the {@code histopedia}
+     * JMX domain, and includes them in {@link #dump()} as the component formats
+     * itself with toString.
+     *
+     * @param type the kind of component, such as Job
+     * @param name the name of the component
+     * @param mxBean the component, which implements an interface named after its class with an MXBean suffix
+     */
+    public static void publish(String type, String name, Object mxBean)
+    {
+        if (!IS_ENABLED)
+        {
+            return;
+        }
+
+        COMPONENTS.put(name, mxBean);
+        register(type, name, mxBean);
+    }
+
+    /**
+     * Formats the statistics of every operation as a text table, slowest in total
+     * first, followed by the published components.
+     *
+     * @return the table
+     */
+    public static String dump()
+    {
+        List<OperationStats> all = new ArrayList<>();
+        all.add(POOL_WAIT);
+        all.addAll(METHODS.values());
+        all.addAll(STATEMENTS.values());
+        all.sort(Comparator.comparingDouble(OperationStats::getTotalMillis).reversed());
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%10s %8s %10s %9s %9s %9s %10s  %s%n",
+                "count", "errors", "rows", "p50 ms", "p99 ms", "max ms", "total ms", "operation"));
+        for (OperationStats stats : all)
+        {
+            if (stats.getCount() > 0)
+            {
+                out.append(String.format("%10d %8d %10d %9.3f %9.3f %9.3f %10.1f  %s%n",
+                        stats.getCount(), stats.getErrorCount(), stats.getRowCount(),
+                        stats.getP50Millis(), stats.getP99Millis(), stats.getMaxMillis(), stats.getTotalMillis(),
+                        stats.getName()));
+            }
+        }
+
+        for (Object component : COMPONENTS.values())
+        {
+            out.append(component).append(System.lineSeparator());
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Starts writing {@link #dump()} periodically, as configured by the
+     * {@code histopedia.metrics.dumpIntervalSeconds} system property, to the file
+     * named by {@code histopedia.metrics.dumpFile} or else to standard error. Does
+     * nothing when no interval is set.
+     */
+    public static synchronized void startDumping()
+    {
+        long intervalSeconds = Long.getLong("histopedia.metrics.dumpIntervalSeconds", 0);
+        if (!IS_ENABLED || intervalSeconds <= 0 || dumper != null)
+        {
+            return;
+        }
+
+        String dumpFile = System.getProperty("histopedia.metrics.dumpFile");
+
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "metrics-dumper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() ->
+        {
+            String text = "Metrics at " + java.time.LocalDateTime.now() + "\n" + dump() + "\n";
+            if (dumpFile == null)
+            {
+                System.err.print(text);
+                return;
+            }
+
+            try (PrintStream out = new PrintStream(new FileOutputStream(dumpFile, true), true, StandardCharsets.UTF_8))
+            {
+                out.print(text);
+            }
+            catch (IOException ex)
+            {
+                System.err.println("Metrics dump error detected.\nDetails:\n" + ex.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    // Utilities
+
+    private static OperationStats walkToCaller()
+    {
+        Optional<String> caller = STACK_WALKER.walk(frames -> frames
+                .limit(MAX_CALLER_DEPTH)
+                .filter(frame -> frame.getClassName().startsWith("controllers.")
+                        && !frame.getClassName().startsWith("controllers.Async")
+                        && !frame.getMethodName().startsWith("lambda$"))
+                .reduce((inner, outer) -> outer)
+                .map(frame -> frame.getClassName().substring("controllers.".length()) + "." + frame.getMethodName()));
+
+        return caller.map(name -> METHODS.computeIfAbsent(name, key -> register("Method", new OperationStats(key))))
+                .orElse(null);
+    }
+
+    private static OperationStats register(String type, OperationStats stats)
+    {
+        register(type, stats.getName(), stats);
+        return stats;
+    }
+
+    private static void register(String type, String name, Object mxBean)
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("histopedia:type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName))
+            {
+                server.registerMBean(mxBean, objectName);
+            }
+        }
+        catch (JMException ex)
+        {
+            System.err.println("Metrics registration error detected.\nDetails:\n" + ex.getMessage());
+        }
+    }
+
+    // Nested Classes
+
+    /**
+     * Remembers which controller method runs a statement.
+     */
+    private static final class CallerSite
+    {
+
+        private OperationStats caller;
+        private int walks;
+        private boolean isShared;
+        private volatile boolean isPinned;
+
+        private synchronized void observe(OperationStats observed)
+        {
+            if (isShared)
+            {
+                return;
+            }
+
+            if (walks++ > 0 && observed != caller)
+            {
+                isShared = true;
+                isPinned = false;
+                return;
+            }
+
+            caller = observed;
+            if (walks >= PINNING_WALKS)
+            {
+                isPinned = true;
+            }
+        }
+
+    }
+
+}
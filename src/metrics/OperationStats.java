@@ -0,0 +1,133 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The OperationStats class collects the latency, row and error counts of one
+ * instrumented operation.
+ */
+public class OperationStats implements OperationStatsMXBean
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new OperationStats.
+     *
+     * @param name the name of the operation
+     */
+    OperationStats(String name)
+    {
+        this.name = name;
+        latency = new LatencyHistogram();
+        rows = new LongAdder();
+        errors = new LongAdder();
+    }
+
+    // Properties
+
+    private final String name;
+    private final LatencyHistogram latency;
+    private final LongAdder rows;
+    private final LongAdder errors;
+
+    // Methods
+
+    /**
+     * Records one successful execution.
+     *
+     * @param nanos how long it took
+     */
+    public void record(long nanos)
+    {
+        latency.record(nanos);
+    }
+
+    /**
+     * Records one failed execution.
+     *
+     * @param nanos how long it took to fail
+     */
+    public void recordError(long nanos)
+    {
+        latency.record(nanos);
+        errors.increment();
+    }
+
+    /**
+     * Adds rows read or written by the operation.
+     *
+     * @param count the number of rows
+     */
+    public void addRows(long count)
+    {
+        rows.add(count);
+    }
+
+    /**
+     * Gets the latency histogram of the operation.
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getLatency()
+    {
+        return this.latency;
+    }
+
+    // Overrides
+
+    @Override
+    public String getName()
+    {
+        return this.name;
+    }
+
+    @Override
+    public long getCount()
+    {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrorCount()
+    {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRowCount()
+    {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis()
+    {
+        return latency.getMeanNanos() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis()
+    {
+        return latency.getPercentileNanos(50) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis()
+    {
+        return latency.getPercentileNanos(99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis()
+    {
+        return latency.getMaxNanos() / 1e6;
+    }
+
+    @Override
+    public double getTotalMillis()
+    {
+        return latency.getTotalNanos() / 1e6;
+    }
+
+}
@@ -0,0 +1,28 @@
+package metrics;
+
+/**
+ * The OperationStatsMXBean interface publishes the statistics of one instrumented
+ * operation, such as a SQL statement or a controller method, over JMX.
+ */
+public interface OperationStatsMXBean
+{
+
+    String getName();
+
+    long getCount();
+
+    long getErrorCount();
+
+    long getRowCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    double getTotalMillis();
+
+}
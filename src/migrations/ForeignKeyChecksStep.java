@@ -0,0 +1,62 @@
+package migrations;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * The ForeignKeyChecksStep class runs other steps with MySQL's foreign key checks
+ * turned off for the connection, which MySQL requires to change the type of a
+ * column on either side of a foreign key. The checks are turned back on even when
+ * a step fails, since the connection returns to the pool afterwards.
+ */
+class ForeignKeyChecksStep implements MigrationStep
+{
+
+    // Constructor
+
+    ForeignKeyChecksStep(MigrationStep... steps)
+    {
+        this.steps = List.of(steps);
+    }
+
+    // Properties
+
+    private final List<MigrationStep> steps;
+
+    // Overrides
+
+    @Override
+    public void apply(Connection connection) throws SQLException
+    {
+        try (Statement statement = connection.createStatement())
+        {
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            try
+            {
+                for (MigrationStep step : steps)
+                {
+                    step.apply(connection);
+                }
+            }
+            finally
+            {
+                statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+        }
+    }
+
+    @Override
+    public String describe()
+    {
+        StringBuilder description = new StringBuilder("SET FOREIGN_KEY_CHECKS = 0");
+        for (MigrationStep step : steps)
+        {
+            description.append('\n').append(step.describe());
+        }
+
+        return description.append("\nSET FOREIGN_KEY_CHECKS = 1").toString();
+    }
+
+}
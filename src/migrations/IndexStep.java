@@ -0,0 +1,117 @@
+package migrations;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The IndexStep class is a migration step adding an index. The index is only
+ * created when the table has no index on the same leading columns yet, so the
+ * step also works on databases created from the schema dump, whose indexes may
+ * carry other names.
+ */
+class IndexStep implements MigrationStep
+{
+
+    // Constructor
+
+    IndexStep(String table, String name, Kind kind, String... columns)
+    {
+        this.table = table;
+        this.name = name;
+        this.kind = kind;
+        this.columns = columns;
+    }
+
+    // Properties
+
+    private final String table;
+    private final String name;
+    private final Kind kind;
+    private final String[] columns;
+
+    // Utilities
+
+    private boolean hasCoveringIndex(Connection connection) throws SQLException
+    {
+        Map<String, List<String>> indexes = new HashMap<>();
+        try (ResultSet results = connection.getMetaData().getIndexInfo(null, null, table, kind == Kind.UNIQUE, false))
+        {
+            while (results.next())
+            {
+                String indexName = results.getString("INDEX_NAME");
+                String columnName = results.getString("COLUMN_NAME");
+                if (indexName != null && columnName != null)
+                {
+                    List<String> indexColumns = indexes.computeIfAbsent(indexName, key -> new ArrayList<>());
+                    int position = results.getShort("ORDINAL_POSITION");
+                    while (indexColumns.size() < position)
+                    {
+                        indexColumns.add(null);
+                    }
+                    indexColumns.set(position - 1, columnName);
+                }
+            }
+        }
+
+        for (List<String> indexColumns : indexes.values())
+        {
+            boolean isCovering = indexColumns.size() >= columns.length;
+            for (int i = 0; i < columns.length && isCovering; i++)
+            {
+                isCovering = columns[i].equalsIgnoreCase(indexColumns.get(i));
+            }
+
+            if (isCovering)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Overrides
+
+    @Override
+    public void apply(Connection connection) throws SQLException
+    {
+        if (hasCoveringIndex(connection))
+        {
+            return;
+        }
+
+        try (Statement statement = connection.createStatement())
+        {
+            statement.executeUpdate(describe());
+        }
+    }
+
+    @Override
+    public String describe()
+    {
+        return "CREATE " + kind.keyword + "INDEX " + name + " ON " + table + " (" + String.join(", ", columns) + ")";
+    }
+
+    // Nested Classes
+
+    enum Kind
+    {
+        PLAIN(""),
+        UNIQUE("UNIQUE "),
+        FULLTEXT("FULLTEXT ");
+
+        Kind(String keyword)
+        {
+            this.keyword = keyword;
+        }
+
+        private final String keyword;
+    }
+
+}
@@ -0,0 +1,145 @@
+package migrations;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The Migration class is one numbered change to the schema. Its checksum is
+ * computed from its steps and recorded when it is applied, so a migration edited
+ * after it shipped is detected instead of silently diverging between databases.
+ */
+public class Migration
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new Migration applied to every database.
+     *
+     * @param version the version of the migration, applied in ascending order
+     * @param description what the migration does
+     * @param steps the steps of the migration, applied in order
+     */
+    public Migration(int version, String description, MigrationStep... steps)
+    {
+        this(version, description, false, steps);
+    }
+
+    /**
+     * Constructs a new Migration.
+     *
+     * @param version the version of the migration, applied in ascending order
+     * @param description what the migration does
+     * @param isMySqlOnly true if the migration only applies to MySQL and MariaDB
+     * @param steps the steps of the migration, applied in order
+     */
+    public Migration(int version, String description, boolean isMySqlOnly, MigrationStep... steps)
+    {
+        this.version = version;
+        this.description = description;
+        this.isMySqlOnly = isMySqlOnly;
+        this.steps = List.of(steps);
+        this.checksum = computeChecksum(this.steps);
+    }
+
+    // Properties
+
+    private final int version;
+    private final String description;
+    private final boolean isMySqlOnly;
+    private final List<MigrationStep> steps;
+    private final String checksum;
+
+    // Getters
+
+    /**
+     * Gets the version of the migration.
+     *
+     * @return the version
+     */
+    public int getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * Gets what the migration does.
+     *
+     * @return the description
+     */
+    public String getDescription()
+    {
+        return this.description;
+    }
+
+    /**
+     * Gets the steps of the migration.
+     *
+     * @return the steps, in order
+     */
+    public List<MigrationStep> getSteps()
+    {
+        return this.steps;
+    }
+
+    /**
+     * Gets the checksum of the migration's steps.
+     *
+     * @return the SHA-256 checksum as hexadecimal
+     */
+    public String getChecksum()
+    {
+        return this.checksum;
+    }
+
+    // Methods
+
+    /**
+     * Checks whether the migration applies to a database.
+     *
+     * @param metaData the metadata of the database
+     * @return true if the migration should be applied
+     * @throws SQLException if the metadata cannot be read
+     */
+    public boolean isApplicable(DatabaseMetaData metaData) throws SQLException
+    {
+        if (!isMySqlOnly)
+        {
+            return true;
+        }
+
+        String product = metaData.getDatabaseProductName().toLowerCase();
+        return product.contains("mysql") || product.contains("mariadb");
+    }
+
+    // Utilities
+
+    private static String computeChecksum(List<MigrationStep> steps)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (MigrationStep step : steps)
+            {
+                digest.update(step.describe().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest())
+            {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new IllegalStateException("SHA-256 is not available.", ex);
+        }
+    }
+
+}
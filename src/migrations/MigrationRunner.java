@@ -0,0 +1,132 @@
+package migrations;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The MigrationRunner class brings a database's schema up to date. Applied
+ * migrations are recorded in the schema_migrations table with their checksum;
+ * pending ones are applied in version order, and the runner stops at the first
+ * migration that fails or whose checksum no longer matches the recorded one.
+ * <p>
+ * Migrations that do not apply to the database, such as MySQL-only ones on
+ * another engine, are skipped without being recorded.
+ */
+public class MigrationRunner
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new MigrationRunner.
+     *
+     * @param connection the connection to migrate through, in auto-commit mode
+     */
+    public MigrationRunner(Connection connection)
+    {
+        this.connection = connection;
+    }
+
+    // Properties
+
+    private final Connection connection;
+
+    // Methods
+
+    /**
+     * Applies every pending migration.
+     *
+     * @param migrations the migrations, in version order
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails or was changed after it was applied
+     */
+    public int migrate(List<Migration> migrations) throws SQLException
+    {
+        try (Statement statement = connection.createStatement())
+        {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                    "version int NOT NULL PRIMARY KEY, " +
+                    "description varchar(200) NOT NULL, " +
+                    "checksum varchar(64) NOT NULL, " +
+                    "applied_at timestamp NOT NULL, " +
+                    "execution_millis bigint NOT NULL)");
+        }
+
+        Map<Integer, String> appliedChecksums = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery("SELECT version, checksum FROM schema_migrations"))
+        {
+            while (results.next())
+            {
+                appliedChecksums.put(results.getInt(1), results.getString(2));
+            }
+        }
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        int applied = 0;
+
+        for (Migration migration : migrations)
+        {
+            String appliedChecksum = appliedChecksums.get(migration.getVersion());
+            if (appliedChecksum != null)
+            {
+                if (!appliedChecksum.equals(migration.getChecksum()))
+                {
+                    throw new SQLException("Migration " + migration.getVersion() + " (" + migration.getDescription() +
+                            ") was changed after it was applied. Add a new migration instead.");
+                }
+                continue;
+            }
+
+            if (!migration.isApplicable(metaData))
+            {
+                continue;
+            }
+
+            apply(migration);
+            applied++;
+        }
+
+        return applied;
+    }
+
+    // Utilities
+
+    private void apply(Migration migration) throws SQLException
+    {
+        long start = System.nanoTime();
+
+        for (MigrationStep step : migration.getSteps())
+        {
+            try
+            {
+                step.apply(connection);
+            }
+            catch (SQLException ex)
+            {
+                throw new SQLException("Migration " + migration.getVersion() + " failed at: " + step.describe() +
+                        "\n" + ex.getMessage(), ex);
+            }
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO schema_migrations " +
+                "(version, description, checksum, applied_at, execution_millis) VALUES (?, ?, ?, ?, ?)"))
+        {
+            statement.setInt(1, migration.getVersion());
+            statement.setString(2, migration.getDescription());
+            statement.setString(3, migration.getChecksum());
+            statement.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            statement.setLong(5, (System.nanoTime() - start) / 1_000_000);
+            statement.executeUpdate();
+        }
+    }
+
+}
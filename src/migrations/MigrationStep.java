@@ -0,0 +1,95 @@
+package migrations;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The MigrationStep interface is one change to the schema made by a migration.
+ * Steps must be safe to apply again, because MySQL commits schema changes one
+ * statement at a time and a failed migration is retried from its first step.
+ */
+public interface MigrationStep
+{
+
+    /**
+     * Applies the step.
+     *
+     * @param connection the connection to apply it on
+     * @throws SQLException if the step fails
+     */
+    void apply(Connection connection) throws SQLException;
+
+    /**
+     * Describes the step. The descriptions of its steps make up a migration's checksum.
+     *
+     * @return the description
+     */
+    String describe();
+
+    /**
+     * Creates a step running one SQL statement, which must be idempotent, for
+     * example by using {@code IF NOT EXISTS}.
+     *
+     * @param sql the statement
+     * @return the step
+     */
+    static MigrationStep sql(String sql)
+    {
+        return new SqlStep(sql);
+    }
+
+    /**
+     * Creates a step adding an index unless the table already has one on the same
+     * leading columns.
+     *
+     * @param table the table to index
+     * @param name the name of the index
+     * @param columns the indexed columns, in order
+     * @return the step
+     */
+    static MigrationStep index(String table, String name, String... columns)
+    {
+        return new IndexStep(table, name, IndexStep.Kind.PLAIN, columns);
+    }
+
+    /**
+     * Creates a step adding a unique index unless the table already has a unique
+     * index on the same leading columns.
+     *
+     * @param table the table to index
+     * @param name the name of the index
+     * @param columns the indexed columns, in order
+     * @return the step
+     */
+    static MigrationStep uniqueIndex(String table, String name, String... columns)
+    {
+        return new IndexStep(table, name, IndexStep.Kind.UNIQUE, columns);
+    }
+
+    /**
+     * Creates a step adding a MySQL FULLTEXT index unless the table already has an
+     * index on the same columns.
+     *
+     * @param table the table to index
+     * @param name the name of the index
+     * @param columns the indexed columns
+     * @return the step
+     */
+    static MigrationStep fullTextIndex(String table, String name, String... columns)
+    {
+        return new IndexStep(table, name, IndexStep.Kind.FULLTEXT, columns);
+    }
+
+    /**
+     * Creates a step running other steps with MySQL's foreign key checks turned off,
+     * for example to change the type of a column a foreign key refers to.
+     *
+     * @param steps the steps to run
+     * @return the step
+     */
+    static MigrationStep withoutForeignKeyChecks(MigrationStep... steps)
+    {
+        return new ForeignKeyChecksStep(steps);
+    }
+
+}
@@ -0,0 +1,104 @@
+package migrations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static migrations.MigrationStep.fullTextIndex;
+import static migrations.MigrationStep.index;
+import static migrations.MigrationStep.sql;
+import static migrations.MigrationStep.uniqueIndex;
+import static migrations.MigrationStep.withoutForeignKeyChecks;
+
+/**
+ * The Migrations class lists the migrations of the schema. Add new migrations at
+ * the end with the next version number, and never edit one that has shipped:
+ * databases that applied it would refuse to migrate further.
+ */
+public final class Migrations
+{
+
+    // Constructor
+
+    private Migrations()
+    {
+    }
+
+    // Methods
+
+    /**
+     * Gets every migration, in version order. The FULLTEXT index on books is only
+     * included when the {@code histopedia.migrations.fullText} system property is true.
+     *
+     * @return the migrations
+     */
+    public static List<Migration> all()
+    {
+        List<Migration> migrations = new ArrayList<>();
+
+        migrations.add(new Migration(1, "Create the tables",
+                sql("CREATE TABLE IF NOT EXISTS books (" +
+                        "id varchar(12) NOT NULL PRIMARY KEY, " +
+                        "title varchar(100) NOT NULL, " +
+                        "genre varchar(25) NOT NULL, " +
+                        "description varchar(500) NOT NULL, " +
+                        "author varchar(50) NOT NULL, " +
+                        "publisher varchar(50) NOT NULL, " +
+                        "publication_year int NOT NULL, " +
+                        "isbn varchar(25) NOT NULL, " +
+                        "status varchar(25) NOT NULL)"),
+                sql("CREATE TABLE IF NOT EXISTS users (" +
+                        "id varchar(12) NOT NULL PRIMARY KEY, " +
+                        "access_level int NOT NULL, " +
+                        "username varchar(50) NOT NULL, " +
+                        "email_address varchar(50) NOT NULL, " +
+                        "password varchar(50) NOT NULL)"),
+                sql("CREATE TABLE IF NOT EXISTS borrowing_records (" +
+                        "id varchar(12) NOT NULL PRIMARY KEY, " +
+                        "book_id varchar(12) NOT NULL, " +
+                        "patron_id varchar(12) NOT NULL, " +
+                        "librarian_id varchar(12) DEFAULT NULL, " +
+                        "borrowing_date date NOT NULL, " +
+                        "due_date date NOT NULL, " +
+                        "return_date date DEFAULT NULL, " +
+                        "request_state int NOT NULL, " +
+                        "record_status varchar(25) NOT NULL, " +
+                        "FOREIGN KEY (book_id) REFERENCES books (id), " +
+                        "FOREIGN KEY (patron_id) REFERENCES users (id), " +
+                        "FOREIGN KEY (librarian_id) REFERENCES users (id))"),
+                sql("CREATE TABLE IF NOT EXISTS id_sequences (" +
+                        "prefix varchar(3) NOT NULL PRIMARY KEY, " +
+                        "next_value bigint NOT NULL)")));
+
+        migrations.add(new Migration(2, "Index the columns the controllers query",
+                index("books", "title", "title"),
+                index("books", "author", "author"),
+                index("books", "genre", "genre"),
+                index("books", "isbn", "isbn"),
+                uniqueIndex("users", "email_address", "email_address"),
+                index("borrowing_records", "patron_id", "patron_id", "borrowing_date", "id"),
+                index("borrowing_records", "patron_status", "patron_id", "record_status", "book_id"),
+                index("borrowing_records", "borrowing_date", "borrowing_date", "id"),
+                index("borrowing_records", "record_status", "record_status", "due_date"),
+                index("borrowing_records", "book_id", "book_id"),
+                index("borrowing_records", "librarian_id", "librarian_id")));
+
+        if (Boolean.getBoolean("histopedia.migrations.fullText"))
+        {
+            migrations.add(new Migration(3, "Add a FULLTEXT index for searching books", true,
+                    fullTextIndex("books", "books_text", "title", "author", "description")));
+        }
+
+        // Databases imported from the original histopedia.sql have six-character IDs, too short for BID0042.
+        migrations.add(new Migration(4, "Widen the ID columns to 12 characters", true,
+                withoutForeignKeyChecks(
+                        sql("ALTER TABLE books MODIFY id varchar(12) NOT NULL"),
+                        sql("ALTER TABLE users MODIFY id varchar(12) NOT NULL"),
+                        sql("ALTER TABLE borrowing_records MODIFY id varchar(12) NOT NULL"),
+                        sql("ALTER TABLE borrowing_records MODIFY book_id varchar(12) NOT NULL"),
+                        sql("ALTER TABLE borrowing_records MODIFY patron_id varchar(12) NOT NULL"),
+                        sql("ALTER TABLE borrowing_records MODIFY librarian_id varchar(12) DEFAULT NULL"))));
+
+        return migrations;
+    }
+
+}
@@ -0,0 +1,41 @@
+package migrations;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The SqlStep class is a migration step running one SQL statement.
+ */
+class SqlStep implements MigrationStep
+{
+
+    // Constructor
+
+    SqlStep(String sql)
+    {
+        this.sql = sql;
+    }
+
+    // Properties
+
+    private final String sql;
+
+    // Overrides
+
+    @Override
+    public void apply(Connection connection) throws SQLException
+    {
+        try (Statement statement = connection.createStatement())
+        {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    @Override
+    public String describe()
+    {
+        return sql;
+    }
+
+}
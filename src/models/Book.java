@@ -2,6 +2,10 @@ package models;
 
 /**
  * Abstract class representing a Book.
+ * <p>
+ * The genre, publisher and status repeat across the whole catalog, so they are
+ * held as codes of shared dictionaries instead of a copy of their text per book.
+ * A book holds its own strings only for the columns that are unique to it.
  */
 public abstract class Book {
 
@@ -24,26 +28,34 @@ public abstract class Book {
     {
         this.id = id;
         this.title = title;
-        this.genre = genre;
+        this.genre = (short) GENRES.encode(genre);
         this.description = description;
         this.author = author;
-        this.publisher = publisher;
+        this.publisher = PUBLISHERS.encode(publisher);
         this.publicationYear = publicationYear;
         this.isbn = isbn;
-        this.status = status;
+        this.status = (short) STATUSES.encode(status);
     }
 
+    // Fields
+
+    private static final StringDictionary GENRES = new StringDictionary("genre", 0xFFFF,
+            "Biography", "Military History", "Revolution");
+    private static final StringDictionary PUBLISHERS = new StringDictionary("publisher", Integer.MAX_VALUE - 8);
+    private static final StringDictionary STATUSES = new StringDictionary("book status", 0xFFFF,
+            "Available", "Borrowed", "Unavailable");
+
     // Properties
 
     private final String id;
     private String title;
-    private String genre;
+    private short genre;
     private String description;
     private String author;
-    private String publisher;
+    private int publisher;
     private int publicationYear;
     private String isbn;
-    private String status; // Statuses: Available, Borrowed, Unavailable
+    private short status; // Statuses: Available, Borrowed, Unavailable
 
     // Getters
 
@@ -74,7 +86,7 @@ public abstract class Book {
      */
     public String getGenre()
     {
-        return this.genre;
+        return GENRES.decode(Short.toUnsignedInt(this.genre));
     }
 
     /**
@@ -104,7 +116,7 @@ public abstract class Book {
      */
     public String getPublisher()
     {
-        return this.publisher;
+        return PUBLISHERS.decode(this.publisher);
     }
 
     /**
@@ -134,7 +146,7 @@ public abstract class Book {
      */
     public String getStatus()
     {
-        return this.status;
+        return STATUSES.decode(Short.toUnsignedInt(this.status));
     }
 
     // Setters
@@ -156,7 +168,7 @@ public abstract class Book {
      */
     public void setGenre(String genre)
     {
-        this.genre = genre;
+        this.genre = (short) GENRES.encode(genre);
     }
 
     /**
@@ -186,7 +198,7 @@ public abstract class Book {
      */
     public void setPublisher(String publisher)
     {
-        this.publisher = publisher;
+        this.publisher = PUBLISHERS.encode(publisher);
     }
 
     /**
@@ -216,7 +228,7 @@ public abstract class Book {
      */
     public void setStatus(String status)
     {
-        this.status = status;
+        this.status = (short) STATUSES.encode(status);
     }
 
     // Methods
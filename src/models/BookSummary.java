@@ -0,0 +1,105 @@
+package models;
+
+/**
+ * Class representing the few columns of a book shown in listings and searched
+ * by the index. Summaries leave out the description and the other details only needed
+ * on a detail view, so listing a large catalog transfers and holds a fraction of
+ * the data of full Book objects.
+ */
+public class BookSummary
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new BookSummary instance.
+     *
+     * @param id The unique identifier of the book.
+     * @param title The title of the book.
+     * @param author The author of the book.
+     * @param genre The genre of the book.
+     * @param status The current status of the book (e.g., Available, Borrowed, Unavailable).
+     * @param publisher The publisher of the book.
+     */
+    public BookSummary(String id, String title, String author, String genre, String status, String publisher)
+    {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.genre = genre;
+        this.status = status;
+        this.publisher = publisher;
+    }
+
+    // Properties
+
+    private final String id;
+    private final String title;
+    private final String author;
+    private final String genre;
+    private final String status;
+    private final String publisher;
+
+    // Getters
+
+    /**
+     * Gets the unique identifier of the book.
+     *
+     * @return The unique identifier of the book.
+     */
+    public String getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * Gets the title of the book.
+     *
+     * @return The title of the book.
+     */
+    public String getTitle()
+    {
+        return this.title;
+    }
+
+    /**
+     * Gets the author of the book.
+     *
+     * @return The author of the book.
+     */
+    public String getAuthor()
+    {
+        return this.author;
+    }
+
+    /**
+     * Gets the genre of the book.
+     *
+     * @return The genre of the book.
+     */
+    public String getGenre()
+    {
+        return this.genre;
+    }
+
+    /**
+     * Gets the current status of the book.
+     *
+     * @return The current status of the book.
+     */
+    public String getStatus()
+    {
+        return this.status;
+    }
+
+    /**
+     * Gets the publisher of the book.
+     *
+     * @return The publisher of the book.
+     */
+    public String getPublisher()
+    {
+        return this.publisher;
+    }
+
+}
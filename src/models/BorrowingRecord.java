@@ -1,9 +1,18 @@
 package models;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 
 /**
  * Class representing a borrowing record in the library system.
+ * <p>
+ * Dates are kept to the day, as the DATE columns of the schema keep them, and are
+ * held as days since the epoch instead of Date objects. The getters return a new
+ * java.sql.Date each time, so changing a returned date does not change the record.
+ * The record status and the librarian, of which there are few, are held as codes
+ * of shared dictionaries.
  */
 public class BorrowingRecord
 {
@@ -28,25 +37,36 @@ public class BorrowingRecord
         this.id = id;
         this.bookId = bookId;
         this.patronId = patronId;
-        this.librarianId = librarianId;
-        this.borrowingDate = borrowingDate;
-        this.dueDate = dueDate;
-        this.returnDate = returnDate;
+        this.librarianId = LIBRARIAN_IDS.encode(librarianId);
+        this.borrowingDate = toEpochDay(borrowingDate);
+        this.dueDate = toEpochDay(dueDate);
+        this.returnDate = toEpochDay(returnDate);
         this.requestState = requestState;
-        this.recordStatus = recordStatus;
+        this.recordStatus = (short) RECORD_STATUSES.encode(recordStatus);
     }
 
+    // Fields
+
+    /**
+     * The epoch day standing for a date that is not set.
+     */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final StringDictionary RECORD_STATUSES = new StringDictionary("record status", 0xFFFF,
+            "Active", "Returned", "Returned Overdue", "Overdue");
+    private static final StringDictionary LIBRARIAN_IDS = new StringDictionary("librarian", Integer.MAX_VALUE - 8);
+
     // Properties
 
     private final String id;
     private final String bookId;
     private final String patronId;
-    private String librarianId;
-    private final Date borrowingDate;
-    private final Date dueDate;
-    private Date returnDate;
+    private int librarianId;
+    private final int borrowingDate;
+    private final int dueDate;
+    private int returnDate;
     private int requestState; // States: -1 = NULL, 0 = Rejected, 1 = Accepted
-    private String recordStatus; // Statuses: Active, Returned, Returned Overdue, Overdue
+    private short recordStatus; // Statuses: Active, Returned, Returned Overdue, Overdue
 
     // Getters
 
@@ -87,7 +107,7 @@ public class BorrowingRecord
      */
     public String getLibrarianId()
     {
-        return this.librarianId;
+        return LIBRARIAN_IDS.decode(this.librarianId);
     }
 
     /**
@@ -97,7 +117,7 @@ public class BorrowingRecord
      */
     public Date getBorrowingDate()
     {
-        return this.borrowingDate;
+        return toDate(this.borrowingDate);
     }
 
     /**
@@ -107,7 +127,7 @@ public class BorrowingRecord
      */
     public Date getDueDate()
     {
-        return this.dueDate;
+        return toDate(this.dueDate);
     }
 
     /**
@@ -116,10 +136,70 @@ public class BorrowingRecord
      * @return The date when the book was actually returned.
      */
     public Date getReturnDate()
+    {
+        return toDate(this.returnDate);
+    }
+
+    /**
+     * Gets the day when the book was borrowed.
+     *
+     * @return The day since the epoch, or NO_DATE if it is not set.
+     */
+    public int getBorrowingEpochDay()
+    {
+        return this.borrowingDate;
+    }
+
+    /**
+     * Gets the day when the book is due to be returned.
+     *
+     * @return The day since the epoch, or NO_DATE if it is not set.
+     */
+    public int getDueEpochDay()
+    {
+        return this.dueDate;
+    }
+
+    /**
+     * Gets the day when the book was actually returned.
+     *
+     * @return The day since the epoch, or NO_DATE if it is not set.
+     */
+    public int getReturnEpochDay()
     {
         return this.returnDate;
     }
 
+    /**
+     * Gets the day when the book was borrowed.
+     *
+     * @return The day, or null if it is not set.
+     */
+    public LocalDate getBorrowingLocalDate()
+    {
+        return toLocalDate(this.borrowingDate);
+    }
+
+    /**
+     * Gets the day when the book is due to be returned.
+     *
+     * @return The day, or null if it is not set.
+     */
+    public LocalDate getDueLocalDate()
+    {
+        return toLocalDate(this.dueDate);
+    }
+
+    /**
+     * Gets the day when the book was actually returned.
+     *
+     * @return The day, or null if it is not set.
+     */
+    public LocalDate getReturnLocalDate()
+    {
+        return toLocalDate(this.returnDate);
+    }
+
     /**
      * Gets the request state of the borrowing record.
      *
@@ -137,7 +217,7 @@ public class BorrowingRecord
      */
     public String getRecordStatus()
     {
-        return this.recordStatus;
+        return RECORD_STATUSES.decode(Short.toUnsignedInt(this.recordStatus));
     }
 
     // Setters
@@ -149,7 +229,7 @@ public class BorrowingRecord
      */
     public void setLibrarianId(String librarianId)
     {
-        this.librarianId = librarianId;
+        this.librarianId = LIBRARIAN_IDS.encode(librarianId);
     }
 
     /**
@@ -159,7 +239,7 @@ public class BorrowingRecord
      */
     public void setReturnDate(Date returnDate)
     {
-        this.returnDate = returnDate;
+        this.returnDate = toEpochDay(returnDate);
     }
 
     /**
@@ -179,7 +259,7 @@ public class BorrowingRecord
      */
     public void setRecordStatus(String recordStatus)
     {
-        this.recordStatus = recordStatus;
+        this.recordStatus = (short) RECORD_STATUSES.encode(recordStatus);
     }
 
     // Methods
@@ -189,15 +269,41 @@ public class BorrowingRecord
      */
     public void displayPublicDetails()
     {
-        System.out.println("[Borrowing Record Details #" + this.id + "]");
-        System.out.println("    Book ID: " + this.bookId);
-        System.out.println("    Patron ID: " + this.patronId);
-        System.out.println("    Librarian ID: " + this.librarianId);
-        System.out.println("    Borrowing Date: " + this.borrowingDate);
-        System.out.println("    Due Date: " + this.dueDate);
-        System.out.println("    Return Date: " + this.returnDate);
-        System.out.println("    Request State: " + this.requestState);
-        System.out.println("    Record Status: " + this.recordStatus);
+        System.out.println("[Borrowing Record Details #" + this.id + "]\n" +
+                "    Book ID: " + this.bookId + "\n" +
+                "    Patron ID: " + this.patronId + "\n" +
+                "    Librarian ID: " + getLibrarianId() + "\n" +
+                "    Borrowing Date: " + getBorrowingDate() + "\n" +
+                "    Due Date: " + getDueDate() + "\n" +
+                "    Return Date: " + getReturnDate() + "\n" +
+                "    Request State: " + this.requestState + "\n" +
+                "    Record Status: " + getRecordStatus());
+    }
+
+    // Utilities
+
+    /**
+     * Truncates a date to its day in the default time zone, as JDBC does when it
+     * writes a DATE column.
+     */
+    private static int toEpochDay(Date date)
+    {
+        if (date == null)
+        {
+            return NO_DATE;
+        }
+
+        return Math.toIntExact(LocalDate.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault()).toEpochDay());
+    }
+
+    private static Date toDate(int epochDay)
+    {
+        return epochDay == NO_DATE ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+    private static LocalDate toLocalDate(int epochDay)
+    {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package models;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The StringDictionary class assigns small integer codes to strings, so that a
+ * column with few distinct values, such as a status or a genre, can be held as a
+ * primitive code instead of a reference to its own copy of the text. Every string
+ * is kept once, however many objects refer to it, and codes are never reused.
+ * <p>
+ * The code 0 stands for null. Encoding a string seen before and decoding any code
+ * take no lock; only the first occurrence of a string does.
+ */
+public final class StringDictionary
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new StringDictionary.
+     *
+     * @param name the name of the dictionary, used in error messages
+     * @param capacity the greatest code that may be assigned
+     * @param values the values to assign the first codes to, in order
+     */
+    public StringDictionary(String name, int capacity, String... values)
+    {
+        this.name = name;
+        this.capacity = capacity;
+        this.codes = new ConcurrentHashMap<>();
+        this.values = new String[Math.max(16, values.length + 1)];
+
+        for (String value : values)
+        {
+            encode(value);
+        }
+    }
+
+    // Properties
+
+    private final String name;
+    private final int capacity;
+    private final ConcurrentHashMap<String, Integer> codes;
+    private volatile String[] values;
+    private int size;
+
+    // Getters
+
+    /**
+     * Gets the number of strings in the dictionary.
+     *
+     * @return the number of strings, not counting null
+     */
+    public synchronized int size()
+    {
+        return this.size;
+    }
+
+    // Methods
+
+    /**
+     * Gets the code of a string, assigning the next code if it is new.
+     *
+     * @param value the string, which may be null
+     * @return the code, or 0 if the string is null
+     * @throws IllegalStateException if the string is new and every code is taken
+     */
+    public int encode(String value)
+    {
+        if (value == null)
+        {
+            return 0;
+        }
+
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Gets the code of a string without assigning one if it is new.
+     *
+     * @param value the string, which may be null
+     * @return the code, 0 if the string is null, or -1 if the string has no code
+     */
+    public int find(String value)
+    {
+        if (value == null)
+        {
+            return 0;
+        }
+
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * Gets the string of a code.
+     *
+     * @param code the code
+     * @return the string, or null if the code is 0
+     */
+    public String decode(int code)
+    {
+        return code == 0 ? null : values[code];
+    }
+
+    // Utilities
+
+    private synchronized int add(String value)
+    {
+        Integer existing = codes.get(value);
+        if (existing != null)
+        {
+            return existing;
+        }
+
+        int code = size + 1;
+        if (code > capacity)
+        {
+            throw new IllegalStateException("The " + name + " dictionary cannot hold more than " + capacity + " values.");
+        }
+
+        String[] grown = values;
+        if (code >= grown.length)
+        {
+            grown = Arrays.copyOf(grown, Math.min(capacity + 1, grown.length * 2));
+        }
+        grown[code] = value;
+        values = grown;
+        size = code;
+
+        codes.put(value, code);
+        return code;
+    }
+
+}
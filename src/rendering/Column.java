@@ -0,0 +1,72 @@
+package rendering;
+
+import java.util.function.Function;
+
+/**
+ * The Column class describes one fixed-width column of a table: its header, its
+ * width in characters, and how to read its value from a row.
+ *
+ * @param <T> the type of the rows
+ */
+public class Column<T>
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new Column.
+     *
+     * @param header the header of the column
+     * @param width the width of the column in characters
+     * @param value the function reading the column's value from a row
+     */
+    public Column(String header, int width, Function<? super T, ?> value)
+    {
+        this.header = header;
+        this.width = Math.max(1, width);
+        this.value = value;
+    }
+
+    // Properties
+
+    private final String header;
+    private final int width;
+    private final Function<? super T, ?> value;
+
+    // Getters
+
+    /**
+     * Gets the header of the column.
+     *
+     * @return the header
+     */
+    public String getHeader()
+    {
+        return this.header;
+    }
+
+    /**
+     * Gets the width of the column in characters.
+     *
+     * @return the width
+     */
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    // Methods
+
+    /**
+     * Gets the text shown in this column for a row.
+     *
+     * @param row the row
+     * @return the text, or an empty string if the value is null
+     */
+    String textOf(T row)
+    {
+        Object text = value.apply(row);
+        return text == null ? "" : text.toString();
+    }
+
+}
@@ -0,0 +1,164 @@
+package rendering;
+
+import java.io.PrintStream;
+
+/**
+ * The ConsoleRenderer class formats console output into a reusable buffer and
+ * writes it out in one go when flushed, instead of printing field by field. A
+ * page of a listing then costs one write to the terminal rather than several per
+ * entity, which is what makes long listings slow over a remote session.
+ */
+public class ConsoleRenderer
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new ConsoleRenderer writing to standard output.
+     */
+    public ConsoleRenderer()
+    {
+        this(System.out);
+    }
+
+    /**
+     * Constructs a new ConsoleRenderer.
+     *
+     * @param out the stream to write to
+     */
+    public ConsoleRenderer(PrintStream out)
+    {
+        this.out = out;
+        buffer = new StringBuilder(INITIAL_CAPACITY);
+    }
+
+    // Fields
+
+    private static final int INITIAL_CAPACITY = 8192;
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    /**
+     * The number of terminal lines a page of a listing leaves for the page title,
+     * the table header and rules, and the navigation prompt.
+     */
+    private static final int PAGE_CHROME_LINES = 6;
+
+    // Properties
+
+    private final PrintStream out;
+    private final StringBuilder buffer;
+
+    // Methods
+
+    /**
+     * Appends a line of text.
+     *
+     * @param text the text
+     * @return this renderer
+     */
+    public ConsoleRenderer line(String text)
+    {
+        buffer.append(text).append('\n');
+        return this;
+    }
+
+    /**
+     * Appends an empty line.
+     *
+     * @return this renderer
+     */
+    public ConsoleRenderer line()
+    {
+        buffer.append('\n');
+        return this;
+    }
+
+    /**
+     * Appends text without ending the line, such as a prompt.
+     *
+     * @param text the text
+     * @return this renderer
+     */
+    public ConsoleRenderer text(String text)
+    {
+        buffer.append(text);
+        return this;
+    }
+
+    /**
+     * Appends rows as a table with a header, framed by horizontal rules.
+     *
+     * @param layout the layout of the table
+     * @param rows the rows
+     * @param <T> the type of the rows
+     * @return this renderer
+     */
+    public <T> ConsoleRenderer table(TableLayout<T> layout, Iterable<? extends T> rows)
+    {
+        appendRule(layout.getWidth());
+        layout.appendHeader(buffer);
+        appendRule(layout.getWidth());
+
+        for (T row : rows)
+        {
+            layout.appendRow(buffer, row);
+        }
+
+        appendRule(layout.getWidth());
+        return this;
+    }
+
+    /**
+     * Writes everything appended since the last flush and empties the buffer,
+     * keeping its capacity for the next page.
+     */
+    public void flush()
+    {
+        out.append(buffer);
+        out.flush();
+        buffer.setLength(0);
+    }
+
+    /**
+     * Gets the number of items a page of a listing shows. It is read from the
+     * {@code histopedia.console.pageSize} system property, or else derived from
+     * the terminal height in the {@code LINES} environment variable, and is 10
+     * when neither is set.
+     *
+     * @return the page size
+     */
+    public static int getPageSize()
+    {
+        Integer pageSize = Integer.getInteger("histopedia.console.pageSize");
+        if (pageSize != null)
+        {
+            return Math.max(1, pageSize);
+        }
+
+        String lines = System.getenv("LINES");
+        if (lines != null)
+        {
+            try
+            {
+                return Math.max(1, Integer.parseInt(lines.trim()) - PAGE_CHROME_LINES);
+            }
+            catch (NumberFormatException ex)
+            {
+                return DEFAULT_PAGE_SIZE;
+            }
+        }
+
+        return DEFAULT_PAGE_SIZE;
+    }
+
+    // Utilities
+
+    private void appendRule(int width)
+    {
+        for (int i = 0; i < width; i++)
+        {
+            buffer.append('-');
+        }
+        buffer.append('\n');
+    }
+
+}
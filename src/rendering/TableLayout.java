@@ -0,0 +1,121 @@
+package rendering;
+
+import java.util.List;
+
+/**
+ * The TableLayout class lays rows out as a table of fixed-width columns. Values
+ * longer than their column are cut short with an ellipsis, so every row takes
+ * exactly one line whatever its content.
+ *
+ * @param <T> the type of the rows
+ */
+public class TableLayout<T>
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new TableLayout.
+     *
+     * @param columns the columns of the table, from left to right
+     */
+    public TableLayout(List<Column<? super T>> columns)
+    {
+        this.columns = List.copyOf(columns);
+
+        int width = 0;
+        for (Column<? super T> column : columns)
+        {
+            width += column.getWidth();
+        }
+        this.width = width + SEPARATOR.length() * (columns.size() - 1);
+    }
+
+    // Fields
+
+    private static final String SEPARATOR = " | ";
+    private static final String ELLIPSIS = "...";
+
+    // Properties
+
+    private final List<Column<? super T>> columns;
+    private final int width;
+
+    // Getters
+
+    /**
+     * Gets the width of a line of the table in characters.
+     *
+     * @return the width
+     */
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    // Methods
+
+    /**
+     * Appends the header line of the table.
+     *
+     * @param out the buffer to append to
+     */
+    void appendHeader(StringBuilder out)
+    {
+        for (int i = 0; i < columns.size(); i++)
+        {
+            appendCell(out, columns.get(i).getHeader(), columns.get(i).getWidth(), i == columns.size() - 1);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Appends the line of one row.
+     *
+     * @param out the buffer to append to
+     * @param row the row
+     */
+    void appendRow(StringBuilder out, T row)
+    {
+        for (int i = 0; i < columns.size(); i++)
+        {
+            Column<? super T> column = columns.get(i);
+            appendCell(out, column.textOf(row), column.getWidth(), i == columns.size() - 1);
+        }
+        out.append('\n');
+    }
+
+    // Utilities
+
+    private static void appendCell(StringBuilder out, String text, int width, boolean isLast)
+    {
+        if (text.length() > width)
+        {
+            if (width > ELLIPSIS.length())
+            {
+                out.append(text, 0, width - ELLIPSIS.length()).append(ELLIPSIS);
+            }
+            else
+            {
+                out.append(text, 0, width);
+            }
+        }
+        else
+        {
+            out.append(text);
+            if (!isLast)
+            {
+                for (int i = text.length(); i < width; i++)
+                {
+                    out.append(' ');
+                }
+            }
+        }
+
+        if (!isLast)
+        {
+            out.append(SEPARATOR);
+        }
+    }
+
+}
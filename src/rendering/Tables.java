@@ -0,0 +1,77 @@
+package rendering;
+
+import analytics.LoanStatistic;
+import models.BookSummary;
+import models.BorrowingRecord;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The Tables class holds the table layouts the menus list entities with.
+ */
+public final class Tables
+{
+
+    // Constructor
+
+    private Tables()
+    {
+    }
+
+    // Fields
+
+    /**
+     * The layout of book listings and search results.
+     */
+    public static final TableLayout<BookSummary> BOOK_SUMMARIES = new TableLayout<>(List.of(
+            new Column<>("ID", 8, BookSummary::getId),
+            new Column<>("Title", 36, BookSummary::getTitle),
+            new Column<>("Author", 22, BookSummary::getAuthor),
+            new Column<>("Genre", 16, BookSummary::getGenre),
+            new Column<>("Status", 11, BookSummary::getStatus)
+    ));
+
+    /**
+     * The layout of borrowing record listings.
+     */
+    public static final TableLayout<BorrowingRecord> BORROWING_RECORDS = new TableLayout<>(List.of(
+            new Column<>("ID", 8, BorrowingRecord::getId),
+            new Column<>("Book ID", 8, BorrowingRecord::getBookId),
+            new Column<>("Patron ID", 9, BorrowingRecord::getPatronId),
+            new Column<>("Borrowed", 10, record -> Objects.toString(record.getBorrowingLocalDate(), "")),
+            new Column<>("Due", 10, record -> Objects.toString(record.getDueLocalDate(), "")),
+            new Column<>("Returned", 10, record -> Objects.toString(record.getReturnLocalDate(), "")),
+            new Column<>("Status", 16, BorrowingRecord::getRecordStatus)
+    ));
+
+    /**
+     * The layout of the loans per genre per month report.
+     */
+    public static final TableLayout<LoanStatistic> LOANS_PER_GENRE_PER_MONTH = new TableLayout<>(List.of(
+            new Column<>("Month", 7, LoanStatistic::getMonth),
+            new Column<>("Genre", 24, LoanStatistic::getGroup),
+            new Column<>("Loans", 9, LoanStatistic::getLoanCount),
+            new Column<>("Overdue", 9, LoanStatistic::getOverdueCount)
+    ));
+
+    /**
+     * The layout of the overdue rate by author report.
+     */
+    public static final TableLayout<LoanStatistic> OVERDUE_RATE_BY_AUTHOR = new TableLayout<>(List.of(
+            new Column<>("Author", 30, LoanStatistic::getGroup),
+            new Column<>("Loans", 9, LoanStatistic::getLoanCount),
+            new Column<>("Overdue", 9, LoanStatistic::getOverdueCount),
+            new Column<>("Rate", 6, statistic -> String.format("%.1f%%", statistic.getOverdueRate() * 100))
+    ));
+
+    /**
+     * The layout of the busiest patrons report.
+     */
+    public static final TableLayout<LoanStatistic> BUSIEST_PATRONS = new TableLayout<>(List.of(
+            new Column<>("Patron ID", 9, LoanStatistic::getGroup),
+            new Column<>("Loans", 9, LoanStatistic::getLoanCount),
+            new Column<>("Overdue", 9, LoanStatistic::getOverdueCount)
+    ));
+
+}
@@ -0,0 +1,218 @@
+package repositories;
+
+import singleton.Database;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The BatchImporter class writes a stream of entities with one parameterized
+ * statement, sending rows to the database in JDBC batches and committing them in
+ * chunks so that a long import neither holds one huge transaction open nor pays
+ * a commit per row.
+ * <p>
+ * When a batch is rejected, it is rolled back to a savepoint and replayed row by
+ * row, so a bad row is reported as a failure without losing the rest of its chunk.
+ *
+ * @param <T> the type of the imported entities
+ */
+class BatchImporter<T>
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new BatchImporter.
+     *
+     * @param database the database to write to
+     * @param query the parameterized statement writing one row
+     * @param binder the function turning an entity into the statement's parameter values
+     * @param batchSize the number of rows sent to the database per round trip
+     * @param chunkSize the number of rows committed per transaction
+     * @param onCommitted the action run for every row once its chunk has been committed
+     */
+    BatchImporter(Database database,
+                  String query,
+                  Function<T, Object[]> binder,
+                  int batchSize,
+                  int chunkSize,
+                  Consumer<T> onCommitted)
+    {
+        this.database = database;
+        this.query = query;
+        this.binder = binder;
+        this.batchSize = Math.max(1, batchSize);
+        this.chunkSize = Math.max(this.batchSize, chunkSize);
+        this.onCommitted = onCommitted;
+    }
+
+    // Properties
+
+    private final Database database;
+    private final String query;
+    private final Function<T, Object[]> binder;
+    private final int batchSize;
+    private final int chunkSize;
+    private final Consumer<T> onCommitted;
+
+    // Methods
+
+    /**
+     * Writes every entity produced by the iterator.
+     *
+     * @param entities the entities to write
+     * @param listener the listener notified after each chunk is committed
+     * @return the report of the import
+     */
+    ImportReport<T> run(Iterator<? extends T> entities, Consumer<ImportReport.Chunk> listener)
+    {
+        ImportReport<T> report = new ImportReport<>();
+        List<T> rows = new ArrayList<>(chunkSize);
+
+        long offset = 0;
+        int chunkIndex = 0;
+        while (entities.hasNext())
+        {
+            rows.clear();
+            while (entities.hasNext() && rows.size() < chunkSize)
+            {
+                rows.add(entities.next());
+            }
+
+            ImportReport.Chunk chunk = writeChunk(chunkIndex++, offset, rows, report);
+            offset += rows.size();
+
+            report.addChunk(chunk);
+            listener.accept(chunk);
+        }
+
+        return report;
+    }
+
+    // Utilities
+
+    private ImportReport.Chunk writeChunk(int index, long offset, List<T> rows, ImportReport<T> report)
+    {
+        long start = System.nanoTime();
+        List<ImportReport.Failure<T>> failures = new ArrayList<>();
+
+        int imported;
+        try
+        {
+            imported = database.inTransaction(() ->
+            {
+                int written = 0;
+                try (PreparedStatement statement = database.prepareStatement(query))
+                {
+                    Connection connection = statement.getConnection();
+                    for (int from = 0; from < rows.size(); from += batchSize)
+                    {
+                        int to = Math.min(from + batchSize, rows.size());
+                        written += writeBatch(connection, statement, rows, from, to, offset, failures);
+                    }
+                }
+
+                return written;
+            });
+
+            boolean[] isFailed = new boolean[rows.size()];
+            for (ImportReport.Failure<T> failure : failures)
+            {
+                isFailed[(int) (failure.getPosition() - offset)] = true;
+            }
+
+            for (int i = 0; i < rows.size(); i++)
+            {
+                if (!isFailed[i])
+                {
+                    onCommitted.accept(rows.get(i));
+                }
+            }
+        }
+        catch (SQLException ex)
+        {
+            System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+
+            imported = 0;
+            failures.clear();
+            for (int i = 0; i < rows.size(); i++)
+            {
+                failures.add(new ImportReport.Failure<>(offset + i, rows.get(i), ex.getMessage()));
+            }
+        }
+
+        report.addImported(imported);
+        failures.forEach(report::addFailure);
+
+        return new ImportReport.Chunk(index, rows.size(), failures.size(), System.nanoTime() - start);
+    }
+
+    private int writeBatch(Connection connection,
+                           PreparedStatement statement,
+                           List<T> rows,
+                           int from,
+                           int to,
+                           long offset,
+                           List<ImportReport.Failure<T>> failures) throws SQLException
+    {
+        Savepoint savepoint = connection.setSavepoint();
+
+        try
+        {
+            for (int i = from; i < to; i++)
+            {
+                bind(statement, rows.get(i));
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+            connection.releaseSavepoint(savepoint);
+
+            return to - from;
+        }
+        catch (BatchUpdateException ex)
+        {
+            statement.clearBatch();
+            connection.rollback(savepoint);
+        }
+
+        int written = 0;
+        for (int i = from; i < to; i++)
+        {
+            Savepoint rowSavepoint = connection.setSavepoint();
+            try
+            {
+                bind(statement, rows.get(i));
+                statement.executeUpdate();
+                connection.releaseSavepoint(rowSavepoint);
+                written++;
+            }
+            catch (SQLException ex)
+            {
+                connection.rollback(rowSavepoint);
+                failures.add(new ImportReport.Failure<>(offset + i, rows.get(i), ex.getMessage()));
+            }
+        }
+
+        return written;
+    }
+
+    private void bind(PreparedStatement statement, T entity) throws SQLException
+    {
+        Object[] values = binder.apply(entity);
+
+        int index = 1;
+        for (Object val : values) {
+            statement.setObject(index++, val);
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package repositories;
+
+import models.Book;
+import models.BookSummary;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The BookRepository interface is the storage of the books table. Patterns passed
+ * to the find...Like methods follow SQL LIKE, where % matches any run of characters
+ * and _ matches one character, and ignore case.
+ */
+public interface BookRepository
+{
+
+    /**
+     * Finds every book.
+     *
+     * @return the books
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<Book> findAll() throws SQLException;
+
+    /**
+     * Streams every book in ID order. The stream may hold resources until it is
+     * closed, so close it, preferably with try-with-resources.
+     *
+     * @return the stream of books, which is empty if the storage cannot be read
+     */
+    Stream<Book> streamAll();
+
+    /**
+     * Streams the summary of every book in ID order. The stream must be closed.
+     *
+     * @return the stream of summaries, which is empty if the storage cannot be read
+     */
+    Stream<BookSummary> streamSummaries();
+
+    /**
+     * Finds summaries in ID order, starting after a book.
+     *
+     * @param afterId the ID to start after, or null to start from the first book
+     * @param limit the maximum number of summaries
+     * @return the summaries
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<BookSummary> findSummariesAfter(String afterId, int limit) throws SQLException;
+
+    /**
+     * Finds summaries in descending ID order, starting before a book.
+     *
+     * @param beforeId the ID to start before
+     * @param limit the maximum number of summaries
+     * @return the summaries, nearest first
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<BookSummary> findSummariesBefore(String beforeId, int limit) throws SQLException;
+
+    /**
+     * Finds the books whose title matches a LIKE pattern.
+     *
+     * @param title the pattern
+     * @return the books
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<Book> findByTitleLike(String title) throws SQLException;
+
+    /**
+     * Finds the books whose genre matches a LIKE pattern.
+     *
+     * @param genre the pattern
+     * @return the books
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<Book> findByGenreLike(String genre) throws SQLException;
+
+    /**
+     * Finds the books whose author matches a LIKE pattern.
+     *
+     * @param author the pattern
+     * @return the books
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<Book> findByAuthorLike(String author) throws SQLException;
+
+    /**
+     * Finds the books a patron is borrowing, through their active borrowing records.
+     *
+     * @param patronId the ID of the patron
+     * @return the books
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<Book> findBorrowedByPatronId(String patronId) throws SQLException;
+
+    /**
+     * Finds the summaries of the books a patron is borrowing.
+     *
+     * @param patronId the ID of the patron
+     * @return the summaries
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<BookSummary> findBorrowedSummariesByPatronId(String patronId) throws SQLException;
+
+    /**
+     * Finds the books a patron is borrowing, by the patron's email address.
+     *
+     * @param emailAddress the email address of the patron
+     * @return the books
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<Book> findBorrowedByPatronEmail(String emailAddress) throws SQLException;
+
+    /**
+     * Finds a book by its ID.
+     *
+     * @param id the ID
+     * @return the book, or null if there is none
+     * @throws SQLException if the storage cannot be read
+     */
+    Book findById(String id) throws SQLException;
+
+    /**
+     * Finds a book by its ISBN.
+     *
+     * @param isbn the ISBN
+     * @return the book, or null if there is none
+     * @throws SQLException if the storage cannot be read
+     */
+    Book findByIsbn(String isbn) throws SQLException;
+
+    /**
+     * Finds the book with the greatest ID.
+     *
+     * @return the book, or null if there are no books
+     * @throws SQLException if the storage cannot be read
+     */
+    Book findLatest() throws SQLException;
+
+    /**
+     * Checks whether a book exists.
+     *
+     * @param id the ID
+     * @return true if there is a book with the ID
+     * @throws SQLException if the storage cannot be read
+     */
+    boolean exists(String id) throws SQLException;
+
+    /**
+     * Adds a book.
+     *
+     * @param book the book
+     * @return true if the book was added
+     * @throws SQLException if the book cannot be added, for example because its ID is taken
+     */
+    boolean insert(Book book) throws SQLException;
+
+    /**
+     * Adds many books, committing them in chunks and reporting the books that cannot
+     * be added instead of aborting the rest.
+     *
+     * @param books the books, consumed one at a time
+     * @param batchSize the number of books sent to the storage per round trip
+     * @param chunkSize the number of books committed per transaction
+     * @param onCommitted the action run for every book once its chunk has been committed
+     * @param listener the listener notified with the throughput of each committed chunk
+     * @return the report of the import
+     */
+    ImportReport<Book> importAll(Iterator<? extends Book> books,
+                                 int batchSize,
+                                 int chunkSize,
+                                 Consumer<Book> onCommitted,
+                                 Consumer<ImportReport.Chunk> listener);
+
+    /**
+     * Replaces every column of a book but its ID.
+     *
+     * @param book the book
+     * @return true if the book exists and was updated
+     * @throws SQLException if the book cannot be updated
+     */
+    boolean update(Book book) throws SQLException;
+
+    /**
+     * Sets the status of a book.
+     *
+     * @param id the ID of the book
+     * @param status the new status
+     * @return true if the book exists
+     * @throws SQLException if the book cannot be updated
+     */
+    boolean setStatus(String id, String status) throws SQLException;
+
+    /**
+     * Sets the status of a book only while it has an expected status. Inside a
+     * transaction, the book stays claimed by it until it ends, so two transactions
+     * cannot both replace the same status.
+     *
+     * @param id the ID of the book
+     * @param expectedStatus the status the book must have
+     * @param status the new status
+     * @return true if the book had the expected status and was updated
+     * @throws SQLException if the book cannot be updated
+     */
+    boolean replaceStatus(String id, String expectedStatus, String status) throws SQLException;
+
+    /**
+     * Deletes a book.
+     *
+     * @param id the ID of the book
+     * @return true if the book existed
+     * @throws SQLException if the book cannot be deleted
+     */
+    boolean delete(String id) throws SQLException;
+
+}
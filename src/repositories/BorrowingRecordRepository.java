@@ -0,0 +1,157 @@
+package repositories;
+
+import models.BorrowingRecord;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The BorrowingRecordRepository interface is the storage of the borrowing_records
+ * table. Dates are kept to the day, as in the DATE columns of the schema.
+ */
+public interface BorrowingRecordRepository
+{
+
+    /**
+     * Finds every borrowing record.
+     *
+     * @return the records
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<BorrowingRecord> findAll() throws SQLException;
+
+    /**
+     * Streams every borrowing record in ID order. The stream must be closed.
+     *
+     * @return the stream of records, which is empty if the storage cannot be read
+     */
+    Stream<BorrowingRecord> streamAll();
+
+    /**
+     * Streams the borrowing records of one patron, ordered by borrowing date and ID.
+     * The stream must be closed.
+     *
+     * @param patronId the ID of the patron
+     * @return the stream of records, which is empty if the storage cannot be read
+     */
+    Stream<BorrowingRecord> streamByPatronId(String patronId);
+
+    /**
+     * Finds borrowing records ordered by borrowing date and ID, continuing from a
+     * record in either direction.
+     *
+     * @param patronId the ID of the patron whose records are listed, or null for all records
+     * @param key the record to continue from, which is not included, or null to start at an end
+     * @param isForward true to move to later records, false to move to earlier ones, nearest first
+     * @param limit the maximum number of records
+     * @return the records
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<BorrowingRecord> findPage(String patronId, BorrowingRecord key, boolean isForward, int limit)
+            throws SQLException;
+
+    /**
+     * Finds the borrowing records of a patron.
+     *
+     * @param patronId the ID of the patron
+     * @return the records
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<BorrowingRecord> findByPatronId(String patronId) throws SQLException;
+
+    /**
+     * Finds a borrowing record by its ID.
+     *
+     * @param id the ID
+     * @return the record, or null if there is none
+     * @throws SQLException if the storage cannot be read
+     */
+    BorrowingRecord findById(String id) throws SQLException;
+
+    /**
+     * Finds a borrowing record by its ID and keeps other transactions from changing
+     * it until the current transaction ends.
+     *
+     * @param id the ID
+     * @return the record, or null if there is none
+     * @throws SQLException if the storage cannot be read
+     */
+    BorrowingRecord findByIdForUpdate(String id) throws SQLException;
+
+    /**
+     * Finds the borrowing record with the greatest ID.
+     *
+     * @return the record, or null if there are no records
+     * @throws SQLException if the storage cannot be read
+     */
+    BorrowingRecord findLatest() throws SQLException;
+
+    /**
+     * Finds active borrowing records that were due before a date, earliest due first.
+     *
+     * @param today the first date on which a record is not yet overdue
+     * @param limit the maximum number of records
+     * @return the IDs of the records
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<String> findOverdueIds(Date today, int limit) throws SQLException;
+
+    /**
+     * Adds a borrowing record.
+     *
+     * @param borrowingRecord the record
+     * @return true if the record was added
+     * @throws SQLException if the record cannot be added
+     */
+    boolean insert(BorrowingRecord borrowingRecord) throws SQLException;
+
+    /**
+     * Adds many borrowing records, committing them in chunks and reporting the
+     * records that cannot be added instead of aborting the rest.
+     *
+     * @param borrowingRecords the records, consumed one at a time
+     * @param batchSize the number of records sent to the storage per round trip
+     * @param chunkSize the number of records committed per transaction
+     * @param listener the listener notified with the throughput of each committed chunk
+     * @return the report of the import
+     */
+    ImportReport<BorrowingRecord> importAll(Iterator<? extends BorrowingRecord> borrowingRecords,
+                                            int batchSize,
+                                            int chunkSize,
+                                            Consumer<ImportReport.Chunk> listener);
+
+    /**
+     * Replaces every column of a borrowing record but its ID.
+     *
+     * @param borrowingRecord the record
+     * @return true if the record exists and was updated
+     * @throws SQLException if the record cannot be updated
+     */
+    boolean update(BorrowingRecord borrowingRecord) throws SQLException;
+
+    /**
+     * Closes a borrowing record.
+     *
+     * @param id the ID of the record
+     * @param returnDate the date the book was returned
+     * @param recordStatus the new status of the record
+     * @return true if the record exists
+     * @throws SQLException if the record cannot be updated
+     */
+    boolean markReturned(String id, Date returnDate, String recordStatus) throws SQLException;
+
+    /**
+     * Marks borrowing records as overdue, skipping those that are no longer active.
+     *
+     * @param ids the IDs of the records
+     * @return the number of records marked
+     * @throws SQLException if the records cannot be updated
+     */
+    int markOverdue(List<String> ids) throws SQLException;
+
+}
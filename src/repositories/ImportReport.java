@@ -0,0 +1,242 @@
+package repositories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ImportReport class summarizes a bulk import: how many rows were written,
+ * which rows failed and why, and how fast each committed chunk went in.
+ *
+ * @param <T> the type of the imported entities
+ */
+public class ImportReport<T>
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new, empty ImportReport.
+     */
+    ImportReport()
+    {
+        failures = new ArrayList<>();
+        chunks = new ArrayList<>();
+    }
+
+    // Fields
+
+    /**
+     * The default number of rows sent to the storage per round trip.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    /**
+     * The default number of rows committed per transaction.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    // Properties
+
+    private final List<Failure<T>> failures;
+    private final List<Chunk> chunks;
+    private long importedCount;
+
+    // Getters
+
+    /**
+     * Gets the number of rows written to the database.
+     *
+     * @return the number of imported rows
+     */
+    public long getImportedCount()
+    {
+        return this.importedCount;
+    }
+
+    /**
+     * Gets the rows that could not be written, in input order.
+     *
+     * @return the failed rows
+     */
+    public List<Failure<T>> getFailures()
+    {
+        return Collections.unmodifiableList(this.failures);
+    }
+
+    /**
+     * Gets the statistics of every committed chunk, in commit order.
+     *
+     * @return the chunk statistics
+     */
+    public List<Chunk> getChunks()
+    {
+        return Collections.unmodifiableList(this.chunks);
+    }
+
+    /**
+     * Gets the overall throughput of the import.
+     *
+     * @return the number of rows processed per second
+     */
+    public double getRowsPerSecond()
+    {
+        long rows = 0;
+        long nanos = 0;
+        for (Chunk chunk : chunks)
+        {
+            rows += chunk.getRowCount();
+            nanos += chunk.getElapsedNanos();
+        }
+
+        return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+    }
+
+    // Methods
+
+    void addImported(long count)
+    {
+        this.importedCount += count;
+    }
+
+    void addFailure(Failure<T> failure)
+    {
+        this.failures.add(failure);
+    }
+
+    void addChunk(Chunk chunk)
+    {
+        this.chunks.add(chunk);
+    }
+
+    // Nested Classes
+
+    /**
+     * A row that could not be written.
+     *
+     * @param <T> the type of the imported entity
+     */
+    public static class Failure<T>
+    {
+
+        Failure(long position, T entity, String reason)
+        {
+            this.position = position;
+            this.entity = entity;
+            this.reason = reason;
+        }
+
+        private final long position;
+        private final T entity;
+        private final String reason;
+
+        /**
+         * Gets the zero-based position of the row in the input.
+         *
+         * @return the position of the row
+         */
+        public long getPosition()
+        {
+            return this.position;
+        }
+
+        /**
+         * Gets the entity that could not be written.
+         *
+         * @return the entity
+         */
+        public T getEntity()
+        {
+            return this.entity;
+        }
+
+        /**
+         * Gets the database error reported for the row.
+         *
+         * @return the reason the row failed
+         */
+        public String getReason()
+        {
+            return this.reason;
+        }
+
+    }
+
+    /**
+     * The statistics of one committed chunk.
+     */
+    public static class Chunk
+    {
+
+        Chunk(int index, int rowCount, int failureCount, long elapsedNanos)
+        {
+            this.index = index;
+            this.rowCount = rowCount;
+            this.failureCount = failureCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        private final int index;
+        private final int rowCount;
+        private final int failureCount;
+        private final long elapsedNanos;
+
+        /**
+         * Gets the zero-based index of the chunk.
+         *
+         * @return the index of the chunk
+         */
+        public int getIndex()
+        {
+            return this.index;
+        }
+
+        /**
+         * Gets the number of rows processed in the chunk, including failed ones.
+         *
+         * @return the number of rows
+         */
+        public int getRowCount()
+        {
+            return this.rowCount;
+        }
+
+        /**
+         * Gets the number of rows in the chunk that could not be written.
+         *
+         * @return the number of failed rows
+         */
+        public int getFailureCount()
+        {
+            return this.failureCount;
+        }
+
+        /**
+         * Gets the time taken to write and commit the chunk.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getElapsedNanos()
+        {
+            return this.elapsedNanos;
+        }
+
+        /**
+         * Gets the throughput of the chunk.
+         *
+         * @return the number of rows processed per second
+         */
+        public double getRowsPerSecond()
+        {
+            return elapsedNanos == 0 ? 0 : rowCount * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Chunk #%d: %d row(s), %d failure(s), %.0f rows/s",
+                    index, rowCount, failureCount, getRowsPerSecond());
+        }
+
+    }
+
+}
@@ -0,0 +1,253 @@
+package repositories;
+
+import mapping.BookRowMapper;
+import mapping.BookSummaryRowMapper;
+import mapping.RowMapper;
+import models.Book;
+import models.BookSummary;
+import singleton.Database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The JdbcBookRepository class reads and writes the books table of the MySQL database.
+ */
+final class JdbcBookRepository implements BookRepository
+{
+
+    // Constructor
+
+    JdbcBookRepository(Database database)
+    {
+        this.database = database;
+    }
+
+    // Fields
+
+    private static final String INSERT_BOOK_QUERY = "INSERT INTO books " +
+            "(id, title, genre, description, author, publisher, publication_year, isbn, status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final RowMapper<Book> BOOK_MAPPER = new BookRowMapper();
+    private static final RowMapper<BookSummary> BOOK_SUMMARY_MAPPER = new BookSummaryRowMapper();
+    private static final String BOOK_SUMMARY_COLUMNS = "id, title, author, genre, status, publisher";
+
+    // Properties
+
+    private final Database database;
+
+    // Utilities
+
+    private ArrayList<Book> queryBooks(String query, Object... values) throws SQLException
+    {
+        return JdbcStorage.query(database, BOOK_MAPPER, query, values);
+    }
+
+    private static Object[] toInsertValues(Book book)
+    {
+        return new Object[] {
+                book.getId(),
+                book.getTitle(),
+                book.getGenre(),
+                book.getDescription(),
+                book.getAuthor(),
+                book.getPublisher(),
+                book.getPublicationYear(),
+                book.getIsbn(),
+                book.getStatus()
+        };
+    }
+
+    // Overrides
+
+    @Override
+    public ArrayList<Book> findAll() throws SQLException
+    {
+        return queryBooks("SELECT * FROM books");
+    }
+
+    @Override
+    public Stream<Book> streamAll()
+    {
+        return RowStream.open(database, BOOK_MAPPER, "SELECT * FROM books ORDER BY id");
+    }
+
+    @Override
+    public Stream<BookSummary> streamSummaries()
+    {
+        return RowStream.open(database,
+                BOOK_SUMMARY_MAPPER,
+                "SELECT " + BOOK_SUMMARY_COLUMNS + " FROM books ORDER BY id");
+    }
+
+    @Override
+    public ArrayList<BookSummary> findSummariesAfter(String afterId, int limit) throws SQLException
+    {
+        if (afterId == null)
+        {
+            return JdbcStorage.query(database,
+                    BOOK_SUMMARY_MAPPER,
+                    "SELECT " + BOOK_SUMMARY_COLUMNS + " FROM books ORDER BY id LIMIT ?",
+                    limit);
+        }
+
+        return JdbcStorage.query(database,
+                BOOK_SUMMARY_MAPPER,
+                "SELECT " + BOOK_SUMMARY_COLUMNS + " FROM books WHERE id > ? ORDER BY id LIMIT ?",
+                afterId,
+                limit);
+    }
+
+    @Override
+    public ArrayList<BookSummary> findSummariesBefore(String beforeId, int limit) throws SQLException
+    {
+        return JdbcStorage.query(database,
+                BOOK_SUMMARY_MAPPER,
+                "SELECT " + BOOK_SUMMARY_COLUMNS + " FROM books WHERE id < ? ORDER BY id DESC LIMIT ?",
+                beforeId,
+                limit);
+    }
+
+    @Override
+    public ArrayList<Book> findByTitleLike(String title) throws SQLException
+    {
+        return queryBooks("SELECT * FROM books WHERE title LIKE ?", title);
+    }
+
+    @Override
+    public ArrayList<Book> findByGenreLike(String genre) throws SQLException
+    {
+        return queryBooks("SELECT * FROM books WHERE genre LIKE ?", genre);
+    }
+
+    @Override
+    public ArrayList<Book> findByAuthorLike(String author) throws SQLException
+    {
+        return queryBooks("SELECT * FROM books WHERE author LIKE ?", author);
+    }
+
+    @Override
+    public ArrayList<Book> findBorrowedByPatronId(String patronId) throws SQLException
+    {
+        return queryBooks("SELECT books.* FROM books " +
+                        "JOIN borrowing_records ON books.id = borrowing_records.book_id " +
+                        "WHERE borrowing_records.patron_id = ? AND borrowing_records.record_status = ?",
+                patronId,
+                "Active");
+    }
+
+    @Override
+    public ArrayList<BookSummary> findBorrowedSummariesByPatronId(String patronId) throws SQLException
+    {
+        return JdbcStorage.query(database,
+                BOOK_SUMMARY_MAPPER,
+                "SELECT books.id, books.title, books.author, books.genre, books.status, books.publisher FROM books " +
+                        "JOIN borrowing_records ON books.id = borrowing_records.book_id " +
+                        "WHERE borrowing_records.patron_id = ? AND borrowing_records.record_status = ?",
+                patronId,
+                "Active");
+    }
+
+    @Override
+    public ArrayList<Book> findBorrowedByPatronEmail(String emailAddress) throws SQLException
+    {
+        return queryBooks("SELECT books.* FROM books " +
+                        "JOIN borrowing_records ON books.id = borrowing_records.book_id " +
+                        "JOIN users ON borrowing_records.patron_id = users.id " +
+                        "WHERE users.email_address = ? AND borrowing_records.record_status = ?",
+                emailAddress,
+                "Active");
+    }
+
+    @Override
+    public Book findById(String id) throws SQLException
+    {
+        return JdbcStorage.queryFirst(database, BOOK_MAPPER, "SELECT * FROM books WHERE id = ?", id);
+    }
+
+    @Override
+    public Book findByIsbn(String isbn) throws SQLException
+    {
+        return JdbcStorage.queryFirst(database, BOOK_MAPPER, "SELECT * FROM books WHERE isbn = ?", isbn);
+    }
+
+    @Override
+    public Book findLatest() throws SQLException
+    {
+        return JdbcStorage.queryFirst(database, BOOK_MAPPER, "SELECT * FROM books ORDER BY id DESC LIMIT 1");
+    }
+
+    @Override
+    public boolean exists(String id) throws SQLException
+    {
+        try (PreparedStatement statement = database.prepareStatement("SELECT 1 FROM books WHERE id = ?", id))
+        {
+            return statement.executeQuery().next();
+        }
+    }
+
+    @Override
+    public boolean insert(Book book) throws SQLException
+    {
+        return JdbcStorage.update(database, INSERT_BOOK_QUERY, toInsertValues(book)) > 0;
+    }
+
+    @Override
+    public ImportReport<Book> importAll(Iterator<? extends Book> books,
+                                        int batchSize,
+                                        int chunkSize,
+                                        Consumer<Book> onCommitted,
+                                        Consumer<ImportReport.Chunk> listener)
+    {
+        BatchImporter<Book> importer = new BatchImporter<>(database,
+                INSERT_BOOK_QUERY,
+                JdbcBookRepository::toInsertValues,
+                batchSize,
+                chunkSize,
+                onCommitted);
+        return importer.run(books, listener);
+    }
+
+    @Override
+    public boolean update(Book book) throws SQLException
+    {
+        return JdbcStorage.update(database,
+                "UPDATE books SET title = ?, genre = ?, description = ?, author = ?, publisher = ?, publication_year = ?, isbn = ?, status = ? WHERE id = ?",
+                book.getTitle(),
+                book.getGenre(),
+                book.getDescription(),
+                book.getAuthor(),
+                book.getPublisher(),
+                book.getPublicationYear(),
+                book.getIsbn(),
+                book.getStatus(),
+                book.getId()) > 0;
+    }
+
+    @Override
+    public boolean setStatus(String id, String status) throws SQLException
+    {
+        return JdbcStorage.update(database, "UPDATE books SET status = ? WHERE id = ?", status, id) > 0;
+    }
+
+    @Override
+    public boolean replaceStatus(String id, String expectedStatus, String status) throws SQLException
+    {
+        return JdbcStorage.update(database,
+                "UPDATE books SET status = ? WHERE id = ? AND status = ?",
+                status,
+                id,
+                expectedStatus) > 0;
+    }
+
+    @Override
+    public boolean delete(String id) throws SQLException
+    {
+        return JdbcStorage.update(database, "DELETE FROM books WHERE id = ?", id) > 0;
+    }
+
+}
@@ -0,0 +1,242 @@
+package repositories;
+
+import mapping.BorrowingRecordRowMapper;
+import mapping.RowMapper;
+import models.BorrowingRecord;
+import singleton.Database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The JdbcBorrowingRecordRepository class reads and writes the borrowing_records
+ * table of the MySQL database.
+ */
+final class JdbcBorrowingRecordRepository implements BorrowingRecordRepository
+{
+
+    // Constructor
+
+    JdbcBorrowingRecordRepository(Database database)
+    {
+        this.database = database;
+    }
+
+    // Fields
+
+    private static final String INSERT_BORROWING_RECORD_QUERY = "INSERT INTO borrowing_records " +
+            "(id, book_id, patron_id, librarian_id, borrowing_date, due_date, return_date, request_state, record_status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final RowMapper<BorrowingRecord> BORROWING_RECORD_MAPPER = new BorrowingRecordRowMapper();
+
+    // Properties
+
+    private final Database database;
+
+    // Utilities
+
+    private ArrayList<BorrowingRecord> queryBorrowingRecords(String query, Object... values) throws SQLException
+    {
+        return JdbcStorage.query(database, BORROWING_RECORD_MAPPER, query, values);
+    }
+
+    private static Object[] toInsertValues(BorrowingRecord borrowingRecord)
+    {
+        return new Object[] {
+                borrowingRecord.getId(),
+                borrowingRecord.getBookId(),
+                borrowingRecord.getPatronId(),
+                borrowingRecord.getLibrarianId(),
+                JdbcStorage.toSqlDate(borrowingRecord.getBorrowingDate()),
+                JdbcStorage.toSqlDate(borrowingRecord.getDueDate()),
+                JdbcStorage.toSqlDate(borrowingRecord.getReturnDate()),
+                borrowingRecord.getRequestState(),
+                borrowingRecord.getRecordStatus()
+        };
+    }
+
+    // Overrides
+
+    @Override
+    public ArrayList<BorrowingRecord> findAll() throws SQLException
+    {
+        return queryBorrowingRecords("SELECT * FROM borrowing_records");
+    }
+
+    @Override
+    public Stream<BorrowingRecord> streamAll()
+    {
+        return RowStream.open(database,
+                BORROWING_RECORD_MAPPER,
+                "SELECT * FROM borrowing_records ORDER BY id");
+    }
+
+    @Override
+    public Stream<BorrowingRecord> streamByPatronId(String patronId)
+    {
+        return RowStream.open(database,
+                BORROWING_RECORD_MAPPER,
+                "SELECT * FROM borrowing_records WHERE patron_id = ? ORDER BY borrowing_date, id",
+                patronId);
+    }
+
+    @Override
+    public ArrayList<BorrowingRecord> findPage(String patronId, BorrowingRecord key, boolean isForward, int limit)
+            throws SQLException
+    {
+        String comparison = isForward ? ">" : "<";
+        String direction = isForward ? "ASC" : "DESC";
+
+        StringBuilder query = new StringBuilder("SELECT * FROM borrowing_records");
+        ArrayList<Object> values = new ArrayList<>();
+        ArrayList<String> conditions = new ArrayList<>();
+
+        if (patronId != null)
+        {
+            conditions.add("patron_id = ?");
+            values.add(patronId);
+        }
+
+        if (key != null)
+        {
+            java.sql.Date borrowingDate = JdbcStorage.toSqlDate(key.getBorrowingDate());
+            conditions.add("(borrowing_date " + comparison + " ? OR (borrowing_date = ? AND id " + comparison + " ?))");
+            values.add(borrowingDate);
+            values.add(borrowingDate);
+            values.add(key.getId());
+        }
+
+        if (!conditions.isEmpty())
+        {
+            query.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+
+        query.append(" ORDER BY borrowing_date ").append(direction).append(", id ").append(direction).append(" LIMIT ?");
+        values.add(limit);
+
+        return queryBorrowingRecords(query.toString(), values.toArray());
+    }
+
+    @Override
+    public ArrayList<BorrowingRecord> findByPatronId(String patronId) throws SQLException
+    {
+        return queryBorrowingRecords("SELECT * FROM borrowing_records WHERE patron_id = ?", patronId);
+    }
+
+    @Override
+    public BorrowingRecord findById(String id) throws SQLException
+    {
+        return JdbcStorage.queryFirst(database,
+                BORROWING_RECORD_MAPPER,
+                "SELECT * FROM borrowing_records WHERE id = ?",
+                id);
+    }
+
+    @Override
+    public BorrowingRecord findByIdForUpdate(String id) throws SQLException
+    {
+        return JdbcStorage.queryFirst(database,
+                BORROWING_RECORD_MAPPER,
+                "SELECT * FROM borrowing_records WHERE id = ? FOR UPDATE",
+                id);
+    }
+
+    @Override
+    public BorrowingRecord findLatest() throws SQLException
+    {
+        return JdbcStorage.queryFirst(database,
+                BORROWING_RECORD_MAPPER,
+                "SELECT * FROM borrowing_records ORDER BY id DESC LIMIT 1");
+    }
+
+    @Override
+    public ArrayList<String> findOverdueIds(Date today, int limit) throws SQLException
+    {
+        ArrayList<String> ids = new ArrayList<>(limit);
+
+        try (PreparedStatement statement = database.prepareStatement("SELECT id FROM borrowing_records " +
+                        "WHERE record_status = 'Active' AND due_date < ? ORDER BY due_date LIMIT ?",
+                JdbcStorage.toSqlDate(today),
+                limit))
+        {
+            ResultSet results = statement.executeQuery();
+            while (results.next())
+            {
+                ids.add(results.getString(1));
+            }
+            database.recordRows(statement, ids.size());
+        }
+
+        return ids;
+    }
+
+    @Override
+    public boolean insert(BorrowingRecord borrowingRecord) throws SQLException
+    {
+        return JdbcStorage.update(database, INSERT_BORROWING_RECORD_QUERY, toInsertValues(borrowingRecord)) > 0;
+    }
+
+    @Override
+    public ImportReport<BorrowingRecord> importAll(Iterator<? extends BorrowingRecord> borrowingRecords,
+                                                   int batchSize,
+                                                   int chunkSize,
+                                                   Consumer<ImportReport.Chunk> listener)
+    {
+        BatchImporter<BorrowingRecord> importer = new BatchImporter<>(database,
+                INSERT_BORROWING_RECORD_QUERY,
+                JdbcBorrowingRecordRepository::toInsertValues,
+                batchSize,
+                chunkSize,
+                borrowingRecord -> { });
+        return importer.run(borrowingRecords, listener);
+    }
+
+    @Override
+    public boolean update(BorrowingRecord borrowingRecord) throws SQLException
+    {
+        return JdbcStorage.update(database, "UPDATE borrowing_records " +
+                        "SET book_id = ?, patron_id = ?, librarian_id = ?, borrowing_date = ?, due_date = ?, return_date = ?, request_state = ?, record_status = ? " +
+                        "WHERE id = ?",
+                borrowingRecord.getBookId(),
+                borrowingRecord.getPatronId(),
+                borrowingRecord.getLibrarianId(),
+                JdbcStorage.toSqlDate(borrowingRecord.getBorrowingDate()),
+                JdbcStorage.toSqlDate(borrowingRecord.getDueDate()),
+                JdbcStorage.toSqlDate(borrowingRecord.getReturnDate()),
+                borrowingRecord.getRequestState(),
+                borrowingRecord.getRecordStatus(),
+                borrowingRecord.getId()) > 0;
+    }
+
+    @Override
+    public boolean markReturned(String id, Date returnDate, String recordStatus) throws SQLException
+    {
+        return JdbcStorage.update(database,
+                "UPDATE borrowing_records SET return_date = ?, record_status = ? WHERE id = ?",
+                JdbcStorage.toSqlDate(returnDate),
+                recordStatus,
+                id) > 0;
+    }
+
+    @Override
+    public int markOverdue(List<String> ids) throws SQLException
+    {
+        if (ids.isEmpty())
+        {
+            return 0;
+        }
+
+        return JdbcStorage.update(database, "UPDATE borrowing_records SET record_status = 'Overdue' " +
+                        "WHERE record_status = 'Active' AND id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                ids.toArray());
+    }
+
+}
@@ -0,0 +1,129 @@
+package repositories;
+
+import mapping.RowMapper;
+import singleton.Database;
+import singleton.IdAllocator;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * The JdbcStorage class keeps the data in the MySQL database through the Database
+ * singleton, its connection pool and its statement cache. Identifiers are leased
+ * from the id_sequences table by the IdAllocator.
+ */
+final class JdbcStorage implements Storage
+{
+
+    // Constructor
+
+    JdbcStorage()
+    {
+        database = Database.getInstance();
+        books = new JdbcBookRepository(database);
+        borrowingRecords = new JdbcBorrowingRecordRepository(database);
+        users = new JdbcUserRepository(database);
+    }
+
+    // Properties
+
+    private final Database database;
+    private final BookRepository books;
+    private final BorrowingRecordRepository borrowingRecords;
+    private final UserRepository users;
+
+    // Methods
+
+    /**
+     * Runs a query and maps every row it returns.
+     *
+     * @param database the database to query
+     * @param mapper the mapper reading an entity from each row
+     * @param query the SQL query to run
+     * @param values the values to bind, in parameter order
+     * @param <T> the type of the entities
+     * @return the entities
+     * @throws SQLException if the query fails
+     */
+    static <T> ArrayList<T> query(Database database, RowMapper<T> mapper, String query, Object... values)
+            throws SQLException
+    {
+        try (PreparedStatement statement = database.prepareStatement(query, values))
+        {
+            ArrayList<T> entities = mapper.mapAll(statement.executeQuery());
+            database.recordRows(statement, entities.size());
+            return entities;
+        }
+    }
+
+    /**
+     * Runs a query expected to return at most one row.
+     *
+     * @return the entity of the first row, or null if there is none
+     */
+    static <T> T queryFirst(Database database, RowMapper<T> mapper, String query, Object... values)
+            throws SQLException
+    {
+        ArrayList<T> entities = query(database, mapper, query, values);
+        return entities.isEmpty() ? null : entities.get(0);
+    }
+
+    /**
+     * Runs an INSERT, UPDATE or DELETE statement.
+     *
+     * @return the number of rows affected
+     */
+    static int update(Database database, String query, Object... values) throws SQLException
+    {
+        try (PreparedStatement statement = database.prepareStatement(query, values))
+        {
+            return statement.executeUpdate();
+        }
+    }
+
+    static java.sql.Date toSqlDate(Date date)
+    {
+        return date == null ? null : new java.sql.Date(date.getTime());
+    }
+
+    // Overrides
+
+    @Override
+    public BookRepository books()
+    {
+        return books;
+    }
+
+    @Override
+    public BorrowingRecordRepository borrowingRecords()
+    {
+        return borrowingRecords;
+    }
+
+    @Override
+    public UserRepository users()
+    {
+        return users;
+    }
+
+    @Override
+    public <T> T inTransaction(Work<T> work) throws SQLException
+    {
+        return database.inTransaction(work);
+    }
+
+    @Override
+    public String nextId(IdAllocator.Sequence sequence) throws SQLException
+    {
+        return IdAllocator.getInstance().nextId(sequence);
+    }
+
+    @Override
+    public int getMaxConcurrency()
+    {
+        return database.getMaxConnections();
+    }
+
+}
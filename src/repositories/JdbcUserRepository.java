@@ -0,0 +1,78 @@
+package repositories;
+
+import mapping.RowMapper;
+import mapping.UserRowMapper;
+import models.User;
+import singleton.Database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/**
+ * The JdbcUserRepository class reads and writes the users table of the MySQL database.
+ */
+final class JdbcUserRepository implements UserRepository
+{
+
+    // Constructor
+
+    JdbcUserRepository(Database database)
+    {
+        this.database = database;
+    }
+
+    // Fields
+
+    private static final RowMapper<User> USER_MAPPER = new UserRowMapper();
+
+    // Properties
+
+    private final Database database;
+
+    // Overrides
+
+    @Override
+    public ArrayList<User> findAll() throws SQLException
+    {
+        return JdbcStorage.query(database, USER_MAPPER, "SELECT * FROM users");
+    }
+
+    @Override
+    public Stream<User> streamAll()
+    {
+        return RowStream.open(database, USER_MAPPER, "SELECT * FROM users ORDER BY id");
+    }
+
+    @Override
+    public User findById(String id) throws SQLException
+    {
+        return JdbcStorage.queryFirst(database, USER_MAPPER, "SELECT * FROM users WHERE id = ?", id);
+    }
+
+    @Override
+    public User findByEmailAddress(String emailAddress) throws SQLException
+    {
+        return JdbcStorage.queryFirst(database, USER_MAPPER, "SELECT * FROM users WHERE email_address = ?", emailAddress);
+    }
+
+    @Override
+    public User findLatest() throws SQLException
+    {
+        return JdbcStorage.queryFirst(database, USER_MAPPER, "SELECT * FROM users ORDER BY id DESC LIMIT 1");
+    }
+
+    @Override
+    public boolean insert(User user) throws SQLException
+    {
+        return JdbcStorage.update(database, "INSERT INTO users " +
+                        "(id, access_level, username, email_address, password) " +
+                        "VALUES (?, ?, ?, ?, ?)",
+                user.getId(),
+                user.getAccessLevel(),
+                user.getUsername(),
+                user.getEmailAddress(),
+                user.getPassword()) > 0;
+    }
+
+}
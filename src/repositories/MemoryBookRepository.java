@@ -0,0 +1,292 @@
+package repositories;
+
+import models.Book;
+import models.BookSummary;
+import models.User;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The MemoryBookRepository class keeps the books table of the in-memory storage
+ * engine, with a hash index on ISBNs. LIKE searches scan the table, as they do in
+ * the database when the pattern starts with a wildcard.
+ */
+final class MemoryBookRepository implements BookRepository
+{
+
+    // Constructor
+
+    MemoryBookRepository(MemoryStorage storage,
+                         MemoryTable<Book> books,
+                         MemoryBorrowingRecordRepository borrowingRecords,
+                         MemoryUserRepository users)
+    {
+        this.storage = storage;
+        this.books = books;
+        this.borrowingRecords = borrowingRecords;
+        this.users = users;
+        this.byIsbn = books.addIndex("isbn", Book::getIsbn, false, false);
+    }
+
+    // Properties
+
+    private final MemoryStorage storage;
+    private final MemoryTable<Book> books;
+    private final MemoryBorrowingRecordRepository borrowingRecords;
+    private final MemoryUserRepository users;
+    private final MemoryTable.HashIndex<Book> byIsbn;
+
+    // Utilities
+
+    private ArrayList<Book> findLike(Function<Book, String> column, String like)
+    {
+        Pattern pattern = MemoryStorage.toPattern(like);
+
+        ArrayList<Book> found = new ArrayList<>();
+        for (String id : books.ids())
+        {
+            Book book = books.peek(id);
+            if (book != null && MemoryStorage.matches(pattern, column.apply(book)))
+            {
+                found.add(books.getCodec().copy(book));
+            }
+        }
+
+        return found;
+    }
+
+    private ArrayList<BookSummary> findSummaries(Iterable<String> ids, int limit)
+    {
+        ArrayList<BookSummary> summaries = new ArrayList<>();
+        for (String id : ids)
+        {
+            if (summaries.size() >= limit)
+            {
+                break;
+            }
+
+            Book book = books.peek(id);
+            if (book != null)
+            {
+                summaries.add(toSummary(book));
+            }
+        }
+
+        return summaries;
+    }
+
+    private ArrayList<Book> findBorrowed(String patronId)
+    {
+        ArrayList<Book> found = new ArrayList<>();
+        for (String bookId : borrowingRecords.findBorrowedBookIds(patronId))
+        {
+            Book book = books.get(bookId);
+            if (book != null)
+            {
+                found.add(book);
+            }
+        }
+
+        return found;
+    }
+
+    private static BookSummary toSummary(Book book)
+    {
+        return new BookSummary(book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), book.getStatus(),
+                book.getPublisher());
+    }
+
+    // Overrides
+
+    @Override
+    public ArrayList<Book> findAll()
+    {
+        return books.stream().collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public Stream<Book> streamAll()
+    {
+        return books.stream();
+    }
+
+    @Override
+    public Stream<BookSummary> streamSummaries()
+    {
+        return books.ids().stream()
+                .map(books::peek)
+                .filter(Objects::nonNull)
+                .map(MemoryBookRepository::toSummary);
+    }
+
+    @Override
+    public ArrayList<BookSummary> findSummariesAfter(String afterId, int limit)
+    {
+        NavigableSet<String> ids = books.ids();
+        return findSummaries(afterId == null ? ids : ids.tailSet(afterId, false), limit);
+    }
+
+    @Override
+    public ArrayList<BookSummary> findSummariesBefore(String beforeId, int limit)
+    {
+        return findSummaries(books.ids().headSet(beforeId, false).descendingSet(), limit);
+    }
+
+    @Override
+    public ArrayList<Book> findByTitleLike(String title)
+    {
+        return findLike(Book::getTitle, title);
+    }
+
+    @Override
+    public ArrayList<Book> findByGenreLike(String genre)
+    {
+        return findLike(Book::getGenre, genre);
+    }
+
+    @Override
+    public ArrayList<Book> findByAuthorLike(String author)
+    {
+        return findLike(Book::getAuthor, author);
+    }
+
+    @Override
+    public ArrayList<Book> findBorrowedByPatronId(String patronId)
+    {
+        return findBorrowed(patronId);
+    }
+
+    @Override
+    public ArrayList<BookSummary> findBorrowedSummariesByPatronId(String patronId)
+    {
+        return findBorrowed(patronId).stream()
+                .map(MemoryBookRepository::toSummary)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public ArrayList<Book> findBorrowedByPatronEmail(String emailAddress)
+    {
+        User patron = users.findByEmailAddress(emailAddress);
+        return patron == null ? new ArrayList<>() : findBorrowed(patron.getId());
+    }
+
+    @Override
+    public Book findById(String id)
+    {
+        return books.get(id);
+    }
+
+    @Override
+    public Book findByIsbn(String isbn)
+    {
+        Set<String> ids = byIsbn.find(isbn);
+        return ids.isEmpty() ? null : books.get(ids.iterator().next());
+    }
+
+    @Override
+    public Book findLatest()
+    {
+        String id = books.ids().isEmpty() ? null : books.ids().last();
+        return books.get(id);
+    }
+
+    @Override
+    public boolean exists(String id)
+    {
+        return books.contains(id);
+    }
+
+    @Override
+    public boolean insert(Book book) throws SQLException
+    {
+        storage.put(books, book, true);
+        return true;
+    }
+
+    @Override
+    public ImportReport<Book> importAll(Iterator<? extends Book> books,
+                                        int batchSize,
+                                        int chunkSize,
+                                        Consumer<Book> onCommitted,
+                                        Consumer<ImportReport.Chunk> listener)
+    {
+        return storage.importAll(books, chunkSize, this::insert, onCommitted, listener);
+    }
+
+    @Override
+    public boolean update(Book book) throws SQLException
+    {
+        return storage.inTransaction(() ->
+        {
+            if (!books.contains(book.getId()))
+            {
+                return false;
+            }
+
+            storage.put(books, book, false);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean setStatus(String id, String status) throws SQLException
+    {
+        return storage.inTransaction(() ->
+        {
+            Book book = books.get(id);
+            if (book == null)
+            {
+                return false;
+            }
+
+            book.setStatus(status);
+            storage.put(books, book, false);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean replaceStatus(String id, String expectedStatus, String status) throws SQLException
+    {
+        return storage.inTransaction(() ->
+        {
+            Book book = books.get(id);
+            if (book == null || !expectedStatus.equals(book.getStatus()))
+            {
+                return false;
+            }
+
+            book.setStatus(status);
+            storage.put(books, book, false);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean delete(String id) throws SQLException
+    {
+        return storage.inTransaction(() ->
+        {
+            if (borrowingRecords.isBookReferenced(id))
+            {
+                throw new SQLIntegrityConstraintViolationException("Cannot delete or update a parent row: " +
+                        "a foreign key constraint fails on book " + id, "23000");
+            }
+
+            return storage.delete(books, id);
+        });
+    }
+
+}
@@ -0,0 +1,293 @@
+package repositories;
+
+import models.Book;
+import models.BorrowingRecord;
+import models.User;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The MemoryBorrowingRecordRepository class keeps the borrowing_records table of
+ * the in-memory storage engine. Records are indexed by patron, book and status
+ * through hash indexes and kept in borrowing date order for paging, and, as in
+ * the schema, a record can only refer to books and users that exist.
+ */
+final class MemoryBorrowingRecordRepository implements BorrowingRecordRepository
+{
+
+    // Constructor
+
+    MemoryBorrowingRecordRepository(MemoryStorage storage,
+                                    MemoryTable<BorrowingRecord> borrowingRecords,
+                                    MemoryTable<Book> books,
+                                    MemoryTable<User> users)
+    {
+        this.storage = storage;
+        this.borrowingRecords = borrowingRecords;
+        this.books = books;
+        this.users = users;
+        this.byPatronId = borrowingRecords.addIndex("patron_id", BorrowingRecord::getPatronId, false, false);
+        this.byBookId = borrowingRecords.addIndex("book_id", BorrowingRecord::getBookId, false, false);
+        this.byRecordStatus = borrowingRecords.addIndex("record_status", BorrowingRecord::getRecordStatus, false, false);
+        this.byBorrowingDate = borrowingRecords.addSortedIndex(BORROWING_DATE_ORDER);
+    }
+
+    // Fields
+
+    private static final Comparator<BorrowingRecord> BORROWING_DATE_ORDER =
+            Comparator.comparingInt(BorrowingRecord::getBorrowingEpochDay);
+    private static final Comparator<BorrowingRecord> PAGE_ORDER =
+            BORROWING_DATE_ORDER.thenComparing(BorrowingRecord::getId);
+    private static final Comparator<BorrowingRecord> DUE_DATE_ORDER =
+            Comparator.comparingInt(BorrowingRecord::getDueEpochDay);
+
+    // Properties
+
+    private final MemoryStorage storage;
+    private final MemoryTable<BorrowingRecord> borrowingRecords;
+    private final MemoryTable<Book> books;
+    private final MemoryTable<User> users;
+    private final MemoryTable.HashIndex<BorrowingRecord> byPatronId;
+    private final MemoryTable.HashIndex<BorrowingRecord> byBookId;
+    private final MemoryTable.HashIndex<BorrowingRecord> byRecordStatus;
+    private final NavigableSet<BorrowingRecord> byBorrowingDate;
+
+    // Methods
+
+    /**
+     * Checks whether any borrowing record refers to a book.
+     *
+     * @param bookId the ID of the book
+     * @return true if the book is referred to
+     */
+    boolean isBookReferenced(String bookId)
+    {
+        return !byBookId.find(bookId).isEmpty();
+    }
+
+    /**
+     * Finds the IDs of the books a patron is borrowing.
+     *
+     * @param patronId the ID of the patron
+     * @return the IDs of the books, in record ID order
+     */
+    List<String> findBorrowedBookIds(String patronId)
+    {
+        return byPatronId.find(patronId).stream()
+                .sorted()
+                .map(borrowingRecords::peek)
+                .filter(Objects::nonNull)
+                .filter(borrowingRecord -> "Active".equals(borrowingRecord.getRecordStatus()))
+                .map(BorrowingRecord::getBookId)
+                .collect(Collectors.toList());
+    }
+
+    // Utilities
+
+    private void checkReferences(BorrowingRecord borrowingRecord) throws SQLException
+    {
+        if (!books.contains(borrowingRecord.getBookId())
+                || !users.contains(borrowingRecord.getPatronId())
+                || (borrowingRecord.getLibrarianId() != null && !users.contains(borrowingRecord.getLibrarianId())))
+        {
+            throw new SQLIntegrityConstraintViolationException("Cannot add or update a child row: " +
+                    "a foreign key constraint fails on borrowing record " + borrowingRecord.getId(), "23000");
+        }
+    }
+
+    private Stream<BorrowingRecord> copies(Iterable<String> ids)
+    {
+        ArrayList<BorrowingRecord> found = new ArrayList<>();
+        for (String id : ids)
+        {
+            BorrowingRecord borrowingRecord = borrowingRecords.peek(id);
+            if (borrowingRecord != null)
+            {
+                found.add(borrowingRecord);
+            }
+        }
+
+        return found.stream();
+    }
+
+    // Overrides
+
+    @Override
+    public ArrayList<BorrowingRecord> findAll()
+    {
+        return borrowingRecords.stream().collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public Stream<BorrowingRecord> streamAll()
+    {
+        return borrowingRecords.stream();
+    }
+
+    @Override
+    public Stream<BorrowingRecord> streamByPatronId(String patronId)
+    {
+        return copies(byPatronId.find(patronId))
+                .sorted(PAGE_ORDER)
+                .map(borrowingRecords.getCodec()::copy);
+    }
+
+    @Override
+    public ArrayList<BorrowingRecord> findPage(String patronId, BorrowingRecord key, boolean isForward, int limit)
+    {
+        BorrowingRecord normalizedKey = key == null ? null : borrowingRecords.getCodec().copy(key);
+
+        Stream<BorrowingRecord> candidates;
+        if (patronId != null)
+        {
+            candidates = copies(byPatronId.find(patronId))
+                    .sorted(isForward ? PAGE_ORDER : PAGE_ORDER.reversed());
+            if (normalizedKey != null)
+            {
+                candidates = candidates.filter(borrowingRecord -> isForward
+                        ? PAGE_ORDER.compare(borrowingRecord, normalizedKey) > 0
+                        : PAGE_ORDER.compare(borrowingRecord, normalizedKey) < 0);
+            }
+        }
+        else
+        {
+            NavigableSet<BorrowingRecord> range = byBorrowingDate;
+            if (normalizedKey != null)
+            {
+                range = isForward ? range.tailSet(normalizedKey, false) : range.headSet(normalizedKey, false);
+            }
+            candidates = (isForward ? range : range.descendingSet()).stream();
+        }
+
+        return candidates.limit(Math.max(0, limit))
+                .map(borrowingRecords.getCodec()::copy)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public ArrayList<BorrowingRecord> findByPatronId(String patronId)
+    {
+        return copies(byPatronId.find(patronId))
+                .map(borrowingRecords.getCodec()::copy)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public BorrowingRecord findById(String id)
+    {
+        return borrowingRecords.get(id);
+    }
+
+    @Override
+    public BorrowingRecord findByIdForUpdate(String id) throws SQLException
+    {
+        return storage.inTransaction(() -> borrowingRecords.get(id));
+    }
+
+    @Override
+    public BorrowingRecord findLatest()
+    {
+        String id = borrowingRecords.ids().isEmpty() ? null : borrowingRecords.ids().last();
+        return borrowingRecords.get(id);
+    }
+
+    @Override
+    public ArrayList<String> findOverdueIds(Date today, int limit)
+    {
+        long firstDay = RowCodecs.toDay(today).toLocalDate().toEpochDay();
+
+        return copies(byRecordStatus.find("Active"))
+                .filter(borrowingRecord -> borrowingRecord.getDueEpochDay() != BorrowingRecord.NO_DATE
+                        && borrowingRecord.getDueEpochDay() < firstDay)
+                .sorted(DUE_DATE_ORDER)
+                .limit(Math.max(0, limit))
+                .map(BorrowingRecord::getId)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public boolean insert(BorrowingRecord borrowingRecord) throws SQLException
+    {
+        return storage.inTransaction(() ->
+        {
+            checkReferences(borrowingRecord);
+            storage.put(borrowingRecords, borrowingRecord, true);
+            return true;
+        });
+    }
+
+    @Override
+    public ImportReport<BorrowingRecord> importAll(Iterator<? extends BorrowingRecord> borrowingRecords,
+                                                   int batchSize,
+                                                   int chunkSize,
+                                                   Consumer<ImportReport.Chunk> listener)
+    {
+        return storage.importAll(borrowingRecords, chunkSize, this::insert, borrowingRecord -> { }, listener);
+    }
+
+    @Override
+    public boolean update(BorrowingRecord borrowingRecord) throws SQLException
+    {
+        return storage.inTransaction(() ->
+        {
+            if (!borrowingRecords.contains(borrowingRecord.getId()))
+            {
+                return false;
+            }
+
+            checkReferences(borrowingRecord);
+            storage.put(borrowingRecords, borrowingRecord, false);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean markReturned(String id, Date returnDate, String recordStatus) throws SQLException
+    {
+        return storage.inTransaction(() ->
+        {
+            BorrowingRecord borrowingRecord = borrowingRecords.get(id);
+            if (borrowingRecord == null)
+            {
+                return false;
+            }
+
+            borrowingRecord.setReturnDate(returnDate);
+            borrowingRecord.setRecordStatus(recordStatus);
+            storage.put(borrowingRecords, borrowingRecord, false);
+            return true;
+        });
+    }
+
+    @Override
+    public int markOverdue(List<String> ids) throws SQLException
+    {
+        return storage.inTransaction(() ->
+        {
+            int marked = 0;
+            for (String id : ids)
+            {
+                BorrowingRecord borrowingRecord = borrowingRecords.get(id);
+                if (borrowingRecord != null && "Active".equals(borrowingRecord.getRecordStatus()))
+                {
+                    borrowingRecord.setRecordStatus("Overdue");
+                    storage.put(borrowingRecords, borrowingRecord, false);
+                    marked++;
+                }
+            }
+            return marked;
+        });
+    }
+
+}
@@ -0,0 +1,661 @@
+package repositories;
+
+import models.Book;
+import models.BorrowingRecord;
+import models.User;
+import singleton.IdAllocator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The MemoryStorage class keeps the three tables on the heap, for branch libraries
+ * small enough to run without a MySQL server and for tests and benchmarks that
+ * need storage without network round trips.
+ * <p>
+ * Transactions are serialized: a transaction holds the engine's write lock from
+ * its first statement to its commit, and writes without a transaction commit on
+ * their own. Changes are applied to the tables as they are made and undone if the
+ * transaction fails, and on commit they are appended to a write-ahead log in the
+ * data directory, so a committed transaction survives a crash. Reads take no
+ * lock and are not isolated from a transaction in progress: they may see a change
+ * that is later rolled back, much like READ UNCOMMITTED.
+ * <p>
+ * When the log grows past histopedia.memory.checkpointBytes, the tables are
+ * written to a snapshot and the log is emptied, so a restart replays at most that
+ * much log. Forcing the log to the disk on every commit can be turned off with
+ * histopedia.memory.syncOnCommit=false, after which only a crash of the machine,
+ * not of the process, loses the latest commits.
+ * <p>
+ * Identifiers are numbered on from the greatest one in each table when the engine
+ * opens, so the identifier of the newest row can be handed out again if that row
+ * was deleted before a restart.
+ */
+final class MemoryStorage implements Storage
+{
+
+    // Constructor
+
+    private MemoryStorage(Path directory)
+    {
+        this.directory = directory;
+        this.writeLock = new ReentrantLock();
+        this.transactions = new ThreadLocal<>();
+        this.counters = new ConcurrentHashMap<>();
+
+        bookTable = new MemoryTable<>("books", BOOKS_CODE, RowCodecs.BOOKS);
+        borrowingRecordTable = new MemoryTable<>("borrowing_records", BORROWING_RECORDS_CODE, RowCodecs.BORROWING_RECORDS);
+        userTable = new MemoryTable<>("users", USERS_CODE, RowCodecs.USERS);
+
+        MemoryUserRepository userRepository = new MemoryUserRepository(this, userTable);
+        MemoryBorrowingRecordRepository borrowingRecordRepository =
+                new MemoryBorrowingRecordRepository(this, borrowingRecordTable, bookTable, userTable);
+        users = userRepository;
+        borrowingRecords = borrowingRecordRepository;
+        books = new MemoryBookRepository(this, bookTable, borrowingRecordRepository, userRepository);
+
+        for (IdAllocator.Sequence sequence : IdAllocator.Sequence.values())
+        {
+            counters.put(sequence, new AtomicLong(1));
+        }
+    }
+
+    // Fields
+
+    private static final byte BOOKS_CODE = 1;
+    private static final byte BORROWING_RECORDS_CODE = 2;
+    private static final byte USERS_CODE = 3;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private static final String LOG_FILE = "histopedia.wal";
+    private static final String SNAPSHOT_FILE = "histopedia.snapshot";
+    private static final String SNAPSHOT_TEMPORARY_FILE = "histopedia.snapshot.tmp";
+    /**
+     * The number of rows written per record of a snapshot.
+     */
+    private static final int SNAPSHOT_RECORD_ROWS = 1024;
+
+    private static final boolean IS_SYNCING_ON_COMMIT =
+            Boolean.parseBoolean(System.getProperty("histopedia.memory.syncOnCommit", "true"));
+    private static final long CHECKPOINT_BYTES = Long.getLong("histopedia.memory.checkpointBytes", 64L * 1024 * 1024);
+
+    // Properties
+
+    private final Path directory;
+    private final ReentrantLock writeLock;
+    private final ThreadLocal<Transaction> transactions;
+    private final Map<IdAllocator.Sequence, AtomicLong> counters;
+    private final MemoryTable<Book> bookTable;
+    private final MemoryTable<BorrowingRecord> borrowingRecordTable;
+    private final MemoryTable<User> userTable;
+    private final BookRepository books;
+    private final BorrowingRecordRepository borrowingRecords;
+    private final UserRepository users;
+    private WriteAheadLog log;
+
+    // Methods
+
+    /**
+     * Opens the engine, loading the latest snapshot of the data directory and
+     * replaying the write-ahead log on top of it.
+     *
+     * @param directory the data directory, which is created if it does not exist
+     * @return the engine
+     * @throws UncheckedIOException if the data cannot be loaded
+     */
+    static MemoryStorage open(Path directory)
+    {
+        MemoryStorage storage = new MemoryStorage(directory);
+        try
+        {
+            storage.recover();
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException("Could not load the storage in " + directory + ".", ex);
+        }
+
+        return storage;
+    }
+
+    /**
+     * Adds or replaces a row in the current transaction, or in a transaction of its
+     * own if there is none. The row is copied, so the caller may keep changing it.
+     *
+     * @param table the table
+     * @param row the row
+     * @param isInsert true if there must not be a row with the same ID yet
+     * @throws SQLException if the row violates a constraint, or cannot be logged
+     */
+    <T> void put(MemoryTable<T> table, T row, boolean isInsert) throws SQLException
+    {
+        inTransaction(() ->
+        {
+            Transaction transaction = transactions.get();
+            T stored = table.getCodec().copy(row);
+            String id = table.getCodec().idOf(stored);
+
+            T previous = table.put(stored, isInsert);
+            transaction.undo.add(() -> table.restore(id, previous));
+            transaction.log(table, PUT, out -> table.getCodec().write(out, stored));
+
+            if (isInsert)
+            {
+                advanceCounter(table, id);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Removes a row in the current transaction, or in a transaction of its own if
+     * there is none.
+     *
+     * @param table the table
+     * @param id the ID of the row
+     * @return true if the row existed
+     * @throws SQLException if the removal cannot be logged
+     */
+    <T> boolean delete(MemoryTable<T> table, String id) throws SQLException
+    {
+        return inTransaction(() ->
+        {
+            Transaction transaction = transactions.get();
+            T previous = table.restore(id, null);
+            if (previous == null)
+            {
+                return false;
+            }
+
+            transaction.undo.add(() -> table.restore(id, previous));
+            transaction.log(table, DELETE, out -> out.writeUTF(id));
+            return true;
+        });
+    }
+
+    /**
+     * Adds many rows, committing them in chunks. A row that violates a constraint
+     * is reported and skipped without failing the rest of its chunk.
+     *
+     * @param rows the rows, consumed one at a time
+     * @param chunkSize the number of rows committed per transaction
+     * @param insert the insert of one row
+     * @param onCommitted the action run for every row once its chunk has been committed
+     * @param listener the listener notified after each chunk is committed
+     * @return the report of the import
+     */
+    <T> ImportReport<T> importAll(Iterator<? extends T> rows,
+                                  int chunkSize,
+                                  RowWriter<T> insert,
+                                  Consumer<T> onCommitted,
+                                  Consumer<ImportReport.Chunk> listener)
+    {
+        ImportReport<T> report = new ImportReport<>();
+        List<T> chunk = new ArrayList<>(Math.max(1, chunkSize));
+
+        long offset = 0;
+        int chunkIndex = 0;
+        while (rows.hasNext())
+        {
+            chunk.clear();
+            while (rows.hasNext() && chunk.size() < Math.max(1, chunkSize))
+            {
+                chunk.add(rows.next());
+            }
+
+            long start = System.nanoTime();
+            List<ImportReport.Failure<T>> failures = new ArrayList<>();
+            boolean[] isFailed = new boolean[chunk.size()];
+            long chunkOffset = offset;
+            int imported;
+            try
+            {
+                imported = inTransaction(() ->
+                {
+                    int written = 0;
+                    for (int i = 0; i < chunk.size(); i++)
+                    {
+                        try
+                        {
+                            insert.write(chunk.get(i));
+                            written++;
+                        }
+                        catch (SQLException ex)
+                        {
+                            isFailed[i] = true;
+                            failures.add(new ImportReport.Failure<>(chunkOffset + i, chunk.get(i), ex.getMessage()));
+                        }
+                    }
+                    return written;
+                });
+
+                for (int i = 0; i < chunk.size(); i++)
+                {
+                    if (!isFailed[i])
+                    {
+                        onCommitted.accept(chunk.get(i));
+                    }
+                }
+            }
+            catch (SQLException ex)
+            {
+                System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+
+                imported = 0;
+                failures.clear();
+                for (int i = 0; i < chunk.size(); i++)
+                {
+                    failures.add(new ImportReport.Failure<>(chunkOffset + i, chunk.get(i), ex.getMessage()));
+                }
+            }
+
+            report.addImported(imported);
+            failures.forEach(report::addFailure);
+
+            ImportReport.Chunk statistics = new ImportReport.Chunk(chunkIndex++, chunk.size(), failures.size(),
+                    System.nanoTime() - start);
+            report.addChunk(statistics);
+            listener.accept(statistics);
+            offset += chunk.size();
+        }
+
+        return report;
+    }
+
+    /**
+     * Compiles a SQL LIKE pattern, in which % matches any run of characters, _
+     * matches one character and a backslash escapes the next character, into a
+     * regular expression ignoring case, as the database's collation does.
+     *
+     * @param like the LIKE pattern
+     * @return the regular expression, or null if the pattern is null and matches nothing
+     */
+    static Pattern toPattern(String like)
+    {
+        if (like == null)
+        {
+            return null;
+        }
+
+        StringBuilder regex = new StringBuilder(like.length() + 8);
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < like.length(); i++)
+        {
+            char character = like.charAt(i);
+            if (character == '\\' && i + 1 < like.length())
+            {
+                literal.append(like.charAt(++i));
+                continue;
+            }
+            if (character != '%' && character != '_')
+            {
+                literal.append(character);
+                continue;
+            }
+
+            if (literal.length() > 0)
+            {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            regex.append(character == '%' ? ".*" : ".");
+        }
+        if (literal.length() > 0)
+        {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+    /**
+     * Checks whether a value matches a pattern made by {@link #toPattern(String)}.
+     *
+     * @return true if neither is null and the whole value matches
+     */
+    static boolean matches(Pattern pattern, String value)
+    {
+        return pattern != null && value != null && pattern.matcher(value).matches();
+    }
+
+    // Utilities
+
+    private void recover() throws IOException
+    {
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(SNAPSHOT_TEMPORARY_FILE));
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot))
+        {
+            try (FileChannel channel = FileChannel.open(snapshot, READ))
+            {
+                if (WriteAheadLog.read(channel, this::apply) != channel.size())
+                {
+                    throw new IOException("The snapshot " + snapshot + " is damaged.");
+                }
+            }
+        }
+
+        log = new WriteAheadLog(directory.resolve(LOG_FILE), IS_SYNCING_ON_COMMIT);
+        long tornBytes = log.replay(this::apply);
+        if (tornBytes > 0)
+        {
+            System.err.println("Write-ahead log error detected.\nDetails:\nDiscarded " + tornBytes
+                    + " bytes of an incomplete commit at the end of " + log + ".");
+        }
+
+        for (String id : bookTable.ids())
+        {
+            advanceCounter(bookTable, id);
+        }
+        for (String id : borrowingRecordTable.ids())
+        {
+            advanceCounter(borrowingRecordTable, id);
+        }
+        for (String id : userTable.ids())
+        {
+            advanceCounter(userTable, id);
+        }
+    }
+
+    private void apply(DataInputStream payload) throws IOException
+    {
+        while (payload.available() > 0)
+        {
+            byte code = payload.readByte();
+            byte operation = payload.readByte();
+            switch (code)
+            {
+                case BOOKS_CODE:
+                    apply(bookTable, operation, payload);
+                    break;
+                case BORROWING_RECORDS_CODE:
+                    apply(borrowingRecordTable, operation, payload);
+                    break;
+                case USERS_CODE:
+                    apply(userTable, operation, payload);
+                    break;
+                default:
+                    throw new IOException("Unknown table " + code + " in the write-ahead log.");
+            }
+        }
+    }
+
+    private static <T> void apply(MemoryTable<T> table, byte operation, DataInputStream payload) throws IOException
+    {
+        if (operation == PUT)
+        {
+            T row = table.getCodec().read(payload);
+            table.restore(table.getCodec().idOf(row), row);
+        }
+        else if (operation == DELETE)
+        {
+            table.restore(payload.readUTF(), null);
+        }
+        else
+        {
+            throw new IOException("Unknown operation " + operation + " in the write-ahead log.");
+        }
+    }
+
+    private void commit(Transaction transaction) throws SQLException
+    {
+        if (transaction.entries.size() == 0)
+        {
+            return;
+        }
+
+        try
+        {
+            log.append(transaction.entries.toByteArray());
+        }
+        catch (IOException ex)
+        {
+            throw new SQLException("Could not write the write-ahead log " + log + ".", ex);
+        }
+
+        try
+        {
+            if (log.size() > CHECKPOINT_BYTES)
+            {
+                checkpoint();
+            }
+        }
+        catch (IOException ex)
+        {
+            System.err.println("Write-ahead log error detected.\nDetails:\nCould not write a snapshot: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Writes every table to a new snapshot and empties the log. The snapshot
+     * replaces the old one with an atomic move once it is on the disk, so a crash
+     * leaves either snapshot intact, and replaying a log whose changes are already
+     * in the snapshot changes nothing.
+     */
+    private void checkpoint() throws IOException
+    {
+        Path temporary = directory.resolve(SNAPSHOT_TEMPORARY_FILE);
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING))
+        {
+            writeSnapshot(channel, bookTable);
+            writeSnapshot(channel, userTable);
+            writeSnapshot(channel, borrowingRecordTable);
+            channel.force(true);
+        }
+
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.truncate();
+    }
+
+    private static <T> void writeSnapshot(FileChannel channel, MemoryTable<T> table) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        int rows = 0;
+        for (String id : table.ids())
+        {
+            T row = table.peek(id);
+            if (row == null)
+            {
+                continue;
+            }
+
+            out.writeByte(table.getCode());
+            out.writeByte(PUT);
+            table.getCodec().write(out, row);
+
+            if (++rows == SNAPSHOT_RECORD_ROWS)
+            {
+                WriteAheadLog.write(channel, bytes.toByteArray());
+                bytes.reset();
+                rows = 0;
+            }
+        }
+
+        if (rows > 0)
+        {
+            WriteAheadLog.write(channel, bytes.toByteArray());
+        }
+    }
+
+    private void advanceCounter(MemoryTable<?> table, String id)
+    {
+        IdAllocator.Sequence sequence = sequenceOf(table);
+        if (!id.startsWith(sequence.getPrefix()))
+        {
+            return;
+        }
+
+        try
+        {
+            long number = Long.parseLong(id.substring(sequence.getPrefix().length()));
+            counters.get(sequence).accumulateAndGet(number + 1, Math::max);
+        }
+        catch (NumberFormatException ignored)
+        {
+            // Identifiers not created by the engine cannot collide with its numbers.
+        }
+    }
+
+    private IdAllocator.Sequence sequenceOf(MemoryTable<?> table)
+    {
+        if (table == bookTable)
+        {
+            return IdAllocator.Sequence.BOOK;
+        }
+
+        return table == userTable ? IdAllocator.Sequence.USER : IdAllocator.Sequence.BORROWING_RECORD;
+    }
+
+    // Overrides
+
+    @Override
+    public BookRepository books()
+    {
+        return books;
+    }
+
+    @Override
+    public BorrowingRecordRepository borrowingRecords()
+    {
+        return borrowingRecords;
+    }
+
+    @Override
+    public UserRepository users()
+    {
+        return users;
+    }
+
+    @Override
+    public <T> T inTransaction(Work<T> work) throws SQLException
+    {
+        if (transactions.get() != null)
+        {
+            return work.execute();
+        }
+
+        writeLock.lock();
+        Transaction transaction = new Transaction();
+        transactions.set(transaction);
+        try
+        {
+            T result = work.execute();
+            commit(transaction);
+            return result;
+        }
+        catch (SQLException | RuntimeException | Error ex)
+        {
+            transaction.rollback();
+            throw ex;
+        }
+        finally
+        {
+            transactions.remove();
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public String nextId(IdAllocator.Sequence sequence)
+    {
+        return String.format("%s%04d", sequence.getPrefix(), counters.get(sequence).getAndIncrement());
+    }
+
+    @Override
+    public int getMaxConcurrency()
+    {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    // Nested Classes
+
+    /**
+     * Writes one row, for importing.
+     */
+    @FunctionalInterface
+    interface RowWriter<T>
+    {
+
+        void write(T row) throws SQLException;
+
+    }
+
+    @FunctionalInterface
+    private interface EntryWriter
+    {
+
+        void write(DataOutputStream out) throws IOException;
+
+    }
+
+    /**
+     * The changes of a transaction in progress: how to undo them, newest last, and
+     * the entries to append to the log when it commits.
+     */
+    private static final class Transaction
+    {
+
+        private Transaction()
+        {
+            undo = new ArrayList<>();
+            entries = new ByteArrayOutputStream(256);
+            out = new DataOutputStream(entries);
+        }
+
+        private final List<Runnable> undo;
+        private final ByteArrayOutputStream entries;
+        private final DataOutputStream out;
+
+        private void log(MemoryTable<?> table, byte operation, EntryWriter entry)
+        {
+            try
+            {
+                out.writeByte(table.getCode());
+                out.writeByte(operation);
+                entry.write(out);
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void rollback()
+        {
+            for (int i = undo.size() - 1; i >= 0; i--)
+            {
+                undo.get(i).run();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,319 @@
+package repositories;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The MemoryTable class is one table of the in-memory storage engine. Rows are
+ * found by ID through a hash map and listed in ID order through a skip list, and
+ * the columns that are looked up by value get hash indexes of their own.
+ * <p>
+ * The table keeps private copies of its rows: callers get copies, so changing an
+ * entity does not change the table behind the write-ahead log's back. Reads need
+ * no lock. Writes are made by one thread at a time, which MemoryStorage ensures.
+ *
+ * @param <T> the type of the rows
+ */
+final class MemoryTable<T>
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new, empty MemoryTable.
+     *
+     * @param name the name of the table, used in error messages
+     * @param code the code identifying the table in the write-ahead log
+     * @param codec the codec of the rows
+     */
+    MemoryTable(String name, byte code, RowCodec<T> codec)
+    {
+        this.name = name;
+        this.code = code;
+        this.codec = codec;
+        this.rows = new ConcurrentHashMap<>();
+        this.ids = new ConcurrentSkipListSet<>();
+        this.indexes = new ArrayList<>();
+        this.sortedIndexes = new ArrayList<>();
+    }
+
+    // Properties
+
+    private final String name;
+    private final byte code;
+    private final RowCodec<T> codec;
+    private final ConcurrentMap<String, T> rows;
+    private final ConcurrentSkipListSet<String> ids;
+    private final List<HashIndex<T>> indexes;
+    private final List<NavigableSet<T>> sortedIndexes;
+
+    // Getters
+
+    String getName()
+    {
+        return name;
+    }
+
+    byte getCode()
+    {
+        return code;
+    }
+
+    RowCodec<T> getCodec()
+    {
+        return codec;
+    }
+
+    // Methods
+
+    /**
+     * Adds a hash index on a column. Indexes must be added before rows are.
+     *
+     * @param column the name of the column, used in error messages
+     * @param key the function reading the column's value from a row
+     * @param isUnique true if no two rows may have the same value
+     * @param isIgnoringCase true if values differing only in case are the same value
+     * @return the index
+     */
+    HashIndex<T> addIndex(String column, Function<T, String> key, boolean isUnique, boolean isIgnoringCase)
+    {
+        HashIndex<T> index = new HashIndex<>(name + "." + column, key, isUnique, isIgnoringCase);
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Adds an index keeping the rows in an order. Ties are broken by ID, so every
+     * row has a unique position. Indexes must be added before rows are.
+     *
+     * @param order the order of the rows
+     * @return the rows in order, which must not be changed by the caller
+     */
+    NavigableSet<T> addSortedIndex(Comparator<T> order)
+    {
+        NavigableSet<T> index = new ConcurrentSkipListSet<>(order.thenComparing(codec::idOf));
+        sortedIndexes.add(index);
+        return index;
+    }
+
+    /**
+     * Gets a copy of a row.
+     *
+     * @param id the ID of the row
+     * @return the copy, or null if there is no such row
+     */
+    T get(String id)
+    {
+        T row = id == null ? null : rows.get(id);
+        return row == null ? null : codec.copy(row);
+    }
+
+    /**
+     * Gets the table's own instance of a row, which must not be changed.
+     *
+     * @param id the ID of the row
+     * @return the row, or null if there is no such row
+     */
+    T peek(String id)
+    {
+        return id == null ? null : rows.get(id);
+    }
+
+    boolean contains(String id)
+    {
+        return id != null && rows.containsKey(id);
+    }
+
+    /**
+     * Lists the IDs of the rows in order.
+     *
+     * @return the IDs, which must not be changed by the caller
+     */
+    NavigableSet<String> ids()
+    {
+        return ids;
+    }
+
+    /**
+     * Streams copies of the rows in ID order. Rows written while the stream is
+     * consumed may or may not be included.
+     *
+     * @return the stream of copies
+     */
+    Stream<T> stream()
+    {
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .map(codec::copy);
+    }
+
+    /**
+     * Adds or replaces a row after checking the primary key and the unique indexes.
+     * The row is stored as given, so pass a copy.
+     *
+     * @param row the row
+     * @param isInsert true if there must not be a row with the same ID yet
+     * @return the row replaced, or null if there was none
+     * @throws SQLException if the row violates the primary key or a unique index
+     */
+    T put(T row, boolean isInsert) throws SQLException
+    {
+        String id = codec.idOf(row);
+        if (id == null)
+        {
+            throw new SQLIntegrityConstraintViolationException("Column 'id' of " + name + " cannot be null", "23000");
+        }
+
+        if (isInsert && rows.containsKey(id))
+        {
+            throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + id + "' for key '" + name + ".PRIMARY'",
+                    "23000");
+        }
+
+        for (HashIndex<T> index : indexes)
+        {
+            index.check(row, id);
+        }
+
+        return restore(id, row);
+    }
+
+    /**
+     * Sets or removes a row without checking any constraint, for undoing a change
+     * and replaying the write-ahead log.
+     *
+     * @param id the ID of the row
+     * @param row the row, or null to remove it
+     * @return the row replaced, or null if there was none
+     */
+    T restore(String id, T row)
+    {
+        T previous = row == null ? rows.remove(id) : rows.put(id, row);
+
+        if (previous != null)
+        {
+            for (HashIndex<T> index : indexes)
+            {
+                index.remove(previous, id);
+            }
+            for (NavigableSet<T> index : sortedIndexes)
+            {
+                index.remove(previous);
+            }
+        }
+
+        if (row == null)
+        {
+            ids.remove(id);
+            return previous;
+        }
+
+        for (HashIndex<T> index : indexes)
+        {
+            index.add(row, id);
+        }
+        for (NavigableSet<T> index : sortedIndexes)
+        {
+            index.add(row);
+        }
+        ids.add(id);
+
+        return previous;
+    }
+
+    // Nested Classes
+
+    /**
+     * A hash index from the values of one column to the IDs of the rows holding them.
+     * Null values are not indexed.
+     */
+    static final class HashIndex<T>
+    {
+
+        private HashIndex(String name, Function<T, String> key, boolean isUnique, boolean isIgnoringCase)
+        {
+            this.name = name;
+            this.key = key;
+            this.isUnique = isUnique;
+            this.isIgnoringCase = isIgnoringCase;
+            this.ids = new ConcurrentHashMap<>();
+        }
+
+        private final String name;
+        private final Function<T, String> key;
+        private final boolean isUnique;
+        private final boolean isIgnoringCase;
+        private final ConcurrentMap<String, Set<String>> ids;
+
+        /**
+         * Finds the IDs of the rows holding a value.
+         *
+         * @param value the value
+         * @return the IDs, which are empty if no row holds the value
+         */
+        Set<String> find(String value)
+        {
+            Set<String> found = value == null ? null : ids.get(normalize(value));
+            return found == null ? Collections.emptySet() : Collections.unmodifiableSet(found);
+        }
+
+        private void check(T row, String id) throws SQLException
+        {
+            if (!isUnique)
+            {
+                return;
+            }
+
+            String value = key.apply(row);
+            Set<String> found = find(value);
+            if (!found.isEmpty() && !(found.size() == 1 && found.contains(id)))
+            {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + value + "' for key '" + name + "'",
+                        "23000");
+            }
+        }
+
+        private void add(T row, String id)
+        {
+            String value = key.apply(row);
+            if (value != null)
+            {
+                ids.computeIfAbsent(normalize(value), k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        private void remove(T row, String id)
+        {
+            String value = key.apply(row);
+            if (value != null)
+            {
+                ids.computeIfPresent(normalize(value), (k, found) ->
+                {
+                    found.remove(id);
+                    return found.isEmpty() ? null : found;
+                });
+            }
+        }
+
+        private String normalize(String value)
+        {
+            return isIgnoringCase ? value.toLowerCase(Locale.ROOT) : value;
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package repositories;
+
+import models.User;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The MemoryUserRepository class keeps the users table of the in-memory storage
+ * engine, with a unique hash index on email addresses that, like the database's
+ * collation, ignores case.
+ */
+final class MemoryUserRepository implements UserRepository
+{
+
+    // Constructor
+
+    MemoryUserRepository(MemoryStorage storage, MemoryTable<User> users)
+    {
+        this.storage = storage;
+        this.users = users;
+        this.byEmailAddress = users.addIndex("email_address", User::getEmailAddress, true, true);
+    }
+
+    // Properties
+
+    private final MemoryStorage storage;
+    private final MemoryTable<User> users;
+    private final MemoryTable.HashIndex<User> byEmailAddress;
+
+    // Methods
+
+    boolean exists(String id)
+    {
+        return users.contains(id);
+    }
+
+    // Overrides
+
+    @Override
+    public ArrayList<User> findAll()
+    {
+        return users.stream().collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public Stream<User> streamAll()
+    {
+        return users.stream();
+    }
+
+    @Override
+    public User findById(String id)
+    {
+        return users.get(id);
+    }
+
+    @Override
+    public User findByEmailAddress(String emailAddress)
+    {
+        Set<String> ids = byEmailAddress.find(emailAddress);
+        return ids.isEmpty() ? null : users.get(ids.iterator().next());
+    }
+
+    @Override
+    public User findLatest()
+    {
+        String id = users.ids().isEmpty() ? null : users.ids().last();
+        return users.get(id);
+    }
+
+    @Override
+    public boolean insert(User user) throws SQLException
+    {
+        storage.put(users, user, true);
+        return true;
+    }
+
+}
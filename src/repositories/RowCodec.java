@@ -0,0 +1,51 @@
+package repositories;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The RowCodec interface copies and serializes the entities of one table for the
+ * in-memory storage engine, which keeps private copies of its rows and writes them
+ * to its write-ahead log.
+ *
+ * @param <T> the type of the entities
+ */
+interface RowCodec<T>
+{
+
+    /**
+     * Gets the primary key of an entity.
+     *
+     * @param row the entity
+     * @return the ID
+     */
+    String idOf(T row);
+
+    /**
+     * Copies an entity, normalizing its values the way the database would store them.
+     *
+     * @param row the entity
+     * @return the copy
+     */
+    T copy(T row);
+
+    /**
+     * Writes an entity.
+     *
+     * @param out the output to write to
+     * @param row the entity
+     * @throws IOException if the entity cannot be written
+     */
+    void write(DataOutput out, T row) throws IOException;
+
+    /**
+     * Reads an entity written by {@link #write(DataOutput, Object)}.
+     *
+     * @param in the input to read from
+     * @return the entity
+     * @throws IOException if the entity cannot be read
+     */
+    T read(DataInput in) throws IOException;
+
+}
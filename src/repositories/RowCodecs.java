@@ -0,0 +1,254 @@
+package repositories;
+
+import factories.FactoryRegistry;
+import models.Book;
+import models.BorrowingRecord;
+import models.User;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * The RowCodecs class holds the codecs of the three tables. Entities are rebuilt
+ * through the factories, as the row mappers do, and dates are kept to the day as
+ * java.sql.Date values, as the DATE columns of the schema keep them.
+ */
+final class RowCodecs
+{
+
+    // Constructor
+
+    private RowCodecs()
+    {
+    }
+
+    // Fields
+
+    static final RowCodec<Book> BOOKS = new BookCodec();
+    static final RowCodec<BorrowingRecord> BORROWING_RECORDS = new BorrowingRecordCodec();
+    static final RowCodec<User> USERS = new UserCodec();
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    // Methods
+
+    /**
+     * Truncates a date to the day in the default time zone, as JDBC does when it
+     * writes a DATE column.
+     *
+     * @param date the date, which may be null
+     * @return the day, or null if the date is null
+     */
+    static java.sql.Date toDay(Date date)
+    {
+        if (date == null)
+        {
+            return null;
+        }
+
+        return java.sql.Date.valueOf(new java.sql.Date(date.getTime()).toLocalDate());
+    }
+
+    // Utilities
+
+    private static void writeString(DataOutput out, String value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutput out, Date date) throws IOException
+    {
+        out.writeLong(date == null ? NO_DATE : toDay(date).toLocalDate().toEpochDay());
+    }
+
+    private static java.sql.Date readDate(DataInput in) throws IOException
+    {
+        long epochDay = in.readLong();
+        return epochDay == NO_DATE ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+    // Nested Classes
+
+    private static final class BookCodec implements RowCodec<Book>
+    {
+
+        @Override
+        public String idOf(Book book)
+        {
+            return book.getId();
+        }
+
+        @Override
+        public Book copy(Book book)
+        {
+            return FactoryRegistry.getBookFactory(book.getGenre()).createBook(
+                    book.getId(),
+                    book.getTitle(),
+                    book.getGenre(),
+                    book.getDescription(),
+                    book.getAuthor(),
+                    book.getPublisher(),
+                    book.getPublicationYear(),
+                    book.getIsbn(),
+                    book.getStatus());
+        }
+
+        @Override
+        public void write(DataOutput out, Book book) throws IOException
+        {
+            writeString(out, book.getId());
+            writeString(out, book.getTitle());
+            writeString(out, book.getGenre());
+            writeString(out, book.getDescription());
+            writeString(out, book.getAuthor());
+            writeString(out, book.getPublisher());
+            out.writeInt(book.getPublicationYear());
+            writeString(out, book.getIsbn());
+            writeString(out, book.getStatus());
+        }
+
+        @Override
+        public Book read(DataInput in) throws IOException
+        {
+            String id = readString(in);
+            String title = readString(in);
+            String genre = readString(in);
+            String description = readString(in);
+            String author = readString(in);
+            String publisher = readString(in);
+            int publicationYear = in.readInt();
+            String isbn = readString(in);
+            String status = readString(in);
+
+            return FactoryRegistry.getBookFactory(genre)
+                    .createBook(id, title, genre, description, author, publisher, publicationYear, isbn, status);
+        }
+
+    }
+
+    private static final class BorrowingRecordCodec implements RowCodec<BorrowingRecord>
+    {
+
+        @Override
+        public String idOf(BorrowingRecord borrowingRecord)
+        {
+            return borrowingRecord.getId();
+        }
+
+        @Override
+        public BorrowingRecord copy(BorrowingRecord borrowingRecord)
+        {
+            return FactoryRegistry.getBorrowingRecordFactory().createBorrowingRecord(
+                    borrowingRecord.getId(),
+                    borrowingRecord.getBookId(),
+                    borrowingRecord.getPatronId(),
+                    borrowingRecord.getLibrarianId(),
+                    borrowingRecord.getRecordStatus(),
+                    toDay(borrowingRecord.getBorrowingDate()),
+                    toDay(borrowingRecord.getDueDate()),
+                    borrowingRecord.getRequestState(),
+                    toDay(borrowingRecord.getReturnDate()));
+        }
+
+        @Override
+        public void write(DataOutput out, BorrowingRecord borrowingRecord) throws IOException
+        {
+            writeString(out, borrowingRecord.getId());
+            writeString(out, borrowingRecord.getBookId());
+            writeString(out, borrowingRecord.getPatronId());
+            writeString(out, borrowingRecord.getLibrarianId());
+            writeString(out, borrowingRecord.getRecordStatus());
+            writeDate(out, borrowingRecord.getBorrowingDate());
+            writeDate(out, borrowingRecord.getDueDate());
+            out.writeInt(borrowingRecord.getRequestState());
+            writeDate(out, borrowingRecord.getReturnDate());
+        }
+
+        @Override
+        public BorrowingRecord read(DataInput in) throws IOException
+        {
+            String id = readString(in);
+            String bookId = readString(in);
+            String patronId = readString(in);
+            String librarianId = readString(in);
+            String recordStatus = readString(in);
+            Date borrowingDate = readDate(in);
+            Date dueDate = readDate(in);
+            int requestState = in.readInt();
+            Date returnDate = readDate(in);
+
+            return FactoryRegistry.getBorrowingRecordFactory().createBorrowingRecord(id, bookId, patronId,
+                    librarianId, recordStatus, borrowingDate, dueDate, requestState, returnDate);
+        }
+
+    }
+
+    private static final class UserCodec implements RowCodec<User>
+    {
+
+        @Override
+        public String idOf(User user)
+        {
+            return user.getId();
+        }
+
+        @Override
+        public User copy(User user)
+        {
+            return FactoryRegistry.getUserFactory(user.getAccessLevel()).createUser(
+                    user.getId(),
+                    user.getUsername(),
+                    user.getEmailAddress(),
+                    user.getPassword());
+        }
+
+        @Override
+        public void write(DataOutput out, User user) throws IOException
+        {
+            writeString(out, user.getId());
+            out.writeInt(user.getAccessLevel());
+            writeString(out, user.getUsername());
+            writeString(out, user.getEmailAddress());
+            writeString(out, user.getPassword());
+        }
+
+        @Override
+        public User read(DataInput in) throws IOException
+        {
+            String id = readString(in);
+            int accessLevel = in.readInt();
+            String username = readString(in);
+            String emailAddress = readString(in);
+            String password = readString(in);
+
+            return FactoryRegistry.getUserFactory(accessLevel).createUser(id, username, emailAddress, password);
+        }
+
+    }
+
+}
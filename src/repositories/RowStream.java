@@ -0,0 +1,130 @@
+package repositories;
+
+import mapping.RowMapper;
+import mapping.RowReader;
+import singleton.Database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The RowStream class turns a streaming query into a Stream that reads one row
+ * at a time as it is consumed, so that listings and exports over millions of rows
+ * run in constant memory. Closing the stream closes the statement and returns its
+ * connection to the pool, so streams must be closed, preferably with
+ * try-with-resources.
+ */
+final class RowStream
+{
+
+    // Constructor
+
+    private RowStream()
+    {
+    }
+
+    // Methods
+
+    /**
+     * Runs a query and streams its rows.
+     *
+     * @param database the database to query
+     * @param mapper the mapper reading an entity from each row
+     * @param query the SQL query to run
+     * @param values the values to bind, in parameter order
+     * @param <T> the type of the streamed entities
+     * @return the stream of entities, which is empty if the query failed
+     */
+    static <T> Stream<T> open(Database database, RowMapper<T> mapper, String query, Object... values)
+    {
+        PreparedStatement statement = null;
+        try
+        {
+            statement = database.prepareStreamingStatement(query, values);
+            ResultSet results = statement.executeQuery();
+            RowReader<T> reader = mapper.bind(results.getMetaData());
+
+            PreparedStatement openStatement = statement;
+            RowSpliterator<T> rows = new RowSpliterator<>(results, reader);
+            return StreamSupport.stream(rows, false)
+                    .onClose(() ->
+                    {
+                        database.recordRows(openStatement, rows.rowCount);
+                        close(openStatement);
+                    });
+        }
+        catch (SQLException ex)
+        {
+            System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+
+            close(statement);
+            return Stream.empty();
+        }
+    }
+
+    // Utilities
+
+    private static void close(PreparedStatement statement)
+    {
+        if (statement == null)
+        {
+            return;
+        }
+
+        try
+        {
+            statement.close();
+        }
+        catch (SQLException ex)
+        {
+            System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+        }
+    }
+
+    // Nested Classes
+
+    private static final class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T>
+    {
+
+        private RowSpliterator(ResultSet resultSet, RowReader<T> reader)
+        {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+
+            this.resultSet = resultSet;
+            this.reader = reader;
+        }
+
+        private final ResultSet resultSet;
+        private final RowReader<T> reader;
+        private long rowCount;
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            try
+            {
+                if (!resultSet.next())
+                {
+                    return false;
+                }
+
+                rowCount++;
+                action.accept(reader.read(resultSet));
+                return true;
+            }
+            catch (SQLException ex)
+            {
+                System.out.println("Query error detected.\nDetails:\n" + ex.getMessage());
+                return false;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package repositories;
+
+import singleton.IdAllocator;
+
+import java.sql.SQLException;
+
+/**
+ * The Storage interface is a storage engine: the repositories of the three tables,
+ * the transactions spanning them and the identifiers of new rows. The controllers
+ * only talk to a Storage, so the engine can be chosen at startup with the
+ * histopedia.storage system property: {@code jdbc}, the default, keeps the data in
+ * the MySQL database, and {@code memory} keeps it on the heap, made durable by a
+ * write-ahead log in the directory named by histopedia.storage.dir.
+ */
+public interface Storage
+{
+
+    /**
+     * Gets the repository of the books table.
+     *
+     * @return the book repository
+     */
+    BookRepository books();
+
+    /**
+     * Gets the repository of the borrowing_records table.
+     *
+     * @return the borrowing record repository
+     */
+    BorrowingRecordRepository borrowingRecords();
+
+    /**
+     * Gets the repository of the users table.
+     *
+     * @return the user repository
+     */
+    UserRepository users();
+
+    /**
+     * Runs work in a transaction, which commits when the work returns and rolls
+     * back when it throws. Called inside another transaction, the work joins it.
+     *
+     * @param work the work to run
+     * @param <T> the type of the work's result
+     * @return the result of the work
+     * @throws SQLException if the work fails or the transaction cannot be committed
+     */
+    <T> T inTransaction(Work<T> work) throws SQLException;
+
+    /**
+     * Returns the next unused identifier of a sequence. Do not ask for one while
+     * holding a transaction open.
+     *
+     * @param sequence the sequence to draw from
+     * @return the identifier, such as BID0042
+     * @throws SQLException if no identifier can be allocated
+     */
+    String nextId(IdAllocator.Sequence sequence) throws SQLException;
+
+    /**
+     * Gets the number of calls the engine serves well at once, which bounds the
+     * asynchronous controllers.
+     *
+     * @return the number of concurrent calls
+     */
+    int getMaxConcurrency();
+
+    /**
+     * Returns the engine chosen by the histopedia.storage system property, opening
+     * it on first use.
+     *
+     * @return the shared storage engine
+     */
+    static Storage getInstance()
+    {
+        return StorageProvider.get();
+    }
+
+    // Nested Classes
+
+    /**
+     * A unit of work run by inTransaction, whatever the engine.
+     *
+     * @param <T> the type of the work's result
+     */
+    @FunctionalInterface
+    interface Work<T>
+    {
+
+        /**
+         * Runs the work.
+         *
+         * @return the result of the work
+         * @throws SQLException if a statement fails
+         */
+        T execute() throws SQLException;
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package repositories;
+
+import java.nio.file.Paths;
+
+/**
+ * The StorageProvider class holds the storage engine shared by the controllers,
+ * opening the one named by the histopedia.storage system property on first use.
+ */
+final class StorageProvider
+{
+
+    // Constructor
+
+    private StorageProvider()
+    {
+    }
+
+    // Fields
+
+    /**
+     * The single storage engine.
+     */
+    private static volatile Storage instance;
+
+    // Methods
+
+    static Storage get()
+    {
+        if (instance == null)
+        {
+            synchronized (StorageProvider.class)
+            {
+                if (instance == null)
+                {
+                    instance = open(System.getProperty("histopedia.storage", "jdbc"));
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    // Utilities
+
+    private static Storage open(String engine)
+    {
+        switch (engine)
+        {
+            case "jdbc":
+                return new JdbcStorage();
+            case "memory":
+                return MemoryStorage.open(Paths.get(System.getProperty("histopedia.storage.dir", "histopedia-data")));
+            default:
+                throw new IllegalStateException("Unknown storage engine " + engine + ".");
+        }
+    }
+
+}
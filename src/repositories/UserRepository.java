@@ -0,0 +1,66 @@
+package repositories;
+
+import models.User;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/**
+ * The UserRepository interface is the storage of the users table. Email addresses
+ * are unique.
+ */
+public interface UserRepository
+{
+
+    /**
+     * Finds every user.
+     *
+     * @return the users
+     * @throws SQLException if the storage cannot be read
+     */
+    ArrayList<User> findAll() throws SQLException;
+
+    /**
+     * Streams every user in ID order. The stream must be closed.
+     *
+     * @return the stream of users, which is empty if the storage cannot be read
+     */
+    Stream<User> streamAll();
+
+    /**
+     * Finds a user by their ID.
+     *
+     * @param id the ID
+     * @return the user, or null if there is none
+     * @throws SQLException if the storage cannot be read
+     */
+    User findById(String id) throws SQLException;
+
+    /**
+     * Finds a user by their email address.
+     *
+     * @param emailAddress the email address
+     * @return the user, or null if there is none
+     * @throws SQLException if the storage cannot be read
+     */
+    User findByEmailAddress(String emailAddress) throws SQLException;
+
+    /**
+     * Finds the user with the greatest ID.
+     *
+     * @return the user, or null if there are no users
+     * @throws SQLException if the storage cannot be read
+     */
+    User findLatest() throws SQLException;
+
+    /**
+     * Adds a user.
+     *
+     * @param user the user
+     * @return true if the user was added
+     * @throws SQLException if the user cannot be added, for example because their email address is taken
+     */
+    boolean insert(User user) throws SQLException;
+
+}
@@ -0,0 +1,245 @@
+package repositories;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The WriteAheadLog class appends the changes of every committed transaction to a
+ * file before they are acknowledged, so the in-memory storage engine can rebuild
+ * its tables after a restart or a crash.
+ * <p>
+ * Each commit is one record: its length, the CRC-32 of its payload and the payload.
+ * A record is written with a single append and, unless syncing is turned off,
+ * forced to the disk before the commit returns. A crash in the middle of an append
+ * leaves a torn record at the end of the file, which is detected by its length or
+ * checksum when the log is replayed and cut off, so a commit is either replayed in
+ * full or not at all. Snapshots are written in the same format.
+ */
+final class WriteAheadLog implements Closeable
+{
+
+    // Constructor
+
+    /**
+     * Opens a log, creating the file if it does not exist. The log must be replayed
+     * before anything is appended to it.
+     *
+     * @param path the file of the log
+     * @param isSyncing true to force every record to the disk before append returns
+     * @throws IOException if the file cannot be opened
+     */
+    WriteAheadLog(Path path, boolean isSyncing) throws IOException
+    {
+        this.path = path;
+        this.isSyncing = isSyncing;
+        this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+    }
+
+    // Fields
+
+    private static final int HEADER_BYTES = 8;
+
+    // Properties
+
+    private final Path path;
+    private final boolean isSyncing;
+    private final FileChannel channel;
+
+    // Getters
+
+    /**
+     * Gets the size of the log.
+     *
+     * @return the size in bytes
+     * @throws IOException if the size cannot be read
+     */
+    long size() throws IOException
+    {
+        return channel.size();
+    }
+
+    // Methods
+
+    /**
+     * Replays every complete record of the log, cuts off a torn record at its end
+     * and positions the log for appending.
+     *
+     * @param handler the handler applying the payload of each record
+     * @return the number of bytes cut off
+     * @throws IOException if the log cannot be read, or the handler fails
+     */
+    long replay(RecordHandler handler) throws IOException
+    {
+        long validBytes = read(channel, handler);
+        long tornBytes = channel.size() - validBytes;
+        if (tornBytes > 0)
+        {
+            channel.truncate(validBytes);
+            channel.force(true);
+        }
+
+        channel.position(validBytes);
+        return tornBytes;
+    }
+
+    /**
+     * Appends one record. If the record cannot be written in full, the log is cut
+     * back to where it was, so a failed commit leaves nothing behind.
+     *
+     * @param payload the payload
+     * @throws IOException if the record cannot be written
+     */
+    void append(byte[] payload) throws IOException
+    {
+        long position = channel.position();
+        try
+        {
+            write(channel, payload);
+            if (isSyncing)
+            {
+                channel.force(false);
+            }
+        }
+        catch (IOException ex)
+        {
+            try
+            {
+                channel.truncate(position);
+                channel.position(position);
+            }
+            catch (IOException suppressed)
+            {
+                ex.addSuppressed(suppressed);
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Empties the log, once everything in it has been written to a snapshot.
+     *
+     * @throws IOException if the log cannot be emptied
+     */
+    void truncate() throws IOException
+    {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    /**
+     * Writes one record at the current position of a channel.
+     *
+     * @param channel the channel
+     * @param payload the payload
+     * @throws IOException if the record cannot be written
+     */
+    static void write(FileChannel channel, byte[] payload) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (record.hasRemaining())
+        {
+            channel.write(record);
+        }
+    }
+
+    /**
+     * Reads records from the start of a channel until its end or the first torn record.
+     *
+     * @param channel the channel
+     * @param handler the handler applying the payload of each record
+     * @return the number of bytes taken up by complete records
+     * @throws IOException if the channel cannot be read, or the handler fails
+     */
+    static long read(FileChannel channel, RecordHandler handler) throws IOException
+    {
+        long size = channel.size();
+        channel.position(0);
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        long position = 0;
+        while (position + HEADER_BYTES <= size)
+        {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < 0 || position + HEADER_BYTES + length > size)
+            {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            try
+            {
+                in.readFully(payload);
+            }
+            catch (EOFException ex)
+            {
+                break;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum)
+            {
+                break;
+            }
+
+            handler.apply(new DataInputStream(new ByteArrayInputStream(payload)));
+            position += HEADER_BYTES + length;
+        }
+
+        return position;
+    }
+
+    // Overrides
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return path.toString();
+    }
+
+    // Nested Classes
+
+    /**
+     * Applies the payload of one record.
+     */
+    @FunctionalInterface
+    interface RecordHandler
+    {
+
+        /**
+         * Applies a payload.
+         *
+         * @param payload the payload, read to its end by the handler
+         * @throws IOException if the payload cannot be read
+         */
+        void apply(DataInputStream payload) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,433 @@
+package search;
+
+import models.BookSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The BookIndex class is an in-memory inverted index over the catalog. Every
+ * indexed field is split into lowercase words, and each word maps to the sorted
+ * list of documents containing it, so a query only touches the postings of its
+ * own words instead of scanning every book.
+ * <p>
+ * Documents are numbered in the order they are added. Removing or replacing a
+ * book leaves a tombstone behind, and the index compacts itself once tombstones
+ * make up half of it.
+ */
+public class BookIndex
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new, empty BookIndex.
+     */
+    public BookIndex()
+    {
+        lock = new ReentrantReadWriteLock();
+        documents = new ArrayList<>();
+        slots = new HashMap<>();
+        postings = new EnumMap<>(Field.class);
+
+        for (Field field : Field.values())
+        {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    // Properties
+
+    private final ReentrantReadWriteLock lock;
+    private final ArrayList<BookSummary> documents;
+    private final HashMap<String, Integer> slots;
+    private final EnumMap<Field, HashMap<String, Postings>> postings;
+    private int tombstones;
+
+    // Getters
+
+    /**
+     * Gets the number of books in the index.
+     *
+     * @return the number of indexed books
+     */
+    public int getSize()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return slots.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Methods
+
+    /**
+     * Replaces the whole content of the index.
+     *
+     * @param books the books to index, consumed one at a time
+     */
+    public void rebuild(Iterator<? extends BookSummary> books)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            clear();
+            while (books.hasNext())
+            {
+                insert(books.next());
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book to the index, replacing the book with the same ID if there is one.
+     *
+     * @param book the book to index
+     */
+    public void put(BookSummary book)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            delete(book.getId());
+            insert(book);
+            compactIfNeeded();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param id the ID of the book to remove
+     */
+    public void remove(String id)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            delete(id);
+            compactIfNeeded();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books whose field contains every word of the query, in the order
+     * they were added to the index.
+     *
+     * @param field the field to search
+     * @param query the words to look for
+     * @return the matching books
+     */
+    public List<BookSummary> search(Field field, String query)
+    {
+        return search(new Field[] { field }, query);
+    }
+
+    /**
+     * Finds the books that contain every word of the query in any of their indexed fields.
+     *
+     * @param query the words to look for
+     * @return the matching books
+     */
+    public List<BookSummary> search(String query)
+    {
+        return search(Field.values(), query);
+    }
+
+    /**
+     * Splits a text into the lowercase words the index is keyed by.
+     *
+     * @param text the text to split
+     * @return the distinct words, in order of first appearance
+     */
+    public static Set<String> tokenize(String text)
+    {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null)
+        {
+            return tokens;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++)
+        {
+            boolean isWordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordCharacter && start < 0)
+            {
+                start = i;
+            }
+            else if (!isWordCharacter && start >= 0)
+            {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    // Utilities
+
+    private List<BookSummary> search(Field[] fields, String query)
+    {
+        Set<String> tokens = tokenize(query);
+        List<BookSummary> books = new ArrayList<>();
+        if (tokens.isEmpty())
+        {
+            return books;
+        }
+
+        lock.readLock().lock();
+        try
+        {
+            List<Postings> lists = new ArrayList<>(tokens.size());
+            for (String token : tokens)
+            {
+                Postings list = lookUp(fields, token);
+                if (list.size == 0)
+                {
+                    return books;
+                }
+
+                lists.add(list);
+            }
+
+            lists.sort((left, right) -> Integer.compare(left.size, right.size));
+
+            Postings matches = lists.get(0);
+            for (int i = 1; i < lists.size() && matches.size > 0; i++)
+            {
+                matches = intersect(matches, lists.get(i));
+            }
+
+            for (int i = 0; i < matches.size; i++)
+            {
+                BookSummary book = documents.get(matches.slots[i]);
+                if (book != null)
+                {
+                    books.add(book);
+                }
+            }
+
+            return books;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Postings lookUp(Field[] fields, String token)
+    {
+        Postings union = Postings.EMPTY;
+        for (Field field : fields)
+        {
+            Postings list = postings.get(field).get(token);
+            if (list != null)
+            {
+                union = union.size == 0 ? list : unite(union, list);
+            }
+        }
+
+        return union;
+    }
+
+    private void insert(BookSummary book)
+    {
+        int slot = documents.size();
+        documents.add(book);
+        slots.put(book.getId(), slot);
+
+        for (Field field : Field.values())
+        {
+            HashMap<String, Postings> fieldPostings = postings.get(field);
+            for (String token : tokenize(field.valueOf(book)))
+            {
+                fieldPostings.computeIfAbsent(token, key -> new Postings(4)).add(slot);
+            }
+        }
+    }
+
+    private void delete(String id)
+    {
+        Integer slot = slots.remove(id);
+        if (slot != null)
+        {
+            documents.set(slot, null);
+            tombstones++;
+        }
+    }
+
+    private void compactIfNeeded()
+    {
+        if (tombstones > 64 && tombstones * 2 > documents.size())
+        {
+            List<BookSummary> live = new ArrayList<>(slots.size());
+            for (BookSummary book : documents)
+            {
+                if (book != null)
+                {
+                    live.add(book);
+                }
+            }
+
+            clear();
+            for (BookSummary book : live)
+            {
+                insert(book);
+            }
+        }
+    }
+
+    private void clear()
+    {
+        documents.clear();
+        slots.clear();
+        tombstones = 0;
+
+        for (HashMap<String, Postings> fieldPostings : postings.values())
+        {
+            fieldPostings.clear();
+        }
+    }
+
+    private static Postings intersect(Postings left, Postings right)
+    {
+        Postings result = new Postings(Math.min(left.size, right.size));
+
+        for (int i = 0, j = 0; i < left.size && j < right.size; )
+        {
+            if (left.slots[i] < right.slots[j])
+            {
+                i++;
+            }
+            else if (left.slots[i] > right.slots[j])
+            {
+                j++;
+            }
+            else
+            {
+                result.slots[result.size++] = left.slots[i];
+                i++;
+                j++;
+            }
+        }
+
+        return result;
+    }
+
+    private static Postings unite(Postings left, Postings right)
+    {
+        Postings result = new Postings(left.size + right.size);
+        int i = 0;
+        int j = 0;
+
+        while (i < left.size || j < right.size)
+        {
+            if (j == right.size || (i < left.size && left.slots[i] < right.slots[j]))
+            {
+                result.slots[result.size++] = left.slots[i++];
+            }
+            else if (i == left.size || left.slots[i] > right.slots[j])
+            {
+                result.slots[result.size++] = right.slots[j++];
+            }
+            else
+            {
+                result.slots[result.size++] = left.slots[i];
+                i++;
+                j++;
+            }
+        }
+
+        return result;
+    }
+
+    // Nested Classes
+
+    /**
+     * The fields of a book that are indexed.
+     */
+    public enum Field
+    {
+        TITLE,
+        AUTHOR,
+        PUBLISHER,
+        GENRE;
+
+        private String valueOf(BookSummary book)
+        {
+            switch (this)
+            {
+                case TITLE:
+                    return book.getTitle();
+                case AUTHOR:
+                    return book.getAuthor();
+                case PUBLISHER:
+                    return book.getPublisher();
+                default:
+                    return book.getGenre();
+            }
+        }
+    }
+
+    /**
+     * A growable, sorted list of document numbers. Documents are numbered in the
+     * order they are added, so appending keeps the list sorted.
+     */
+    private static final class Postings
+    {
+
+        private Postings(int capacity)
+        {
+            slots = new int[Math.max(1, capacity)];
+        }
+
+        private static final Postings EMPTY = new Postings(0);
+
+        private int[] slots;
+        private int size;
+
+        private void add(int slot)
+        {
+            if (size > 0 && slots[size - 1] == slot)
+            {
+                return;
+            }
+
+            if (size == slots.length)
+            {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+
+            slots[size++] = slot;
+        }
+
+    }
+
+}
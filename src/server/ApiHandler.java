@@ -0,0 +1,169 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import controllers.AsyncUserController;
+import models.User;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ApiHandler class is the base of the JSON endpoints. It splits the request
+ * path into segments, collects the query string and form body parameters, and
+ * turns uncaught failures into a 500 response, so each endpoint only has to
+ * route the request and write its answer.
+ * <p>
+ * Callers identify themselves with HTTP Basic authentication, using the email
+ * address and password they log in to the menus with.
+ */
+abstract class ApiHandler implements HttpHandler
+{
+
+    // Constructor
+
+    ApiHandler(String contextPath)
+    {
+        this.contextPath = contextPath;
+        userController = new AsyncUserController();
+    }
+
+    // Properties
+
+    private final String contextPath;
+    private final AsyncUserController userController;
+
+    // Methods
+
+    /**
+     * Answers one request.
+     *
+     * @param exchange the request and its response
+     * @param path the path segments after the context path
+     * @param params the query string and form body parameters
+     * @throws IOException if the response cannot be written
+     */
+    abstract void route(HttpExchange exchange, String[] path, Map<String, String> params) throws IOException;
+
+    /**
+     * Gets the user the request is authenticated as.
+     *
+     * @param exchange the request
+     * @return the user, or null if the request carries no valid credentials
+     */
+    User authenticate(HttpExchange exchange)
+    {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Basic "))
+        {
+            return null;
+        }
+
+        String credentials;
+        try
+        {
+            credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()), StandardCharsets.UTF_8);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            return null;
+        }
+
+        int separator = credentials.indexOf(':');
+        if (separator < 0)
+        {
+            return null;
+        }
+
+        return userController.getUserByLoginInfo(credentials.substring(0, separator), credentials.substring(separator + 1)).join();
+    }
+
+    static void sendJson(HttpExchange exchange, int status, JsonWriter json) throws IOException
+    {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(body);
+        }
+    }
+
+    static void sendError(HttpExchange exchange, int status, String message) throws IOException
+    {
+        sendJson(exchange, status, new JsonWriter().beginObject().member("error", message).endObject());
+    }
+
+    static int parseInt(String value, int defaultValue, int min, int max)
+    {
+        try
+        {
+            return value == null ? defaultValue : Math.max(min, Math.min(max, Integer.parseInt(value)));
+        }
+        catch (NumberFormatException ex)
+        {
+            return defaultValue;
+        }
+    }
+
+    // Utilities
+
+    private static void parseParams(String encoded, Map<String, String> params)
+    {
+        if (encoded == null || encoded.isEmpty())
+        {
+            return;
+        }
+
+        for (String pair : encoded.split("&"))
+        {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    // Overrides
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            Map<String, String> params = new HashMap<>();
+            parseParams(exchange.getRequestURI().getRawQuery(), params);
+
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded"))
+            {
+                try (InputStream in = exchange.getRequestBody())
+                {
+                    parseParams(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+                }
+            }
+
+            String rest = exchange.getRequestURI().getPath().substring(contextPath.length());
+            String[] path = rest.isEmpty() || rest.equals("/") ? new String[0] : rest.replaceFirst("^/", "").split("/");
+
+            route(exchange, path, params);
+        }
+        catch (RuntimeException ex)
+        {
+            System.out.println("Request error detected.\nDetails:\n" + ex);
+            sendError(exchange, 500, "Internal server error.");
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+}
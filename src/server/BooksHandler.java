@@ -0,0 +1,179 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import controllers.AsyncBookController;
+import controllers.AsyncBorrowingRecordController;
+import controllers.BorrowResult;
+import controllers.Page;
+import models.Book;
+import models.BookSummary;
+import models.Patron;
+import models.User;
+import search.BookIndex;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The BooksHandler class serves the catalog:
+ * <ul>
+ *     <li>{@code GET /books?q=...&field=title|author|genre} searches the catalog.</li>
+ *     <li>{@code GET /books?after=...&limit=...} lists the catalog one page at a time.</li>
+ *     <li>{@code GET /books/{id}} shows the details of a book.</li>
+ *     <li>{@code POST /books/{id}/borrow} borrows a book for the authenticated patron.</li>
+ * </ul>
+ */
+class BooksHandler extends ApiHandler
+{
+
+    // Constructor
+
+    BooksHandler()
+    {
+        super("/books");
+        bookController = new AsyncBookController();
+        borrowingRecordController = new AsyncBorrowingRecordController();
+    }
+
+    // Fields
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Properties
+
+    private final AsyncBookController bookController;
+    private final AsyncBorrowingRecordController borrowingRecordController;
+
+    // Methods
+
+    @Override
+    void route(HttpExchange exchange, String[] path, Map<String, String> params) throws IOException
+    {
+        String method = exchange.getRequestMethod();
+
+        if (path.length == 0 && method.equals("GET"))
+        {
+            if (params.containsKey("q"))
+            {
+                searchBooks(exchange, params);
+            }
+            else
+            {
+                listBooks(exchange, params);
+            }
+        }
+        else if (path.length == 1 && method.equals("GET"))
+        {
+            showBook(exchange, path[0]);
+        }
+        else if (path.length == 2 && path[1].equals("borrow") && method.equals("POST"))
+        {
+            borrowBook(exchange, path[0]);
+        }
+        else
+        {
+            sendError(exchange, 404, "No such endpoint.");
+        }
+    }
+
+    // Utilities
+
+    private void searchBooks(HttpExchange exchange, Map<String, String> params) throws IOException
+    {
+        BookIndex.Field field;
+        try
+        {
+            field = BookIndex.Field.valueOf(params.getOrDefault("field", "title").toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException ex)
+        {
+            sendError(exchange, 400, "Unknown search field.");
+            return;
+        }
+
+        List<BookSummary> books = bookController.searchBooks(field, params.get("q")).join();
+
+        JsonWriter json = new JsonWriter().beginObject().name("items").beginArray();
+        for (BookSummary book : books)
+        {
+            JsonViews.writeBookSummary(json, book);
+        }
+        json.endArray().endObject();
+
+        sendJson(exchange, 200, json);
+    }
+
+    private void listBooks(HttpExchange exchange, Map<String, String> params) throws IOException
+    {
+        int limit = parseInt(params.get("limit"), 20, 1, MAX_PAGE_SIZE);
+        Page<BookSummary> page = params.containsKey("before")
+                ? bookController.getBooksPageBefore(params.get("before"), limit).join()
+                : bookController.getBooksPage(params.get("after"), limit).join();
+
+        JsonWriter json = new JsonWriter().beginObject().name("items").beginArray();
+        for (BookSummary book : page.getItems())
+        {
+            JsonViews.writeBookSummary(json, book);
+        }
+        json.endArray()
+                .member("hasNext", page.hasNext())
+                .member("hasPrevious", page.hasPrevious())
+                .endObject();
+
+        sendJson(exchange, 200, json);
+    }
+
+    private void showBook(HttpExchange exchange, String id) throws IOException
+    {
+        Book book = bookController.getBookById(id).join();
+        if (book == null)
+        {
+            sendError(exchange, 404, "Book with ID " + id + " not found.");
+            return;
+        }
+
+        JsonWriter json = new JsonWriter();
+        JsonViews.writeBook(json, book);
+
+        sendJson(exchange, 200, json);
+    }
+
+    private void borrowBook(HttpExchange exchange, String id) throws IOException
+    {
+        User user = authenticate(exchange);
+        if (user == null)
+        {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"histopedia\"");
+            sendError(exchange, 401, "Authentication required.");
+            return;
+        }
+
+        if (!(user instanceof Patron))
+        {
+            sendError(exchange, 403, "Only patrons can borrow books.");
+            return;
+        }
+
+        BorrowResult result = borrowingRecordController.borrow(id, user.getId()).join();
+        switch (result.getStatus())
+        {
+            case BORROWED:
+                JsonWriter json = new JsonWriter();
+                JsonViews.writeBorrowingRecord(json, result.getBorrowingRecord());
+                sendJson(exchange, 201, json);
+                break;
+            case NOT_FOUND:
+                sendError(exchange, 404, "Book with ID " + id + " not found.");
+                break;
+            case UNAVAILABLE:
+                sendError(exchange, 409, "Book with ID " + id + " is not available.");
+                break;
+            default:
+                sendError(exchange, 500, "The book could not be borrowed.");
+                break;
+        }
+    }
+
+}
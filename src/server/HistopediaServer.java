@@ -0,0 +1,102 @@
+package server;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The HistopediaServer class exposes the catalog and the borrowing workflow as
+ * JSON endpoints on the JDK's built-in HTTP server. Every request runs on its own
+ * virtual thread, so thousands of clients can wait on the database at once, while
+ * the async controllers keep the number of queries running at the same time within
+ * the size of the connection pool.
+ */
+public class HistopediaServer
+{
+
+    // Static Initializer
+
+    static
+    {
+        // The built-in server writes the headers and the body of a response separately,
+        // so with Nagle's algorithm on, every keep-alive response waits for a delayed ACK.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+        {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // Constructor
+
+    /**
+     * Constructs a new HistopediaServer listening on the given port. The server does
+     * not accept requests until it is started.
+     *
+     * @param port the port to listen on
+     * @throws IOException if the port cannot be bound
+     */
+    public HistopediaServer(int port) throws IOException
+    {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        httpServer = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/books", new BooksHandler());
+        httpServer.createContext("/records", new RecordsHandler());
+        httpServer.createContext("/patrons", new PatronsHandler());
+    }
+
+    // Fields
+
+    /**
+     * The default port of the server.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * The number of connections the operating system queues while all are being accepted.
+     */
+    private static final int BACKLOG = 1024;
+
+    // Properties
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    // Methods
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start()
+    {
+        httpServer.start();
+        System.out.println("Histopedia server listening on port " + getPort() + ".");
+    }
+
+    /**
+     * Stops accepting requests, waiting up to the given number of seconds for the
+     * requests in progress to finish.
+     *
+     * @param delaySeconds the number of seconds to wait for requests in progress
+     */
+    public void stop(int delaySeconds)
+    {
+        httpServer.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort()
+    {
+        return httpServer.getAddress().getPort();
+    }
+
+}
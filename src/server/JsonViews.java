@@ -0,0 +1,65 @@
+package server;
+
+import models.Book;
+import models.BookSummary;
+import models.BorrowingRecord;
+
+import java.util.Objects;
+
+/**
+ * The JsonViews class writes the models exposed by the HTTP service as JSON
+ * objects. Dates are written as ISO dates, such as 2024-05-31.
+ */
+final class JsonViews
+{
+
+    // Constructor
+
+    private JsonViews()
+    {
+    }
+
+    // Methods
+
+    static void writeBookSummary(JsonWriter json, BookSummary book)
+    {
+        json.beginObject()
+                .member("id", book.getId())
+                .member("title", book.getTitle())
+                .member("author", book.getAuthor())
+                .member("genre", book.getGenre())
+                .member("status", book.getStatus())
+                .endObject();
+    }
+
+    static void writeBook(JsonWriter json, Book book)
+    {
+        json.beginObject()
+                .member("id", book.getId())
+                .member("title", book.getTitle())
+                .member("genre", book.getGenre())
+                .member("description", book.getDescription())
+                .member("author", book.getAuthor())
+                .member("publisher", book.getPublisher())
+                .member("publicationYear", book.getPublicationYear())
+                .member("isbn", book.getIsbn())
+                .member("status", book.getStatus())
+                .endObject();
+    }
+
+    static void writeBorrowingRecord(JsonWriter json, BorrowingRecord borrowingRecord)
+    {
+        json.beginObject()
+                .member("id", borrowingRecord.getId())
+                .member("bookId", borrowingRecord.getBookId())
+                .member("patronId", borrowingRecord.getPatronId())
+                .member("librarianId", borrowingRecord.getLibrarianId())
+                .member("borrowingDate", Objects.toString(borrowingRecord.getBorrowingLocalDate(), null))
+                .member("dueDate", Objects.toString(borrowingRecord.getDueLocalDate(), null))
+                .member("returnDate", Objects.toString(borrowingRecord.getReturnLocalDate(), null))
+                .member("requestState", borrowingRecord.getRequestState())
+                .member("recordStatus", borrowingRecord.getRecordStatus())
+                .endObject();
+    }
+
+}
@@ -0,0 +1,285 @@
+package server;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The JsonWriter class builds a JSON document into a StringBuilder, inserting the
+ * commas between members and elements itself. It writes straight to text without
+ * building a tree of objects first.
+ */
+public class JsonWriter
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new, empty JsonWriter.
+     */
+    public JsonWriter()
+    {
+        out = new StringBuilder(256);
+        hasMembers = new ArrayDeque<>();
+    }
+
+    // Properties
+
+    private final StringBuilder out;
+    private final Deque<Boolean> hasMembers;
+    private boolean isAfterName;
+
+    // Methods
+
+    /**
+     * Opens an object.
+     *
+     * @return this writer
+     */
+    public JsonWriter beginObject()
+    {
+        separate();
+        out.append('{');
+        hasMembers.push(false);
+        return this;
+    }
+
+    /**
+     * Closes the innermost object.
+     *
+     * @return this writer
+     */
+    public JsonWriter endObject()
+    {
+        hasMembers.pop();
+        out.append('}');
+        return this;
+    }
+
+    /**
+     * Opens an array.
+     *
+     * @return this writer
+     */
+    public JsonWriter beginArray()
+    {
+        separate();
+        out.append('[');
+        hasMembers.push(false);
+        return this;
+    }
+
+    /**
+     * Closes the innermost array.
+     *
+     * @return this writer
+     */
+    public JsonWriter endArray()
+    {
+        hasMembers.pop();
+        out.append(']');
+        return this;
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     *
+     * @param name the member name
+     * @return this writer
+     */
+    public JsonWriter name(String name)
+    {
+        separate();
+        appendString(name);
+        out.append(':');
+        isAfterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or null.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public JsonWriter value(String value)
+    {
+        separate();
+        if (value == null)
+        {
+            out.append("null");
+        }
+        else
+        {
+            appendString(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public JsonWriter value(long value)
+    {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a number value, or null if it is not finite.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public JsonWriter value(double value)
+    {
+        separate();
+        if (Double.isFinite(value))
+        {
+            out.append(value);
+        }
+        else
+        {
+            out.append("null");
+        }
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public JsonWriter value(boolean value)
+    {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a member holding a string value.
+     *
+     * @param name the member name
+     * @param value the value, which may be null
+     * @return this writer
+     */
+    public JsonWriter member(String name, String value)
+    {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a member holding a number value.
+     *
+     * @param name the member name
+     * @param value the value
+     * @return this writer
+     */
+    public JsonWriter member(String name, long value)
+    {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a member holding a boolean value.
+     *
+     * @param name the member name
+     * @param value the value
+     * @return this writer
+     */
+    public JsonWriter member(String name, boolean value)
+    {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes out the text built so far and empties the buffer. The writer keeps its
+     * place in the document, so a long array can be written out element by element
+     * without holding the whole document in memory.
+     *
+     * @param writer the writer to write to
+     * @throws IOException if the text cannot be written
+     */
+    public void writeTo(Writer writer) throws IOException
+    {
+        writer.append(out);
+        out.setLength(0);
+    }
+
+    // Utilities
+
+    private void separate()
+    {
+        if (isAfterName)
+        {
+            isAfterName = false;
+            return;
+        }
+
+        if (!hasMembers.isEmpty())
+        {
+            if (hasMembers.peek())
+            {
+                out.append(',');
+            }
+            else
+            {
+                hasMembers.pop();
+                hasMembers.push(true);
+            }
+        }
+    }
+
+    private void appendString(String value)
+    {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char character = value.charAt(i);
+            switch (character)
+            {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (character < 0x20)
+                    {
+                        out.append(String.format("\\u%04x", (int) character));
+                    }
+                    else
+                    {
+                        out.append(character);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    // Overrides
+
+    @Override
+    public String toString()
+    {
+        return out.toString();
+    }
+
+}
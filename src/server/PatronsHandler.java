@@ -0,0 +1,90 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import controllers.AsyncBookController;
+import controllers.AsyncBorrowingRecordController;
+import models.BookSummary;
+import models.BorrowingRecord;
+import models.Librarian;
+import models.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The PatronsHandler class serves {@code GET /patrons/{id}/dashboard}, which shows
+ * a patron's borrowed books and latest borrowing records, newest first. Both are
+ * read at the same time. Patrons can only see their own dashboard.
+ */
+class PatronsHandler extends ApiHandler
+{
+
+    // Constructor
+
+    PatronsHandler()
+    {
+        super("/patrons");
+        bookController = new AsyncBookController();
+        borrowingRecordController = new AsyncBorrowingRecordController();
+    }
+
+    // Fields
+
+    private static final int RECENT_RECORDS = 20;
+
+    // Properties
+
+    private final AsyncBookController bookController;
+    private final AsyncBorrowingRecordController borrowingRecordController;
+
+    // Methods
+
+    @Override
+    void route(HttpExchange exchange, String[] path, Map<String, String> params) throws IOException
+    {
+        if (path.length != 2 || !path[1].equals("dashboard") || !exchange.getRequestMethod().equals("GET"))
+        {
+            sendError(exchange, 404, "No such endpoint.");
+            return;
+        }
+
+        User user = authenticate(exchange);
+        if (user == null)
+        {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"histopedia\"");
+            sendError(exchange, 401, "Authentication required.");
+            return;
+        }
+
+        String patronId = path[0];
+        if (!(user instanceof Librarian) && !user.getId().equals(patronId))
+        {
+            sendError(exchange, 403, "Patrons can only see their own dashboard.");
+            return;
+        }
+
+        CompletableFuture<ArrayList<BookSummary>> borrowedBooks = bookController.getBorrowedBookSummariesByPatronId(patronId);
+        CompletableFuture<ArrayList<BorrowingRecord>> records = borrowingRecordController.getLatestBorrowingRecords(patronId, RECENT_RECORDS);
+
+        JsonWriter json = new JsonWriter().beginObject().member("patronId", patronId);
+
+        json.name("borrowedBooks").beginArray();
+        for (BookSummary book : borrowedBooks.join())
+        {
+            JsonViews.writeBookSummary(json, book);
+        }
+        json.endArray();
+
+        json.name("records").beginArray();
+        for (BorrowingRecord record : records.join())
+        {
+            JsonViews.writeBorrowingRecord(json, record);
+        }
+        json.endArray().endObject();
+
+        sendJson(exchange, 200, json);
+    }
+
+}
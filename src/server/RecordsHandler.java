@@ -0,0 +1,142 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import controllers.AsyncBorrowingRecordController;
+import controllers.ReturnResult;
+import models.BorrowingRecord;
+import models.Librarian;
+import models.User;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The RecordsHandler class serves borrowing records:
+ * <ul>
+ *     <li>{@code POST /records/{id}/return} returns the book of a record. Patrons can
+ *     only return their own books.</li>
+ *     <li>{@code POST /records/{id}/status} with a {@code status} parameter sets the
+ *     status of a record. Only librarians can do this.</li>
+ * </ul>
+ */
+class RecordsHandler extends ApiHandler
+{
+
+    // Constructor
+
+    RecordsHandler()
+    {
+        super("/records");
+        borrowingRecordController = new AsyncBorrowingRecordController();
+    }
+
+    // Fields
+
+    private static final Set<String> RECORD_STATUSES = Set.of("Active", "Returned", "Returned Overdue", "Overdue");
+
+    // Properties
+
+    private final AsyncBorrowingRecordController borrowingRecordController;
+
+    // Methods
+
+    @Override
+    void route(HttpExchange exchange, String[] path, Map<String, String> params) throws IOException
+    {
+        String method = exchange.getRequestMethod();
+
+        if (path.length != 2 || !method.equals("POST"))
+        {
+            sendError(exchange, 404, "No such endpoint.");
+            return;
+        }
+
+        User user = authenticate(exchange);
+        if (user == null)
+        {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"histopedia\"");
+            sendError(exchange, 401, "Authentication required.");
+            return;
+        }
+
+        switch (path[1])
+        {
+            case "return":
+                returnBook(exchange, user, path[0]);
+                break;
+            case "status":
+                updateStatus(exchange, user, path[0], params.get("status"));
+                break;
+            default:
+                sendError(exchange, 404, "No such endpoint.");
+                break;
+        }
+    }
+
+    // Utilities
+
+    private void returnBook(HttpExchange exchange, User user, String id) throws IOException
+    {
+        BorrowingRecord record = borrowingRecordController.getBorrowingRecordById(id).join();
+        if (record == null || !(user instanceof Librarian || record.getPatronId().equals(user.getId())))
+        {
+            sendError(exchange, 404, "Borrowing record with ID " + id + " not found.");
+            return;
+        }
+
+        ReturnResult result = borrowingRecordController.returnBook(id).join();
+        switch (result.getStatus())
+        {
+            case RETURNED:
+                JsonWriter json = new JsonWriter();
+                JsonViews.writeBorrowingRecord(json, result.getBorrowingRecord());
+                sendJson(exchange, 200, json);
+                break;
+            case NOT_FOUND:
+                sendError(exchange, 404, "Borrowing record with ID " + id + " not found.");
+                break;
+            case NOT_ACTIVE:
+                sendError(exchange, 409, "Borrowing record with ID " + id + " is not active.");
+                break;
+            default:
+                sendError(exchange, 500, "The book could not be returned.");
+                break;
+        }
+    }
+
+    private void updateStatus(HttpExchange exchange, User user, String id, String status) throws IOException
+    {
+        if (!(user instanceof Librarian))
+        {
+            sendError(exchange, 403, "Only librarians can update borrowing records.");
+            return;
+        }
+
+        if (status == null || !RECORD_STATUSES.contains(status))
+        {
+            sendError(exchange, 400, "Status must be one of Active, Returned, Returned Overdue or Overdue.");
+            return;
+        }
+
+        BorrowingRecord record = borrowingRecordController.getBorrowingRecordById(id).join();
+        if (record == null)
+        {
+            sendError(exchange, 404, "Borrowing record with ID " + id + " not found.");
+            return;
+        }
+
+        BorrowingRecord updated = borrowingRecordController.updateBorrowingRecordStatus(id, status).join();
+        if (updated == null)
+        {
+            sendError(exchange, 500, "The borrowing record could not be updated.");
+            return;
+        }
+
+        JsonWriter json = new JsonWriter();
+        JsonViews.writeBorrowingRecord(json, updated);
+
+        sendJson(exchange, 200, json);
+    }
+
+}
@@ -0,0 +1,342 @@
+package singleton;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ConnectionPool class keeps a bounded set of physical connections open to
+ * the database and leases them out to callers. Idle connections are validated
+ * before reuse, evicted once they have been idle or alive for too long, and the
+ * pool is topped back up to its minimum size in the background.
+ */
+class ConnectionPool
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new ConnectionPool and opens the minimum number of connections.
+     *
+     * @param url the JDBC URL of the database
+     * @param username the username for the database connection
+     * @param password the password for the database connection
+     * @param minSize the number of connections kept open even when idle
+     * @param maxSize the maximum number of connections open at once
+     * @param leaseTimeoutMillis how long a caller waits for a free connection
+     * @param idleTimeoutMillis how long a connection may sit idle before it is closed
+     * @param maxLifetimeMillis how long a connection may live before it is replaced
+     * @param statementCacheSize the number of prepared statements cached per connection
+     */
+    ConnectionPool(String url,
+                   String username,
+                   String password,
+                   int minSize,
+                   int maxSize,
+                   long leaseTimeoutMillis,
+                   long idleTimeoutMillis,
+                   long maxLifetimeMillis,
+                   int statementCacheSize)
+    {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.maxSize = Math.max(1, maxSize);
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.statementCacheSize = statementCacheSize;
+
+        idleConnections = new LinkedBlockingDeque<>();
+        permits = new Semaphore(this.maxSize, true);
+        openConnections = new AtomicInteger();
+        statementCacheHits = new LongAdder();
+        statementCacheMisses = new LongAdder();
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "histopedia-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        fillToMinimum();
+
+        long period = Math.max(1000, Math.min(idleTimeoutMillis / 2, MAINTENANCE_PERIOD_MILLIS));
+        maintenance.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Fields
+
+    /**
+     * Connections returned within this window are handed out again without a round trip to validate them.
+     */
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    /**
+     * The number of seconds a validation round trip may take before the connection is considered dead.
+     */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    /**
+     * The upper bound on how often idle connections are checked for eviction.
+     */
+    private static final long MAINTENANCE_PERIOD_MILLIS = 30000;
+
+    // Properties
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long leaseTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections;
+    private final Semaphore permits;
+    private final AtomicInteger openConnections;
+    private final LongAdder statementCacheHits;
+    private final LongAdder statementCacheMisses;
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean isClosed;
+
+    // Getters
+
+    /**
+     * Gets the number of physical connections currently open.
+     *
+     * @return the number of open connections
+     */
+    int getOpenCount()
+    {
+        return openConnections.get();
+    }
+
+    /**
+     * Gets the number of open connections waiting in the pool.
+     *
+     * @return the number of idle connections
+     */
+    int getIdleCount()
+    {
+        return idleConnections.size();
+    }
+
+    /**
+     * Gets the number of connections currently leased out.
+     *
+     * @return the number of leased connections
+     */
+    int getLeasedCount()
+    {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * Gets the number of statements served from a connection's statement cache.
+     *
+     * @return the number of statement cache hits
+     */
+    long getStatementCacheHits()
+    {
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * Gets the number of statements that had to be prepared because none was cached.
+     *
+     * @return the number of statement cache misses
+     */
+    long getStatementCacheMisses()
+    {
+        return statementCacheMisses.sum();
+    }
+
+    // Methods
+
+    /**
+     * Leases a connection from the pool, waiting up to the lease timeout for one to
+     * become free. The most recently returned connection is preferred so that the
+     * rest of the pool can age out when the load drops.
+     *
+     * @return a validated connection
+     * @throws SQLException if no connection became available in time or a new one could not be opened
+     */
+    PooledConnection borrow() throws SQLException
+    {
+        if (isClosed)
+        {
+            throw new SQLException("The connection pool has been shut down.");
+        }
+
+        try
+        {
+            if (!permits.tryAcquire(leaseTimeoutMillis, TimeUnit.MILLISECONDS))
+            {
+                throw new SQLTransientConnectionException("Timed out after " + leaseTimeoutMillis
+                        + " ms waiting for a database connection (" + maxSize + " in use).");
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection.", ex);
+        }
+
+        try
+        {
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null)
+            {
+                if (isUsable(pooledConnection))
+                {
+                    return pooledConnection;
+                }
+
+                discard(pooledConnection);
+            }
+
+            return open();
+        }
+        catch (SQLException | RuntimeException ex)
+        {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns a leased connection to the pool. Connections that are broken, past
+     * their lifetime, or returned after the pool was shut down are closed instead.
+     *
+     * @param pooledConnection the connection to return
+     */
+    void giveBack(PooledConnection pooledConnection)
+    {
+        try
+        {
+            if (isClosed
+                    || pooledConnection.getAgeMillis(System.currentTimeMillis()) > maxLifetimeMillis
+                    || pooledConnection.getConnection().isClosed())
+            {
+                discard(pooledConnection);
+            }
+            else
+            {
+                pooledConnection.reset();
+                pooledConnection.markReturned();
+                idleConnections.offerFirst(pooledConnection);
+            }
+        }
+        catch (SQLException ex)
+        {
+            discard(pooledConnection);
+        }
+        finally
+        {
+            permits.release();
+        }
+    }
+
+    /**
+     * Shuts the pool down, closing every idle connection. Leased connections are
+     * closed as they are given back.
+     */
+    void close()
+    {
+        isClosed = true;
+        maintenance.shutdownNow();
+
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null)
+        {
+            discard(pooledConnection);
+        }
+    }
+
+    // Utilities
+
+    private PooledConnection open() throws SQLException
+    {
+        Connection connection = DriverManager.getConnection(url, username, password);
+        openConnections.incrementAndGet();
+
+        return new PooledConnection(connection,
+                new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses));
+    }
+
+    private void discard(PooledConnection pooledConnection)
+    {
+        openConnections.decrementAndGet();
+        pooledConnection.closeQuietly();
+    }
+
+    private boolean isUsable(PooledConnection pooledConnection)
+    {
+        long now = System.currentTimeMillis();
+        if (pooledConnection.getAgeMillis(now) > maxLifetimeMillis)
+        {
+            return false;
+        }
+
+        if (pooledConnection.getIdleMillis(now) < VALIDATION_BYPASS_MILLIS)
+        {
+            return true;
+        }
+
+        try
+        {
+            return pooledConnection.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        }
+        catch (SQLException ex)
+        {
+            return false;
+        }
+    }
+
+    private void maintain()
+    {
+        long now = System.currentTimeMillis();
+
+        for (PooledConnection pooledConnection : idleConnections)
+        {
+            boolean isStale = pooledConnection.getIdleMillis(now) > idleTimeoutMillis
+                    && openConnections.get() > minSize;
+            boolean isExpired = pooledConnection.getAgeMillis(now) > maxLifetimeMillis;
+
+            if ((isStale || isExpired) && idleConnections.remove(pooledConnection))
+            {
+                discard(pooledConnection);
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    private void fillToMinimum()
+    {
+        while (!isClosed && openConnections.get() < minSize)
+        {
+            try
+            {
+                idleConnections.offerLast(open());
+            }
+            catch (SQLException ex)
+            {
+                System.out.println("Connection error detected.\nDetails:\n" + ex.getMessage());
+                return;
+            }
+        }
+    }
+
+}
@@ -1,11 +1,17 @@
 package singleton;
 
+import metrics.Metrics;
+import migrations.MigrationRunner;
+import migrations.Migrations;
+import repositories.Storage;
+
+import java.lang.reflect.Proxy;
 import java.sql.*;
 
 /**
  * The Database class implements the Singleton design pattern to manage a single
- * instance of a database connection. It provides methods to get the instance
- * and the connection to the database.
+ * pool of database connections. It provides methods to get the instance and to
+ * prepare statements on a connection leased from the pool.
  */
 public class Database
 {
@@ -13,19 +19,35 @@ public class Database
     // Constructor
 
     /**
-     * Private constructor to initialize the database connection.
+     * Private constructor to initialize the database connection pool.
      */
     private Database()
     {
         try
         {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            connection = DriverManager.getConnection(CONNECTION_STRING, USERNAME, PASSWORD);
+            if (CONNECTION_STRING.startsWith("jdbc:mysql:"))
+            {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            }
         }
         catch (Exception ex)
         {
             System.out.println("Connection error detected.\nDetails:\n" + ex.getMessage());
         }
+
+        connectionPool = new ConnectionPool(
+                CONNECTION_STRING,
+                USERNAME,
+                PASSWORD,
+                POOL_MIN_SIZE,
+                POOL_MAX_SIZE,
+                POOL_LEASE_TIMEOUT_MILLIS,
+                POOL_IDLE_TIMEOUT_MILLIS,
+                POOL_MAX_LIFETIME_MILLIS,
+                STATEMENT_CACHE_SIZE);
+        leases = new ThreadLocal<>();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(connectionPool::close, "histopedia-pool-shutdown"));
     }
 
     // Fields
@@ -33,15 +55,19 @@ public class Database
     /**
      * The single instance of the Database class.
      */
-    private static Database instance;
+    private static volatile Database instance;
+    /**
+     * Whether the schema is brought up to date when the instance is created.
+     */
+    private static final boolean IS_MIGRATING = Boolean.parseBoolean(System.getProperty("histopedia.db.migrate", "true"));
     /**
      * The username for the database connection.
      */
-    private final String USERNAME = "root";
+    private final String USERNAME = System.getProperty("histopedia.db.username", "root");
     /**
      * The password for the database connection.
      */
-    private final String PASSWORD = "";
+    private final String PASSWORD = System.getProperty("histopedia.db.password", "");
     /**
      * The label for the database connection.
      */
@@ -53,14 +79,49 @@ public class Database
     /**
      * The URL for the database connection.
      */
-    private final String CONNECTION_STRING = String.format("jdbc:mysql://%s/%s", HOST, DATABASE);
+    private final String CONNECTION_STRING = System.getProperty("histopedia.db.url",
+            String.format("jdbc:mysql://%s/%s?useServerPrepStmts=true&rewriteBatchedStatements=true", HOST, DATABASE));
+    /**
+     * The number of connections the pool keeps open even when idle.
+     */
+    private final int POOL_MIN_SIZE = Integer.getInteger("histopedia.pool.minSize", 2);
+    /**
+     * The maximum number of connections the pool opens at once.
+     */
+    private final int POOL_MAX_SIZE = Integer.getInteger("histopedia.pool.maxSize", 10);
+    /**
+     * How long a caller waits for a free connection before giving up, in milliseconds.
+     */
+    private final long POOL_LEASE_TIMEOUT_MILLIS = Long.getLong("histopedia.pool.leaseTimeoutMillis", 5000L);
+    /**
+     * How long a connection may sit idle before the pool closes it, in milliseconds.
+     */
+    private final long POOL_IDLE_TIMEOUT_MILLIS = Long.getLong("histopedia.pool.idleTimeoutMillis", 300000L);
+    /**
+     * How long a connection may stay open before the pool replaces it, in milliseconds.
+     */
+    private final long POOL_MAX_LIFETIME_MILLIS = Long.getLong("histopedia.pool.maxLifetimeMillis", 1800000L);
+    /**
+     * The number of prepared statements kept open on each pooled connection.
+     */
+    private final int STATEMENT_CACHE_SIZE = Integer.getInteger("histopedia.pool.statementCacheSize", 64);
+    /**
+     * The number of rows fetched per round trip by streaming statements on drivers
+     * that cannot stream row by row.
+     */
+    private final int STREAMING_FETCH_SIZE = Integer.getInteger("histopedia.db.streamingFetchSize", 1000);
 
     // Properties
 
     /**
-     * The connection object for the database.
+     * The pool of connections to the database.
+     */
+    private final ConnectionPool connectionPool;
+    /**
+     * The connection currently leased by each thread, so that nested calls on one
+     * thread share a single connection.
      */
-    private Connection connection;
+    private final ThreadLocal<Lease> leases;
 
     // Field Methods
 
@@ -77,7 +138,12 @@ public class Database
             synchronized (Database.class)
             {
                 if (instance == null) {
-                    instance = new Database();
+                    Database database = new Database();
+                    if (IS_MIGRATING)
+                    {
+                        database.migrate();
+                    }
+                    instance = database;
                 }
             }
         }
@@ -87,25 +153,335 @@ public class Database
 
     // Methods
 
-    public PreparedStatement prepareStatement(String query, Object... values)
+    /**
+     * Prepares a statement on a connection leased from the pool and binds the given
+     * values to its parameters. A statement previously prepared with the same SQL on
+     * that connection is reused when one is cached. Closing the statement puts it
+     * back in the cache and releases the lease, so callers must close it, preferably
+     * with try-with-resources.
+     *
+     * @param query the SQL query to prepare
+     * @param values the values to bind, in parameter order
+     * @return the prepared statement
+     * @throws SQLException if no connection could be leased or the query could not be prepared
+     */
+    public PreparedStatement prepareStatement(String query, Object... values) throws SQLException
     {
+        PooledConnection pooledConnection = acquireConnection();
+        StatementCache statementCache = pooledConnection.getStatementCache();
         PreparedStatement statement = null;
 
         try
         {
-            statement = connection.prepareStatement(query);
+            statement = statementCache.checkOut(query);
+            if (statement == null)
+            {
+                statement = pooledConnection.getConnection().prepareStatement(query);
+            }
 
             int index = 1;
             for (Object val : values) {
                 statement.setObject(index++, val);
             }
+
+            return LeasedStatementHandler.wrap(statement, query, closed ->
+            {
+                statementCache.checkIn(query, closed);
+                releaseConnection();
+            });
         }
-        catch (Exception ex)
+        catch (SQLException | RuntimeException ex)
+        {
+            if (statement != null)
+            {
+                statement.close();
+            }
+
+            releaseConnection();
+            throw ex;
+        }
+    }
+
+    /**
+     * Prepares a read-only, forward-only statement whose results are streamed from
+     * the database instead of being loaded into memory all at once. On MySQL rows
+     * are sent one at a time; on other drivers they are fetched in small batches.
+     * <p>
+     * The statement runs on a connection of its own, outside the current thread's
+     * lease and statement cache, so the caller may keep it open while running other
+     * queries and may hand it to another thread. Closing the statement returns that
+     * connection to the pool.
+     *
+     * @param query the SQL query to prepare
+     * @param values the values to bind, in parameter order
+     * @return the prepared statement
+     * @throws SQLException if no connection could be borrowed or the query could not be prepared
+     */
+    public PreparedStatement prepareStreamingStatement(String query, Object... values) throws SQLException
+    {
+        PooledConnection pooledConnection = borrowConnection();
+        PreparedStatement statement = null;
+
+        try
+        {
+            statement = pooledConnection.getConnection().prepareStatement(query,
+                    ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(CONNECTION_STRING.startsWith("jdbc:mysql:") ? Integer.MIN_VALUE : STREAMING_FETCH_SIZE);
+
+            int index = 1;
+            for (Object val : values) {
+                statement.setObject(index++, val);
+            }
+
+            return LeasedStatementHandler.wrap(statement, query, closed ->
+            {
+                try
+                {
+                    closed.close();
+                }
+                catch (SQLException ignored)
+                {
+                    // The connection is validated again before it is leased out.
+                }
+
+                connectionPool.giveBack(pooledConnection);
+            });
+        }
+        catch (SQLException | RuntimeException ex)
+        {
+            if (statement != null)
+            {
+                statement.close();
+            }
+
+            connectionPool.giveBack(pooledConnection);
+            throw ex;
+        }
+    }
+
+    /**
+     * Counts rows read from the results of a statement prepared by this database
+     * against the statement's metrics. Does nothing for other statements or when
+     * metrics are disabled.
+     *
+     * @param statement the statement whose results were read
+     * @param rows the number of rows read
+     */
+    public void recordRows(PreparedStatement statement, long rows)
+    {
+        if (Metrics.IS_ENABLED && Proxy.isProxyClass(statement.getClass())
+                && Proxy.getInvocationHandler(statement) instanceof LeasedStatementHandler)
+        {
+            ((LeasedStatementHandler) Proxy.getInvocationHandler(statement)).addRows(rows);
+        }
+    }
+
+    /**
+     * Runs the given work in a single transaction on the connection leased by the
+     * current thread. Every statement prepared by the work shares that connection,
+     * the transaction is committed when the work returns and rolled back when it
+     * throws. Nested calls join the transaction that is already open.
+     *
+     * @param work the work to run
+     * @param <T> the type of the work's result
+     * @return the result of the work
+     * @throws SQLException if the work or the commit fails
+     */
+    public <T> T inTransaction(Storage.Work<T> work) throws SQLException
+    {
+        PooledConnection pooledConnection = acquireConnection();
+        Connection connection = pooledConnection.getConnection();
+
+        try
+        {
+            if (!connection.getAutoCommit())
+            {
+                return work.execute();
+            }
+
+            connection.setAutoCommit(false);
+            try
+            {
+                T result = work.execute();
+                connection.commit();
+                return result;
+            }
+            catch (SQLException | RuntimeException ex)
+            {
+                connection.rollback();
+                throw ex;
+            }
+            finally
+            {
+                connection.setAutoCommit(true);
+            }
+        }
+        finally
+        {
+            releaseConnection();
+        }
+    }
+
+    /**
+     * Runs the given work in a transaction of its own on a separate connection, even
+     * when the current thread already has a transaction open. The work commits or
+     * rolls back independently of the surrounding transaction.
+     *
+     * @param work the work to run
+     * @param <T> the type of the work's result
+     * @return the result of the work
+     * @throws SQLException if the work or the commit fails
+     */
+    public <T> T inNewTransaction(Storage.Work<T> work) throws SQLException
+    {
+        Lease suspended = leases.get();
+        leases.remove();
+
+        try
+        {
+            return inTransaction(work);
+        }
+        finally
+        {
+            if (suspended != null)
+            {
+                leases.set(suspended);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of statements served from the statement cache instead of being prepared again.
+     *
+     * @return the number of statement cache hits
+     */
+    public long getStatementCacheHits()
+    {
+        return connectionPool.getStatementCacheHits();
+    }
+
+    /**
+     * Gets the number of statements that had to be prepared because none was cached.
+     *
+     * @return the number of statement cache misses
+     */
+    public long getStatementCacheMisses()
+    {
+        return connectionPool.getStatementCacheMisses();
+    }
+
+    /**
+     * Gets the maximum number of connections the pool opens at once, which bounds
+     * how many statements can run against the database concurrently.
+     *
+     * @return the maximum number of pooled connections
+     */
+    public int getMaxConnections()
+    {
+        return POOL_MAX_SIZE;
+    }
+
+    /**
+     * Shuts the connection pool down. Further calls to prepareStatement will fail.
+     */
+    public void shutdown()
+    {
+        connectionPool.close();
+    }
+
+    // Utilities
+
+    /**
+     * Applies the pending schema migrations. Failures are reported but do not stop
+     * the application, which keeps running on the schema it has.
+     */
+    private void migrate()
+    {
+        try
+        {
+            PooledConnection pooledConnection = acquireConnection();
+            try
+            {
+                new MigrationRunner(pooledConnection.getConnection()).migrate(Migrations.all());
+            }
+            finally
+            {
+                releaseConnection();
+            }
+        }
+        catch (SQLException ex)
+        {
+            System.out.println("Migration error detected.\nDetails:\n" + ex.getMessage());
+        }
+    }
+
+    private PooledConnection borrowConnection() throws SQLException
+    {
+        if (!Metrics.IS_ENABLED)
+        {
+            return connectionPool.borrow();
+        }
+
+        long start = System.nanoTime();
+        try
+        {
+            PooledConnection pooledConnection = connectionPool.borrow();
+            Metrics.poolWait().record(System.nanoTime() - start);
+            return pooledConnection;
+        }
+        catch (SQLException ex)
+        {
+            Metrics.poolWait().recordError(System.nanoTime() - start);
+            throw ex;
+        }
+    }
+
+    private PooledConnection acquireConnection() throws SQLException
+    {
+        Lease lease = leases.get();
+        if (lease == null)
+        {
+            lease = new Lease(borrowConnection());
+            leases.set(lease);
+        }
+
+        lease.holds++;
+        return lease.pooledConnection;
+    }
+
+    private void releaseConnection()
+    {
+        Lease lease = leases.get();
+        if (lease == null)
+        {
+            return;
+        }
+
+        if (--lease.holds == 0)
         {
-            ex.printStackTrace();
+            leases.remove();
+            connectionPool.giveBack(lease.pooledConnection);
         }
+    }
+
+    // Nested Classes
+
+    /**
+     * A connection leased by one thread, together with the number of statements
+     * that thread still holds open on it.
+     */
+    private static final class Lease
+    {
+
+        private Lease(PooledConnection pooledConnection)
+        {
+            this.pooledConnection = pooledConnection;
+        }
+
+        private final PooledConnection pooledConnection;
+        private int holds;
 
-        return statement;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package singleton;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The IdAllocator class implements the Singleton design pattern to hand out
+ * identifiers such as BID0042 without querying the latest row first. Blocks of
+ * numbers are leased from the id_sequences table in a short transaction of their
+ * own and then handed out from memory, so concurrent callers, including callers
+ * in other processes, never receive the same identifier.
+ */
+public class IdAllocator
+{
+
+    // Constructor
+
+    /**
+     * Private constructor to initialize the allocator. The id_sequences table is
+     * created by the schema migrations.
+     */
+    private IdAllocator()
+    {
+        database = Database.getInstance();
+        ranges = new ConcurrentHashMap<>();
+        leaseLock = new ReentrantLock();
+
+        for (Sequence sequence : Sequence.values())
+        {
+            ranges.put(sequence, Range.EXHAUSTED);
+        }
+    }
+
+    // Fields
+
+    /**
+     * The single instance of the IdAllocator class.
+     */
+    private static volatile IdAllocator instance;
+    /**
+     * The number of identifiers leased from the database at a time.
+     */
+    private static final int BLOCK_SIZE = Integer.getInteger("histopedia.ids.blockSize", 20);
+
+    // Properties
+
+    private final Database database;
+    private final ConcurrentMap<Sequence, Range> ranges;
+    private final ReentrantLock leaseLock;
+
+    // Field Methods
+
+    /**
+     * Returns the single instance of the IdAllocator class, creating it if it does
+     * not already exist.
+     *
+     * @return the single instance of the IdAllocator class
+     */
+    public static IdAllocator getInstance()
+    {
+        if (instance == null)
+        {
+            synchronized (IdAllocator.class)
+            {
+                if (instance == null) {
+                    instance = new IdAllocator();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    // Methods
+
+    /**
+     * Returns the next unused identifier of the given sequence, leasing a new block
+     * from the database when the current one runs out.
+     * <p>
+     * Leasing runs in a transaction on a connection of its own, so callers should
+     * not hold a transaction open while asking for an identifier: when every pooled
+     * connection is held by such a caller, none is left to lease with.
+     *
+     * @param sequence the sequence to draw from
+     * @return the identifier, such as BID0042
+     * @throws SQLException if a new block could not be leased
+     */
+    public String nextId(Sequence sequence) throws SQLException
+    {
+        while (true)
+        {
+            Range range = ranges.get(sequence);
+            long value = range.cursor.getAndIncrement();
+            if (value < range.limit)
+            {
+                return String.format("%s%04d", sequence.prefix, value);
+            }
+
+            // A lock rather than a monitor, so a virtual thread waiting on the database does not pin its carrier.
+            leaseLock.lock();
+            try
+            {
+                if (ranges.get(sequence) == range)
+                {
+                    ranges.put(sequence, lease(sequence));
+                }
+            }
+            finally
+            {
+                leaseLock.unlock();
+            }
+        }
+    }
+
+    // Utilities
+
+    private Range lease(Sequence sequence) throws SQLException
+    {
+        return database.inNewTransaction(() ->
+        {
+            if (advance(sequence) == 0)
+            {
+                seed(sequence);
+                advance(sequence);
+            }
+
+            try (PreparedStatement statement = database.prepareStatement(
+                    "SELECT next_value FROM id_sequences WHERE prefix = ?",
+                    sequence.prefix))
+            {
+                ResultSet results = statement.executeQuery();
+                results.next();
+
+                long limit = results.getLong("next_value");
+                return new Range(limit - BLOCK_SIZE, limit);
+            }
+        });
+    }
+
+    private int advance(Sequence sequence) throws SQLException
+    {
+        try (PreparedStatement statement = database.prepareStatement(
+                "UPDATE id_sequences SET next_value = next_value + ? WHERE prefix = ?",
+                BLOCK_SIZE,
+                sequence.prefix))
+        {
+            return statement.executeUpdate();
+        }
+    }
+
+    private void seed(Sequence sequence) throws SQLException
+    {
+        long latestNumber = 0;
+        try (PreparedStatement statement = database.prepareStatement(
+                "SELECT id FROM " + sequence.table + " WHERE id LIKE ?",
+                sequence.prefix + "%"))
+        {
+            ResultSet results = statement.executeQuery();
+            while (results.next())
+            {
+                try
+                {
+                    latestNumber = Math.max(latestNumber, Long.parseLong(results.getString("id").substring(3)));
+                }
+                catch (NumberFormatException ignored)
+                {
+                    // Identifiers not created by the allocator cannot collide with its numbers.
+                }
+            }
+        }
+
+        try (PreparedStatement statement = database.prepareStatement(
+                "INSERT INTO id_sequences (prefix, next_value) VALUES (?, ?)",
+                sequence.prefix,
+                latestNumber + 1))
+        {
+            statement.executeUpdate();
+        }
+        catch (SQLException ex)
+        {
+            // An integrity violation means another process seeded the sequence first.
+            String state = ex.getSQLState();
+            if (state == null || !state.startsWith("23"))
+            {
+                throw ex;
+            }
+        }
+    }
+
+    // Nested Classes
+
+    /**
+     * The sequences identifiers are drawn from, one per entity table.
+     */
+    public enum Sequence
+    {
+        /**
+         * Identifiers of books, such as BID0001.
+         */
+        BOOK("BID", "books"),
+        /**
+         * Identifiers of borrowing records, such as RID0001.
+         */
+        BORROWING_RECORD("RID", "borrowing_records"),
+        /**
+         * Identifiers of users, such as UID0001.
+         */
+        USER("UID", "users");
+
+        Sequence(String prefix, String table)
+        {
+            this.prefix = prefix;
+            this.table = table;
+        }
+
+        private final String prefix;
+        private final String table;
+
+        /**
+         * Gets the prefix of the sequence's identifiers.
+         *
+         * @return the prefix, such as BID
+         */
+        public String getPrefix()
+        {
+            return prefix;
+        }
+    }
+
+    /**
+     * A block of numbers leased from the database, handed out from start up to,
+     * but not including, limit.
+     */
+    private static final class Range
+    {
+
+        private Range(long start, long limit)
+        {
+            this.cursor = new AtomicLong(start);
+            this.limit = limit;
+        }
+
+        private static final Range EXHAUSTED = new Range(0, 0);
+
+        private final AtomicLong cursor;
+        private final long limit;
+
+    }
+
+}
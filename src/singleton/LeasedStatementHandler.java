@@ -0,0 +1,215 @@
+package singleton;
+
+import metrics.Metrics;
+import metrics.OperationStats;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * The LeasedStatementHandler class backs the PreparedStatement handed out by
+ * Database.prepareStatement. Every call is forwarded to the real statement,
+ * except that closing it closes the last result set and hands the statement
+ * back to the Database instead, which recycles it and releases the lease.
+ * <p>
+ * When metrics are enabled, every execution is timed and counted against the
+ * statement and the controller method that prepared it, along with the rows it
+ * changed. Rows read from results are reported by the code reading them through
+ * Database.recordRows, so result sets are handed out unwrapped.
+ */
+class LeasedStatementHandler implements InvocationHandler
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new LeasedStatementHandler.
+     *
+     * @param statement the real statement prepared on the leased connection
+     * @param onClose the action recycling the statement and releasing the connection lease
+     * @param statementStats the statistics of the statement, or null if metrics are disabled
+     * @param methodStats the statistics of the controller method, or null if there is none
+     */
+    private LeasedStatementHandler(PreparedStatement statement,
+                                   Consumer<PreparedStatement> onClose,
+                                   OperationStats statementStats,
+                                   OperationStats methodStats)
+    {
+        this.statement = statement;
+        this.onClose = onClose;
+        this.statementStats = statementStats;
+        this.methodStats = methodStats;
+    }
+
+    // Properties
+
+    private final PreparedStatement statement;
+    private final Consumer<PreparedStatement> onClose;
+    private final OperationStats statementStats;
+    private final OperationStats methodStats;
+    private ResultSet resultSet;
+    private boolean isClosed;
+
+    // Methods
+
+    /**
+     * Wraps a statement so that closing it recycles it and releases its connection lease.
+     *
+     * @param statement the real statement
+     * @param query the SQL of the statement
+     * @param onClose the action recycling the statement and releasing the connection lease
+     * @return the wrapped statement
+     */
+    static PreparedStatement wrap(PreparedStatement statement, String query, Consumer<PreparedStatement> onClose)
+    {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                Metrics.IS_ENABLED
+                        ? track(statement, query, onClose)
+                        : new LeasedStatementHandler(statement, onClose, null, null));
+    }
+
+    /**
+     * Counts rows read from the statement's results against its statistics.
+     *
+     * @param rows the number of rows
+     */
+    void addRows(long rows)
+    {
+        if (statementStats != null && rows > 0)
+        {
+            statementStats.addRows(rows);
+            if (methodStats != null)
+            {
+                methodStats.addRows(rows);
+            }
+        }
+    }
+
+    // Utilities
+
+    private static LeasedStatementHandler track(PreparedStatement statement,
+                                                String query,
+                                                Consumer<PreparedStatement> onClose)
+    {
+        OperationStats statementStats = Metrics.statement(query);
+        return new LeasedStatementHandler(statement, onClose, statementStats, Metrics.callingMethod(statementStats));
+    }
+
+    private Object execute(Method method, Object[] args) throws Throwable
+    {
+        long start = System.nanoTime();
+        Object result;
+        try
+        {
+            result = method.invoke(statement, args);
+        }
+        catch (InvocationTargetException ex)
+        {
+            long elapsed = System.nanoTime() - start;
+            statementStats.recordError(elapsed);
+            if (methodStats != null)
+            {
+                methodStats.recordError(elapsed);
+            }
+            throw ex.getCause();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        statementStats.record(elapsed);
+        if (methodStats != null)
+        {
+            methodStats.record(elapsed);
+        }
+
+        if (result instanceof ResultSet)
+        {
+            resultSet = (ResultSet) result;
+            return result;
+        }
+
+        long rows = 0;
+        if (result instanceof Integer || result instanceof Long)
+        {
+            rows = Math.max(0, ((Number) result).longValue());
+        }
+        else if (result instanceof int[])
+        {
+            for (int count : (int[]) result)
+            {
+                rows += Math.max(0, count);
+            }
+        }
+        addRows(rows);
+
+        return result;
+    }
+
+    // Overrides
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        switch (method.getName())
+        {
+            case "close":
+                if (!isClosed)
+                {
+                    isClosed = true;
+                    try
+                    {
+                        if (resultSet != null)
+                        {
+                            resultSet.close();
+                        }
+                    }
+                    finally
+                    {
+                        onClose.accept(statement);
+                    }
+                }
+                return null;
+            case "isClosed":
+                return isClosed;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return statement.toString();
+        }
+
+        if (isClosed)
+        {
+            throw new SQLException("The statement has already been closed.");
+        }
+
+        if (statementStats != null && method.getName().startsWith("execute"))
+        {
+            return execute(method, args);
+        }
+
+        try
+        {
+            Object result = method.invoke(statement, args);
+            if (result instanceof ResultSet)
+            {
+                resultSet = (ResultSet) result;
+            }
+
+            return result;
+        }
+        catch (InvocationTargetException ex)
+        {
+            throw ex.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package singleton;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The PooledConnection class wraps a physical JDBC connection owned by the
+ * ConnectionPool, keeping track of when it was opened and last handed back,
+ * along with the statements cached on it.
+ */
+class PooledConnection
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new PooledConnection around a freshly opened connection.
+     *
+     * @param connection the physical connection to wrap
+     * @param statementCache the cache for statements prepared on the connection
+     */
+    PooledConnection(Connection connection, StatementCache statementCache)
+    {
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = this.createdAt;
+    }
+
+    // Properties
+
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final long createdAt;
+    private volatile long lastReturnedAt;
+
+    // Getters
+
+    /**
+     * Gets the physical connection.
+     *
+     * @return the physical connection
+     */
+    Connection getConnection()
+    {
+        return this.connection;
+    }
+
+    /**
+     * Gets the cache of statements prepared on the connection.
+     *
+     * @return the statement cache
+     */
+    StatementCache getStatementCache()
+    {
+        return this.statementCache;
+    }
+
+    /**
+     * Gets how long the connection has been sitting idle in the pool.
+     *
+     * @param now the current time in milliseconds
+     * @return the idle time in milliseconds
+     */
+    long getIdleMillis(long now)
+    {
+        return now - this.lastReturnedAt;
+    }
+
+    /**
+     * Gets how long ago the physical connection was opened.
+     *
+     * @param now the current time in milliseconds
+     * @return the age in milliseconds
+     */
+    long getAgeMillis(long now)
+    {
+        return now - this.createdAt;
+    }
+
+    // Methods
+
+    /**
+     * Marks the connection as returned to the pool at the current time.
+     */
+    void markReturned()
+    {
+        this.lastReturnedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Restores the session defaults a borrower may have changed so the next
+     * borrower starts from a clean connection.
+     *
+     * @throws SQLException if the connection can no longer be used
+     */
+    void reset() throws SQLException
+    {
+        if (!this.connection.getAutoCommit())
+        {
+            this.connection.rollback();
+            this.connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Closes the physical connection, ignoring any errors.
+     */
+    void closeQuietly()
+    {
+        try
+        {
+            this.connection.close();
+        }
+        catch (SQLException ignored)
+        {
+            // The connection is being discarded anyway.
+        }
+    }
+
+}
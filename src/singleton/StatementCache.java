@@ -0,0 +1,130 @@
+package singleton;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The StatementCache class keeps the prepared statements of one pooled connection
+ * open between uses, keyed by their SQL text, so that repeated queries skip the
+ * parse and plan step on the server. The least recently used statement is closed
+ * once the cache is full.
+ * <p>
+ * A statement is removed from the cache while it is in use and put back when the
+ * caller closes it, so two open statements never share the same parameters.
+ */
+class StatementCache
+{
+
+    // Constructor
+
+    /**
+     * Constructs a new StatementCache.
+     *
+     * @param capacity the maximum number of statements kept open
+     * @param hits the counter shared by every cache in the pool for cache hits
+     * @param misses the counter shared by every cache in the pool for cache misses
+     */
+    StatementCache(int capacity, LongAdder hits, LongAdder misses)
+    {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+
+        statements = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest)
+            {
+                if (size() > StatementCache.this.capacity)
+                {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    // Properties
+
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    // Methods
+
+    /**
+     * Takes the cached statement for the given SQL out of the cache.
+     *
+     * @param query the SQL text
+     * @return the cached statement, or null if none is available
+     */
+    PreparedStatement checkOut(String query)
+    {
+        PreparedStatement statement = statements.remove(query);
+
+        if (statement == null)
+        {
+            misses.increment();
+        }
+        else
+        {
+            hits.increment();
+        }
+
+        return statement;
+    }
+
+    /**
+     * Puts a statement back into the cache after clearing its parameters. The
+     * statement is closed instead if it cannot be reused or the cache already
+     * holds one for the same SQL.
+     *
+     * @param query the SQL text
+     * @param statement the statement to return
+     */
+    void checkIn(String query, PreparedStatement statement)
+    {
+        if (capacity <= 0 || statements.containsKey(query))
+        {
+            closeQuietly(statement);
+            return;
+        }
+
+        try
+        {
+            if (statement.isClosed())
+            {
+                return;
+            }
+
+            statement.clearParameters();
+            statement.clearBatch();
+            statements.put(query, statement);
+        }
+        catch (SQLException ex)
+        {
+            closeQuietly(statement);
+        }
+    }
+
+    // Utilities
+
+    private static void closeQuietly(PreparedStatement statement)
+    {
+        try
+        {
+            statement.close();
+        }
+        catch (SQLException ignored)
+        {
+            // The statement is being discarded anyway.
+        }
+    }
+
+}